@@ -0,0 +1,16 @@
+package tn.esprit.spring.Config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+// Horloge de l'application: remplacée par une horloge fixe dans les tests (voir AcademicCalendar)
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,150 @@
+package tn.esprit.spring.Config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Paramètres du module réservation (préfixe "reservation." dans application.properties)
+@Component
+@ConfigurationProperties(prefix = "reservation")
+@Getter
+@Setter
+public class ReservationProperties {
+    // Nombre de réservations invalidées par transaction lors de l'annulation de fin d'année
+    int tailleLotAnnulation = 1000;
+
+    // Idempotency-Key sur la création de réservation
+    Idempotence idempotence = new Idempotence();
+
+    // Mode asynchrone de réservation (file d'attente + workers), désactivé par défaut
+    Async async = new Async();
+
+    // Archives en colonnes des années closes
+    Archive archive = new Archive();
+
+    // Flux SSE des lits libres (chambre/litsLibres/flux)
+    Flux flux = new Flux();
+
+    // Relais des événements de réservation (table T_EVENEMENT_OUTBOX)
+    Outbox outbox = new Outbox();
+
+    // Mails de confirmation (actifs si spring.mail.host est renseigné)
+    Mail mail = new Mail();
+
+    // Réservation valide de chaque étudiant en mémoire (CIN -> idReservation)
+    CacheActive cacheActive = new CacheActive();
+
+    // Index des chambres libres par foyer, type et année (bitmaps)
+    IndexChambres indexChambres = new IndexChambres();
+
+    // Répartition des chambres par type et par foyer (jauges chambre.repartition.*)
+    RepartitionChambres repartitionChambres = new RepartitionChambres();
+
+    @Getter
+    @Setter
+    public static class Async {
+        boolean enabled = false;
+        // Nombre total de demandes en attente acceptées avant de refuser (HTTP 429)
+        int capacite = 10000;
+        int workers = 4;
+        // Nombre maximal de demandes traitées par un worker en une transaction
+        int tailleLot = 50;
+        // Durée de conservation des tickets traités pour la consultation du statut
+        Duration retentionTickets = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotence {
+        // Nombre maximal de clés gardées en mémoire (les plus anciennes sont évincées)
+        int capacite = 10000;
+        // Durée pendant laquelle une clé renvoie la réponse d'origine
+        Duration ttl = Duration.ofHours(24);
+        // Clés partagées entre instances via la table T_CLE_IDEMPOTENCE
+        boolean persistante = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+        // Répertoire des fichiers reservations-<annee>.col
+        String repertoire = "archives";
+        // Nombre d'années closes gardées en base avant archivage par la tâche planifiée
+        int anneesEnLigne = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class Flux {
+        // Période de diffusion: les changements d'une période sont regroupés en un seul message
+        Duration intervalle = Duration.ofMillis(500);
+        // Messages en attente d'envoi par client; au-delà, le client trop lent est déconnecté
+        int capaciteClient = 16;
+        // Nombre maximal de clients abonnés (HTTP 503 au-delà)
+        int maxAbonnes = 10000;
+        // Durée d'une connexion; le navigateur (EventSource) se reconnecte ensuite
+        Duration timeout = Duration.ofMinutes(30);
+        // Threads d'écriture vers les clients
+        int envoyeurs = 4;
+        // Durée maximale d'un envoi à un client; au-delà, le client est déconnecté et son envoyeur remplacé
+        Duration delaiEnvoi = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+        // Période du relais quand il n'y a plus d'événement à traiter
+        Duration intervalle = Duration.ofSeconds(1);
+        // Événements lus par requête
+        int tailleLot = 100;
+        // Délai avant le premier nouvel essai d'un événement en échec, doublé à chaque échec
+        Duration delaiEssai = Duration.ofSeconds(5);
+        Duration delaiEssaiMax = Duration.ofHours(1);
+        // Tentatives avant abandon de l'événement (gardé en base avec sa dernière erreur)
+        int maxTentatives = 10;
+        // Durée de conservation des événements traités
+        Duration retention = Duration.ofDays(7);
+    }
+
+    @Getter
+    @Setter
+    public static class Mail {
+        String expediteur = "foyer@esprit.tn";
+        // Mails envoyés sur une même connexion SMTP
+        int tailleLot = 50;
+        // Connexions SMTP simultanées
+        int concurrence = 4;
+        // Mails par seconde au plus, tous threads confondus (0: pas de limite)
+        double debit = 0;
+        // Tentatives par lot avant de rendre les mails refusés au relais (qui les reprendra plus tard)
+        int maxTentatives = 3;
+        // Délai avant le premier nouvel essai, doublé à chaque tentative
+        Duration delaiEssai = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class CacheActive {
+        // Nombre maximal d'étudiants gardés (les moins récemment consultés sont évincés)
+        int capacite = 50000;
+        // Durée de vie d'une entrée: rattrape les écritures qui ne passent pas par ReservationService
+        Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class IndexChambres {
+        // Requêtes de comptage lancées en parallèle (tranches d'identifiants de chambre) à la reconstruction
+        int parallelisme = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class RepartitionChambres {
+        // Intervalle entre deux lectures de la répartition en base
+        Duration intervalle = Duration.ofMinutes(5);
+    }
+}
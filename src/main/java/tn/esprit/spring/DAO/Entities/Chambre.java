@@ -28,7 +28,7 @@ public class Chambre implements Serializable {
     @ManyToOne(cascade = CascadeType.ALL)
     @JsonIgnore
     Bloc bloc;
-    @OneToMany
+    @OneToMany(mappedBy = "chambre")
     List<Reservation> reservations= new ArrayList<>();
 
 }
@@ -0,0 +1,34 @@
+package tn.esprit.spring.DAO.Entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Clé Idempotency-Key d'une demande de réservation, partagée entre les instances
+// (reservation.idempotence.persistante=true). La ligne est insérée avant le traitement:
+// une seule instance traite une clé donnée.
+@Entity
+@Table(name = "T_CLE_IDEMPOTENCE")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CleIdempotence implements Serializable {
+    @Id
+    String cle;
+    // Paramètres de la demande ("numChambre:cin"): une clé ne peut pas être réutilisée pour une autre demande
+    String empreinte;
+    // null si la chambre était remplie
+    String idReservation;
+    boolean terminee;
+    LocalDateTime dateCreation;
+    // null tant que la ligne n'est pas insérée: save() fait alors un INSERT (et non un merge),
+    // qui échoue si la clé existe déjà
+    @Version
+    Long version;
+}
@@ -10,7 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "T_ETUDIANT")
+// Les réservations d'un étudiant sont cherchées par CIN
+@Table(name = "T_ETUDIANT", indexes = @Index(name = "idx_etudiant_cin", columnList = "cin"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -25,6 +26,8 @@ public class Etudiant implements Serializable {
     String prenomEt;
     long cin;
     String ecole;
+    // Adresse des mails de confirmation de réservation (aucun mail si absente)
+    String email;
     LocalDate dateNaissance;
     @ManyToMany(mappedBy = "etudiants")
     List<Reservation> reservations= new ArrayList<>();
@@ -0,0 +1,68 @@
+package tn.esprit.spring.DAO.Entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Événement de réservation à relayer (mail, métriques, caches), écrit dans la même transaction
+// que la réservation: il existe si et seulement si la réservation est validée. Le relais
+// (OutboxRelay) le lit par lots et le marque traité une fois tous les traitements réussis.
+// Identifiants tirés d'une séquence pour que les INSERT d'un lot de réservations soient regroupés.
+@Entity
+@Table(name = "T_EVENEMENT_OUTBOX",
+        indexes = @Index(name = "idx_outbox_a_traiter", columnList = "dateTraitement, prochainEssai"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EvenementOutbox implements Serializable {
+
+    public enum Type {
+        // Réservation enregistrée
+        RESERVATION_CREEE,
+        // Réservation annulée à la demande de l'étudiant
+        RESERVATION_ANNULEE,
+        // Réservation invalidée par l'annulation de fin d'année
+        RESERVATION_INVALIDEE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evenement_outbox_seq")
+    @SequenceGenerator(name = "evenement_outbox_seq", sequenceName = "evenement_outbox_seq", allocationSize = 50)
+    long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    Type type;
+    String idReservation;
+    // null si la réservation n'a pas d'étudiant
+    Long cin;
+    // null si la réservation n'a pas de chambre
+    Long idChambre;
+    // Année de début de l'année universitaire de la réservation
+    int annee;
+    LocalDateTime dateCreation;
+    // Date à partir de laquelle le relais (re)traite l'événement
+    LocalDateTime prochainEssai;
+    // null tant que l'événement n'est pas traité (ou abandonné)
+    LocalDateTime dateTraitement;
+    int tentatives;
+    String derniereErreur;
+
+    public static EvenementOutbox of(Type type, String idReservation, Long cin, Long idChambre, int annee) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        return EvenementOutbox.builder()
+                .type(type)
+                .idReservation(idReservation)
+                .cin(cin)
+                .idChambre(idChambre)
+                .annee(annee)
+                .dateCreation(maintenant)
+                .prochainEssai(maintenant)
+                .build();
+    }
+}
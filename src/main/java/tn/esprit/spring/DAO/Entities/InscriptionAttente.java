@@ -0,0 +1,33 @@
+package tn.esprit.spring.DAO.Entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Inscription d'un étudiant sur la liste d'attente d'un foyer, pour un type de chambre et une année.
+// Les listes sont tenues en mémoire (ListeAttente); la table permet de les recharger au redémarrage.
+@Entity
+@Table(name = "T_INSCRIPTION_ATTENTE",
+        indexes = @Index(name = "idx_attente_foyer_type_annee", columnList = "idFoyer, typeC, annee"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InscriptionAttente implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    long idInscription;
+    long cin;
+    // null pour les chambres dont le bloc n'est affecté à aucun foyer
+    Long idFoyer;
+    @Enumerated(EnumType.STRING)
+    TypeChambre typeC;
+    // Année de début de l'année universitaire (2025 pour 2025/2026)
+    int annee;
+    LocalDateTime dateInscription;
+}
@@ -0,0 +1,31 @@
+package tn.esprit.spring.DAO.Entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+
+// Nombre de lits occupés par chambre et par année universitaire.
+// La ligne est incrémentée par un UPDATE conditionnel (occupees < capacite)
+// dans la même transaction que la réservation: deux réservations concurrentes
+// sur la même chambre ne peuvent pas dépasser sa capacité.
+@Entity
+@Table(name = "T_OCCUPATION_CHAMBRE",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"idChambre", "annee"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OccupationChambre implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    long idOccupation;
+    long idChambre;
+    // Année de début de l'année universitaire (2025 pour 2025/2026)
+    int annee;
+    int occupees;
+    int capacite;
+}
@@ -10,8 +10,22 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+// Clé primaire numérique tirée d'une séquence (8 octets, croissante): c'est elle que
+// référencent les tables de jointure et leurs index. Le code lisible
+// (2025/2026-Bloc A-101-12345678) reste unique dans idReservation.
+// La chambre est portée par T_RESERVATION (chambre_id): une réservation s'écrit en un seul INSERT
+// et l'occupation d'une chambre se compte sur l'index (chambre_id, annee_universitaire).
+// anneeAcademique (2025 pour 2025/2026) est la clé de partitionnement de T_RESERVATION sous MySQL
+// (db/migration/reservation-partitions.sql): toutes les requêtes par année la filtrent pour ne lire
+// qu'une partition. MySQL n'accepte pas de clé étrangère sur une table partitionnée, d'où les
+// jointures sans contrainte.
 @Entity
-@Table(name = "T_RESERVATION")
+@Table(name = "T_RESERVATION",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reservation_code", columnNames = {"idReservation", "anneeAcademique"}),
+        indexes = {
+                @Index(name = "idx_reservation_chambre_annee", columnList = "chambre_id, anneeUniversitaire"),
+                @Index(name = "idx_reservation_annee_academique", columnList = "anneeAcademique, estValide")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,11 +34,39 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Reservation implements Serializable {
     @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_seq")
+    @SequenceGenerator(name = "reservation_seq", sequenceName = "reservation_seq", allocationSize = 50)
+    long id;
+    @Column(nullable = false)
     String idReservation;
     LocalDate anneeUniversitaire;
+    // Calculée à partir de anneeUniversitaire à chaque écriture
+    @Setter(AccessLevel.NONE)
+    int anneeAcademique;
     boolean estValide;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "chambre_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @JsonIgnore
+    Chambre chambre;
     @ManyToMany
+    @JoinTable(name = "t_reservation_etudiants",
+            joinColumns = @JoinColumn(name = "reservations_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)),
+            inverseJoinColumns = @JoinColumn(name = "etudiants_id_etudiant"))
     @JsonIgnore
     List<Etudiant> etudiants = new ArrayList<>();
 
+    /**
+     * Année académique d'une date (année de début: 2025 pour une date entre août 2025 et juillet 2026).
+     * Fonction croissante de la date: pour dateInf <= d <= dateSup,
+     * anneeAcademique(dateInf) <= anneeAcademique(d) <= anneeAcademique(dateSup).
+     */
+    public static int anneeAcademique(LocalDate date) {
+        return date.getMonthValue() >= 8 ? date.getYear() : date.getYear() - 1;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void calculerAnneeAcademique() {
+        anneeAcademique = anneeUniversitaire == null ? 0 : anneeAcademique(anneeUniversitaire);
+    }
 }
@@ -1,31 +1,141 @@
 package tn.esprit.spring.DAO.Repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.DAO.Entities.Bloc;
 import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Reservation;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ChambreRepository extends JpaRepository<Chambre, Long> {
     Chambre findByNumeroChambre(long num);
 
+    List<Chambre> findByNumeroChambreIn(Collection<Long> nums);
+
 
     int countByTypeCAndBlocIdBloc(TypeChambre typeChambre, long idBloc);
 
     //********************* Ajouter Reservation *********************
+    // Les comptages par période filtrent aussi r.anneeAcademique (clé de partitionnement de
+    // T_RESERVATION): MySQL ne lit que les partitions des années concernées
     //SQL
-    @Query(value = "select count(*) from t_chambre c " +
-            "join t_chambre_reservations cr on c.id_chambre=cr.chambre_id_chambre " +
-            "join t_reservation r on cr.reservations_id_reservation=r.id_reservation " +
-            "where c.id_chambre=?1 and r.annee_universitaire between ?2 and ?3", nativeQuery = true)
-    int listerReservationPourUneChambre(long idChambre, LocalDate dateDebutAU, LocalDate dateFinAU);
-
-    //Keyword
-    int countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(long chambreId, LocalDate dateDebutAU, LocalDate dateFinAU);
+    default int listerReservationPourUneChambre(long idChambre, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return listerReservationPourUneChambre(idChambre, Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU);
+    }
+
+    @Query(value = "select count(*) from t_reservation r where r.chambre_id=?1 " +
+            "and r.annee_academique between ?2 and ?3 and r.annee_universitaire between ?4 and ?5", nativeQuery = true)
+    int listerReservationPourUneChambre(long idChambre, int anneeInf, int anneeSup,
+                                        LocalDate dateDebutAU, LocalDate dateFinAU);
+
+    //Keyword (requête explicite: comptage sur T_RESERVATION seule, sans jointure avec T_CHAMBRE)
+    default int countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(long chambreId, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return countReservations(chambreId, Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU);
+    }
+
+    @Query("select count(r) from Reservation r where r.chambre.idChambre = ?1 " +
+            "and r.anneeAcademique between ?2 and ?3 and r.anneeUniversitaire between ?4 and ?5")
+    int countReservations(long idChambre, int anneeInf, int anneeSup, LocalDate dateDebutAU, LocalDate dateFinAU);
+
+    // Nombre de réservations par chambre pour une année universitaire (une seule requête groupée)
+    // Chaque ligne: [idChambre, nombreReservations]
+    default List<Object[]> countReservationsParChambre(LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return countReservationsParChambre(Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU);
+    }
+
+    @Query("select r.chambre.idChambre, count(r) from Reservation r where r.chambre is not null " +
+            "and r.anneeAcademique between ?1 and ?2 and r.anneeUniversitaire between ?3 and ?4 " +
+            "group by r.chambre.idChambre")
+    List<Object[]> countReservationsParChambre(int anneeInf, int anneeSup, LocalDate dateDebutAU, LocalDate dateFinAU);
+
+    // Chambres pour l'allocation annuelle, sans charger les entités
+    // Chaque ligne: [idChambre, numeroChambre, typeC, nomBloc, idFoyer]
+    @Query("select c.idChambre, c.numeroChambre, c.typeC, b.nomBloc, f.idFoyer " +
+            "from Chambre c join c.bloc b left join b.foyer f")
+    List<Object[]> findChambresPourAllocation();
+
+    // Réservations par chambre pour une tranche d'identifiants de chambre (bornes incluses): les tranches
+    // sont comptées en parallèle à la reconstruction de l'index des chambres libres
+    // Chaque ligne: [idChambre, nombreReservations]
+    default List<Object[]> countReservationsParChambre(long idMin, long idMax, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return countReservationsParChambre(idMin, idMax, Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU);
+    }
+
+    @Query("select r.chambre.idChambre, count(r) from Reservation r where r.chambre.idChambre between ?1 and ?2 " +
+            "and r.anneeAcademique between ?3 and ?4 and r.anneeUniversitaire between ?5 and ?6 " +
+            "group by r.chambre.idChambre")
+    List<Object[]> countReservationsParChambre(long idMin, long idMax, int anneeInf, int anneeSup,
+                                               LocalDate dateDebutAU, LocalDate dateFinAU);
+
+    // Chambres rattachées à un foyer pour l'index des chambres libres, dans l'ordre (foyer, bloc, numéro)
+    // Chaque ligne: [idChambre, numeroChambre, typeC, idBloc, idFoyer]
+    @Query("select c.idChambre, c.numeroChambre, c.typeC, b.idBloc, f.idFoyer from Chambre c join c.bloc b join b.foyer f " +
+            "order by f.idFoyer, b.idBloc, c.numeroChambre")
+    List<Object[]> findChambresPourIndex();
+
+    // Chambres rattachées à un foyer, pour les lits libres par foyer, bloc et type
+    // Chaque ligne: [idChambre, typeC, nomBloc, nomFoyer]
+    @Query("select c.idChambre, c.typeC, b.nomBloc, f.nomFoyer from Chambre c join c.bloc b join b.foyer f")
+    List<Object[]> findChambresPourDisponibilite();
+
+    // Chambres d'un foyer et d'un type ayant moins de réservations que leur capacité sur la période
+    // (une requête: jointure externe sur les réservations de l'année, regroupement par chambre)
+    // Chaque ligne: [idChambre, numeroChambre, nomBloc, nombreReservations], par numéro de chambre
+    default List<Object[]> findChambresNonReservees(String nomFoyer, TypeChambre type, LocalDate dateDebutAU,
+                                                    LocalDate dateFinAU, Pageable page) {
+        return findChambresNonReservees(nomFoyer, type, (long) type.getCapacite(), Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU, page);
+    }
+
+    @Query("select c.idChambre, c.numeroChambre, b.nomBloc, count(r) from Chambre c join c.bloc b join b.foyer f " +
+            "left join c.reservations r on r.anneeAcademique between ?4 and ?5 and r.anneeUniversitaire between ?6 and ?7 " +
+            "where f.nomFoyer = ?1 and c.typeC = ?2 " +
+            "group by c.idChambre, c.numeroChambre, b.nomBloc having count(r) < ?3 order by c.numeroChambre")
+    List<Object[]> findChambresNonReservees(String nomFoyer, TypeChambre type, long capacite, int anneeInf, int anneeSup,
+                                            LocalDate dateDebutAU, LocalDate dateFinAU, Pageable page);
+
+    // Nombre de chambres par foyer et par type (une seule requête groupée; foyer à null pour les chambres
+    // sans bloc ou dont le bloc n'est pas rattaché)
+    // Chaque ligne: [nomFoyer, typeC, nombreChambres]
+    @Query("select f.nomFoyer, c.typeC, count(c) from Chambre c left join c.bloc b left join b.foyer f " +
+            "group by f.nomFoyer, c.typeC")
+    List<Object[]> countChambresParFoyerEtType();
+
+    // Réservations valides de chaque chambre sur la période, éventuellement pour un foyer et/ou un bloc
+    // (une requête groupée, lue au fil de l'eau: à consommer dans une transaction et à fermer)
+    // Chaque ligne: [idChambre, numeroChambre, typeC, idBloc, nomBloc, idFoyer, nomFoyer, nombreReservations],
+    // par identifiant de chambre
+    default Stream<Object[]> streamReservationsParChambre(Long idFoyer, Long idBloc, LocalDate dateDebutAU,
+                                                          LocalDate dateFinAU) {
+        return streamReservationsParChambre(idFoyer, idBloc, Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU);
+    }
+
+    // Lignes lues par paquets de 1000 (MySQL: ajouter useCursorFetch=true à l'URL pour un curseur côté serveur)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.idChambre, c.numeroChambre, c.typeC, b.idBloc, b.nomBloc, f.idFoyer, f.nomFoyer, count(r) " +
+            "from Chambre c left join c.bloc b left join b.foyer f " +
+            "left join c.reservations r on r.estValide = true and r.anneeAcademique between ?3 and ?4 " +
+            "and r.anneeUniversitaire between ?5 and ?6 " +
+            "where (?1 is null or f.idFoyer = ?1) and (?2 is null or b.idBloc = ?2) " +
+            "group by c.idChambre, c.numeroChambre, c.typeC, b.idBloc, b.nomBloc, f.idFoyer, f.nomFoyer " +
+            "order by c.idChambre")
+    Stream<Object[]> streamReservationsParChambre(Long idFoyer, Long idBloc, int anneeInf, int anneeSup,
+                                                  LocalDate dateDebutAU, LocalDate dateFinAU);
 
     //*****************************************************************
     Chambre findByReservationsIdReservation(String idReservation);
@@ -34,7 +144,15 @@ public interface ChambreRepository extends JpaRepository<Chambre, Long> {
 
     long countChambreByTypeC(TypeChambre typeChambre);
 
-    long countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(long idChambre, boolean estValide, LocalDate dateDebut, LocalDate dateFin);
+    default long countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(long idChambre, boolean estValide, LocalDate dateDebut, LocalDate dateFin) {
+        return countReservations(idChambre, estValide, Reservation.anneeAcademique(dateDebut),
+                Reservation.anneeAcademique(dateFin), dateDebut, dateFin);
+    }
+
+    @Query("select count(r) from Reservation r where r.chambre.idChambre = ?1 and r.estValide = ?2 " +
+            "and r.anneeAcademique between ?3 and ?4 and r.anneeUniversitaire between ?5 and ?6")
+    long countReservations(long idChambre, boolean estValide, int anneeInf, int anneeSup,
+                           LocalDate dateDebut, LocalDate dateFin);
 //    List<Chambre> findAllByNumeroChambre(List<Long> num);
 
     List<Chambre> findByBlocNomBloc(String nomB);
@@ -51,5 +169,10 @@ public interface ChambreRepository extends JpaRepository<Chambre, Long> {
     @Query("select count(c) from Chambre c where c.typeC=?1 and c.bloc.idBloc=?2")
     long select(TypeChambre typeChambre, long idBloc);
 
+    // Nombre de chambres par bloc et par type (une seule requête groupée)
+    // Chaque ligne: [idBloc, typeC, nombreChambres]
+    @Query("select c.bloc.idBloc, c.typeC, count(c) from Chambre c where c.bloc is not null group by c.bloc.idBloc, c.typeC")
+    List<Object[]> countChambresParBlocEtType();
+
 
 }
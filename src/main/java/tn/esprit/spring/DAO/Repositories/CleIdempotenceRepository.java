@@ -0,0 +1,23 @@
+package tn.esprit.spring.DAO.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.DAO.Entities.CleIdempotence;
+
+import java.time.LocalDateTime;
+
+public interface CleIdempotenceRepository extends JpaRepository<CleIdempotence, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update CleIdempotence c set c.idReservation = ?2, c.terminee = true, c.version = c.version + 1 " +
+            "where c.cle = ?1")
+    int terminer(String cle, String idReservation);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CleIdempotence c where c.dateCreation < ?1")
+    int supprimerExpirees(LocalDateTime limite);
+}
@@ -5,8 +5,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.Reservation;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
@@ -66,6 +68,22 @@ public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
     //select * from Etudiant where cin=...
     Etudiant findByCin(long cin);
 
+    List<Etudiant> findByCinIn(Collection<Long> cins);
+
+    // Chaque ligne: [cin, idEtudiant]
+    @Query("select e.cin, e.idEtudiant from Etudiant e where e.cin in ?1")
+    List<Object[]> findIdsByCinIn(Collection<Long> cins);
+
+    default List<Long> findCinsAvecReservation(LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return findCinsAvecReservation(Reservation.anneeAcademique(dateDebutAU),
+                Reservation.anneeAcademique(dateFinAU), dateDebutAU, dateFinAU);
+    }
+
+    // anneeAcademique: clé de partitionnement de T_RESERVATION
+    @Query("select distinct e.cin from Etudiant e join e.reservations r " +
+            "where r.anneeAcademique between ?1 and ?2 and r.anneeUniversitaire between ?3 and ?4")
+    List<Long> findCinsAvecReservation(int anneeInf, int anneeSup, LocalDate dateDebutAU, LocalDate dateFinAU);
+
     // select * from Etudiant where nomEt like ...
     List<Etudiant> findByNomEtLike(String nom);
 
@@ -75,7 +93,7 @@ public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
 
     @Query(value = "select e from t_etudiant e " +
             "           join t_reservation_etudiants re on e.id_etudiant=re.etudiants_id_etudiant" +
-            "           join t_reservation r on r.id_reservation= re.reservations_id_reservation" +
+            "           join t_reservation r on r.id= re.reservations_id" +
             "           where r.est_valide=?1 ", nativeQuery = true)
     List<Etudiant> e5erMethodeSQL(boolean estValide);
 
@@ -0,0 +1,41 @@
+package tn.esprit.spring.DAO.Repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EvenementOutboxRepository extends JpaRepository<EvenementOutbox, Long> {
+
+    // Lot d'événements à relayer, dans l'ordre d'écriture (index idx_outbox_a_traiter)
+    @Query("select e from EvenementOutbox e where e.dateTraitement is null and e.prochainEssai <= ?1 order by e.id")
+    List<EvenementOutbox> findATraiter(LocalDateTime maintenant, Pageable lot);
+
+    long countByDateTraitementIsNull();
+
+    @Query("select min(e.dateCreation) from EvenementOutbox e where e.dateTraitement is null")
+    LocalDateTime findPlusAncienneCreationNonTraitee();
+
+    @Transactional
+    @Modifying
+    @Query("update EvenementOutbox e set e.dateTraitement = ?2 where e.id in ?1")
+    int marquerTraites(Collection<Long> ids, LocalDateTime dateTraitement);
+
+    // Échec d'un traitement: nouvel essai à prochainEssai, ou abandon si dateTraitement est renseignée
+    @Transactional
+    @Modifying
+    @Query("update EvenementOutbox e set e.tentatives = ?2, e.derniereErreur = ?3, e.prochainEssai = ?4, " +
+            "e.dateTraitement = ?5 where e.id = ?1")
+    int enregistrerEchec(long id, int tentatives, String erreur, LocalDateTime prochainEssai, LocalDateTime dateTraitement);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EvenementOutbox e where e.dateTraitement < ?1")
+    int supprimerTraitesAvant(LocalDateTime limite);
+}
@@ -0,0 +1,13 @@
+package tn.esprit.spring.DAO.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import tn.esprit.spring.DAO.Entities.InscriptionAttente;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+import java.util.List;
+
+public interface InscriptionAttenteRepository extends JpaRepository<InscriptionAttente, Long> {
+
+    // idFoyer null: inscriptions des chambres sans foyer (IS NULL)
+    List<InscriptionAttente> findByIdFoyerAndTypeCAndAnnee(Long idFoyer, TypeChambre typeC, int annee);
+}
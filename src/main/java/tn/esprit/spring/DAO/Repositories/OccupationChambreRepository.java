@@ -0,0 +1,37 @@
+package tn.esprit.spring.DAO.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import tn.esprit.spring.DAO.Entities.OccupationChambre;
+
+public interface OccupationChambreRepository extends JpaRepository<OccupationChambre, Long> {
+
+    boolean existsByIdChambreAndAnnee(long idChambre, int annee);
+
+    OccupationChambre findByIdChambreAndAnnee(long idChambre, int annee);
+
+    // Crée la ligne si elle n'existe pas, sans effet si une autre transaction l'a déjà créée
+    // (INSERT ... ON DUPLICATE KEY UPDATE: pas d'erreur de doublon, pas de verrou de trou posé avant l'insertion)
+    @Modifying
+    @Query(value = "insert into t_occupation_chambre (id_chambre, annee, occupees, capacite) values (?1, ?2, ?3, ?4) " +
+            "on duplicate key update occupees = occupees", nativeQuery = true)
+    int creerSiAbsente(long idChambre, int annee, int occupees, int capacite);
+
+    // Retourne 1 si les nb lits ont été pris, 0 si la chambre n'en a plus assez (ou la ligne absente)
+    @Modifying
+    @Query("update OccupationChambre o set o.occupees = o.occupees + ?3 " +
+            "where o.idChambre = ?1 and o.annee = ?2 and o.occupees + ?3 <= o.capacite")
+    int occuperPlaces(long idChambre, int annee, int nb);
+
+    // Affectation manuelle: pas de contrôle de capacité
+    @Modifying
+    @Query("update OccupationChambre o set o.occupees = o.occupees + 1 " +
+            "where o.idChambre = ?1 and o.annee = ?2")
+    int ajouterPlace(long idChambre, int annee);
+
+    @Modifying
+    @Query("update OccupationChambre o set o.occupees = o.occupees - 1 " +
+            "where o.idChambre = ?1 and o.annee = ?2 and o.occupees > 0")
+    int libererPlace(long idChambre, int annee);
+}
@@ -0,0 +1,72 @@
+package tn.esprit.spring.DAO.Repositories;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.Reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Insertion des réservations en lot pour les imports de promotions entières.
+// Les réservations passent par Hibernate (identifiants tirés de la séquence par blocs,
+// INSERT regroupés selon hibernate.jdbc.batch_size), la chambre est leur clé étrangère.
+// Avec MySQL, ajouter rewriteBatchedStatements=true à l'URL pour que chaque lot
+// parte en une seule requête multi-lignes.
+@Repository
+@AllArgsConstructor
+public class ReservationBatchRepository {
+    JdbcTemplate jdbcTemplate;
+    EntityManager entityManager;
+
+    /**
+     * Insère les réservations (avec leur chambre) et leurs étudiants.
+     *
+     * @param reservationsParChambre idChambre -> réservations (avec leurs étudiants) de cette chambre
+     */
+    public void insererReservations(Map<Long, List<Reservation>> reservationsParChambre) {
+        reservationsParChambre.forEach((idChambre, liste) -> {
+            Chambre chambre = entityManager.getReference(Chambre.class, idChambre);
+            for (Reservation r : liste) {
+                // Références sans SELECT: seuls les identifiants de la chambre et des étudiants sont écrits
+                List<Etudiant> etudiants = new ArrayList<>();
+                for (Etudiant e : r.getEtudiants()) {
+                    etudiants.add(entityManager.getReference(Etudiant.class, e.getIdEtudiant()));
+                }
+                r.setEtudiants(etudiants);
+                r.setChambre(chambre);
+                entityManager.persist(r);
+            }
+        });
+        entityManager.flush();
+    }
+
+    /**
+     * Ajoute des lits occupés aux lignes d'occupation existantes, sans dépasser leur capacité.
+     *
+     * @return les chambres dont la ligne n'a pas été mise à jour (ligne absente ou chambre remplie)
+     */
+    public List<Long> ajouterOccupations(Map<Long, Integer> placesParChambre, int annee) {
+        List<Long> ids = new ArrayList<>(placesParChambre.keySet());
+        List<Object[]> parametres = new ArrayList<>();
+        for (Long idChambre : ids) {
+            int nb = placesParChambre.get(idChambre);
+            parametres.add(new Object[]{nb, idChambre, annee, nb});
+        }
+        int[] lignes = jdbcTemplate.batchUpdate("update t_occupation_chambre " +
+                "set occupees = occupees + ? " +
+                "where id_chambre = ? and annee = ? and occupees + ? <= capacite", parametres);
+        List<Long> nonMisesAJour = new ArrayList<>();
+        for (int i = 0; i < lignes.length; i++) {
+            // Statement.SUCCESS_NO_INFO (-2) quand le pilote réécrit le lot: considéré comme mis à jour
+            if (lignes[i] == 0) {
+                nonMisesAJour.add(ids.get(i));
+            }
+        }
+        return nonMisesAJour;
+    }
+}
@@ -0,0 +1,135 @@
+package tn.esprit.spring.DAO.Repositories;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Partitions annuelles de T_RESERVATION (PARTITION BY RANGE (annee_academique), voir
+// db/migration/reservation-partitions.sql). Sans partitionnement (H2 des tests, MySQL non migré),
+// le détachement recopie les lignes de l'année dans les tables d'archive puis les supprime.
+@Repository
+@AllArgsConstructor
+public class ReservationPartitionRepository {
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return true si T_RESERVATION est partitionnée (MySQL uniquement)
+     */
+    public boolean estPartitionnee() {
+        String produit = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(produit)) {
+            return false;
+        }
+        Integer partitions = jdbcTemplate.queryForObject("select count(*) from information_schema.partitions " +
+                "where table_schema = database() and table_name = 't_reservation' and partition_name is not null",
+                Integer.class);
+        return partitions != null && partitions > 0;
+    }
+
+    public boolean partitionExiste(int annee) {
+        Integer partitions = jdbcTemplate.queryForObject("select count(*) from information_schema.partitions " +
+                "where table_schema = database() and table_name = 't_reservation' and partition_name = ?",
+                Integer.class, "p" + annee);
+        return partitions != null && partitions > 0;
+    }
+
+    /**
+     * Crée la partition d'une année en la séparant de pmax (aucune action sans partitionnement).
+     *
+     * @return true si la partition a été créée
+     */
+    public boolean creerPartition(int annee) {
+        if (!estPartitionnee() || partitionExiste(annee)) {
+            return false;
+        }
+        jdbcTemplate.execute("alter table t_reservation reorganize partition pmax into (" +
+                "partition p" + annee + " values less than (" + (annee + 1) + "), " +
+                "partition pmax values less than maxvalue)");
+        return true;
+    }
+
+    /**
+     * Sort les réservations d'une année (et leurs lignes étudiants) des tables vivantes vers
+     * t_reservation_&lt;annee&gt; et t_reservation_etudiants_&lt;annee&gt;.
+     * <p>
+     * Non atomique: sous MySQL chaque CREATE/ALTER TABLE valide la transaction en cours.
+     * Chaque étape peut donc être rejouée: les tables d'archive ne sont créées que si elles
+     * n'existent pas, seules les lignes absentes de l'archive y sont copiées, et seules les
+     * lignes présentes dans l'archive sont supprimées. Après une interruption, relancer le
+     * détachement termine le travail.
+     *
+     * @return le nombre de réservations détachées par cet appel
+     */
+    public int detacherAnnee(int annee) {
+        // L'année est un entier: pas d'injection possible dans les noms de tables
+        String reservations = "t_reservation_" + annee;
+        String etudiants = "t_reservation_etudiants_" + annee;
+
+        jdbcTemplate.execute("create table if not exists " + etudiants + " as " +
+                "select * from t_reservation_etudiants where 1 = 0");
+        jdbcTemplate.update("insert into " + etudiants + " " +
+                "select je.* from t_reservation_etudiants je join t_reservation r on r.id = je.reservations_id " +
+                "where r.annee_academique = ? and not exists (select 1 from " + etudiants + " a " +
+                "where a.reservations_id = je.reservations_id and a.etudiants_id_etudiant = je.etudiants_id_etudiant)",
+                annee);
+        verifierCopie("select count(*) from t_reservation_etudiants je join t_reservation r on r.id = je.reservations_id " +
+                "where r.annee_academique = ? and not exists (select 1 from " + etudiants + " a " +
+                "where a.reservations_id = je.reservations_id and a.etudiants_id_etudiant = je.etudiants_id_etudiant)",
+                etudiants, annee);
+        jdbcTemplate.update("delete from t_reservation_etudiants where reservations_id in " +
+                "(select r.id from t_reservation r where r.annee_academique = ?) and exists (select 1 from " + etudiants +
+                " a where a.reservations_id = t_reservation_etudiants.reservations_id " +
+                "and a.etudiants_id_etudiant = t_reservation_etudiants.etudiants_id_etudiant)", annee);
+
+        if (estPartitionnee() && partitionExiste(annee)) {
+            return echangerPartition(annee, reservations);
+        }
+        jdbcTemplate.execute("create table if not exists " + reservations + " as " +
+                "select * from t_reservation where 1 = 0");
+        jdbcTemplate.update("insert into " + reservations + " select * from t_reservation r " +
+                "where r.annee_academique = ? and not exists (select 1 from " + reservations + " a where a.id = r.id)",
+                annee);
+        verifierCopie("select count(*) from t_reservation r where r.annee_academique = ? " +
+                "and not exists (select 1 from " + reservations + " a where a.id = r.id)", reservations, annee);
+        return jdbcTemplate.update("delete from t_reservation where annee_academique = ? " +
+                "and id in (select a.id from " + reservations + " a)", annee);
+    }
+
+    // Échange de partition: les lignes changent de table sans être recopiées
+    private int echangerPartition(int annee, String reservations) {
+        Integer partition = jdbcTemplate.queryForObject(
+                "select count(*) from t_reservation where annee_academique = ?", Integer.class, annee);
+        if (!tableExiste(reservations)) {
+            jdbcTemplate.execute("create table " + reservations + " like t_reservation");
+            jdbcTemplate.execute("alter table " + reservations + " remove partitioning");
+        }
+        Integer archive = jdbcTemplate.queryForObject("select count(*) from " + reservations, Integer.class);
+        if (archive != null && archive > 0) {
+            // Un échange déjà fait laisse la partition vide: le refaire remettrait les lignes en place
+            if (partition != null && partition > 0) {
+                throw new IllegalStateException("Partition p" + annee + " et table " + reservations
+                        + " toutes deux non vides: détachement à reprendre manuellement");
+            }
+        } else {
+            jdbcTemplate.execute("alter table t_reservation exchange partition p" + annee + " with table " + reservations);
+        }
+        jdbcTemplate.execute("alter table t_reservation drop partition p" + annee);
+        return partition == null ? 0 : partition;
+    }
+
+    private boolean tableExiste(String table) {
+        Integer tables = jdbcTemplate.queryForObject("select count(*) from information_schema.tables " +
+                "where table_schema = database() and table_name = ?", Integer.class, table);
+        return tables != null && tables > 0;
+    }
+
+    // Aucune ligne n'est supprimée des tables vivantes tant qu'elle n'est pas dans l'archive
+    private void verifierCopie(String manquantes, String archive, int annee) {
+        Integer nb = jdbcTemplate.queryForObject(manquantes, Integer.class, annee);
+        if (nb != null && nb > 0) {
+            throw new IllegalStateException(nb + " ligne(s) de l'année " + annee + " absente(s) de " + archive
+                    + " après la copie: suppression annulée");
+        }
+    }
+}
@@ -1,14 +1,106 @@
 package tn.esprit.spring.DAO.Repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.DAO.Entities.Reservation;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    Optional<Reservation> findByIdReservation(String idReservation);
+
+    List<Reservation> findByIdReservationIn(Collection<String> idsReservations);
+
+    @Transactional
+    void deleteByIdReservation(String idReservation);
+
+    // Les requêtes par période filtrent aussi anneeAcademique (clé de partitionnement):
+    // MySQL ne lit que les partitions des années concernées
+    default int countByAnneeUniversitaireBetween(LocalDate dateInf, LocalDate dateSup) {
+        return countByAnneeAcademiqueBetweenAndAnneeUniversitaireBetween(
+                Reservation.anneeAcademique(dateInf), Reservation.anneeAcademique(dateSup), dateInf, dateSup);
+    }
+
+    int countByAnneeAcademiqueBetweenAndAnneeUniversitaireBetween(int anneeInf, int anneeSup,
+                                                                   LocalDate dateInf, LocalDate dateSup);
+
+    // Nombre de réservations par jour (anneeUniversitaire): chargement de IndexReservationsJours
+    // Chaque ligne: [anneeUniversitaire, nombre]
+    @Query("select r.anneeUniversitaire, count(r) from Reservation r where r.anneeUniversitaire is not null " +
+            "group by r.anneeUniversitaire")
+    List<Object[]> countParJour();
 
-public interface ReservationRepository extends JpaRepository<Reservation, String> {
-    int countByAnneeUniversitaireBetween(LocalDate dateInf, LocalDate dateSup);
     Reservation findByEtudiantsCinAndEstValide(long cin,boolean isValid);
-    List<Reservation> findByEstValideAndAnneeUniversitaireBetween(boolean estValide, LocalDate dateDebut, LocalDate dateFin);
 
+    // Code de la réservation valide d'un étudiant (la plus récente, comme pour l'annulation)
+    @Query("select r.idReservation from Reservation r join r.etudiants e where e.cin = ?1 and r.estValide = true " +
+            "order by r.anneeUniversitaire desc, r.id desc")
+    List<String> findIdsReservationValide(long cin, Pageable premiere);
+
+    default List<Reservation> findByEstValideAndAnneeUniversitaireBetween(boolean estValide, LocalDate dateDebut, LocalDate dateFin) {
+        return findByEstValideAndAnneeAcademiqueBetweenAndAnneeUniversitaireBetween(estValide,
+                Reservation.anneeAcademique(dateDebut), Reservation.anneeAcademique(dateFin), dateDebut, dateFin);
+    }
+
+    List<Reservation> findByEstValideAndAnneeAcademiqueBetweenAndAnneeUniversitaireBetween(
+            boolean estValide, int anneeInf, int anneeSup, LocalDate dateDebut, LocalDate dateFin);
+
+    // Identifiants d'un lot de réservations valides de l'année (ordre fixe pour verrouiller toujours dans le même ordre)
+    default List<Long> findIdsReservationsValides(LocalDate dateDebut, LocalDate dateFin, Pageable lot) {
+        return findIdsReservationsValides(Reservation.anneeAcademique(dateDebut), Reservation.anneeAcademique(dateFin),
+                dateDebut, dateFin, lot);
+    }
+
+    @Query("select r.id from Reservation r where r.estValide = true and r.anneeAcademique between ?1 and ?2 " +
+            "and r.anneeUniversitaire between ?3 and ?4 order by r.id")
+    List<Long> findIdsReservationsValides(int anneeInf, int anneeSup, LocalDate dateDebut, LocalDate dateFin, Pageable lot);
+
+    // Annulation ciblée: réservation valide d'un étudiant avec ce qu'il faut de sa chambre,
+    // sans charger l'entité Chambre ni sa liste de réservations (la plus récente d'abord)
+    // Chaque ligne: [id, idReservation, anneeUniversitaire, idChambre, numeroChambre, typeC, idFoyer]
+    @Query("select r.id, r.idReservation, r.anneeUniversitaire, c.idChambre, c.numeroChambre, c.typeC, f.idFoyer " +
+            "from Reservation r join r.etudiants e left join r.chambre c left join c.bloc b left join b.foyer f " +
+            "where e.cin = ?1 and r.estValide = true order by r.anneeUniversitaire desc, r.id desc")
+    List<Object[]> findReservationValideAAnnuler(long cin, Pageable premiere);
+
+    // Hibernate supprime d'abord les lignes de t_reservation_etudiants de la réservation
+    @Modifying
+    @Query("delete from Reservation r where r.id = ?1")
+    int supprimerReservation(long id);
+
+    // Une transaction courte par lot
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Reservation r set r.estValide = false where r.id in ?1 and r.estValide = true")
+    int invaliderReservations(Collection<Long> ids);
+
+    // Événements outbox d'un lot de réservations valides: une ligne par (réservation, étudiant)
+    // Chaque ligne: [idReservation, cin, idChambre]
+    @Query("select r.idReservation, e.cin, c.idChambre from Reservation r left join r.etudiants e " +
+            "left join r.chambre c where r.id in ?1 and r.estValide = true order by r.id")
+    List<Object[]> findPourEvenements(Collection<Long> ids);
+
+    // Archivage d'une année close: une ligne par (réservation, étudiant), dans l'ordre des identifiants
+    // Chaque ligne: [id, idReservation, anneeUniversitaire, estValide, cin, numeroChambre, typeC, nomBloc]
+    @Query("select r.id, r.idReservation, r.anneeUniversitaire, r.estValide, e.cin, c.numeroChambre, c.typeC, b.nomBloc " +
+            "from Reservation r left join r.etudiants e left join r.chambre c left join c.bloc b " +
+            "where r.anneeAcademique = ?1 order by r.id, e.cin")
+    List<Object[]> findPourArchive(int anneeAcademique);
+
+    // Les réservations sans date (annee_academique = 0) ne relèvent d'aucune année: jamais archivées
+    @Query("select distinct r.anneeAcademique from Reservation r where r.anneeAcademique > 0 and r.anneeAcademique < ?1 " +
+            "order by r.anneeAcademique")
+    List<Integer> findAnneesAcademiquesAvant(int anneeAcademique);
+
+    // Hibernate supprime d'abord les lignes de t_reservation_etudiants des réservations concernées
+    @Transactional
+    @Modifying
+    @Query("delete from Reservation r where r.anneeAcademique = ?1")
+    int supprimerAnnee(int anneeAcademique);
 }
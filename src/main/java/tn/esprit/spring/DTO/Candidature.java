@@ -0,0 +1,21 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Candidature d'un étudiant à l'allocation annuelle des chambres
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class Candidature {
+    long cin;
+    // Plus la priorité est élevée, plus l'étudiant est servi tôt
+    int priorite;
+    // Les étudiants d'un même groupe sont logés ensemble si possible (null: pas de groupe)
+    String groupe;
+    // Foyer souhaité (null: indifférent)
+    Long idFoyer;
+}
@@ -0,0 +1,20 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+// Chambre ayant encore des lits libres pour l'année universitaire en cours (sans charger l'entité)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ChambreNonReservee {
+    long idChambre;
+    long numeroChambre;
+    TypeChambre typeC;
+    String nomBloc;
+    int placesLibres;
+}
@@ -0,0 +1,25 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+import java.util.Map;
+
+// Message du flux des lits libres: nouvelle valeur et variation depuis le message précédent
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ChangementLitsLibres {
+    int annee;
+    String nomFoyer;
+    TypeChambre typeC;
+    int litsLibres;
+    // 0 pour le premier message d'un abonnement
+    int variation;
+    Map<String, Integer> parBloc;
+    long version;
+}
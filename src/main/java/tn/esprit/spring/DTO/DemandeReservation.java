@@ -0,0 +1,16 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Une ligne de réservation en lot: la chambre demandée et le CIN de l'étudiant
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DemandeReservation {
+    Long numChambre;
+    long cin;
+}
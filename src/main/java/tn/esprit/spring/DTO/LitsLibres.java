@@ -0,0 +1,26 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+import java.util.Map;
+
+// Lits libres d'un type dans un foyer pour l'année universitaire en cours (photo immuable)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LitsLibres {
+    // Année de début de l'année universitaire
+    int annee;
+    String nomFoyer;
+    TypeChambre typeC;
+    int litsLibres;
+    // nomBloc -> lits libres
+    Map<String, Integer> parBloc;
+    // Version de la photo: croît à chaque modification des lits libres de ce foyer et de ce type
+    long version;
+}
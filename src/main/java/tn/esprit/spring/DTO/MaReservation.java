@@ -0,0 +1,18 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Statut de la réservation d'un étudiant ("ma réservation")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MaReservation {
+    long cin;
+    boolean active;
+    // Code de la réservation valide, null si l'étudiant n'en a pas
+    String idReservation;
+}
@@ -0,0 +1,25 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+// Ligne du rapport des places libres par chambre pour l'année universitaire en cours
+// (bloc et foyer à null pour une chambre non rattachée)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PlacesLibresChambre {
+    long idChambre;
+    long numeroChambre;
+    TypeChambre typeC;
+    Long idBloc;
+    String nomBloc;
+    Long idFoyer;
+    String nomFoyer;
+    int reservations;
+    int placesLibres;
+}
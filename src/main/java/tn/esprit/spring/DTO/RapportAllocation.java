@@ -0,0 +1,23 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RapportAllocation {
+    boolean simulation;
+    int candidatures;
+    int affectes;
+    int dejaReserves;
+    int groupesSepares;
+    List<Long> nonAffectes;
+    List<Long> etudiantsInconnus;
+    long dureeCalculMs;
+}
@@ -0,0 +1,27 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Réservation lue dans une archive d'année close (sans accès à la base)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReservationArchivee {
+    long id;
+    String idReservation;
+    LocalDate anneeUniversitaire;
+    boolean estValide;
+    List<Long> cins;
+    // null si la réservation n'avait plus de chambre
+    Long numeroChambre;
+    TypeChambre typeC;
+    String nomBloc;
+}
@@ -0,0 +1,19 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Résultat d'une ligne de réservation en lot, dans l'ordre des demandes
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ResultatReservation {
+    Long numChambre;
+    long cin;
+    StatutReservation statut;
+    // Renseigné uniquement pour les réservations acceptées
+    String idReservation;
+}
@@ -0,0 +1,23 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+import java.util.Map;
+
+// Agrégats d'une année archivée
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StatistiquesArchive {
+    int anneeAcademique;
+    int reservations;
+    int valides;
+    // Réservations par bloc (clé "" pour les réservations sans chambre)
+    Map<String, Long> parBloc;
+    Map<TypeChambre, Long> parTypeChambre;
+}
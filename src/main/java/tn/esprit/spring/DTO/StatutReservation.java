@@ -0,0 +1,5 @@
+package tn.esprit.spring.DTO;
+
+public enum StatutReservation {
+    ACCEPTEE, CHAMBRE_REMPLIE, CHAMBRE_INTROUVABLE, ETUDIANT_INTROUVABLE, DEJA_RESERVEE
+}
@@ -0,0 +1,5 @@
+package tn.esprit.spring.DTO;
+
+public enum StatutTicket {
+    EN_ATTENTE, TRAITE, ECHEC
+}
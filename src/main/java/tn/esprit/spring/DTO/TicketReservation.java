@@ -0,0 +1,23 @@
+package tn.esprit.spring.DTO;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+// Ticket d'une demande de réservation asynchrone; remplacé (non modifié) à chaque changement de statut
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TicketReservation {
+    String idTicket;
+    Long numChambre;
+    long cin;
+    StatutTicket statut;
+    // Renseigné une fois la demande traitée
+    ResultatReservation resultat;
+    Instant dateSoumission;
+    Instant dateTraitement;
+}
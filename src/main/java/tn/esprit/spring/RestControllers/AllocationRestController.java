@@ -0,0 +1,23 @@
+package tn.esprit.spring.RestControllers;
+
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.DTO.RapportAllocation;
+import tn.esprit.spring.Services.Allocation.IAllocationService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("allocation")
+@AllArgsConstructor
+public class AllocationRestController {
+    IAllocationService service;
+
+    // Allocation annuelle des chambres (administration); simulation=true calcule sans enregistrer
+    @PostMapping("allouer")
+    RapportAllocation allouer(@RequestBody List<Candidature> candidatures,
+                              @RequestParam(defaultValue = "false") boolean simulation) {
+        return service.allouer(candidatures, simulation);
+    }
+}
@@ -1,18 +1,38 @@
 package tn.esprit.spring.RestControllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ChambreNonReservee;
+import tn.esprit.spring.DTO.LitsLibres;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Chambre.DisponibiliteFlux;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
 import tn.esprit.spring.Services.Chambre.IChambreService;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("chambre")
 @AllArgsConstructor
 public class ChambreRestController {
     IChambreService service;
+    DisponibiliteLits disponibilite;
+    DisponibiliteFlux flux;
+    IndexChambresLibres indexChambresLibres;
+    AcademicCalendar calendrier;
+    ObjectMapper objectMapper;
 
     @PostMapping("addOrUpdate")
     Chambre addOrUpdate(@RequestBody Chambre c) {
@@ -49,8 +69,57 @@ public class ChambreRestController {
         return service.nbChambreParTypeEtBloc(type, idBloc);
     }
 
+    // Nombre de chambres de chaque type, pour tous les blocs: idBloc -> (type -> nombre)
+    @GetMapping("nbChambresParBlocEtType")
+    Map<Long, Map<TypeChambre, Long>> nbChambresParBlocEtType() {
+        return service.nbChambresParBlocEtType();
+    }
+
+    // Chambres ayant des lits libres pour l'année en cours, par numéro de chambre et par page
     @GetMapping("getChambresNonReserveParNomFoyerEtTypeChambre")
-    List<Chambre> getChambresNonReserveParNomFoyerEtTypeChambre(@RequestParam String nomFoyer,@RequestParam TypeChambre type){
-        return service.getChambresNonReserveParNomFoyerEtTypeChambre(nomFoyer,type);
+    List<ChambreNonReservee> getChambresNonReserveParNomFoyerEtTypeChambre(@RequestParam String nomFoyer,
+                                                                          @RequestParam TypeChambre type,
+                                                                          @RequestParam(defaultValue = "0") int page,
+                                                                          @RequestParam(defaultValue = "100") int taille) {
+        return service.getChambresNonReserveParNomFoyerEtTypeChambre(nomFoyer, type, page, taille);
+    }
+
+    // Numéros des chambres ayant un lit libre pour l'année en cours (index en mémoire), éventuellement dans un bloc
+    @GetMapping("chambresLibres")
+    List<Long> chambresLibres(@RequestParam long idFoyer, @RequestParam TypeChambre type,
+                              @RequestParam(required = false) Long idBloc) {
+        return indexChambresLibres.chambresLibres(idFoyer, type, calendrier.anneeEnCours().cle(), idBloc);
+    }
+
+    // Rapport des places libres par chambre pour l'année en cours, une ligne JSON par chambre (NDJSON),
+    // écrit au fil de la lecture de la base; filtres facultatifs par foyer et par bloc
+    @GetMapping(value = "placesLibres", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> placesLibres(@RequestParam(required = false) Long idFoyer,
+                                                       @RequestParam(required = false) Long idBloc) {
+        StreamingResponseBody rapport = sortie -> service.placesLibresParChambre(idFoyer, idBloc, ligne -> {
+            try {
+                sortie.write(objectMapper.writeValueAsBytes(ligne));
+                sortie.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(rapport);
+    }
+
+    // Nombre de lits libres servi depuis la mémoire; l'ETag (version) permet une réponse 304 sans contenu
+    @GetMapping("litsLibres")
+    LitsLibres litsLibres(@RequestParam String nomFoyer, @RequestParam TypeChambre type, WebRequest requete) {
+        LitsLibres litsLibres = disponibilite.litsLibres(nomFoyer, type);
+        if (requete.checkNotModified("\"" + litsLibres.getVersion() + "\"")) {
+            return null;
+        }
+        return litsLibres;
+    }
+
+    // Flux SSE (événements "litsLibres"): valeur courante puis un message par changement, regroupés
+    @GetMapping(value = "litsLibres/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter fluxLitsLibres(@RequestParam String nomFoyer, @RequestParam TypeChambre type) {
+        return flux.abonner(nomFoyer, type);
     }
 }
@@ -0,0 +1,34 @@
+package tn.esprit.spring.RestControllers;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.DTO.TicketReservation;
+import tn.esprit.spring.Services.Reservation.ReservationFileAttente;
+
+@RestController
+@RequestMapping("reservation/async")
+@AllArgsConstructor
+@ConditionalOnProperty(prefix = "reservation.async", name = "enabled", havingValue = "true")
+public class ReservationAsyncRestController {
+    ReservationFileAttente fileAttente;
+
+    // 202 + ticket, ou 429 si la file est pleine
+    @PostMapping("ajouterReservationEtAssignerAChambreEtAEtudiant")
+    ResponseEntity<TicketReservation> ajouterReservationEtAssignerAChambreEtAEtudiant(@RequestParam Long numChambre,
+                                                                                    @RequestParam long cin) {
+        TicketReservation ticket = fileAttente.soumettre(numChambre, cin);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.accepted().body(ticket);
+    }
+
+    @GetMapping("ticket/{idTicket}")
+    ResponseEntity<TicketReservation> ticket(@PathVariable String idTicket) {
+        TicketReservation ticket = fileAttente.ticket(idTicket);
+        return ticket == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(ticket);
+    }
+}
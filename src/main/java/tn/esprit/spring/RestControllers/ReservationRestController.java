@@ -4,7 +4,15 @@ import lombok.AllArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import tn.esprit.spring.DAO.Entities.Reservation;
 import tn.esprit.spring.DAO.Entities.Universite;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.MaReservation;
+import tn.esprit.spring.DTO.Periode;
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.ResultatReservation;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+import tn.esprit.spring.Services.Archive.IArchiveReservationService;
 import tn.esprit.spring.Services.Reservation.IReservationService;
+import tn.esprit.spring.Services.Reservation.ReservationIdempotence;
 import tn.esprit.spring.Services.Universite.IUniversiteService;
 
 import java.time.LocalDate;
@@ -15,6 +23,8 @@ import java.util.List;
 @AllArgsConstructor
 public class ReservationRestController {
     IReservationService service;
+    ReservationIdempotence idempotence;
+    IArchiveReservationService archiveService;
 
     @PostMapping("addOrUpdate")
     Reservation addOrUpdate(@RequestBody Reservation r) {
@@ -48,9 +58,20 @@ public class ReservationRestController {
 
 
 
+    // Avec l'en-tête Idempotency-Key, une demande rejouée renvoie la réponse d'origine
     @PostMapping("ajouterReservationEtAssignerAChambreEtAEtudiant")
-    Reservation ajouterReservationEtAssignerAChambreEtAEtudiant(@RequestParam Long numChambre, @RequestParam long cin) {
-        return service.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
+    Reservation ajouterReservationEtAssignerAChambreEtAEtudiant(@RequestParam Long numChambre, @RequestParam long cin,
+                                                                @RequestHeader(value = "Idempotency-Key", required = false) String cle) {
+        if (cle == null || cle.isBlank()) {
+            return service.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
+        }
+        return idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant(cle, numChambre, cin);
+    }
+
+    // Réservation en lot: une ligne de résultat par demande, dans le même ordre
+    @PostMapping("ajouterReservations")
+    List<ResultatReservation> ajouterReservations(@RequestBody List<DemandeReservation> demandes) {
+        return service.ajouterReservations(demandes);
     }
 
     @GetMapping("getReservationParAnneeUniversitaire")
@@ -58,8 +79,52 @@ public class ReservationRestController {
         return service.getReservationParAnneeUniversitaire(debutAnnee, finAnnee);
     }
 
+    // Plusieurs périodes en un appel (bornes incluses): une réponse par période, dans le même ordre
+    @PostMapping("getReservationParPeriodes")
+    List<Long> getReservationParPeriodes(@RequestBody List<Periode> periodes) {
+        return service.getReservationParPeriodes(periodes);
+    }
+
+    // Statut "ma réservation" d'un étudiant (servi par le cache des réservations valides)
+    @GetMapping("maReservation")
+    MaReservation maReservation(@RequestParam long cin) {
+        return service.getMaReservation(cin);
+    }
+
     @DeleteMapping("annulerReservation")
     String annulerReservation(@RequestParam long cinEtudiant) {
         return service.annulerReservation(cinEtudiant);
     }
+
+    // Administration des partitions annuelles (année académique: 2023 pour 2023/2024)
+    @PostMapping("partitions/{anneeAcademique}")
+    boolean creerPartition(@PathVariable int anneeAcademique) {
+        return service.creerPartition(anneeAcademique);
+    }
+
+    @DeleteMapping("partitions/{anneeAcademique}")
+    int detacherAnnee(@PathVariable int anneeAcademique) {
+        return service.detacherAnnee(anneeAcademique);
+    }
+
+    // Archives des années closes: export (puis suppression en base) et consultation sans accès à la base
+    @PostMapping("archives/{anneeAcademique}")
+    int archiverAnnee(@PathVariable int anneeAcademique) {
+        return archiveService.archiverAnnee(anneeAcademique);
+    }
+
+    @GetMapping("archives")
+    List<Integer> anneesArchivees() {
+        return archiveService.anneesArchivees();
+    }
+
+    @GetMapping("archives/{anneeAcademique}/statistiques")
+    StatistiquesArchive statistiquesArchive(@PathVariable int anneeAcademique) {
+        return archiveService.statistiques(anneeAcademique);
+    }
+
+    @GetMapping("archives/{anneeAcademique}/etudiants/{cin}")
+    List<ReservationArchivee> rechercherArchive(@PathVariable int anneeAcademique, @PathVariable long cin) {
+        return archiveService.rechercherParCin(anneeAcademique, cin);
+    }
 }
@@ -4,8 +4,13 @@ package tn.esprit.spring.Schedular;
 import lombok.AllArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import tn.esprit.spring.Services.Archive.IArchiveReservationService;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
 import tn.esprit.spring.Services.Chambre.IChambreService;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
+import tn.esprit.spring.Services.Chambre.RepartitionChambres;
 import tn.esprit.spring.Services.Reservation.IReservationService;
+import tn.esprit.spring.Services.Reservation.IndexReservationsJours;
 
 @Component
 @AllArgsConstructor
@@ -13,12 +18,54 @@ public class Schedular {
 
     IChambreService iChambreService;
     IReservationService iReservationService;
+    IArchiveReservationService iArchiveReservationService;
+    DisponibiliteLits disponibiliteLits;
+    IndexReservationsJours indexReservationsJours;
+    IndexChambresLibres indexChambresLibres;
+    RepartitionChambres repartitionChambres;
 
     @Scheduled(cron = "0 * * * * *")
     void service1() {
         iChambreService.listeChambresParBloc();
     }
 
+    // Chargement des compteurs d'occupation au démarrage puis détection des dérives toutes les 10 minutes
+    @Scheduled(initialDelay = 0, fixedDelay = 600000)
+    void reconcilierOccupations() {
+        iReservationService.reconcilierOccupations();
+    }
+
+    // Lits libres par foyer et type: chargés au démarrage puis recalés sur la base toutes les 10 minutes
+    @Scheduled(initialDelay = 0, fixedDelay = 600000)
+    void reconcilierDisponibilites() {
+        disponibiliteLits.reconcilier();
+    }
+
+    // Réservations par jour (comptages par période): chargées au démarrage puis recalées sur la base toutes les 10 minutes
+    @Scheduled(initialDelay = 0, fixedDelay = 600000)
+    void reconcilierReservationsParJour() {
+        indexReservationsJours.charger();
+    }
+
+    // Chambres libres par foyer, type et année: reconstruites au démarrage puis toutes les 10 minutes
+    @Scheduled(initialDelay = 0, fixedDelay = 600000)
+    void reconstruireIndexChambresLibres() {
+        indexChambresLibres.reconstruire();
+    }
+
+    // Répartition des chambres par type (jauges Prometheus): lue au démarrage puis toutes les
+    // reservation.repartition-chambres.intervalle
+    @Scheduled(initialDelay = 0, fixedDelayString = "#{@reservationProperties.repartitionChambres.intervalle.toMillis()}")
+    void rafraichirRepartitionChambres() {
+        repartitionChambres.rafraichir();
+    }
+
+    // Archivage des années closes (reservation.archive.cron, désactivé par défaut)
+    @Scheduled(cron = "${reservation.archive.cron:-}")
+    void archiverAnneesCloses() {
+        iArchiveReservationService.archiverAnneesCloses();
+    }
+
 //    @Scheduled(fixedRate = 30000)
 //// 5 minutes = 300 secondes = 300000 millisecondes
 //    void service2() {
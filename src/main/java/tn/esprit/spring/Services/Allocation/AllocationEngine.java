@@ -0,0 +1,158 @@
+package tn.esprit.spring.Services.Allocation;
+
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.Candidature;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Calcul en mémoire de l'allocation annuelle des chambres (sans accès à la base).
+ * <p>
+ * Les candidats sont servis par priorité décroissante; un groupe est traité comme une
+ * seule unité (découpée par paquets de la taille de la plus grande chambre) et logé dans
+ * une même chambre si possible, sinon ses membres sont logés séparément.
+ * Chaque unité prend la chambre la plus petite qui peut l'accueillir (best fit), dans son
+ * foyer souhaité d'abord: les chambres sont rangées par nombre de lits libres, le choix se
+ * fait donc en temps constant par foyer.
+ * <p>
+ * Le placement par priorité est séquentiel par nature; la constitution des unités et
+ * leur tri sont faits en parallèle.
+ */
+public class AllocationEngine {
+
+    static final int CAPACITE_MAX = Arrays.stream(TypeChambre.values())
+            .mapToInt(TypeChambre::getCapacite).max().orElse(1);
+
+    public ResultatAllocation allouer(List<Candidature> candidatures, List<ChambreLibre> chambres) {
+        Unite[] unites = unites(candidatures);
+        Arrays.parallelSort(unites, Comparator
+                .comparingInt((Unite u) -> -u.priorite)
+                .thenComparingInt(u -> -u.cins.length)
+                .thenComparingInt(u -> u.ordre));
+
+        Map<Long, Foyer> foyers = new HashMap<>();
+        for (ChambreLibre c : chambres) {
+            if (c.getPlacesLibres() > 0) {
+                foyers.computeIfAbsent(c.getIdFoyer(), id -> new Foyer()).ajouter(c);
+            }
+        }
+        List<Foyer> tousLesFoyers = new ArrayList<>(foyers.values());
+
+        Map<Long, Long> affectations = new HashMap<>(candidatures.size() * 2);
+        List<Long> nonAffectes = new ArrayList<>();
+        int groupesSepares = 0;
+        for (Unite unite : unites) {
+            Long chambre = placer(unite.cins.length, foyers.get(unite.idFoyer), tousLesFoyers);
+            if (chambre != null) {
+                for (long cin : unite.cins) {
+                    affectations.put(cin, chambre);
+                }
+                continue;
+            }
+            if (unite.cins.length > 1) {
+                groupesSepares++;
+            }
+            for (long cin : unite.cins) {
+                Long seul = unite.cins.length > 1 ? placer(1, foyers.get(unite.idFoyer), tousLesFoyers) : null;
+                if (seul != null) {
+                    affectations.put(cin, seul);
+                } else {
+                    nonAffectes.add(cin);
+                }
+            }
+        }
+        return new ResultatAllocation(affectations, nonAffectes, groupesSepares);
+    }
+
+    // Foyer souhaité d'abord, puis le foyer offrant le meilleur ajustement
+    private Long placer(int nb, Foyer prefere, List<Foyer> foyers) {
+        if (prefere != null) {
+            for (int libres = nb; libres <= CAPACITE_MAX; libres++) {
+                Long chambre = prefere.prendre(nb, libres);
+                if (chambre != null) {
+                    return chambre;
+                }
+            }
+        }
+        for (int libres = nb; libres <= CAPACITE_MAX; libres++) {
+            for (Foyer foyer : foyers) {
+                if (foyer != prefere) {
+                    Long chambre = foyer.prendre(nb, libres);
+                    if (chambre != null) {
+                        return chambre;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Un candidat seul, ou un groupe découpé par paquets de CAPACITE_MAX (doublons de CIN ignorés)
+    private Unite[] unites(List<Candidature> candidatures) {
+        Map<Long, Integer> ordres = new HashMap<>(candidatures.size() * 2);
+        for (int i = 0; i < candidatures.size(); i++) {
+            ordres.putIfAbsent(candidatures.get(i).getCin(), i);
+        }
+        Map<String, List<Candidature>> parGroupe = ordres.values().parallelStream()
+                .map(candidatures::get)
+                .collect(Collectors.groupingByConcurrent(c -> c.getGroupe() == null || c.getGroupe().isBlank()
+                        ? "#" + c.getCin() : "G" + c.getGroupe()));
+
+        return parGroupe.values().parallelStream()
+                .flatMap(membres -> {
+                    membres.sort(Comparator.comparingInt(c -> ordres.get(c.getCin())));
+                    List<Unite> paquets = new ArrayList<>();
+                    for (int debut = 0; debut < membres.size(); debut += CAPACITE_MAX) {
+                        paquets.add(new Unite(membres.subList(debut,
+                                Math.min(debut + CAPACITE_MAX, membres.size())), ordres));
+                    }
+                    return paquets.stream();
+                })
+                .toArray(Unite[]::new);
+    }
+
+    private static final class Unite {
+        final long[] cins;
+        final int priorite;
+        final Long idFoyer;
+        final int ordre;
+
+        Unite(List<Candidature> membres, Map<Long, Integer> ordres) {
+            Candidature premier = membres.get(0);
+            cins = membres.stream().mapToLong(Candidature::getCin).toArray();
+            priorite = membres.stream().mapToInt(Candidature::getPriorite).max().getAsInt();
+            idFoyer = premier.getIdFoyer();
+            ordre = ordres.get(premier.getCin());
+        }
+    }
+
+    // Chambres libres d'un foyer, rangées par nombre de lits libres
+    private static final class Foyer {
+        final List<ArrayDeque<long[]>> parLibres = new ArrayList<>();
+
+        Foyer() {
+            for (int i = 0; i <= CAPACITE_MAX; i++) {
+                parLibres.add(new ArrayDeque<>());
+            }
+        }
+
+        void ajouter(ChambreLibre c) {
+            parLibres.get(Math.min(c.getPlacesLibres(), CAPACITE_MAX))
+                    .add(new long[]{c.getIdChambre(), Math.min(c.getPlacesLibres(), CAPACITE_MAX)});
+        }
+
+        // Prend nb lits dans une chambre ayant exactement "libres" lits libres
+        Long prendre(int nb, int libres) {
+            long[] chambre = parLibres.get(libres).poll();
+            if (chambre == null) {
+                return null;
+            }
+            chambre[1] -= nb;
+            if (chambre[1] > 0) {
+                parLibres.get((int) chambre[1]).add(chambre);
+            }
+            return chambre[0];
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package tn.esprit.spring.Services.Allocation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.DTO.RapportAllocation;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
+import tn.esprit.spring.Services.Reservation.CacheReservationActive;
+import tn.esprit.spring.Services.Reservation.IndexReservationsJours;
+import tn.esprit.spring.Services.Reservation.OccupationChambreRegistry;
+import tn.esprit.spring.Services.Reservation.ReservationService;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Allocation annuelle des chambres en une passe: lecture groupée des chambres et des
+ * occupations, calcul en mémoire ({@link AllocationEngine}) puis écriture en lot.
+ * A lancer hors période d'ouverture des réservations.
+ */
+@Service
+@Slf4j
+public class AllocationService implements IAllocationService {
+    static final int TAILLE_REQUETE_IN = 1000;
+
+    final ChambreRepository chambreRepository;
+    final EtudiantRepository etudiantRepository;
+    final OccupationChambreRepository occupationRepository;
+    final ReservationBatchRepository reservationBatchRepository;
+    final EvenementOutboxRepository outboxRepository;
+    final AcademicCalendar calendrier;
+    final OccupationChambreRegistry occupationRegistry;
+    final DisponibiliteLits disponibiliteLits;
+    final IndexReservationsJours indexJours;
+    final CacheReservationActive cacheActive;
+    final IndexChambresLibres indexChambresLibres;
+    final TransactionTemplate transactionTemplate;
+    final AllocationEngine engine = new AllocationEngine();
+
+    public AllocationService(ChambreRepository chambreRepository,
+                             EtudiantRepository etudiantRepository,
+                             OccupationChambreRepository occupationRepository,
+                             ReservationBatchRepository reservationBatchRepository,
+                             EvenementOutboxRepository outboxRepository,
+                             AcademicCalendar calendrier,
+                             OccupationChambreRegistry occupationRegistry,
+                             DisponibiliteLits disponibiliteLits,
+                             IndexReservationsJours indexJours,
+                             CacheReservationActive cacheActive,
+                             IndexChambresLibres indexChambresLibres,
+                             PlatformTransactionManager transactionManager) {
+        this.chambreRepository = chambreRepository;
+        this.etudiantRepository = etudiantRepository;
+        this.occupationRepository = occupationRepository;
+        this.reservationBatchRepository = reservationBatchRepository;
+        this.outboxRepository = outboxRepository;
+        this.calendrier = calendrier;
+        this.occupationRegistry = occupationRegistry;
+        this.disponibiliteLits = disponibiliteLits;
+        this.indexJours = indexJours;
+        this.cacheActive = cacheActive;
+        this.indexChambresLibres = indexChambresLibres;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public RapportAllocation allouer(List<Candidature> candidatures, boolean simulation) {
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        LocalDate dateDebutAU = anneeEnCours.debut();
+        LocalDate dateFinAU = anneeEnCours.fin();
+
+        // Étudiants: identifiants (requêtes IN par paquets) et réservations déjà faites pour l'année
+        Map<Long, Long> idsEtudiants = new HashMap<>();
+        List<Long> cins = candidatures.stream().map(Candidature::getCin).distinct().toList();
+        for (int i = 0; i < cins.size(); i += TAILLE_REQUETE_IN) {
+            for (Object[] ligne : etudiantRepository.findIdsByCinIn(cins.subList(i, Math.min(i + TAILLE_REQUETE_IN, cins.size())))) {
+                idsEtudiants.put((Long) ligne[0], (Long) ligne[1]);
+            }
+        }
+        Set<Long> dejaReserves = new HashSet<>(etudiantRepository.findCinsAvecReservation(dateDebutAU, dateFinAU));
+        List<Long> inconnus = cins.stream().filter(cin -> !idsEtudiants.containsKey(cin)).toList();
+        List<Candidature> retenues = candidatures.stream()
+                .filter(c -> idsEtudiants.containsKey(c.getCin()) && !dejaReserves.contains(c.getCin()))
+                .toList();
+
+        // Chambres et lits libres (une requête pour les chambres, une pour les occupations)
+        Map<Long, Long> occupations = new HashMap<>();
+        for (Object[] ligne : chambreRepository.countReservationsParChambre(dateDebutAU, dateFinAU)) {
+            occupations.put((Long) ligne[0], (Long) ligne[1]);
+        }
+        Map<Long, Object[]> chambres = new HashMap<>();
+        List<ChambreLibre> libres = new ArrayList<>();
+        for (Object[] ligne : chambreRepository.findChambresPourAllocation()) {
+            long idChambre = (Long) ligne[0];
+            chambres.put(idChambre, ligne);
+            int placesLibres = ((TypeChambre) ligne[2]).getCapacite() - occupations.getOrDefault(idChambre, 0L).intValue();
+            if (placesLibres > 0) {
+                libres.add(new ChambreLibre(idChambre, (Long) ligne[4], placesLibres));
+            }
+        }
+
+        long debut = System.nanoTime();
+        ResultatAllocation resultat = engine.allouer(retenues, libres);
+        long dureeCalculMs = (System.nanoTime() - debut) / 1_000_000;
+        log.info("Allocation calculée en " + dureeCalculMs + " ms: " + resultat.getAffectations().size()
+                + " étudiant(s) affecté(s), " + resultat.getNonAffectes().size() + " sans chambre");
+
+        if (!simulation && !resultat.getAffectations().isEmpty()) {
+            enregistrer(resultat, chambres, idsEtudiants, anneeEnCours);
+            // Les compteurs en mémoire sont recalés sur la base après le commit
+            occupationRegistry.reconcilier(dateDebutAU, dateFinAU);
+            disponibiliteLits.reconcilier();
+            indexJours.charger();
+            cacheActive.vider();
+            indexChambresLibres.reconstruire();
+        }
+
+        return RapportAllocation.builder()
+                .simulation(simulation)
+                .candidatures(candidatures.size())
+                .affectes(resultat.getAffectations().size())
+                .dejaReserves((int) cins.stream().filter(dejaReserves::contains).count())
+                .groupesSepares(resultat.getGroupesSepares())
+                .nonAffectes(resultat.getNonAffectes())
+                .etudiantsInconnus(inconnus)
+                .dureeCalculMs(dureeCalculMs)
+                .build();
+    }
+
+    private void enregistrer(ResultatAllocation resultat, Map<Long, Object[]> chambres, Map<Long, Long> idsEtudiants,
+                             AnneeUniversitaire anneeEnCours) {
+        int annee = anneeEnCours.cle();
+        // Allocation lancée avant la rentrée (l'année bascule au 1er août): la réservation est datée
+        // du premier jour de l'année pour entrer dans la fenêtre [debut, fin] des comptages
+        LocalDate aujourdhui = calendrier.aujourdhui();
+        LocalDate dateReservation = aujourdhui.isBefore(anneeEnCours.debut()) ? anneeEnCours.debut() : aujourdhui;
+        Map<Long, List<Reservation>> parChambre = new HashMap<>();
+        resultat.getAffectations().forEach((cin, idChambre) -> {
+            Object[] chambre = chambres.get(idChambre);
+            Etudiant etudiant = Etudiant.builder().idEtudiant(idsEtudiants.get(cin)).cin(cin).build();
+            parChambre.computeIfAbsent(idChambre, id -> new ArrayList<>()).add(Reservation.builder()
+                    .idReservation(ReservationService.codeReservation(anneeEnCours.debut(), anneeEnCours.fin(),
+                            (String) chambre[3], (Long) chambre[1], cin))
+                    .anneeUniversitaire(dateReservation)
+                    .estValide(true)
+                    .etudiants(new ArrayList<>(List.of(etudiant)))
+                    .build());
+        });
+        Map<Long, Integer> placesParChambre = new HashMap<>();
+        parChambre.forEach((idChambre, liste) -> placesParChambre.put(idChambre, liste.size()));
+        // Un événement par réservation, comme pour une réservation faite par l'étudiant (mail, métriques, caches)
+        List<EvenementOutbox> evenements = new ArrayList<>();
+        parChambre.forEach((idChambre, liste) -> liste.forEach(reservation -> evenements.add(
+                EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_CREEE, reservation.getIdReservation(),
+                        reservation.getEtudiants().get(0).getCin(), idChambre, annee))));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            reservationBatchRepository.insererReservations(parChambre);
+            // Les chambres sans ligne d'occupation l'initialiseront à partir des réservations en base
+            for (Long idChambre : reservationBatchRepository.ajouterOccupations(placesParChambre, annee)) {
+                if (occupationRepository.existsByIdChambreAndAnnee(idChambre, annee)) {
+                    throw new IllegalStateException("Chambre " + idChambre + " remplie pendant l'allocation");
+                }
+            }
+            outboxRepository.saveAll(evenements);
+        });
+    }
+}
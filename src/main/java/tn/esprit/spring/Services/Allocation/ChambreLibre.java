@@ -0,0 +1,15 @@
+package tn.esprit.spring.Services.Allocation;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Chambre ayant encore des lits libres pour l'année, telle que vue par le moteur d'allocation
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ChambreLibre {
+    long idChambre;
+    // null si le bloc n'est affecté à aucun foyer
+    Long idFoyer;
+    int placesLibres;
+}
@@ -0,0 +1,11 @@
+package tn.esprit.spring.Services.Allocation;
+
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.DTO.RapportAllocation;
+
+import java.util.List;
+
+public interface IAllocationService {
+    // simulation: calcul seul, sans enregistrer les réservations
+    RapportAllocation allouer(List<Candidature> candidatures, boolean simulation);
+}
@@ -0,0 +1,18 @@
+package tn.esprit.spring.Services.Allocation;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ResultatAllocation {
+    // cin -> idChambre
+    Map<Long, Long> affectations;
+    // cin des étudiants sans chambre, par priorité décroissante
+    List<Long> nonAffectes;
+    int groupesSepares;
+}
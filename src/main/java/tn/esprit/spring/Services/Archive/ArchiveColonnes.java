@@ -0,0 +1,338 @@
+package tn.esprit.spring.Services.Archive;
+
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Archive en colonnes des réservations d'une année académique (fichier reservations-<annee>.col).
+//
+// En-tête: magie "FRAR", version, année, nombre de réservations, dictionnaire des noms de blocs,
+// puis la table des colonnes (code, position, longueur). Chaque colonne est contiguë: une agrégation
+// ne lit et ne décode que les colonnes dont elle a besoin. Le fichier est projeté en mémoire
+// (FileChannel.map): seules les pages touchées sont chargées.
+//
+// Encodages (entiers en varint, entiers signés en zigzag):
+//  ID       écart avec l'identifiant précédent
+//  CODE     longueur du préfixe commun avec le code précédent, puis le suffixe UTF-8
+//  DATE     écart avec la valeur précédente; valeur = jours depuis le 1er août de l'année + 1, 0 pour null
+//  VALIDE   un bit par réservation
+//  CINS     nombre d'étudiants, puis leurs CIN
+//  CHAMBRE  numéro + 1, 0 sans chambre
+//  TYPE     un octet: ordinal + 1, 0 sans chambre
+//  BLOC     indice dans le dictionnaire + 1, 0 sans chambre
+public final class ArchiveColonnes {
+    static final int MAGIE = 0x46524152;
+    static final byte VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int CODE = 1;
+    private static final int DATE = 2;
+    private static final int VALIDE = 3;
+    private static final int CINS = 4;
+    private static final int CHAMBRE = 5;
+    private static final int TYPE = 6;
+    private static final int BLOC = 7;
+    private static final int COLONNES = 8;
+
+    private static final TypeChambre[] TYPES = TypeChambre.values();
+
+    private final ByteBuffer donnees;
+    private final int anneeAcademique;
+    private final int taille;
+    private final List<String> blocs;
+    private final int[] positions = new int[COLONNES];
+    private final int[] longueurs = new int[COLONNES];
+
+    private ArchiveColonnes(ByteBuffer donnees) throws IOException {
+        this.donnees = donnees;
+        ByteBuffer entete = donnees.duplicate();
+        if (entete.remaining() < 13 || entete.getInt() != MAGIE || entete.get() != VERSION) {
+            throw new IOException("Archive de réservations invalide");
+        }
+        anneeAcademique = entete.getInt();
+        taille = entete.getInt();
+        int nbBlocs = (int) lireVarint(entete);
+        blocs = new ArrayList<>(nbBlocs);
+        for (int i = 0; i < nbBlocs; i++) {
+            byte[] nom = new byte[(int) lireVarint(entete)];
+            entete.get(nom);
+            blocs.add(new String(nom, StandardCharsets.UTF_8));
+        }
+        int nbColonnes = entete.get();
+        for (int i = 0; i < nbColonnes; i++) {
+            int code = entete.get();
+            positions[code] = entete.getInt();
+            longueurs[code] = entete.getInt();
+        }
+    }
+
+    public static ArchiveColonnes ouvrir(Path fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            // La projection reste valide après la fermeture du canal
+            return new ArchiveColonnes(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Écrit l'archive d'une année. Le fichier est écrit à côté puis renommé: un lecteur ne voit
+     * jamais une archive incomplète.
+     *
+     * @param reservations réservations de l'année, triées par identifiant
+     */
+    public static void ecrire(Path fichier, int anneeAcademique, List<ReservationArchivee> reservations) throws IOException {
+        Map<String, Integer> dictionnaire = new LinkedHashMap<>();
+        ByteArrayOutputStream[] colonnes = new ByteArrayOutputStream[COLONNES];
+        for (int i = 0; i < COLONNES; i++) {
+            colonnes[i] = new ByteArrayOutputStream();
+        }
+        long debutAnnee = LocalDate.of(anneeAcademique, 8, 1).toEpochDay();
+        long idPrecedent = 0;
+        long datePrecedente = 0;
+        byte[] codePrecedent = new byte[0];
+        byte[] valides = new byte[(reservations.size() + 7) / 8];
+        for (int i = 0; i < reservations.size(); i++) {
+            ReservationArchivee r = reservations.get(i);
+            ecrireVarint(colonnes[ID], zigzag(r.getId() - idPrecedent));
+            idPrecedent = r.getId();
+
+            byte[] code = r.getIdReservation().getBytes(StandardCharsets.UTF_8);
+            int prefixe = prefixeCommun(codePrecedent, code);
+            ecrireVarint(colonnes[CODE], prefixe);
+            ecrireVarint(colonnes[CODE], code.length - prefixe);
+            colonnes[CODE].write(code, prefixe, code.length - prefixe);
+            codePrecedent = code;
+
+            long date = r.getAnneeUniversitaire() == null ? 0 : r.getAnneeUniversitaire().toEpochDay() - debutAnnee + 1;
+            ecrireVarint(colonnes[DATE], zigzag(date - datePrecedente));
+            datePrecedente = date;
+
+            if (r.isEstValide()) {
+                valides[i / 8] |= (byte) (1 << (i % 8));
+            }
+
+            List<Long> cins = r.getCins() == null ? List.of() : r.getCins();
+            ecrireVarint(colonnes[CINS], cins.size());
+            for (long cin : cins) {
+                ecrireVarint(colonnes[CINS], cin);
+            }
+
+            ecrireVarint(colonnes[CHAMBRE], r.getNumeroChambre() == null ? 0 : r.getNumeroChambre() + 1);
+            colonnes[TYPE].write(r.getTypeC() == null ? 0 : r.getTypeC().ordinal() + 1);
+            ecrireVarint(colonnes[BLOC], r.getNomBloc() == null ? 0
+                    : dictionnaire.computeIfAbsent(r.getNomBloc(), nom -> dictionnaire.size()) + 1);
+        }
+        colonnes[VALIDE].write(valides);
+
+        ByteArrayOutputStream entete = new ByteArrayOutputStream();
+        DataOutputStream sortie = new DataOutputStream(entete);
+        sortie.writeInt(MAGIE);
+        sortie.writeByte(VERSION);
+        sortie.writeInt(anneeAcademique);
+        sortie.writeInt(reservations.size());
+        ecrireVarint(entete, dictionnaire.size());
+        for (String nom : dictionnaire.keySet()) {
+            byte[] octets = nom.getBytes(StandardCharsets.UTF_8);
+            ecrireVarint(entete, octets.length);
+            entete.write(octets);
+        }
+        sortie.writeByte(COLONNES);
+        int position = entete.size() + COLONNES * 9;
+        for (int i = 0; i < COLONNES; i++) {
+            sortie.writeByte(i);
+            sortie.writeInt(position);
+            sortie.writeInt(colonnes[i].size());
+            position += colonnes[i].size();
+        }
+
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(entete.toByteArray()));
+            for (ByteArrayOutputStream colonne : colonnes) {
+                canal.write(ByteBuffer.wrap(colonne.toByteArray()));
+            }
+            // Sur disque avant que les réservations soient supprimées de la base
+            canal.force(true);
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int getAnneeAcademique() {
+        return anneeAcademique;
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    // Agrégats calculés sur les colonnes VALIDE, TYPE et BLOC uniquement
+    public StatistiquesArchive statistiques() {
+        ByteBuffer valides = colonne(VALIDE);
+        ByteBuffer types = colonne(TYPE);
+        ByteBuffer indicesBlocs = colonne(BLOC);
+        long[] parIndiceBloc = new long[blocs.size() + 1];
+        long[] parType = new long[TYPES.length + 1];
+        int nbValides = 0;
+        for (int i = 0; i < taille; i++) {
+            if (estValide(valides, i)) {
+                nbValides++;
+            }
+            parType[types.get()]++;
+            parIndiceBloc[(int) lireVarint(indicesBlocs)]++;
+        }
+        Map<String, Long> parBloc = new TreeMap<>();
+        for (int i = 0; i < parIndiceBloc.length; i++) {
+            if (parIndiceBloc[i] > 0) {
+                parBloc.put(i == 0 ? "" : blocs.get(i - 1), parIndiceBloc[i]);
+            }
+        }
+        Map<TypeChambre, Long> parTypeChambre = new EnumMap<>(TypeChambre.class);
+        for (int i = 1; i < parType.length; i++) {
+            if (parType[i] > 0) {
+                parTypeChambre.put(TYPES[i - 1], parType[i]);
+            }
+        }
+        return StatistiquesArchive.builder()
+                .anneeAcademique(anneeAcademique)
+                .reservations(taille)
+                .valides(nbValides)
+                .parBloc(parBloc)
+                .parTypeChambre(parTypeChambre)
+                .build();
+    }
+
+    // Parcourt la colonne CINS; les autres colonnes ne sont décodées que si l'étudiant est trouvé
+    public List<ReservationArchivee> rechercherParCin(long cin) {
+        ByteBuffer cins = colonne(CINS);
+        boolean[] selection = new boolean[taille];
+        boolean trouve = false;
+        for (int i = 0; i < taille; i++) {
+            int nb = (int) lireVarint(cins);
+            for (int j = 0; j < nb; j++) {
+                if (lireVarint(cins) == cin) {
+                    selection[i] = true;
+                    trouve = true;
+                }
+            }
+        }
+        return trouve ? lire(selection) : List.of();
+    }
+
+    public List<ReservationArchivee> lire() {
+        boolean[] selection = new boolean[taille];
+        Arrays.fill(selection, true);
+        return lire(selection);
+    }
+
+    private List<ReservationArchivee> lire(boolean[] selection) {
+        ByteBuffer ids = colonne(ID);
+        ByteBuffer codes = colonne(CODE);
+        ByteBuffer dates = colonne(DATE);
+        ByteBuffer valides = colonne(VALIDE);
+        ByteBuffer cins = colonne(CINS);
+        ByteBuffer chambres = colonne(CHAMBRE);
+        ByteBuffer types = colonne(TYPE);
+        ByteBuffer indicesBlocs = colonne(BLOC);
+        long debutAnnee = LocalDate.of(anneeAcademique, 8, 1).toEpochDay();
+        long id = 0;
+        long date = 0;
+        byte[] code = new byte[0];
+        List<ReservationArchivee> reservations = new ArrayList<>();
+        for (int i = 0; i < taille; i++) {
+            // Les colonnes en écarts se décodent ligne par ligne, même hors sélection
+            id += dezigzag(lireVarint(ids));
+            int prefixe = (int) lireVarint(codes);
+            byte[] suivant = new byte[prefixe + (int) lireVarint(codes)];
+            System.arraycopy(code, 0, suivant, 0, prefixe);
+            codes.get(suivant, prefixe, suivant.length - prefixe);
+            code = suivant;
+            date += dezigzag(lireVarint(dates));
+            int nb = (int) lireVarint(cins);
+            List<Long> cinsReservation = new ArrayList<>(nb);
+            for (int j = 0; j < nb; j++) {
+                cinsReservation.add(lireVarint(cins));
+            }
+            long chambre = lireVarint(chambres);
+            int type = types.get();
+            int bloc = (int) lireVarint(indicesBlocs);
+            if (selection[i]) {
+                reservations.add(ReservationArchivee.builder()
+                        .id(id)
+                        .idReservation(new String(code, StandardCharsets.UTF_8))
+                        .anneeUniversitaire(date == 0 ? null : LocalDate.ofEpochDay(debutAnnee + date - 1))
+                        .estValide(estValide(valides, i))
+                        .cins(cinsReservation)
+                        .numeroChambre(chambre == 0 ? null : chambre - 1)
+                        .typeC(type == 0 ? null : TYPES[type - 1])
+                        .nomBloc(bloc == 0 ? null : blocs.get(bloc - 1))
+                        .build());
+            }
+        }
+        return reservations;
+    }
+
+    private ByteBuffer colonne(int code) {
+        return donnees.duplicate().position(positions[code]).limit(positions[code] + longueurs[code]).slice();
+    }
+
+    private static boolean estValide(ByteBuffer valides, int i) {
+        return (valides.get(i / 8) & (1 << (i % 8))) != 0;
+    }
+
+    private static int prefixeCommun(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < n && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static long dezigzag(long z) {
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private static void ecrireVarint(OutputStream sortie, long valeur) throws IOException {
+        while ((valeur & ~0x7FL) != 0) {
+            sortie.write((int) ((valeur & 0x7F) | 0x80));
+            valeur >>>= 7;
+        }
+        sortie.write((int) valeur);
+    }
+
+    private static long lireVarint(ByteBuffer entree) {
+        long valeur = 0;
+        int decalage = 0;
+        byte b;
+        do {
+            b = entree.get();
+            valeur |= (long) (b & 0x7F) << decalage;
+            decalage += 7;
+        } while ((b & 0x80) != 0);
+        return valeur;
+    }
+}
@@ -0,0 +1,171 @@
+package tn.esprit.spring.Services.Archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Archives des années closes: les réservations d'une année (avec leurs étudiants et leur chambre)
+ * sont exportées dans un fichier en colonnes ({@link ArchiveColonnes}) puis supprimées de la base.
+ * Les consultations d'archives ne touchent pas la base.
+ */
+@Service
+@Slf4j
+public class ArchiveReservationService implements IArchiveReservationService {
+    private static final Pattern NOM_ARCHIVE = Pattern.compile("reservations-(\\d+)\\.col");
+
+    final ReservationRepository repo;
+    final ReservationProperties.Archive properties;
+    final AcademicCalendar calendrier;
+
+    // Archives ouvertes: fichiers immuables, projetés en mémoire une seule fois
+    final Map<Integer, ArchiveColonnes> archives = new ConcurrentHashMap<>();
+
+    public ArchiveReservationService(ReservationRepository repo, ReservationProperties properties,
+                                     AcademicCalendar calendrier) {
+        this.repo = repo;
+        this.properties = properties.getArchive();
+        this.calendrier = calendrier;
+    }
+
+    @Override
+    public int archiverAnnee(int anneeAcademique) {
+        if (anneeAcademique <= 0) {
+            // annee_academique = 0: réservations sans date, rattachées à aucune année
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Année universitaire invalide: " + anneeAcademique);
+        }
+        int anneeEnCours = calendrier.anneeEnCours().cle();
+        if (anneeAcademique >= anneeEnCours) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "L'année " + anneeAcademique + " n'est pas close (année en cours: " + anneeEnCours + ")");
+        }
+        List<ReservationArchivee> reservations = regrouper(repo.findPourArchive(anneeAcademique));
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        Path fichier = fichier(anneeAcademique);
+        try {
+            Files.createDirectories(fichier.getParent());
+            List<ReservationArchivee> contenu = new ArrayList<>(reservations);
+            if (Files.exists(fichier)) {
+                // Réservations arrivées après un premier archivage de l'année: ajoutées à l'archive existante
+                contenu.addAll(ArchiveColonnes.ouvrir(fichier).lire());
+                contenu.sort(Comparator.comparingLong(ReservationArchivee::getId));
+            }
+            ArchiveColonnes.ecrire(fichier, anneeAcademique, contenu);
+            archives.remove(anneeAcademique);
+            if (archive(anneeAcademique).taille() != contenu.size()) {
+                throw new IllegalStateException("Archive " + fichier + " incomplète");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Échec de l'archivage de l'année " + anneeAcademique, e);
+        }
+        int supprimees = repo.supprimerAnnee(anneeAcademique);
+        log.info(supprimees + " réservation(s) de l'année " + anneeAcademique + " archivée(s) dans " + fichier);
+        return reservations.size();
+    }
+
+    @Override
+    public int archiverAnneesCloses() {
+        int limite = calendrier.anneeEnCours().cle() - properties.getAnneesEnLigne();
+        int archivees = 0;
+        for (int annee : repo.findAnneesAcademiquesAvant(limite)) {
+            archivees += archiverAnnee(annee);
+        }
+        return archivees;
+    }
+
+    @Override
+    public List<Integer> anneesArchivees() {
+        Path repertoire = Paths.get(properties.getRepertoire());
+        if (!Files.isDirectory(repertoire)) {
+            return List.of();
+        }
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers.map(f -> NOM_ARCHIVE.matcher(f.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Integer.parseInt(m.group(1)))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public StatistiquesArchive statistiques(int anneeAcademique) {
+        return archive(anneeAcademique).statistiques();
+    }
+
+    @Override
+    public List<ReservationArchivee> rechercherParCin(int anneeAcademique, long cin) {
+        return archive(anneeAcademique).rechercherParCin(cin);
+    }
+
+    private ArchiveColonnes archive(int anneeAcademique) {
+        return archives.computeIfAbsent(anneeAcademique, annee -> {
+            Path fichier = fichier(annee);
+            if (!Files.exists(fichier)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Aucune archive pour l'année " + annee);
+            }
+            try {
+                return ArchiveColonnes.ouvrir(fichier);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Path fichier(int anneeAcademique) {
+        return Paths.get(properties.getRepertoire(), "reservations-" + anneeAcademique + ".col");
+    }
+
+    // Une ligne par (réservation, étudiant), triées par réservation: regroupées en une réservation par id
+    // [id, idReservation, anneeUniversitaire, estValide, cin, numeroChambre, typeC, nomBloc]
+    private static List<ReservationArchivee> regrouper(List<Object[]> lignes) {
+        List<ReservationArchivee> reservations = new ArrayList<>();
+        ReservationArchivee courante = null;
+        for (Object[] ligne : lignes) {
+            long id = (Long) ligne[0];
+            if (courante == null || courante.getId() != id) {
+                courante = ReservationArchivee.builder()
+                        .id(id)
+                        .idReservation((String) ligne[1])
+                        .anneeUniversitaire((LocalDate) ligne[2])
+                        .estValide((Boolean) ligne[3])
+                        .cins(new ArrayList<>())
+                        .numeroChambre((Long) ligne[5])
+                        .typeC((TypeChambre) ligne[6])
+                        .nomBloc((String) ligne[7])
+                        .build();
+                reservations.add(courante);
+            }
+            if (ligne[4] != null) {
+                courante.getCins().add((Long) ligne[4]);
+            }
+        }
+        return reservations;
+    }
+}
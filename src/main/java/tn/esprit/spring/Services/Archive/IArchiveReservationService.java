@@ -0,0 +1,20 @@
+package tn.esprit.spring.Services.Archive;
+
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+
+import java.util.List;
+
+public interface IArchiveReservationService {
+    // Exporte une année close dans son archive puis la supprime de la base; retourne le nombre de réservations archivées
+    int archiverAnnee(int anneeAcademique);
+
+    // Archive les années closes au-delà de reservation.archive.annees-en-ligne
+    int archiverAnneesCloses();
+
+    List<Integer> anneesArchivees();
+
+    StatistiquesArchive statistiques(int anneeAcademique);
+
+    List<ReservationArchivee> rechercherParCin(int anneeAcademique, long cin);
+}
@@ -8,6 +8,7 @@ import tn.esprit.spring.DAO.Entities.Foyer;
 import tn.esprit.spring.DAO.Repositories.BlocRepository;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
 import tn.esprit.spring.DAO.Repositories.FoyerRepository;
+import tn.esprit.spring.Services.Chambre.MatriceChambres;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,6 +20,7 @@ public class BlocService implements IBlocService {
     ChambreRepository chambreRepository;
     BlocRepository blocRepository;
     FoyerRepository foyerRepository;
+    MatriceChambres matrice;
 
     @Override
     public Bloc addOrUpdate2(Bloc b) { //Cascade
@@ -27,6 +29,7 @@ public class BlocService implements IBlocService {
             c.setBloc(b);
             chambreRepository.save(c);
         }
+        matrice.invalider();
         return b;
     }
 
@@ -38,6 +41,7 @@ public class BlocService implements IBlocService {
             chambre.setBloc(b);
             chambreRepository.save(chambre);
         }
+        matrice.invalider();
         return b;
     }
 
@@ -56,12 +60,14 @@ public class BlocService implements IBlocService {
         Bloc b =repo.findById(id).get();
         chambreRepository.deleteAll(b.getChambres());
         repo.delete(b);
+        matrice.invalider();
     }
 
     @Override
     public void delete(Bloc b) {
         chambreRepository.deleteAll(b.getChambres());
         repo.delete(b);
+        matrice.invalider();
     }
 
     @Override
@@ -81,6 +87,7 @@ public class BlocService implements IBlocService {
             //4 save du parent
             chambreRepository.save(cha);
         }
+        matrice.invalider();
         return b;
     }
 
@@ -100,6 +107,7 @@ public class BlocService implements IBlocService {
             c.setBloc(b);
             chambreRepository.save(c);
         }
+        matrice.invalider();
         return b;
     }
 
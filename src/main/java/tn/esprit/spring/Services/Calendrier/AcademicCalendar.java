@@ -0,0 +1,91 @@
+package tn.esprit.spring.Services.Calendrier;
+
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.Reservation;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Années universitaires vues depuis l'horloge de l'application ({@link Clock}, injectable).
+ * <p>
+ * Les fenêtres de l'année en cours, de la précédente et de la suivante sont calculées une fois et
+ * gardées jusqu'à la bascule (1er août, comme Reservation.anneeAcademique): une consultation ne
+ * coûte qu'une lecture de l'horloge. La clé d'une année ({@link AnneeUniversitaire#cle()}) est la
+ * colonne anneeAcademique de T_RESERVATION, utilisable telle quelle dans les requêtes.
+ */
+@Component
+public class AcademicCalendar {
+    final Clock clock;
+    // Photo immuable remplacée à la bascule
+    private volatile Fenetres fenetres;
+
+    // [debutMillis, finMillis[: instants pendant lesquels enCours est l'année en cours
+    private record Fenetres(AnneeUniversitaire precedente, AnneeUniversitaire enCours, AnneeUniversitaire suivante,
+                            long debutMillis, long finMillis) {
+    }
+
+    public AcademicCalendar(Clock clock) {
+        this.clock = clock;
+        this.fenetres = calculer();
+    }
+
+    public AnneeUniversitaire anneeEnCours() {
+        return fenetres().enCours();
+    }
+
+    public AnneeUniversitaire anneePrecedente() {
+        return fenetres().precedente();
+    }
+
+    public AnneeUniversitaire anneeSuivante() {
+        return fenetres().suivante();
+    }
+
+    public AnneeUniversitaire annee(int cle) {
+        Fenetres f = fenetres();
+        if (cle == f.enCours().cle()) {
+            return f.enCours();
+        }
+        if (cle == f.precedente().cle()) {
+            return f.precedente();
+        }
+        if (cle == f.suivante().cle()) {
+            return f.suivante();
+        }
+        return AnneeUniversitaire.of(cle);
+    }
+
+    // Année universitaire à laquelle appartient une date (août-juillet)
+    public AnneeUniversitaire annee(LocalDate date) {
+        return annee(cle(date));
+    }
+
+    public LocalDate aujourdhui() {
+        return LocalDate.now(clock);
+    }
+
+    public static int cle(LocalDate date) {
+        return Reservation.anneeAcademique(date);
+    }
+
+    private Fenetres fenetres() {
+        Fenetres f = fenetres;
+        long maintenant = clock.millis();
+        if (maintenant < f.debutMillis() || maintenant >= f.finMillis()) {
+            // Bascule (ou horloge reculée): nouvelles fenêtres, calcul idempotent sans verrou
+            f = calculer();
+            fenetres = f;
+        }
+        return f;
+    }
+
+    private Fenetres calculer() {
+        int cle = cle(aujourdhui());
+        ZoneId zone = clock.getZone();
+        return new Fenetres(AnneeUniversitaire.of(cle - 1), AnneeUniversitaire.of(cle), AnneeUniversitaire.of(cle + 1),
+                LocalDate.of(cle, 8, 1).atStartOfDay(zone).toInstant().toEpochMilli(),
+                LocalDate.of(cle + 1, 8, 1).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+}
@@ -0,0 +1,25 @@
+package tn.esprit.spring.Services.Calendrier;
+
+import java.time.LocalDate;
+
+/**
+ * Fenêtre d'une année universitaire: du 15 septembre de l'année {@code cle} au 30 juin suivant.
+ *
+ * @param cle année de début (2025 pour 2025/2026), valeur de Reservation.anneeAcademique
+ */
+public record AnneeUniversitaire(int cle, LocalDate debut, LocalDate fin) {
+
+    public static AnneeUniversitaire of(int cle) {
+        return new AnneeUniversitaire(cle, LocalDate.of(cle, 9, 15), LocalDate.of(cle + 1, 6, 30));
+    }
+
+    // Bornes incluses, comme les requêtes "anneeUniversitaire between debut and fin"
+    public boolean contient(LocalDate date) {
+        return date != null && !date.isBefore(debut) && !date.isAfter(fin);
+    }
+
+    @Override
+    public String toString() {
+        return cle + "/" + (cle + 1);
+    }
+}
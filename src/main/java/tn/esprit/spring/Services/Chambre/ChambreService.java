@@ -2,18 +2,26 @@ package tn.esprit.spring.Services.Chambre;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.DAO.Entities.Bloc;
 import tn.esprit.spring.DAO.Entities.Chambre;
-import tn.esprit.spring.DAO.Entities.Reservation;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
 import tn.esprit.spring.DAO.Repositories.BlocRepository;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DTO.ChambreNonReservee;
+import tn.esprit.spring.DTO.PlacesLibresChambre;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
 
-import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
@@ -22,10 +30,15 @@ public class ChambreService implements IChambreService {
     private final ChambreRepository chambreRepository;
     ChambreRepository repo;
     BlocRepository blocRepository;
+    AcademicCalendar calendrier;
+    MatriceChambres matrice;
+    RepartitionChambres repartition;
 
     @Override
     public Chambre addOrUpdate(Chambre c) {
-        return repo.save(c);
+        Chambre chambre = repo.save(c);
+        matrice.invalider();
+        return chambre;
     }
 
     @Override
@@ -41,11 +54,13 @@ public class ChambreService implements IChambreService {
     @Override
     public void deleteById(long id) {
         repo.deleteById(id);
+        matrice.invalider();
     }
 
     @Override
     public void delete(Chambre c) {
         repo.delete(c);
+        matrice.invalider();
     }
 
     @Override
@@ -55,59 +70,34 @@ public class ChambreService implements IChambreService {
 
     @Override
     public long nbChambreParTypeEtBloc(TypeChambre type, long idBloc) {
-        long compteur = 0;
-        List<Chambre> list = chambreRepository.findAll();
-        for (Chambre chambre : list) {
-            if (chambre.getBloc().getIdBloc() == idBloc
-                    && chambre.getTypeC().equals(type)) {
-                compteur++;
-            }
-        }
-        return compteur;
-        //return repo.countByTypeCAndBlocIdBloc(type, idBloc);
+        // Case de la matrice bloc x type, gardée en mémoire entre deux modifications de chambres
+        return matrice.nombre(idBloc, type);
     }
 
     @Override
-    public List<Chambre> getChambresNonReserveParNomFoyerEtTypeChambre(String nomFoyer, TypeChambre type) {
-
-        // Afficher les chambres non réservée, par typeChambre,
-        // appartenant à un foyer donné par son nom, effectué durant
-        // l’année universitaire actuelle.
+    public Map<Long, Map<TypeChambre, Long>> nbChambresParBlocEtType() {
+        return matrice.matrice();
+    }
 
-        // Début "récuperer l'année universitaire actuelle"
-        LocalDate dateDebutAU;
-        LocalDate dateFinAU;
-        int numReservation;
-        int year = LocalDate.now().getYear() % 100;
-        if (LocalDate.now().getMonthValue() <= 7) {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + (year - 1)), 9, 15);
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + year), 6, 30);
-        } else {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + year), 9, 15);
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
-        }
-        // Fin "récuperer l'année universitaire actuelle"
-        List<Chambre> listChambreDispo = new ArrayList<>();
-        for (Chambre c : repo.findAll()) {
-            if (c.getTypeC().equals(type) && c.getBloc().getFoyer().getNomFoyer().equals(nomFoyer)) { // Les chambres du foyer X et qui ont le type Y
-                numReservation = 0;
-                // nchoufou les réservations mta3 AU hethy binesba lil bit heki
-                for (Reservation reservation : c.getReservations()) {
-                    if (reservation.getAnneeUniversitaire().isBefore(dateFinAU) && reservation.getAnneeUniversitaire().isAfter(dateDebutAU)) {
-                        numReservation++;
-                    }
-                }
-                // nvérifi bil type w nombre des places elli l9ahom fer8in fi kol bit
-                if (c.getTypeC().equals(TypeChambre.SIMPLE) && numReservation == 0) {
-                    listChambreDispo.add(c);
-                } else if (c.getTypeC().equals(TypeChambre.DOUBLE) && numReservation < 2) {
-                    listChambreDispo.add(c);
-                } else if (c.getTypeC().equals(TypeChambre.TRIPLE) && numReservation < 3) {
-                    listChambreDispo.add(c);
-                }
-            }
+    @Override
+    public List<ChambreNonReservee> getChambresNonReserveParNomFoyerEtTypeChambre(String nomFoyer, TypeChambre type,
+                                                                                int page, int taille) {
+        // Chambres non réservées (au moins un lit libre), par typeChambre, appartenant à un foyer
+        // donné par son nom, pour l'année universitaire actuelle: comptage et filtre sur la
+        // capacité faits en base, sans charger les chambres ni leurs réservations
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        List<ChambreNonReservee> chambres = new ArrayList<>();
+        for (Object[] ligne : repo.findChambresNonReservees(nomFoyer, type, anneeEnCours.debut(), anneeEnCours.fin(),
+                PageRequest.of(page, taille))) {
+            chambres.add(ChambreNonReservee.builder()
+                    .idChambre((Long) ligne[0])
+                    .numeroChambre((Long) ligne[1])
+                    .typeC(type)
+                    .nomBloc((String) ligne[2])
+                    .placesLibres(type.getCapacite() - ((Long) ligne[3]).intValue())
+                    .build());
         }
-        return listChambreDispo;
+        return chambres;
     }
 
     @Scheduled(cron = "0 * * * * *")
@@ -130,58 +120,54 @@ public class ChambreService implements IChambreService {
 
     @Override
     public void pourcentageChambreParTypeChambre() {
-        long totalChambre = repo.count();
-        double pSimple = (double) (repo.countChambreByTypeC(TypeChambre.SIMPLE) * 100) / totalChambre;
-        double pDouble = (double) (repo.countChambreByTypeC(TypeChambre.DOUBLE) * 100) / totalChambre;
-        double pTriple = (double) (repo.countChambreByTypeC(TypeChambre.TRIPLE) * 100) / totalChambre;
-        log.info("Nombre total des chambre: " + totalChambre);
-        log.info("Le pourcentage des chambres pour le type SIMPLE est égale à " + pSimple);
-        log.info("Le pourcentage des chambres pour le type DOUBLE est égale à " + pDouble);
-        log.info("Le pourcentage des chambres pour le type TRIPLE est égale à " + pTriple);
-
+        // Dernière répartition lue (une requête groupée, rafraîchie périodiquement); 0% sans chambre
+        RepartitionChambres.Repartition r = repartition.repartition();
+        log.info("Nombre total des chambre: " + r.total());
+        for (TypeChambre type : TypeChambre.values()) {
+            log.info("Le pourcentage des chambres pour le type " + type + " est égale à " + r.pourcentage(type));
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public void nbPlacesDisponibleParChambreAnneeEnCours() {
-        // Début "récuperer l'année universitaire actuelle"
-        LocalDate dateDebutAU;
-        LocalDate dateFinAU;
-        int numReservation;
-        int year = LocalDate.now().getYear() % 100;
-        if (LocalDate.now().getMonthValue() <= 7) {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + (year - 1)), 9, 15);
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + year), 6, 30);
-        } else {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + year), 9, 15);
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
-        }
-        // Fin "récuperer l'année universitaire actuelle"
-        for (Chambre c : repo.findAll()) {
-            long nbReservation = repo.countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(c.getIdChambre()
-                    , true, dateDebutAU, dateFinAU);
-            switch (c.getTypeC()) {
-                case SIMPLE:
-                    if (nbReservation == 0) {
-                        log.info("Le nombre de place disponible pour la chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est 1 ");
-                    } else {
-                        log.info("La chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est complete");
-                    }
-                    break;
-                case DOUBLE:
-                    if (nbReservation < 2) {
-                        log.info("Le nombre de place disponible pour la chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est " + (2 - nbReservation));
-                    } else {
-                        log.info("La chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est complete");
-                    }
-                    break;
-                case TRIPLE:
-                    if (nbReservation < 3) {
-                        log.info("Le nombre de place disponible pour la chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est " + (3 - nbReservation));
-                    } else {
-                        log.info("La chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est complete");
-                    }
+        placesLibresParChambre(null, null, c -> {
+            if (c.getPlacesLibres() > 0) {
+                log.info("Le nombre de place disponible pour la chambre " + c.getTypeC() + " " + c.getNumeroChambre()
+                        + " est " + c.getPlacesLibres());
+            } else {
+                log.info("La chambre " + c.getTypeC() + " " + c.getNumeroChambre() + " est complete");
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long placesLibresParChambre(Long idFoyer, Long idBloc, Consumer<PlacesLibresChambre> ligne) {
+        // Une requête groupée pour toutes les chambres de l'année universitaire actuelle; chaque ligne
+        // est passée à l'appelant dès sa lecture (rien n'est gardé en mémoire)
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        long lignes = 0;
+        try (Stream<Object[]> chambres = repo.streamReservationsParChambre(idFoyer, idBloc,
+                anneeEnCours.debut(), anneeEnCours.fin())) {
+            for (Iterator<Object[]> it = chambres.iterator(); it.hasNext(); lignes++) {
+                Object[] c = it.next();
+                TypeChambre type = (TypeChambre) c[2];
+                int reservations = ((Long) c[7]).intValue();
+                ligne.accept(PlacesLibresChambre.builder()
+                        .idChambre((Long) c[0])
+                        .numeroChambre((Long) c[1])
+                        .typeC(type)
+                        .idBloc((Long) c[3])
+                        .nomBloc((String) c[4])
+                        .idFoyer((Long) c[5])
+                        .nomFoyer((String) c[6])
+                        .reservations(reservations)
+                        .placesLibres(type == null ? 0 : Math.max(type.getCapacite() - reservations, 0))
+                        .build());
             }
         }
+        return lignes;
     }
 
     @Override
@@ -0,0 +1,302 @@
+package tn.esprit.spring.Services.Chambre;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ChangementLitsLibres;
+import tn.esprit.spring.DTO.LitsLibres;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux SSE des lits libres d'un foyer et d'un type de chambre.
+ * <p>
+ * Un seul thread compare périodiquement la photo de chaque sujet suivi ({@link DisponibiliteLits},
+ * lecture en mémoire) avec la dernière diffusée: une rafale de réservations pendant une période
+ * donne un seul message par sujet, quel que soit le nombre de clients. Chaque client a une file
+ * bornée vidée par un petit pool d'envoyeurs; un client dont la file déborde est déconnecté
+ * (il se reconnecte et repart de la valeur courante). Un envoi bloqué plus de reservation.flux.delai-envoi
+ * (client qui ne lit plus, tampon TCP plein) déconnecte aussi le client; son envoyeur, qui reste bloqué
+ * jusqu'au délai d'écriture du conteneur, est remplacé pour que les autres clients continuent d'être servis.
+ */
+@Component
+@Slf4j
+public class DisponibiliteFlux {
+    final DisponibiliteLits disponibilite;
+    final ReservationProperties.Flux properties;
+    // (foyer, type) -> clients abonnés
+    final Map<DisponibiliteLits.Cle, Sujet> sujets = new ConcurrentHashMap<>();
+    final AtomicInteger abonnes = new AtomicInteger();
+    final ScheduledExecutorService diffuseur;
+    final ThreadPoolExecutor envoyeurs;
+    // Envoyeurs bloqués remplacés; modifié sous le verrou de envoyeurs
+    int remplaces;
+
+    final Counter messages;
+    final Counter deconnexions;
+
+    static final class Sujet {
+        final String nomFoyer;
+        final TypeChambre typeC;
+        final Set<Abonne> abonnes = ConcurrentHashMap.newKeySet();
+        // Dernière photo diffusée
+        volatile LitsLibres derniere;
+
+        Sujet(String nomFoyer, TypeChambre typeC) {
+            this.nomFoyer = nomFoyer;
+            this.typeC = typeC;
+        }
+    }
+
+    static final class Abonne {
+        final SseEmitter emitter;
+        final BlockingQueue<ChangementLitsLibres> file;
+        // Vrai tant qu'un envoyeur vide la file de ce client
+        final AtomicBoolean enCours = new AtomicBoolean();
+        final AtomicBoolean ferme = new AtomicBoolean();
+        // Début de l'envoi en cours (System.nanoTime, 0 hors envoi) et envoi abandonné; sous verrou de l'abonné
+        long debutEnvoi;
+        boolean abandonne;
+
+        Abonne(SseEmitter emitter, int capacite) {
+            this.emitter = emitter;
+            this.file = new ArrayBlockingQueue<>(capacite);
+        }
+    }
+
+    public DisponibiliteFlux(DisponibiliteLits disponibilite,
+                             ReservationProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.disponibilite = disponibilite;
+        this.properties = properties.getFlux();
+
+        Gauge.builder("chambre.disponibilite.abonnes", abonnes, AtomicInteger::get)
+                .description("Clients abonnés au flux des lits libres")
+                .register(meterRegistry);
+        messages = Counter.builder("chambre.disponibilite.messages")
+                .description("Messages envoyés aux clients du flux des lits libres")
+                .register(meterRegistry);
+        deconnexions = Counter.builder("chambre.disponibilite.deconnexions")
+                .description("Clients déconnectés car trop lents")
+                .register(meterRegistry);
+
+        diffuseur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "disponibilite-diffuseur");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger numero = new AtomicInteger();
+        envoyeurs = new ThreadPoolExecutor(this.properties.getEnvoyeurs(), this.properties.getEnvoyeurs(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "disponibilite-envoyeur-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long periode = this.properties.getIntervalle().toMillis();
+        diffuseur.scheduleWithFixedDelay(() -> {
+            try {
+                diffuser();
+            } catch (RuntimeException e) {
+                log.error("Diffusion des lits libres impossible", e);
+            }
+        }, periode, periode, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter abonner(String nomFoyer, TypeChambre typeC) {
+        return abonner(nomFoyer, typeC, new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    public SseEmitter abonner(String nomFoyer, TypeChambre typeC, SseEmitter emitter) {
+        if (abonnes.incrementAndGet() > properties.getMaxAbonnes()) {
+            abonnes.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop de clients abonnés");
+        }
+        LitsLibres photo = disponibilite.litsLibres(nomFoyer, typeC);
+        Abonne abonne = new Abonne(emitter, properties.getCapaciteClient());
+        // Premier message: la valeur courante
+        abonne.file.offer(changement(photo, null));
+        // Ajout atomique avec la suppression des sujets sans client (même clé de la map)
+        Sujet sujet = sujets.compute(new DisponibiliteLits.Cle(nomFoyer, typeC), (cle, existant) -> {
+            Sujet s = existant;
+            if (s == null) {
+                s = new Sujet(nomFoyer, typeC);
+                s.derniere = photo;
+            }
+            s.abonnes.add(abonne);
+            return s;
+        });
+        emitter.onCompletion(() -> retirer(sujet, abonne));
+        emitter.onTimeout(() -> retirer(sujet, abonne));
+        emitter.onError(e -> retirer(sujet, abonne));
+        planifier(sujet, abonne);
+        return emitter;
+    }
+
+    public int nombreAbonnes() {
+        return abonnes.get();
+    }
+
+    // Une passe du diffuseur: un message par sujet dont les lits libres ont changé
+    public void diffuser() {
+        surveillerEnvois();
+        for (Map.Entry<DisponibiliteLits.Cle, Sujet> e : sujets.entrySet()) {
+            Sujet sujet = e.getValue();
+            if (sujet.abonnes.isEmpty()) {
+                sujets.computeIfPresent(e.getKey(), (cle, s) -> s.abonnes.isEmpty() ? null : s);
+                continue;
+            }
+            LitsLibres photo = disponibilite.litsLibres(sujet.nomFoyer, sujet.typeC);
+            LitsLibres derniere = sujet.derniere;
+            sujet.derniere = photo;
+            if (derniere == null || (derniere.getLitsLibres() == photo.getLitsLibres()
+                    && derniere.getParBloc().equals(photo.getParBloc()))) {
+                continue;
+            }
+            ChangementLitsLibres changement = changement(photo, derniere);
+            for (Abonne abonne : sujet.abonnes) {
+                if (abonne.file.offer(changement)) {
+                    planifier(sujet, abonne);
+                } else {
+                    log.warn("Client du flux des lits libres " + sujet.nomFoyer + "/" + sujet.typeC
+                            + " déconnecté: " + abonne.file.size() + " message(s) non lus");
+                    deconnexions.increment();
+                    retirer(sujet, abonne);
+                    abonne.emitter.complete();
+                }
+            }
+        }
+    }
+
+    private void planifier(Sujet sujet, Abonne abonne) {
+        if (abonne.enCours.compareAndSet(false, true)) {
+            envoyeurs.execute(() -> envoyer(sujet, abonne));
+        }
+    }
+
+    private void envoyer(Sujet sujet, Abonne abonne) {
+        try {
+            ChangementLitsLibres changement;
+            while (!abonne.ferme.get() && (changement = abonne.file.poll()) != null) {
+                synchronized (abonne) {
+                    abonne.debutEnvoi = System.nanoTime();
+                }
+                try {
+                    abonne.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(changement.getVersion()))
+                            .name("litsLibres")
+                            .data(changement));
+                } finally {
+                    terminerEnvoi(abonne);
+                }
+                messages.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Connexion fermée par le client
+            retirer(sujet, abonne);
+        } finally {
+            abonne.enCours.set(false);
+        }
+        // Message arrivé entre la fin de la boucle et la remise à false
+        if (!abonne.ferme.get() && !abonne.file.isEmpty()) {
+            planifier(sujet, abonne);
+        }
+    }
+
+    // Envois bloqués au-delà du délai: le client est déconnecté et un envoyeur est ajouté au pool
+    // le temps que l'envoi bloqué se termine (en échec le plus souvent)
+    private void surveillerEnvois() {
+        long maintenant = System.nanoTime();
+        long delai = properties.getDelaiEnvoi().toNanos();
+        for (Sujet sujet : sujets.values()) {
+            for (Abonne abonne : sujet.abonnes) {
+                synchronized (abonne) {
+                    if (abonne.debutEnvoi == 0 || abonne.abandonne || maintenant - abonne.debutEnvoi < delai) {
+                        continue;
+                    }
+                    abonne.abandonne = true;
+                    redimensionner(1);
+                }
+                log.warn("Client du flux des lits libres " + sujet.nomFoyer + "/" + sujet.typeC
+                        + " déconnecté: envoi bloqué depuis plus de " + properties.getDelaiEnvoi());
+                deconnexions.increment();
+                retirer(sujet, abonne);
+            }
+        }
+    }
+
+    private void terminerEnvoi(Abonne abonne) {
+        boolean abandonne;
+        synchronized (abonne) {
+            abonne.debutEnvoi = 0;
+            abandonne = abonne.abandonne;
+            abonne.abandonne = false;
+        }
+        if (abandonne) {
+            // L'envoyeur remplacé est de nouveau libre: le pool reprend sa taille, la connexion est fermée
+            redimensionner(-1);
+            abonne.emitter.complete();
+        }
+    }
+
+    private void redimensionner(int delta) {
+        synchronized (envoyeurs) {
+            remplaces += delta;
+            int taille = properties.getEnvoyeurs() + remplaces;
+            // Le maximum ne peut pas être inférieur au minimum: ordre selon le sens
+            if (delta > 0) {
+                envoyeurs.setMaximumPoolSize(taille);
+                envoyeurs.setCorePoolSize(taille);
+            } else {
+                envoyeurs.setCorePoolSize(taille);
+                envoyeurs.setMaximumPoolSize(taille);
+            }
+        }
+    }
+
+    private void retirer(Sujet sujet, Abonne abonne) {
+        if (abonne.ferme.compareAndSet(false, true)) {
+            sujet.abonnes.remove(abonne);
+            abonne.file.clear();
+            abonnes.decrementAndGet();
+        }
+    }
+
+    private static ChangementLitsLibres changement(LitsLibres photo, LitsLibres precedente) {
+        return ChangementLitsLibres.builder()
+                .annee(photo.getAnnee())
+                .nomFoyer(photo.getNomFoyer())
+                .typeC(photo.getTypeC())
+                .litsLibres(photo.getLitsLibres())
+                .variation(precedente == null ? 0 : photo.getLitsLibres() - precedente.getLitsLibres())
+                .parBloc(photo.getParBloc())
+                .version(photo.getVersion())
+                .build();
+    }
+
+    @PreDestroy
+    public void arreter() {
+        diffuseur.shutdownNow();
+        envoyeurs.shutdownNow();
+        sujets.values().forEach(sujet -> sujet.abonnes.forEach(abonne -> abonne.emitter.complete()));
+    }
+}
@@ -0,0 +1,227 @@
+package tn.esprit.spring.Services.Chambre;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DTO.LitsLibres;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Reservation.Recalage;
+import tn.esprit.spring.Services.Reservation.ReservationEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lits libres par foyer, bloc et type de chambre pour l'année universitaire en cours.
+ * <p>
+ * L'agrégat est construit depuis la base (deux requêtes), puis mis à jour après le commit de
+ * chaque réservation / libération de lit ({@link ReservationEvent}). Chaque couple (foyer, type)
+ * est servi par une photo immuable: une consultation est une lecture de map, sans requête ni verrou.
+ * La réconciliation périodique recale l'agrégat sur la base (chambres ajoutées, allocation annuelle,
+ * dérives) selon les règles de {@link Recalage}: une chambre modifiée pendant la lecture de la base
+ * garde sa valeur en mémoire; une chambre pas encore suivie (premier chargement, rentrée, chambre
+ * créée) prend la valeur lue plus les variations reçues après la lecture.
+ */
+@Component
+@Slf4j
+public class DisponibiliteLits {
+    final ChambreRepository chambreRepository;
+    final AcademicCalendar calendrier;
+
+    // idChambre -> chambre suivie; modifié sous verrou
+    final Map<Long, ChambreSuivie> chambres = new HashMap<>();
+    // (foyer, type) -> lits libres par bloc; modifié sous verrou
+    final Map<Cle, Map<String, Integer>> agregats = new HashMap<>();
+    // (foyer, type) -> photo publiée, lue sans verrou
+    final Map<Cle, LitsLibres> photos = new ConcurrentHashMap<>();
+    final AtomicLong version = new AtomicLong();
+    // Variations numérotées par chambre; modifié sous verrou
+    final Recalage<Long> recalage = new Recalage<>();
+    // Année chargée (-1: pas encore chargé)
+    volatile int annee = -1;
+    // Année en cours de lecture par une réconciliation (-1 hors lecture); modifié sous verrou
+    int anneeLue = -1;
+    private final Object chargement = new Object();
+    // Plus grand identifiant de chambre lu au dernier chargement; modifié sous verrou
+    long idChambreMax;
+
+    record Cle(String nomFoyer, TypeChambre typeC) {
+    }
+
+    static final class ChambreSuivie {
+        final Cle cle;
+        final String nomBloc;
+        final int capacite;
+        int occupees;
+
+        ChambreSuivie(Cle cle, String nomBloc, int occupees) {
+            this.cle = cle;
+            this.nomBloc = nomBloc;
+            this.capacite = cle.typeC().getCapacite();
+            this.occupees = occupees;
+        }
+
+        int libres() {
+            return Math.max(capacite - occupees, 0);
+        }
+    }
+
+    public DisponibiliteLits(ChambreRepository chambreRepository, AcademicCalendar calendrier) {
+        this.chambreRepository = chambreRepository;
+        this.calendrier = calendrier;
+    }
+
+    public LitsLibres litsLibres(String nomFoyer, TypeChambre typeC) {
+        int anneeEnCours = calendrier.anneeEnCours().cle();
+        if (annee != anneeEnCours) {
+            // Premier accès, ou rentrée universitaire: chargement de la nouvelle année (une seule fois)
+            synchronized (chargement) {
+                if (annee != anneeEnCours) {
+                    reconcilier();
+                }
+            }
+        }
+        LitsLibres photo = photos.get(new Cle(nomFoyer, typeC));
+        return photo != null ? photo : LitsLibres.builder().annee(annee).nomFoyer(nomFoyer).typeC(typeC)
+                .litsLibres(0).parBloc(Map.of()).version(version.get()).build();
+    }
+
+    // Après le commit: une réservation annulée par rollback ne modifie pas l'agrégat
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            condition = "#event.type != T(tn.esprit.spring.Services.Reservation.ReservationEvent.Type).REFUS")
+    public void reservationModifiee(ReservationEvent event) {
+        appliquer(event.getIdChambre(), event.getAnnee(), event.getType() == ReservationEvent.Type.AJOUT ? 1 : -1);
+    }
+
+    /**
+     * @return false si la chambre a été créée après le dernier chargement de l'année
+     * (identifiant plus grand que ceux lus en base); vrai pour une autre année
+     */
+    public synchronized boolean suit(long idChambre, int anneeReservation) {
+        return anneeReservation != annee || idChambre <= idChambreMax;
+    }
+
+    synchronized void appliquer(long idChambre, int anneeReservation, int lits) {
+        // Pendant une lecture, l'année lue: ses variations sont rejouées sur les chambres pas encore suivies
+        if (anneeReservation != (anneeLue != -1 ? anneeLue : annee)) {
+            return;
+        }
+        recalage.modifier(idChambre, lits);
+        ChambreSuivie chambre = anneeReservation == annee ? chambres.get(idChambre) : null;
+        if (chambre == null) {
+            // Chambre créée depuis le chargement ou sans foyer: prise en compte à la réconciliation
+            return;
+        }
+        int avant = chambre.libres();
+        chambre.occupees = Math.max(chambre.occupees + lits, 0);
+        long modifiee = version.incrementAndGet();
+        if (chambre.libres() != avant) {
+            agregats.get(chambre.cle).merge(chambre.nomBloc, chambre.libres() - avant, Integer::sum);
+            publier(chambre.cle, modifiee);
+        }
+    }
+
+    /**
+     * Recharge les chambres et leurs occupations depuis la base et remplace l'agrégat s'il a dérivé.
+     *
+     * @return le nombre de chambres dont l'occupation a été corrigée
+     */
+    public int reconcilier() {
+        synchronized (chargement) {
+            AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+            long debut;
+            synchronized (this) {
+                anneeLue = anneeEnCours.cle();
+                debut = recalage.debutLecture();
+            }
+            Map<Long, Integer> occupations = new HashMap<>();
+            List<Object[]> lignes;
+            long fin;
+            try {
+                for (Object[] ligne : chambreRepository.countReservationsParChambre(anneeEnCours.debut(), anneeEnCours.fin())) {
+                    occupations.put(((Number) ligne[0]).longValue(), ((Number) ligne[1]).intValue());
+                }
+                lignes = chambreRepository.findChambresPourDisponibilite();
+                fin = recalage.finLecture();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    recalage.terminerLecture();
+                    anneeLue = -1;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                boolean nouvelleAnnee = annee != anneeEnCours.cle();
+                Set<Long> modifiees = recalage.modifieesDepuis(debut);
+                Map<Long, Integer> variations = recalage.variationsApres(fin);
+                recalage.terminerLecture();
+                anneeLue = -1;
+                Map<Long, ChambreSuivie> enBase = new HashMap<>();
+                int corrigees = 0;
+                boolean structure = false;
+                // Les chambres sans foyer ne sont connues que par leurs réservations
+                idChambreMax = occupations.keySet().stream().mapToLong(Long::longValue).max().orElse(0);
+                for (Object[] ligne : lignes) {
+                    long idChambre = (Long) ligne[0];
+                    idChambreMax = Math.max(idChambreMax, idChambre);
+                    Cle cle = new Cle((String) ligne[3], (TypeChambre) ligne[1]);
+                    String nomBloc = (String) ligne[2];
+                    int occupees = occupations.getOrDefault(idChambre, 0);
+                    ChambreSuivie actuelle = nouvelleAnnee ? null : chambres.get(idChambre);
+                    if (actuelle == null) {
+                        // Pas de valeur en mémoire: valeur lue plus les variations reçues après la lecture
+                        occupees = Math.max(occupees + variations.getOrDefault(idChambre, 0), 0);
+                        structure = true;
+                    } else if (!actuelle.cle.equals(cle) || !actuelle.nomBloc.equals(nomBloc)) {
+                        structure = true;
+                    } else if (modifiees.contains(idChambre)) {
+                        // Modifiée pendant la lecture de la base: la valeur en mémoire est la plus récente
+                        occupees = actuelle.occupees;
+                    } else if (actuelle.occupees != occupees) {
+                        log.warn("Lits libres de la chambre " + idChambre + " corrigés: "
+                                + actuelle.occupees + " -> " + occupees + " lit(s) occupé(s)");
+                        corrigees++;
+                    }
+                    enBase.put(idChambre, new ChambreSuivie(cle, nomBloc, occupees));
+                }
+                structure |= enBase.size() != chambres.size();
+                if (nouvelleAnnee || structure || corrigees > 0) {
+                    chambres.clear();
+                    chambres.putAll(enBase);
+                    agregats.clear();
+                    for (ChambreSuivie chambre : chambres.values()) {
+                        agregats.computeIfAbsent(chambre.cle, c -> new TreeMap<>()).merge(chambre.nomBloc, chambre.libres(), Integer::sum);
+                    }
+                    long nouvelleVersion = version.incrementAndGet();
+                    annee = anneeEnCours.cle();
+                    agregats.keySet().forEach(cle -> publier(cle, nouvelleVersion));
+                    photos.keySet().retainAll(agregats.keySet());
+                }
+                return corrigees;
+            }
+        }
+    }
+
+    private void publier(Cle cle, long versionPhoto) {
+        Map<String, Integer> parBloc = agregats.get(cle);
+        photos.put(cle, LitsLibres.builder()
+                .annee(annee)
+                .nomFoyer(cle.nomFoyer())
+                .typeC(cle.typeC())
+                .litsLibres(parBloc.values().stream().mapToInt(Integer::intValue).sum())
+                .parBloc(Collections.unmodifiableMap(new TreeMap<>(parBloc)))
+                .version(versionPhoto)
+                .build());
+    }
+}
@@ -2,8 +2,12 @@ package tn.esprit.spring.Services.Chambre;
 
 import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ChambreNonReservee;
+import tn.esprit.spring.DTO.PlacesLibresChambre;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface IChambreService {
     Chambre addOrUpdate(Chambre c);
@@ -13,10 +17,17 @@ public interface IChambreService {
     void delete(Chambre c);
     List<Chambre>  getChambresParNomBloc( String nomBloc);
     long  nbChambreParTypeEtBloc(TypeChambre type, long idBloc);
-    List<Chambre>  getChambresNonReserveParNomFoyerEtTypeChambre( String nomFoyer,TypeChambre type);
+    // idBloc -> (type -> nombre de chambres)
+    Map<Long, Map<TypeChambre, Long>> nbChambresParBlocEtType();
+    // Page (numérotée à partir de 0) des chambres ayant des lits libres pour l'année en cours
+    List<ChambreNonReservee> getChambresNonReserveParNomFoyerEtTypeChambre(String nomFoyer, TypeChambre type,
+                                                                         int page, int taille);
     void listeChambresParBloc();
     void pourcentageChambreParTypeChambre();
     void nbPlacesDisponibleParChambreAnneeEnCours();
+    // Places libres de chaque chambre pour l'année en cours (filtres facultatifs), par identifiant de chambre;
+    // retourne le nombre de lignes passées à l'appelant
+    long placesLibresParChambre(Long idFoyer, Long idBloc, Consumer<PlacesLibresChambre> ligne);
 
     List<Chambre> getChambresParNomBlocJava( String nomBloc);
     List<Chambre>getChambresParNomBlocKeyWord( String nomBloc);
@@ -0,0 +1,297 @@
+package tn.esprit.spring.Services.Chambre;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Reservation.Recalage;
+import tn.esprit.spring.Services.Reservation.ReservationEvent;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chambres ayant encore un lit libre, par foyer, type de chambre et année universitaire.
+ * <p>
+ * Chaque chambre rattachée à un foyer reçoit un ordinal (rang dans l'ordre foyer, bloc, numéro);
+ * chaque (foyer, type, année) est un {@link BitSet} des ordinaux des chambres non remplies et chaque
+ * bloc un BitSet de ses chambres. "Chambres DOUBLE libres du foyer X dans le bloc Y" est
+ * l'intersection de deux bitmaps, sans requête.
+ * <p>
+ * L'index est reconstruit depuis la base (au démarrage, à chaque réconciliation et après
+ * l'allocation annuelle): les réservations sont comptées par tranches d'identifiants de chambre,
+ * en parallèle. Il est ensuite mis à jour après le commit de chaque réservation / libération de lit
+ * ({@link ReservationEvent}). Les chambres créées depuis la dernière reconstruction n'y figurent
+ * qu'à la suivante.
+ */
+@Component
+@Slf4j
+public class IndexChambresLibres {
+    final ChambreRepository chambreRepository;
+    final AcademicCalendar calendrier;
+    final ReservationProperties.IndexChambres properties;
+    final ExecutorService lecteurs;
+
+    // Champs modifiés sous verrou
+    private Chambres chambres = Chambres.construire(List.of());
+    // année -> occupations et chambres libres de l'année
+    private final Map<Integer, Annee> annees = new HashMap<>();
+    // Variations numérotées par (chambre, année), pour recaler l'index sur la base
+    private final Recalage<Occupation> recalage = new Recalage<>();
+    private final Object chargement = new Object();
+
+    record Cle(long idFoyer, TypeChambre typeC) {
+    }
+
+    private record Occupation(long idChambre, int annee) {
+    }
+
+    // Chambres indexées, immuables: remplacées à chaque reconstruction
+    record Chambres(Map<Long, Integer> ordinaux, long[] ids, long[] numeros, TypeChambre[] types, Cle[] cles,
+                    Map<Long, BitSet> parBloc, Map<Cle, BitSet> parFoyerEtType) {
+
+        // lignes: [idChambre, numeroChambre, typeC, idBloc, idFoyer], dans l'ordre des ordinaux
+        static Chambres construire(List<Object[]> lignes) {
+            int n = lignes.size();
+            Map<Long, Integer> ordinaux = new HashMap<>(n * 2);
+            long[] ids = new long[n];
+            long[] numeros = new long[n];
+            TypeChambre[] types = new TypeChambre[n];
+            Cle[] cles = new Cle[n];
+            Map<Long, BitSet> parBloc = new HashMap<>();
+            Map<Cle, BitSet> parFoyerEtType = new HashMap<>();
+            for (int o = 0; o < n; o++) {
+                Object[] ligne = lignes.get(o);
+                ids[o] = (Long) ligne[0];
+                numeros[o] = (Long) ligne[1];
+                types[o] = (TypeChambre) ligne[2];
+                cles[o] = new Cle((Long) ligne[4], types[o]);
+                ordinaux.put(ids[o], o);
+                parBloc.computeIfAbsent((Long) ligne[3], b -> new BitSet()).set(o);
+                parFoyerEtType.computeIfAbsent(cles[o], c -> new BitSet()).set(o);
+            }
+            return new Chambres(ordinaux, ids, numeros, types, cles, parBloc, parFoyerEtType);
+        }
+    }
+
+    // Lits occupés par ordinal et chambres libres par (foyer, type) pour une année
+    private record Annee(int[] occupees, Map<Cle, BitSet> libres) {
+    }
+
+    public IndexChambresLibres(ChambreRepository chambreRepository, AcademicCalendar calendrier,
+                               ReservationProperties properties) {
+        this.chambreRepository = chambreRepository;
+        this.calendrier = calendrier;
+        this.properties = properties.getIndexChambres();
+        AtomicInteger numero = new AtomicInteger();
+        lecteurs = Executors.newFixedThreadPool(this.properties.getParallelisme(), r -> {
+            Thread t = new Thread(r, "index-chambres-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param idBloc null pour tous les blocs du foyer
+     * @return les numéros des chambres du foyer et du type ayant au moins un lit libre pour l'année,
+     * dans l'ordre (bloc, numéro)
+     */
+    public List<Long> chambresLibres(long idFoyer, TypeChambre typeC, int annee, Long idBloc) {
+        Annee index;
+        Chambres indexees;
+        while (true) {
+            synchronized (this) {
+                index = annees.get(annee);
+                indexees = chambres;
+            }
+            if (index != null) {
+                break;
+            }
+            // Année pas encore demandée depuis la dernière reconstruction
+            chargerAnnee(annee);
+        }
+        List<Long> numeros = new ArrayList<>();
+        synchronized (this) {
+            BitSet libres = index.libres().get(new Cle(idFoyer, typeC));
+            if (libres == null) {
+                return numeros;
+            }
+            BitSet resultat = (BitSet) libres.clone();
+            if (idBloc != null) {
+                resultat.and(indexees.parBloc().getOrDefault(idBloc, new BitSet()));
+            }
+            for (int o = resultat.nextSetBit(0); o >= 0; o = resultat.nextSetBit(o + 1)) {
+                numeros.add(indexees.numeros()[o]);
+            }
+        }
+        return numeros;
+    }
+
+    // Après le commit: une réservation annulée par rollback ne modifie pas l'index
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            condition = "#event.type != T(tn.esprit.spring.Services.Reservation.ReservationEvent.Type).REFUS")
+    public void reservationModifiee(ReservationEvent event) {
+        appliquer(new Occupation(event.getIdChambre(), event.getAnnee()),
+                event.getType() == ReservationEvent.Type.AJOUT ? 1 : -1);
+    }
+
+    private synchronized void appliquer(Occupation occupation, int lits) {
+        recalage.modifier(occupation, lits);
+        Integer o = chambres.ordinaux().get(occupation.idChambre());
+        Annee index = annees.get(occupation.annee());
+        if (index == null || o == null) {
+            // Année non chargée, chambre sans foyer ou créée depuis la reconstruction
+            return;
+        }
+        fixer(chambres, index, o, index.occupees()[o] + lits);
+    }
+
+    private static void fixer(Chambres chambres, Annee index, int o, int occupees) {
+        int capacite = chambres.types()[o].getCapacite();
+        index.occupees()[o] = Math.min(Math.max(occupees, 0), capacite);
+        index.libres().get(chambres.cles()[o]).set(o, index.occupees()[o] < capacite);
+    }
+
+    // Règles de Recalage: une chambre modifiée pendant la lecture garde sa valeur en mémoire
+    // (ancien index), sinon la valeur lue reçoit les variations arrivées après la lecture
+    private void recaler(Chambres nouvelles, Annee index, int annee, Chambres anciennes, Annee ancien,
+                         long debut, long fin) {
+        Map<Occupation, Integer> apres = recalage.variationsApres(fin);
+        for (Occupation occupation : recalage.modifieesDepuis(debut)) {
+            Integer o = nouvelles.ordinaux().get(occupation.idChambre());
+            if (occupation.annee() != annee || o == null) {
+                continue;
+            }
+            Integer ordinalAncien = ancien == null ? null : anciennes.ordinaux().get(occupation.idChambre());
+            if (ordinalAncien != null) {
+                fixer(nouvelles, index, o, ancien.occupees()[ordinalAncien]);
+            } else if (apres.containsKey(occupation)) {
+                fixer(nouvelles, index, o, index.occupees()[o] + apres.get(occupation));
+            }
+        }
+    }
+
+    /**
+     * Relit les chambres et les occupations de l'année en cours depuis la base et remplace l'index;
+     * les autres années sont rechargées à leur prochaine consultation. Les réservations validées
+     * pendant la lecture sont prises en compte selon les règles de {@link Recalage}.
+     *
+     * @return le nombre de chambres indexées
+     */
+    public int reconstruire() {
+        synchronized (chargement) {
+            long debut = System.nanoTime();
+            long debutLecture;
+            synchronized (this) {
+                debutLecture = recalage.debutLecture();
+            }
+            try {
+                Chambres nouvelles = Chambres.construire(chambreRepository.findChambresPourIndex());
+                int anneeEnCours = calendrier.anneeEnCours().cle();
+                Annee index = lire(nouvelles, anneeEnCours);
+                long finLecture = recalage.finLecture();
+                synchronized (this) {
+                    recaler(nouvelles, index, anneeEnCours, chambres, annees.get(anneeEnCours), debutLecture, finLecture);
+                    chambres = nouvelles;
+                    annees.clear();
+                    annees.put(anneeEnCours, index);
+                }
+                log.info("Index des chambres libres reconstruit: " + nouvelles.ids().length + " chambre(s) en "
+                        + (System.nanoTime() - debut) / 1_000_000 + " ms");
+                return nouvelles.ids().length;
+            } finally {
+                synchronized (this) {
+                    recalage.terminerLecture();
+                }
+            }
+        }
+    }
+
+    private void chargerAnnee(int annee) {
+        synchronized (chargement) {
+            Chambres indexees;
+            long debutLecture;
+            synchronized (this) {
+                if (annees.containsKey(annee)) {
+                    return;
+                }
+                indexees = chambres;
+                debutLecture = recalage.debutLecture();
+            }
+            try {
+                Annee index = lire(indexees, annee);
+                long finLecture = recalage.finLecture();
+                synchronized (this) {
+                    // Année pas encore chargée: pas de valeur en mémoire
+                    recaler(indexees, index, annee, indexees, null, debutLecture, finLecture);
+                    annees.put(annee, index);
+                }
+            } finally {
+                synchronized (this) {
+                    recalage.terminerLecture();
+                }
+            }
+        }
+    }
+
+    // Occupations de l'année: une requête groupée par tranche d'identifiants, tranches lues en parallèle
+    private Annee lire(Chambres chambres, int annee) {
+        int n = chambres.ids().length;
+        int[] occupees = new int[n];
+        if (n > 0) {
+            AnneeUniversitaire anneeUniversitaire = calendrier.annee(annee);
+            long idMin = Long.MAX_VALUE;
+            long idMax = Long.MIN_VALUE;
+            for (long id : chambres.ids()) {
+                idMin = Math.min(idMin, id);
+                idMax = Math.max(idMax, id);
+            }
+            long largeur = (idMax - idMin) / properties.getParallelisme() + 1;
+            List<CompletableFuture<List<Object[]>>> tranches = new ArrayList<>();
+            for (long borne = idMin; borne <= idMax; borne += largeur) {
+                long inf = borne;
+                long sup = Math.min(borne + largeur - 1, idMax);
+                tranches.add(CompletableFuture.supplyAsync(() -> chambreRepository.countReservationsParChambre(
+                        inf, sup, anneeUniversitaire.debut(), anneeUniversitaire.fin()), lecteurs));
+            }
+            for (CompletableFuture<List<Object[]>> tranche : tranches) {
+                for (Object[] ligne : tranche.join()) {
+                    Integer o = chambres.ordinaux().get(((Number) ligne[0]).longValue());
+                    if (o != null) {
+                        occupees[o] = ((Number) ligne[1]).intValue();
+                    }
+                }
+            }
+        }
+        Map<Cle, BitSet> libres = new HashMap<>();
+        chambres.parFoyerEtType().forEach((cle, ordinaux) -> {
+            BitSet bitmap = new BitSet();
+            int capacite = cle.typeC().getCapacite();
+            for (int o = ordinaux.nextSetBit(0); o >= 0; o = ordinaux.nextSetBit(o + 1)) {
+                if (occupees[o] < capacite) {
+                    bitmap.set(o);
+                }
+            }
+            libres.put(cle, bitmap);
+        });
+        return new Annee(occupees, libres);
+    }
+
+    @PreDestroy
+    public void arreter() {
+        lecteurs.shutdownNow();
+    }
+}
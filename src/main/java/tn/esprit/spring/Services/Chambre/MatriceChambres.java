@@ -0,0 +1,72 @@
+package tn.esprit.spring.Services.Chambre;
+
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nombre de chambres par bloc et par type, lu en une requête groupée puis gardé en mémoire.
+ * <p>
+ * La matrice est invalidée à chaque création, modification ou suppression de chambre et à
+ * l'affectation de chambres à un bloc; elle est relue au premier accès suivant. Une lecture
+ * commencée avant une invalidation n'est pas gardée (elle a pu manquer la modification).
+ */
+@Component
+public class MatriceChambres {
+    final ChambreRepository chambreRepository;
+
+    // idBloc -> type -> nombre de chambres (null: à relire)
+    volatile Map<Long, Map<TypeChambre, Long>> matrice;
+    final AtomicLong generation = new AtomicLong();
+
+    public MatriceChambres(ChambreRepository chambreRepository) {
+        this.chambreRepository = chambreRepository;
+    }
+
+    /**
+     * @return idBloc -> (type -> nombre de chambres), pour chaque bloc ayant au moins une chambre;
+     * chaque type figure, à 0 s'il n'a pas de chambre dans le bloc
+     */
+    public Map<Long, Map<TypeChambre, Long>> matrice() {
+        Map<Long, Map<TypeChambre, Long>> courante = matrice;
+        if (courante != null) {
+            return courante;
+        }
+        long lue = generation.get();
+        Map<Long, Map<TypeChambre, Long>> parBloc = new TreeMap<>();
+        for (Object[] ligne : chambreRepository.countChambresParBlocEtType()) {
+            parBloc.computeIfAbsent((Long) ligne[0], b -> {
+                Map<TypeChambre, Long> parType = new EnumMap<>(TypeChambre.class);
+                for (TypeChambre type : TypeChambre.values()) {
+                    parType.put(type, 0L);
+                }
+                return parType;
+            }).put((TypeChambre) ligne[1], (Long) ligne[2]);
+        }
+        parBloc.replaceAll((b, parType) -> Collections.unmodifiableMap(parType));
+        courante = Collections.unmodifiableMap(parBloc);
+        synchronized (this) {
+            if (generation.get() == lue) {
+                matrice = courante;
+            }
+        }
+        return courante;
+    }
+
+    public long nombre(long idBloc, TypeChambre type) {
+        Map<TypeChambre, Long> parType = matrice().get(idBloc);
+        return parType == null ? 0 : parType.get(type);
+    }
+
+    // À appeler après l'enregistrement de chambres (création, suppression, changement de bloc ou de type)
+    public synchronized void invalider() {
+        generation.incrementAndGet();
+        matrice = null;
+    }
+}
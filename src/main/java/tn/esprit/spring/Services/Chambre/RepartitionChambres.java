@@ -0,0 +1,105 @@
+package tn.esprit.spring.Services.Chambre;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Répartition des chambres par type, globale et par foyer, publiée en métriques (Prometheus).
+ * <p>
+ * La répartition est lue en une requête groupée à chaque rafraîchissement (tâche planifiée,
+ * reservation.repartition-chambres.intervalle); les jauges lisent la dernière photo, sans requête.
+ * <ul>
+ *     <li>chambre.repartition.chambres{type}: nombre de chambres</li>
+ *     <li>chambre.repartition.pourcentage{type}: part des chambres de ce type (0 sans chambre)</li>
+ *     <li>chambre.repartition.foyer{foyer, type}: nombre de chambres d'un foyer</li>
+ * </ul>
+ */
+@Component
+public class RepartitionChambres {
+    final ChambreRepository chambreRepository;
+    final MultiGauge parFoyer;
+
+    volatile Repartition repartition = new Repartition(Map.of(), 0, Map.of());
+
+    /**
+     * @param parType nombre de chambres par type (chaque type figure)
+     * @param total   nombre de chambres
+     * @param parFoyer nom du foyer -> nombre de chambres par type (chambres rattachées à un foyer)
+     */
+    public record Repartition(Map<TypeChambre, Long> parType, long total, Map<String, Map<TypeChambre, Long>> parFoyer) {
+        public long nombre(TypeChambre type) {
+            return parType.getOrDefault(type, 0L);
+        }
+
+        public double pourcentage(TypeChambre type) {
+            return total == 0 ? 0 : nombre(type) * 100.0 / total;
+        }
+    }
+
+    public RepartitionChambres(ChambreRepository chambreRepository, MeterRegistry meterRegistry) {
+        this.chambreRepository = chambreRepository;
+        for (TypeChambre type : TypeChambre.values()) {
+            Gauge.builder("chambre.repartition.chambres", this, r -> r.repartition.nombre(type))
+                    .description("Nombre de chambres par type")
+                    .tag("type", type.name())
+                    .register(meterRegistry);
+            Gauge.builder("chambre.repartition.pourcentage", this, r -> r.repartition.pourcentage(type))
+                    .description("Part des chambres de ce type")
+                    .tag("type", type.name())
+                    .baseUnit("percent")
+                    .register(meterRegistry);
+        }
+        parFoyer = MultiGauge.builder("chambre.repartition.foyer")
+                .description("Nombre de chambres par foyer et par type")
+                .register(meterRegistry);
+    }
+
+    public Repartition repartition() {
+        return repartition;
+    }
+
+    /**
+     * Relit la répartition en base et met à jour les jauges (un foyer disparu n'est plus publié).
+     */
+    public Repartition rafraichir() {
+        Map<TypeChambre, Long> parType = new EnumMap<>(TypeChambre.class);
+        for (TypeChambre type : TypeChambre.values()) {
+            parType.put(type, 0L);
+        }
+        Map<String, Map<TypeChambre, Long>> foyers = new TreeMap<>();
+        long total = 0;
+        for (Object[] ligne : chambreRepository.countChambresParFoyerEtType()) {
+            String nomFoyer = (String) ligne[0];
+            TypeChambre type = (TypeChambre) ligne[1];
+            long nombre = (Long) ligne[2];
+            total += nombre;
+            if (type != null) {
+                parType.merge(type, nombre, Long::sum);
+            }
+            if (nomFoyer != null && type != null) {
+                foyers.computeIfAbsent(nomFoyer, f -> new EnumMap<>(TypeChambre.class)).merge(type, nombre, Long::sum);
+            }
+        }
+        foyers.replaceAll((f, nombres) -> Collections.unmodifiableMap(nombres));
+        Repartition nouvelle = new Repartition(Collections.unmodifiableMap(parType), total, Collections.unmodifiableMap(foyers));
+        repartition = nouvelle;
+
+        List<MultiGauge.Row<?>> lignes = new ArrayList<>();
+        nouvelle.parFoyer().forEach((nomFoyer, nombres) -> nombres.forEach((type, nombre) ->
+                lignes.add(MultiGauge.Row.of(Tags.of("foyer", nomFoyer, "type", type.name()), nombre))));
+        parFoyer.register(lignes, true);
+        return nouvelle;
+    }
+}
@@ -51,7 +51,7 @@ public class EtudiantService implements IEtudiantService {
             (String idR, String nomE, String prenomE) {
         // ManyToMany: Reservation(Child) -- Etudiant(Parent)
         // 1- Récupérer les objets
-        Reservation res= reservationRepository.findById(idR).get();
+        Reservation res= reservationRepository.findByIdReservation(idR).get();
         Etudiant et= repo.getByNomEtAndPrenomEt(nomE,prenomE);
         // 2- Affectation: On affecte le child au parent
         if (et.getReservations() == null) {
@@ -66,7 +66,7 @@ public class EtudiantService implements IEtudiantService {
             (String idR, String nomE, String prenomE) {
         // ManyToMany: Reservation(Child) -- Etudiant(Parent)
         // 1- Récupérer les objets
-        Reservation res= reservationRepository.findById(idR).get();
+        Reservation res= reservationRepository.findByIdReservation(idR).get();
         Etudiant et= repo.getByNomEtAndPrenomEt(nomE,prenomE);
         // 2- Affectation: On desaffecte le child au parent
         if (et.getReservations() == null) {
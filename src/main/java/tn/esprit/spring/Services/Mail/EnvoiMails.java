@@ -0,0 +1,175 @@
+package tn.esprit.spring.Services.Mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.Config.ReservationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envoi de mails en nombre (confirmations de réservation, annulations de fin d'année).
+ * <p>
+ * Les mails sont découpés en lots; un lot est envoyé sur une seule connexion SMTP
+ * ({@link JavaMailSender#send(MimeMessage...)}) par l'un des threads d'envoi, sous un débit maximal
+ * commun. Les mails d'un lot refusés par le serveur (ou tout le lot si la connexion échoue) sont
+ * renvoyés après un délai doublé à chaque tentative; ceux qui échouent encore sont rendus à l'appelant.
+ * Actif si un serveur SMTP est configuré (spring.mail.host).
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.mail", name = "host")
+@Slf4j
+public class EnvoiMails {
+    final JavaMailSender mailSender;
+    final ReservationProperties.Mail properties;
+    final LimiteurDebit limiteur;
+    final ExecutorService envoyeurs;
+
+    final Counter envoyes;
+    final Counter echecs;
+    final Timer dureeLot;
+
+    public EnvoiMails(JavaMailSender mailSender, ReservationProperties properties, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.properties = properties.getMail();
+        this.limiteur = new LimiteurDebit(this.properties.getDebit());
+
+        envoyes = Counter.builder("reservation.mail.envoyes")
+                .description("Mails acceptés par le serveur SMTP")
+                .register(meterRegistry);
+        echecs = Counter.builder("reservation.mail.echecs")
+                .description("Mails non envoyés après toutes les tentatives")
+                .register(meterRegistry);
+        dureeLot = Timer.builder("reservation.mail.lot")
+                .description("Envoi d'un lot de mails sur une connexion SMTP")
+                .register(meterRegistry);
+
+        AtomicInteger numero = new AtomicInteger();
+        envoyeurs = Executors.newFixedThreadPool(this.properties.getConcurrence(), r -> {
+            Thread t = new Thread(r, "mail-envoyeur-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Envoie les mails et attend la fin des envois.
+     *
+     * @return les mails non envoyés après toutes les tentatives
+     */
+    public List<Mail> envoyer(List<Mail> mails) {
+        List<CompletableFuture<List<Mail>>> lots = new ArrayList<>();
+        for (int debut = 0; debut < mails.size(); debut += properties.getTailleLot()) {
+            List<Mail> lot = mails.subList(debut, Math.min(debut + properties.getTailleLot(), mails.size()));
+            lots.add(CompletableFuture.supplyAsync(() -> envoyerLot(lot), envoyeurs));
+        }
+        List<Mail> nonEnvoyes = new ArrayList<>();
+        lots.forEach(lot -> nonEnvoyes.addAll(lot.join()));
+        return nonEnvoyes;
+    }
+
+    List<Mail> envoyerLot(List<Mail> lot) {
+        List<Mail> restants = lot;
+        for (int tentative = 1; ; tentative++) {
+            try {
+                limiteur.acquerir(restants.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                echecs.increment(restants.size());
+                return restants;
+            }
+            restants = envoyerSurUneConnexion(restants);
+            if (restants.isEmpty() || tentative >= properties.getMaxTentatives()) {
+                break;
+            }
+            Duration delai = properties.getDelaiEssai().multipliedBy(1L << Math.min(tentative - 1, 20));
+            log.warn(restants.size() + " mail(s) non envoyé(s), nouvel essai dans " + delai.toMillis() + " ms");
+            try {
+                Thread.sleep(delai.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!restants.isEmpty()) {
+            log.error(restants.size() + " mail(s) non envoyé(s) après " + properties.getMaxTentatives() + " tentative(s)");
+            echecs.increment(restants.size());
+        }
+        return restants;
+    }
+
+    // Un lot sur une connexion; retourne les mails refusés
+    private List<Mail> envoyerSurUneConnexion(List<Mail> lot) {
+        Map<MimeMessage, Mail> messages = new IdentityHashMap<>(lot.size());
+        List<Mail> refuses = new ArrayList<>();
+        for (Mail mail : lot) {
+            try {
+                messages.put(preparer(mail), mail);
+            } catch (MessagingException e) {
+                // Adresse invalide: inutile de réessayer
+                log.warn("Mail pour " + mail.destinataire() + " impossible à préparer: " + e.getMessage());
+                echecs.increment();
+            }
+        }
+        if (messages.isEmpty()) {
+            return refuses;
+        }
+        long debut = System.nanoTime();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Échec de connexion: tous les messages sont dans getFailedMessages()
+            Map<Object, Exception> echoues = e.getFailedMessages();
+            if (echoues.isEmpty()) {
+                refuses.addAll(messages.values());
+            } else {
+                echoues.keySet().forEach(message -> {
+                    Mail mail = messages.get(message);
+                    if (mail != null) {
+                        refuses.add(mail);
+                    }
+                });
+            }
+        } catch (MailException e) {
+            log.warn("Envoi de " + messages.size() + " mail(s) impossible: " + e.getMessage());
+            refuses.addAll(messages.values());
+        } finally {
+            dureeLot.record(Duration.ofNanos(System.nanoTime() - debut));
+        }
+        envoyes.increment(messages.size() - refuses.size());
+        return refuses;
+    }
+
+    private MimeMessage preparer(Mail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(properties.getExpediteur());
+        helper.setTo(mail.destinataire());
+        helper.setSubject(mail.sujet());
+        helper.setText(mail.corps());
+        return message;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        envoyeurs.shutdownNow();
+    }
+}
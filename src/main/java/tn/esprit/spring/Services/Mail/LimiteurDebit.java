@@ -0,0 +1,32 @@
+package tn.esprit.spring.Services.Mail;
+
+import java.util.concurrent.TimeUnit;
+
+// Débit maximal partagé par les threads d'envoi: chaque mail réserve un créneau de 1/debit seconde
+final class LimiteurDebit {
+    // 0: pas de limite
+    final long intervalleNanos;
+    // Début du prochain créneau libre
+    long prochain = System.nanoTime();
+
+    LimiteurDebit(double mailsParSeconde) {
+        this.intervalleNanos = mailsParSeconde <= 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / mailsParSeconde);
+    }
+
+    void acquerir(int mails) throws InterruptedException {
+        if (intervalleNanos == 0) {
+            return;
+        }
+        long attente;
+        synchronized (this) {
+            long maintenant = System.nanoTime();
+            // Pas de crédit accumulé pendant une période sans envoi
+            prochain = Math.max(prochain, maintenant);
+            attente = prochain - maintenant;
+            prochain += intervalleNanos * mails;
+        }
+        if (attente > 0) {
+            TimeUnit.NANOSECONDS.sleep(attente);
+        }
+    }
+}
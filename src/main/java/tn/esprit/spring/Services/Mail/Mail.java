@@ -0,0 +1,5 @@
+package tn.esprit.spring.Services.Mail;
+
+// Mail texte à envoyer par EnvoiMails
+public record Mail(String destinataire, String sujet, String corps) {
+}
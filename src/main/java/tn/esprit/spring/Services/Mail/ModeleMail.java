@@ -0,0 +1,65 @@
+package tn.esprit.spring.Services.Mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modèle de mail compilé une fois au démarrage: le texte est découpé en morceaux fixes et en
+ * variables ({nom}); le rendu d'un mail concatène les morceaux sans réanalyser le modèle.
+ * La première ligne du modèle est le sujet, le reste le corps.
+ */
+public final class ModeleMail {
+    final List<String> morceauxSujet;
+    final List<String> morceauxCorps;
+
+    private ModeleMail(List<String> morceauxSujet, List<String> morceauxCorps) {
+        this.morceauxSujet = morceauxSujet;
+        this.morceauxCorps = morceauxCorps;
+    }
+
+    public static ModeleMail compiler(String source) {
+        int finSujet = source.indexOf('\n');
+        if (finSujet < 0) {
+            throw new IllegalArgumentException("Modèle de mail sans corps (la première ligne est le sujet)");
+        }
+        return new ModeleMail(decouper(source.substring(0, finSujet).strip()), decouper(source.substring(finSujet + 1)));
+    }
+
+    // Morceaux alternés: texte fixe aux indices pairs, nom de variable aux indices impairs
+    private static List<String> decouper(String texte) {
+        List<String> morceaux = new ArrayList<>();
+        int debut = 0;
+        int ouverture;
+        while ((ouverture = texte.indexOf('{', debut)) >= 0) {
+            int fermeture = texte.indexOf('}', ouverture);
+            if (fermeture < 0) {
+                throw new IllegalArgumentException("Variable non fermée dans le modèle de mail: "
+                        + texte.substring(ouverture));
+            }
+            morceaux.add(texte.substring(debut, ouverture));
+            morceaux.add(texte.substring(ouverture + 1, fermeture));
+            debut = fermeture + 1;
+        }
+        morceaux.add(texte.substring(debut));
+        return List.copyOf(morceaux);
+    }
+
+    public Mail rendre(String destinataire, Map<String, ?> valeurs) {
+        return new Mail(destinataire, rendre(morceauxSujet, valeurs), rendre(morceauxCorps, valeurs));
+    }
+
+    private static String rendre(List<String> morceaux, Map<String, ?> valeurs) {
+        StringBuilder texte = new StringBuilder(256);
+        for (int i = 0; i < morceaux.size(); i++) {
+            if (i % 2 == 0) {
+                texte.append(morceaux.get(i));
+            } else {
+                Object valeur = valeurs.get(morceaux.get(i));
+                // Variable sans valeur: rendue vide
+                texte.append(valeur == null ? "" : valeur);
+            }
+        }
+        return texte.toString();
+    }
+}
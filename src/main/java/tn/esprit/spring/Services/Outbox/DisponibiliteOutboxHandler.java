@@ -0,0 +1,25 @@
+package tn.esprit.spring.Services.Outbox;
+
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
+
+// Les lits libres en mémoire suivent les réservations des chambres connues au chargement;
+// une réservation sur une chambre inconnue (créée depuis) déclenche une réconciliation
+// au lieu d'attendre la tâche planifiée.
+@Component
+public class DisponibiliteOutboxHandler implements OutboxHandler {
+    final DisponibiliteLits disponibilite;
+
+    public DisponibiliteOutboxHandler(DisponibiliteLits disponibilite) {
+        this.disponibilite = disponibilite;
+    }
+
+    @Override
+    public void traiter(EvenementOutbox evenement) {
+        if (evenement.getType() == EvenementOutbox.Type.RESERVATION_CREEE && evenement.getIdChambre() != null
+                && !disponibilite.suit(evenement.getIdChambre(), evenement.getAnnee())) {
+            disponibilite.reconcilier();
+        }
+    }
+}
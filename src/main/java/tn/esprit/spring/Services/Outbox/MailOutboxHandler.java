@@ -0,0 +1,90 @@
+package tn.esprit.spring.Services.Outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.Services.Mail.EnvoiMails;
+import tn.esprit.spring.Services.Mail.Mail;
+import tn.esprit.spring.Services.Mail.ModeleMail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Mail à l'étudiant pour chaque réservation créée, annulée ou invalidée en fin d'année.
+// Les étudiants d'un lot sont lus en une requête et leurs mails envoyés ensemble (EnvoiMails);
+// un étudiant sans adresse ne reçoit rien. Un mail refusé laisse son événement en échec: il est
+// renvoyé par le relais (un mail déjà envoyé peut donc être reçu deux fois).
+@Component
+@ConditionalOnProperty(prefix = "spring.mail", name = "host")
+public class MailOutboxHandler implements OutboxHandler {
+    final EnvoiMails envoiMails;
+    final EtudiantRepository etudiantRepository;
+    // Modèles compilés au démarrage (src/main/resources/mail/<type>.txt)
+    final Map<EvenementOutbox.Type, ModeleMail> modeles = new EnumMap<>(EvenementOutbox.Type.class);
+
+    public MailOutboxHandler(EnvoiMails envoiMails, EtudiantRepository etudiantRepository) {
+        this.envoiMails = envoiMails;
+        this.etudiantRepository = etudiantRepository;
+        for (EvenementOutbox.Type type : EvenementOutbox.Type.values()) {
+            try (InputStream source = new ClassPathResource("mail/" + type + ".txt").getInputStream()) {
+                modeles.put(type, ModeleMail.compiler(new String(source.readAllBytes(), StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Modèle de mail " + type + " introuvable", e);
+            }
+        }
+    }
+
+    @Override
+    public void traiter(EvenementOutbox evenement) {
+        RuntimeException echec = traiterLot(List.of(evenement)).get(evenement);
+        if (echec != null) {
+            throw echec;
+        }
+    }
+
+    @Override
+    public Map<EvenementOutbox, RuntimeException> traiterLot(List<EvenementOutbox> lot) {
+        Map<Long, Etudiant> etudiants = etudiantRepository.findByCinIn(lot.stream()
+                        .map(EvenementOutbox::getCin).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Etudiant::getCin, Function.identity(), (e1, e2) -> e1));
+
+        // Mails dans l'ordre des événements, et événement de chaque mail
+        List<Mail> mails = new ArrayList<>();
+        Map<Mail, EvenementOutbox> evenements = new IdentityHashMap<>();
+        for (EvenementOutbox evenement : lot) {
+            Etudiant etudiant = evenement.getCin() == null ? null : etudiants.get(evenement.getCin());
+            if (etudiant == null || etudiant.getEmail() == null || etudiant.getEmail().isBlank()) {
+                continue;
+            }
+            Map<String, Object> valeurs = new HashMap<>();
+            valeurs.put("prenom", etudiant.getPrenomEt());
+            valeurs.put("nom", etudiant.getNomEt());
+            valeurs.put("idReservation", evenement.getIdReservation());
+            valeurs.put("annee", evenement.getAnnee());
+            valeurs.put("anneeSuivante", evenement.getAnnee() + 1);
+            Mail mail = modeles.get(evenement.getType()).rendre(etudiant.getEmail(), valeurs);
+            mails.add(mail);
+            evenements.put(mail, evenement);
+        }
+
+        Map<EvenementOutbox, RuntimeException> echecs = new HashMap<>();
+        for (Mail refuse : envoiMails.envoyer(mails)) {
+            echecs.put(evenements.get(refuse), new IllegalStateException("Mail refusé pour " + refuse.destinataire()));
+        }
+        return echecs;
+    }
+}
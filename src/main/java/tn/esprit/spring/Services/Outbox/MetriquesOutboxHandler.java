@@ -0,0 +1,20 @@
+package tn.esprit.spring.Services.Outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+
+// Compteur des réservations créées, annulées et invalidées (un événement rejoué est recompté)
+@Component
+public class MetriquesOutboxHandler implements OutboxHandler {
+    final MeterRegistry meterRegistry;
+
+    public MetriquesOutboxHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void traiter(EvenementOutbox evenement) {
+        meterRegistry.counter("reservation.evenements", "type", evenement.getType().name()).increment();
+    }
+}
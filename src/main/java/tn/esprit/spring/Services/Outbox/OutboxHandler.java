@@ -0,0 +1,37 @@
+package tn.esprit.spring.Services.Outbox;
+
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traitement d'un événement de réservation relayé par {@link OutboxRelay} (tout bean qui implémente
+ * cette interface est appelé pour chaque événement).
+ * <p>
+ * Livraison au moins une fois: un événement est rejoué à tous les traitements si l'un d'eux lève
+ * une exception, ou si l'instance s'arrête avant de le marquer traité. Un traitement doit donc
+ * supporter de recevoir plusieurs fois le même événement.
+ */
+public interface OutboxHandler {
+
+    void traiter(EvenementOutbox evenement);
+
+    /**
+     * Traitement d'un lot d'événements, à redéfinir par un traitement plus efficace en lot (mails).
+     *
+     * @return les événements en échec et leur erreur; les autres sont considérés traités
+     */
+    default Map<EvenementOutbox, RuntimeException> traiterLot(List<EvenementOutbox> lot) {
+        Map<EvenementOutbox, RuntimeException> echecs = new HashMap<>();
+        for (EvenementOutbox evenement : lot) {
+            try {
+                traiter(evenement);
+            } catch (RuntimeException e) {
+                echecs.put(evenement, e);
+            }
+        }
+        return echecs;
+    }
+}
@@ -0,0 +1,197 @@
+package tn.esprit.spring.Services.Outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relais des événements de réservation écrits dans T_EVENEMENT_OUTBOX.
+ * <p>
+ * Un thread lit les événements par lots dans l'ordre d'écriture et les passe à chaque
+ * {@link OutboxHandler}; un événement n'est marqué traité qu'une fois tous les traitements
+ * réussis (livraison au moins une fois). Un événement en échec est repris plus tard avec un
+ * délai doublé à chaque tentative, puis abandonné (gardé en base avec sa dernière erreur).
+ * Le retard (création -> traitement), le nombre d'événements en attente et l'âge du plus ancien
+ * sont publiés en métriques.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    final EvenementOutboxRepository repository;
+    final List<OutboxHandler> handlers;
+    final ReservationProperties.Outbox properties;
+    final ScheduledExecutorService relais;
+
+    final Timer retard;
+    final Counter traites;
+    final Counter echecs;
+    final Counter abandonnes;
+    final AtomicLong enAttente = new AtomicLong();
+    // Âge en secondes du plus ancien événement non traité (0 si aucun)
+    final AtomicLong agePlusAncien = new AtomicLong();
+
+    public OutboxRelay(EvenementOutboxRepository repository,
+                       List<OutboxHandler> handlers,
+                       ReservationProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.handlers = handlers;
+        this.properties = properties.getOutbox();
+
+        retard = Timer.builder("reservation.outbox.retard")
+                .description("Délai entre l'écriture d'un événement et la fin de son traitement")
+                .register(meterRegistry);
+        traites = Counter.builder("reservation.outbox.traites")
+                .description("Événements traités par le relais")
+                .register(meterRegistry);
+        echecs = Counter.builder("reservation.outbox.echecs")
+                .description("Traitements d'événement en échec (repris plus tard)")
+                .register(meterRegistry);
+        abandonnes = Counter.builder("reservation.outbox.abandonnes")
+                .description("Événements abandonnés après le nombre maximal de tentatives")
+                .register(meterRegistry);
+        Gauge.builder("reservation.outbox.en_attente", enAttente, AtomicLong::get)
+                .description("Événements non traités")
+                .register(meterRegistry);
+        Gauge.builder("reservation.outbox.age", agePlusAncien, AtomicLong::get)
+                .description("Âge du plus ancien événement non traité")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        relais = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-relais");
+            t.setDaemon(true);
+            return t;
+        });
+        long periode = this.properties.getIntervalle().toMillis();
+        relais.scheduleWithFixedDelay(() -> {
+            try {
+                relayer();
+            } catch (RuntimeException e) {
+                log.error("Relais des événements de réservation impossible", e);
+            }
+        }, periode, periode, TimeUnit.MILLISECONDS);
+        relais.scheduleWithFixedDelay(() -> {
+            try {
+                purger();
+            } catch (RuntimeException e) {
+                log.error("Purge des événements de réservation traités impossible", e);
+            }
+        }, 1, 1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Traite les événements prêts, lot après lot, jusqu'à ce qu'il n'en reste plus.
+     *
+     * @return le nombre d'événements lus (traités ou en échec)
+     */
+    public int relayer() {
+        int lus = 0;
+        int lot;
+        do {
+            lot = relayerLot();
+            lus += lot;
+        } while (lot == properties.getTailleLot());
+        enAttente.set(repository.countByDateTraitementIsNull());
+        LocalDateTime plusAncien = repository.findPlusAncienneCreationNonTraitee();
+        agePlusAncien.set(plusAncien == null ? 0 : Math.max(Duration.between(plusAncien, LocalDateTime.now()).toSeconds(), 0));
+        return lus;
+    }
+
+    int relayerLot() {
+        // Les événements en échec sont reportés (prochainEssai): ils ne sont pas relus dans la même passe
+        List<EvenementOutbox> lot = repository.findATraiter(LocalDateTime.now(), PageRequest.of(0, properties.getTailleLot()));
+        // Chaque traitement reçoit les événements réussis par les traitements précédents
+        List<EvenementOutbox> reussis = new ArrayList<>(lot);
+        Map<EvenementOutbox, RuntimeException> enEchec = new LinkedHashMap<>();
+        for (OutboxHandler handler : handlers) {
+            if (reussis.isEmpty()) {
+                break;
+            }
+            Map<EvenementOutbox, RuntimeException> echecsHandler;
+            try {
+                echecsHandler = handler.traiterLot(List.copyOf(reussis));
+            } catch (RuntimeException e) {
+                echecsHandler = new HashMap<>();
+                for (EvenementOutbox evenement : reussis) {
+                    echecsHandler.put(evenement, e);
+                }
+            }
+            enEchec.putAll(echecsHandler);
+            reussis.removeIf(echecsHandler::containsKey);
+        }
+        enEchec.forEach(this::echec);
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<Long> ids = new ArrayList<>(reussis.size());
+        for (EvenementOutbox evenement : reussis) {
+            ids.add(evenement.getId());
+            retard.record(Duration.between(evenement.getDateCreation(), maintenant));
+        }
+        if (!ids.isEmpty()) {
+            // Un arrêt avant cette mise à jour fait rejouer le lot: livraison au moins une fois
+            repository.marquerTraites(ids, maintenant);
+            traites.increment(ids.size());
+        }
+        return lot.size();
+    }
+
+    private void echec(EvenementOutbox evenement, RuntimeException e) {
+        echecs.increment();
+        int tentatives = evenement.getTentatives() + 1;
+        String erreur = String.valueOf(e);
+        if (erreur.length() > 255) {
+            erreur = erreur.substring(0, 255);
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (tentatives >= properties.getMaxTentatives()) {
+            log.error("Evénement " + evenement.getType() + " de la réservation " + evenement.getIdReservation()
+                    + " abandonné après " + tentatives + " tentative(s)", e);
+            abandonnes.increment();
+            repository.enregistrerEchec(evenement.getId(), tentatives, erreur, maintenant, maintenant);
+        } else {
+            Duration delai = delaiEssai(tentatives);
+            log.warn("Evénement " + evenement.getType() + " de la réservation " + evenement.getIdReservation()
+                    + " en échec (tentative " + tentatives + "), nouvel essai dans " + delai.toSeconds() + "s: " + erreur);
+            repository.enregistrerEchec(evenement.getId(), tentatives, erreur, maintenant.plus(delai), null);
+        }
+    }
+
+    // delaiEssai, 2 x delaiEssai, 4 x delaiEssai... borné par delaiEssaiMax
+    Duration delaiEssai(int tentatives) {
+        Duration delai = properties.getDelaiEssai().multipliedBy(1L << Math.min(tentatives - 1, 30));
+        return delai.compareTo(properties.getDelaiEssaiMax()) > 0 ? properties.getDelaiEssaiMax() : delai;
+    }
+
+    public int purger() {
+        int supprimes = repository.supprimerTraitesAvant(LocalDateTime.now().minus(properties.getRetention()));
+        if (supprimes > 0) {
+            log.info(supprimes + " événement(s) de réservation traité(s) supprimé(s)");
+        }
+        return supprimes;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        relais.shutdownNow();
+    }
+}
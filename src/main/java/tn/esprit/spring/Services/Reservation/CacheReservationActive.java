@@ -0,0 +1,135 @@
+package tn.esprit.spring.Services.Reservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réservation valide de chaque étudiant (CIN -> idReservation), lue en base au premier accès.
+ * <p>
+ * Le cache est borné (les CIN les moins récemment consultés sont évincés) et garde aussi les
+ * étudiants sans réservation. Les créations, annulations et invalidations de fin d'année le mettent
+ * à jour après leur commit ({@link ReservationActiveEvent}); les écritures en masse (allocation,
+ * CRUD) le vident. Les entrées expirent après reservation.cache-active.ttl, ce qui rattrape les
+ * suppressions hors ReservationService (archivage). Il sert la consultation (maReservation) et la
+ * promotion de la liste d'attente; l'annulation relit toujours la base.
+ */
+@Component
+public class CacheReservationActive {
+    // Entrée d'un étudiant sans réservation valide
+    private static final String AUCUNE = "";
+
+    final ReservationRepository repo;
+    final ReservationProperties.CacheActive properties;
+
+    // Ordre d'accès: la première entrée est la moins récemment consultée. Modifié sous verrou.
+    final LinkedHashMap<Long, Entree> entrees;
+    // Incrémenté à chaque mise à jour: une lecture en base commencée avant n'est pas gardée
+    private long modifications;
+
+    final Counter succes;
+    final Counter echecs;
+    final Counter evictions;
+
+    private record Entree(String idReservation, long expireA) {
+    }
+
+    public CacheReservationActive(ReservationRepository repo, ReservationProperties properties, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.properties = properties.getCacheActive();
+        succes = Counter.builder("cache.gets").tag("cache", "reservation.active").tag("result", "hit")
+                .description("Réservations valides servies par le cache")
+                .register(meterRegistry);
+        echecs = Counter.builder("cache.gets").tag("cache", "reservation.active").tag("result", "miss")
+                .description("Réservations valides lues en base")
+                .register(meterRegistry);
+        evictions = Counter.builder("cache.evictions").tag("cache", "reservation.active")
+                .description("Étudiants évincés du cache (capacité atteinte)")
+                .register(meterRegistry);
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entree> plusAncienne) {
+                boolean evincee = size() > CacheReservationActive.this.properties.getCapacite();
+                if (evincee) {
+                    evictions.increment();
+                }
+                return evincee;
+            }
+        };
+        Gauge.builder("cache.size", this, CacheReservationActive::taille).tag("cache", "reservation.active")
+                .register(meterRegistry);
+        Gauge.builder("reservation.cache.active.taux", this, CacheReservationActive::tauxSucces)
+                .description("Part des consultations servies par le cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return le code de la réservation valide de l'étudiant (la plus récente), null s'il n'en a pas
+     */
+    public String reservationActive(long cin) {
+        long avant;
+        synchronized (entrees) {
+            Entree entree = entrees.get(cin);
+            if (entree != null && entree.expireA() - System.nanoTime() > 0) {
+                succes.increment();
+                return entree.idReservation() == AUCUNE ? null : entree.idReservation();
+            }
+            avant = modifications;
+        }
+        echecs.increment();
+        List<String> ids = repo.findIdsReservationValide(cin, PageRequest.of(0, 1));
+        String idReservation = ids.isEmpty() ? null : ids.get(0);
+        synchronized (entrees) {
+            // Une mise à jour pendant la lecture: la valeur lue est peut-être déjà périmée
+            if (modifications == avant) {
+                entrees.put(cin, entree(idReservation));
+            }
+        }
+        return idReservation;
+    }
+
+    // Après le commit: une réservation annulée par rollback ne modifie pas le cache
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void reservationModifiee(ReservationActiveEvent event) {
+        synchronized (entrees) {
+            modifications++;
+            if (event.idReservation() != null) {
+                entrees.put(event.cin(), entree(event.idReservation()));
+            } else {
+                entrees.remove(event.cin());
+            }
+        }
+    }
+
+    public void vider() {
+        synchronized (entrees) {
+            modifications++;
+            entrees.clear();
+        }
+    }
+
+    int taille() {
+        synchronized (entrees) {
+            return entrees.size();
+        }
+    }
+
+    double tauxSucces() {
+        double total = succes.count() + echecs.count();
+        return total == 0 ? 0 : succes.count() / total;
+    }
+
+    private Entree entree(String idReservation) {
+        return new Entree(idReservation == null ? AUCUNE : idReservation, System.nanoTime() + properties.getTtl().toNanos());
+    }
+}
@@ -2,6 +2,10 @@ package tn.esprit.spring.Services.Reservation;
 
 import tn.esprit.spring.DAO.Entities.Foyer;
 import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.MaReservation;
+import tn.esprit.spring.DTO.Periode;
+import tn.esprit.spring.DTO.ResultatReservation;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -13,13 +17,26 @@ public interface IReservationService {
     void deleteById(String id);
     void delete(Reservation r);
     Reservation ajouterReservationEtAssignerAChambreEtAEtudiant (Long numChambre, long cin) ;
+    List<ResultatReservation> ajouterReservations(List<DemandeReservation> demandes);
     long  getReservationParAnneeUniversitaire(LocalDate debutAnnee, LocalDate finAnnee ) ;
+    // Une réponse par période, dans le même ordre
+    List<Long> getReservationParPeriodes(List<Periode> periodes);
     String annulerReservation (long cinEtudiant) ;
+    // Réservation valide de l'étudiant, servie par CacheReservationActive
+    MaReservation getMaReservation(long cin);
 
-    void annulerReservations();
+    // Invalide les réservations de l'année en cours; retourne le nombre de réservations annulées
+    long annulerReservations();
 
 
     void affectReservationAChambre(String idRes,long idChambre);
     void deaffectReservationAChambre(String idRes, long idChambre);
 
+    int reconcilierOccupations();
+
+    // Partitions annuelles de T_RESERVATION (clé: Reservation.anneeAcademique)
+    boolean creerPartition(int anneeAcademique);
+    // Détache une année close; retourne le nombre de réservations détachées
+    int detacherAnnee(int anneeAcademique);
+
 }
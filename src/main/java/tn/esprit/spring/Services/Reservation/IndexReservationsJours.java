@@ -0,0 +1,192 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.DTO.Periode;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nombre de réservations par jour (date anneeUniversitaire) dans un arbre de Fenwick: le nombre de
+ * réservations d'une période quelconque est la différence de deux sommes préfixes, en O(log n),
+ * sans comptage en base.
+ * <p>
+ * L'index est chargé par une requête groupée par jour (au démarrage puis à chaque réconciliation)
+ * et mis à jour après le commit de chaque réservation / annulation ({@link ReservationJourEvent}).
+ * Les modifications hors création / annulation (CRUD brut, archivage et détachement d'une année)
+ * sont prises en compte à la réconciliation.
+ */
+@Component
+@Slf4j
+public class IndexReservationsJours {
+    // Jours gardés de part et d'autre des dates connues: les nouvelles réservations n'agrandissent pas l'index
+    static final int MARGE_JOURS = 366;
+
+    final ReservationRepository repo;
+    final AcademicCalendar calendrier;
+
+    // Champs modifiés sous verrou: jours[i] = réservations du jour (origine + i), arbre = sommes de Fenwick (base 1)
+    private long origine;
+    private long[] jours = new long[0];
+    private long[] arbre = new long[1];
+    // Variations numérotées par jour (epochDay), pour recaler l'index sur la base
+    private final Recalage<Long> recalage = new Recalage<>();
+    private volatile boolean charge;
+    private final Object chargement = new Object();
+
+    public IndexReservationsJours(ReservationRepository repo, AcademicCalendar calendrier) {
+        this.repo = repo;
+        this.calendrier = calendrier;
+    }
+
+    // Bornes incluses, comme countByAnneeUniversitaireBetween
+    public long compter(LocalDate debut, LocalDate fin) {
+        return compter(List.of(new Periode(debut, fin))).get(0);
+    }
+
+    // Plusieurs périodes sous un seul verrou: une réponse par période, dans le même ordre
+    public List<Long> compter(List<Periode> periodes) {
+        if (!charge) {
+            charger();
+        }
+        List<Long> nombres = new ArrayList<>(periodes.size());
+        synchronized (this) {
+            for (Periode periode : periodes) {
+                nombres.add(compterSousVerrou(periode.getDebut().toEpochDay(), periode.getFin().toEpochDay()));
+            }
+        }
+        return nombres;
+    }
+
+    // Après le commit: une réservation annulée par rollback ne modifie pas l'index
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void reservationsModifiees(ReservationJourEvent event) {
+        ajouter(event.jour(), event.nombre());
+    }
+
+    public synchronized void ajouter(LocalDate jour, int nombre) {
+        recalage.modifier(jour.toEpochDay(), nombre);
+        if (charge) {
+            appliquer(jour.toEpochDay(), nombre);
+        }
+    }
+
+    /**
+     * Recharge l'index depuis la base, selon les règles de {@link Recalage}: un jour modifié pendant
+     * la lecture garde sa valeur en mémoire; au premier chargement, seules les variations reçues
+     * après la lecture sont rejouées.
+     *
+     * @return le nombre de jours ayant au moins une réservation
+     */
+    public int charger() {
+        synchronized (chargement) {
+            long debut;
+            synchronized (this) {
+                debut = recalage.debutLecture();
+            }
+            List<Object[]> lignes;
+            long fin;
+            try {
+                lignes = repo.countParJour();
+                fin = recalage.finLecture();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    recalage.terminerLecture();
+                }
+                throw e;
+            }
+            long min = calendrier.aujourdhui().toEpochDay();
+            long max = min;
+            for (Object[] ligne : lignes) {
+                long jour = ((LocalDate) ligne[0]).toEpochDay();
+                min = Math.min(min, jour);
+                max = Math.max(max, jour);
+            }
+            long nouvelleOrigine = min - MARGE_JOURS;
+            long[] nouveauxJours = new long[(int) (max + MARGE_JOURS + 1 - nouvelleOrigine)];
+            for (Object[] ligne : lignes) {
+                nouveauxJours[(int) (((LocalDate) ligne[0]).toEpochDay() - nouvelleOrigine)] += ((Number) ligne[1]).longValue();
+            }
+            synchronized (this) {
+                Map<Long, Long> enMemoire = new HashMap<>();
+                if (charge) {
+                    recalage.modifieesDepuis(debut).forEach(jour -> enMemoire.put(jour, compterSousVerrou(jour, jour)));
+                }
+                origine = nouvelleOrigine;
+                jours = nouveauxJours;
+                arbre = construire(nouveauxJours);
+                if (charge) {
+                    enMemoire.forEach((jour, nombre) -> appliquer(jour, (int) (nombre - compterSousVerrou(jour, jour))));
+                } else {
+                    recalage.variationsApres(fin).forEach(this::appliquer);
+                }
+                recalage.terminerLecture();
+                charge = true;
+            }
+            log.info("Index des réservations par jour chargé: " + lignes.size() + " jour(s) du "
+                    + LocalDate.ofEpochDay(min) + " au " + LocalDate.ofEpochDay(max));
+            return lignes.size();
+        }
+    }
+
+    private long compterSousVerrou(long debut, long fin) {
+        long premier = Math.max(debut, origine);
+        long dernier = Math.min(fin, origine + jours.length - 1);
+        if (premier > dernier) {
+            return 0;
+        }
+        return prefixe((int) (dernier - origine) + 1) - prefixe((int) (premier - origine));
+    }
+
+    // Réservations des i premiers jours de l'index
+    private long prefixe(int i) {
+        long somme = 0;
+        for (; i > 0; i -= i & -i) {
+            somme += arbre[i];
+        }
+        return somme;
+    }
+
+    private void appliquer(long jour, int nombre) {
+        if (jour < origine || jour >= origine + jours.length) {
+            agrandir(jour);
+        }
+        int indice = (int) (jour - origine);
+        jours[indice] += nombre;
+        for (int i = indice + 1; i < arbre.length; i += i & -i) {
+            arbre[i] += nombre;
+        }
+    }
+
+    // Date hors de l'index (rare grâce à la marge): nouvelle plage et reconstruction en O(n)
+    private void agrandir(long jour) {
+        long nouvelleOrigine = Math.min(origine, jour - MARGE_JOURS);
+        long fin = Math.max(origine + jours.length, jour + MARGE_JOURS + 1);
+        long[] nouveauxJours = new long[(int) (fin - nouvelleOrigine)];
+        System.arraycopy(jours, 0, nouveauxJours, (int) (origine - nouvelleOrigine), jours.length);
+        origine = nouvelleOrigine;
+        jours = nouveauxJours;
+        arbre = construire(nouveauxJours);
+    }
+
+    // Construction de Fenwick en O(n): chaque nœud propage sa somme à son parent
+    private static long[] construire(long[] jours) {
+        long[] arbre = new long[jours.length + 1];
+        for (int i = 1; i <= jours.length; i++) {
+            arbre[i] += jours[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= jours.length) {
+                arbre[parent] += arbre[i];
+            }
+        }
+        return arbre;
+    }
+}
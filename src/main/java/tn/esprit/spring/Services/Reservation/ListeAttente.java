@@ -0,0 +1,131 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.DAO.Entities.InscriptionAttente;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.InscriptionAttenteRepository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listes d'attente par (foyer, type de chambre, année universitaire).
+ * <p>
+ * Chaque liste est une file de priorité en mémoire (premier inscrit, premier servi):
+ * inscription et promotion en O(log n), sans requête pour connaître le suivant.
+ * Une liste est chargée depuis T_INSCRIPTION_ATTENTE à sa première utilisation.
+ */
+@Component
+@Slf4j
+public class ListeAttente {
+    static final Comparator<InscriptionAttente> ORDRE = Comparator
+            .comparing(InscriptionAttente::getDateInscription)
+            .thenComparingLong(InscriptionAttente::getIdInscription);
+
+    final InscriptionAttenteRepository inscriptionRepository;
+    final Map<Cle, PriorityQueue<InscriptionAttente>> listes = new ConcurrentHashMap<>();
+
+    public ListeAttente(InscriptionAttenteRepository inscriptionRepository) {
+        this.inscriptionRepository = inscriptionRepository;
+    }
+
+    /**
+     * @return false si l'étudiant est déjà sur cette liste
+     */
+    public boolean inscrire(long cin, Long idFoyer, TypeChambre type, int annee) {
+        PriorityQueue<InscriptionAttente> liste = liste(idFoyer, type, annee);
+        synchronized (liste) {
+            if (liste.stream().anyMatch(i -> i.getCin() == cin)) {
+                return false;
+            }
+            liste.add(inscriptionRepository.save(InscriptionAttente.builder()
+                    .cin(cin)
+                    .idFoyer(idFoyer)
+                    .typeC(type)
+                    .annee(annee)
+                    .dateInscription(LocalDateTime.now())
+                    .build()));
+        }
+        log.info("Etudiant " + cin + " inscrit sur la liste d'attente " + type + " du foyer " + idFoyer);
+        return true;
+    }
+
+    // Premier inscrit, sans le retirer (null si la liste est vide)
+    public InscriptionAttente prochain(Long idFoyer, TypeChambre type, int annee) {
+        PriorityQueue<InscriptionAttente> liste = liste(idFoyer, type, annee);
+        synchronized (liste) {
+            return liste.peek();
+        }
+    }
+
+    /**
+     * Retire le premier inscrit de la liste pour le promouvoir (null si la liste est vide).
+     * Deux lits libérés en même temps réclament deux inscrits différents. L'inscription reste
+     * en base jusqu'à {@link #terminer} ou revient en liste par {@link #remettre}.
+     */
+    public InscriptionAttente reclamer(Long idFoyer, TypeChambre type, int annee) {
+        PriorityQueue<InscriptionAttente> liste = liste(idFoyer, type, annee);
+        synchronized (liste) {
+            return liste.poll();
+        }
+    }
+
+    // Promotion refusée: l'inscription reprend sa place (même date d'inscription)
+    public void remettre(InscriptionAttente inscription) {
+        PriorityQueue<InscriptionAttente> liste = liste(inscription.getIdFoyer(), inscription.getTypeC(), inscription.getAnnee());
+        List<InscriptionAttente> doublons;
+        synchronized (liste) {
+            // L'étudiant a pu se réinscrire pendant la promotion: seule l'inscription la plus ancienne est gardée
+            doublons = liste.stream().filter(i -> i.getCin() == inscription.getCin()).toList();
+            liste.removeAll(doublons);
+            liste.add(inscription);
+        }
+        doublons.forEach(i -> inscriptionRepository.deleteById(i.getIdInscription()));
+    }
+
+    // Inscription réclamée dont la promotion est faite ou sans objet
+    public void terminer(InscriptionAttente inscription) {
+        inscriptionRepository.deleteById(inscription.getIdInscription());
+    }
+
+    public void retirer(InscriptionAttente inscription) {
+        PriorityQueue<InscriptionAttente> liste = liste(inscription.getIdFoyer(), inscription.getTypeC(), inscription.getAnnee());
+        synchronized (liste) {
+            // La promotion retire la tête de liste: O(log n)
+            if (liste.peek() == inscription) {
+                liste.poll();
+            } else {
+                liste.remove(inscription);
+            }
+        }
+        inscriptionRepository.deleteById(inscription.getIdInscription());
+    }
+
+    public int taille(Long idFoyer, TypeChambre type, int annee) {
+        PriorityQueue<InscriptionAttente> liste = liste(idFoyer, type, annee);
+        synchronized (liste) {
+            return liste.size();
+        }
+    }
+
+    private PriorityQueue<InscriptionAttente> liste(Long idFoyer, TypeChambre type, int annee) {
+        return listes.computeIfAbsent(new Cle(idFoyer, type, annee), cle -> {
+            PriorityQueue<InscriptionAttente> liste = new PriorityQueue<>(ORDRE);
+            liste.addAll(inscriptionRepository.findByIdFoyerAndTypeCAndAnnee(idFoyer, type, annee));
+            return liste;
+        });
+    }
+
+    @Value
+    static class Cle {
+        Long idFoyer;
+        TypeChambre type;
+        int annee;
+    }
+}
@@ -0,0 +1,84 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.DAO.Entities.InscriptionAttente;
+import tn.esprit.spring.DAO.Entities.Reservation;
+
+/**
+ * Inscription sur liste d'attente quand une réservation est refusée, et promotion
+ * du premier inscrit quand un lit se libère: l'étudiant n'a plus à rejouer sa demande.
+ */
+@Component
+@Slf4j
+public class ListeAttenteListener {
+    // Inscrits essayés au plus pour un lit libéré (inscriptions devenues sans objet)
+    static final int MAX_ESSAIS = 5;
+
+    final ListeAttente listeAttente;
+    final IReservationService reservationService;
+    final CacheReservationActive cacheActive;
+    final TransactionTemplate nouvelleTransaction;
+
+    public ListeAttenteListener(ListeAttente listeAttente,
+                                IReservationService reservationService,
+                                CacheReservationActive cacheActive,
+                                PlatformTransactionManager transactionManager) {
+        this.listeAttente = listeAttente;
+        this.reservationService = reservationService;
+        this.cacheActive = cacheActive;
+        this.nouvelleTransaction = new TransactionTemplate(transactionManager);
+        this.nouvelleTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(condition = "#event.type == T(tn.esprit.spring.Services.Reservation.ReservationEvent.Type).REFUS")
+    public void reservationRefusee(ReservationEvent event) {
+        if (event.getCin() != null) {
+            listeAttente.inscrire(event.getCin(), event.getIdFoyer(), event.getTypeChambre(), event.getAnnee());
+        }
+    }
+
+    // Après le commit de l'annulation: le lit est réellement libre. La réservation du promu
+    // est faite dans une nouvelle transaction (celle de l'annulation est déjà validée).
+    // Le premier inscrit est réclamé (retiré de la liste) avant la réservation: deux annulations
+    // simultanées ne peuvent pas promouvoir le même étudiant.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            condition = "#event.type == T(tn.esprit.spring.Services.Reservation.ReservationEvent.Type).ANNULATION")
+    public void placeLiberee(ReservationEvent event) {
+        for (int essai = 0; essai < MAX_ESSAIS; essai++) {
+            InscriptionAttente suivant = listeAttente.reclamer(event.getIdFoyer(), event.getTypeChambre(), event.getAnnee());
+            if (suivant == null) {
+                return;
+            }
+            // Inscription devenue sans objet: l'étudiant a obtenu une chambre entre-temps
+            if (cacheActive.reservationActive(suivant.getCin()) != null) {
+                listeAttente.terminer(suivant);
+                continue;
+            }
+            Reservation reservation;
+            try {
+                reservation = nouvelleTransaction.execute(status -> reservationService
+                        .ajouterReservationEtAssignerAChambreEtAEtudiant(event.getNumeroChambre(), suivant.getCin()));
+            } catch (RuntimeException e) {
+                log.warn("Promotion de l'étudiant " + suivant.getCin() + " impossible: " + e.getMessage());
+                listeAttente.terminer(suivant);
+                continue;
+            }
+            if (reservation == null) {
+                // Lit repris entre-temps: l'étudiant garde sa place sur la liste
+                listeAttente.remettre(suivant);
+                return;
+            }
+            listeAttente.terminer(suivant);
+            log.info("Etudiant " + suivant.getCin() + " promu de la liste d'attente: réservation "
+                    + reservation.getIdReservation());
+            return;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Occupation des chambres en base (table T_OCCUPATION_CHAMBRE).
+ * <p>
+ * Un lit est pris par un UPDATE conditionnel exécuté dans la transaction de la réservation:
+ * seule la ligne de la chambre concernée est verrouillée, les réservations sur d'autres
+ * chambres ne sont pas sérialisées. La ligne d'une chambre est créée à sa première
+ * réservation de l'année, dans la même transaction et avant l'UPDATE, par un upsert:
+ * un UPDATE sur une ligne absente poserait sous MySQL un verrou de trou qui bloque
+ * l'insertion de la ligne par une réservation concurrente (interblocage).
+ */
+@Component
+@AllArgsConstructor
+public class OccupationChambreLedger {
+    final OccupationChambreRepository occupationRepository;
+    final ChambreRepository chambreRepository;
+
+    /**
+     * @return true si un lit a été pris, false si la chambre est remplie
+     */
+    @Transactional
+    public boolean occuperPlace(long idChambre, TypeChambre type, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return occuperPlaces(idChambre, type, 1, dateDebutAU, dateFinAU) == 1;
+    }
+
+    /**
+     * Prend jusqu'à nb lits dans la chambre, dans la limite de sa capacité.
+     *
+     * @return le nombre de lits effectivement pris
+     */
+    @Transactional
+    public int occuperPlaces(long idChambre, TypeChambre type, int nb, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        initialiser(idChambre, type, dateDebutAU, dateFinAU);
+        return prendre(idChambre, dateDebutAU.getYear(), Math.min(nb, type.getCapacite()));
+    }
+
+    @Transactional
+    public void ajouterPlace(long idChambre, TypeChambre type, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        initialiser(idChambre, type, dateDebutAU, dateFinAU);
+        occupationRepository.ajouterPlace(idChambre, dateDebutAU.getYear());
+    }
+
+    @Transactional
+    public void libererPlace(long idChambre, LocalDate dateDebutAU) {
+        occupationRepository.libererPlace(idChambre, dateDebutAU.getYear());
+    }
+
+    // Essaie de prendre nb lits, puis moins si la chambre n'en a plus assez
+    // (au plus trois requêtes: une chambre a au plus trois lits)
+    private int prendre(long idChambre, int annee, int nb) {
+        for (int k = nb; k > 0; k--) {
+            if (occupationRepository.occuperPlaces(idChambre, annee, k) == 1) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    // Création de la ligne d'occupation à partir des réservations déjà en base.
+    // La lecture d'existence ne verrouille rien; si deux réservations créent la ligne
+    // en même temps, la seconde attend la première et son insertion devient sans effet.
+    private void initialiser(long idChambre, TypeChambre type, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        int annee = dateDebutAU.getYear();
+        if (occupationRepository.existsByIdChambreAndAnnee(idChambre, annee)) {
+            return;
+        }
+        int occupees = chambreRepository
+                .countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(idChambre, dateDebutAU, dateFinAU);
+        occupationRepository.creerSiAbsente(idChambre, annee, occupees, type.getCapacite());
+    }
+}
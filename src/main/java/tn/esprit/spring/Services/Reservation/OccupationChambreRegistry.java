@@ -0,0 +1,191 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs en mémoire du nombre de lits occupés par chambre et par année universitaire.
+ * <p>
+ * Les compteurs sont chargés depuis la base (une seule requête groupée par année) puis
+ * mis à jour à chaque réservation / annulation, ce qui évite de recompter les réservations
+ * d'une chambre (jointure sur trois tables) à chaque ajout. La vérification de la capacité
+ * se fait par compare-and-set sur le compteur de la chambre.
+ * <p>
+ * Chaque compteur garde le nombre de modifications dont la transaction n'est pas terminée et le
+ * numéro de séquence de la dernière transaction terminée (pris après le commit ou le rollback).
+ * La réconciliation ne corrige que les compteurs sans modification en cours et dont la dernière
+ * modification s'est terminée avant la lecture de la base: une réservation non encore validée
+ * n'est pas retirée du compteur.
+ */
+@Component
+@Slf4j
+public class OccupationChambreRegistry {
+    final ChambreRepository chambreRepository;
+
+    // année de début de l'AU -> (idChambre -> compteur)
+    private final Map<Integer, Map<Long, Compteur>> occupations = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    static final class Compteur {
+        final AtomicInteger occupees;
+        // Modifications dont la transaction n'est pas terminée
+        final AtomicInteger enCours = new AtomicInteger();
+        // Séquence de la fin de la dernière transaction ayant modifié le compteur
+        volatile long modifie;
+
+        Compteur(int occupees) {
+            this.occupees = new AtomicInteger(occupees);
+        }
+    }
+
+    public OccupationChambreRegistry(ChambreRepository chambreRepository) {
+        this.chambreRepository = chambreRepository;
+    }
+
+    /**
+     * Réserve un lit dans la chambre si sa capacité n'est pas atteinte.
+     *
+     * @return true si le lit a été réservé, false si la chambre est remplie
+     */
+    public boolean reserverPlace(long idChambre, int capacite, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return reserverPlaces(idChambre, capacite, 1, dateDebutAU, dateFinAU) == 1;
+    }
+
+    /**
+     * Réserve jusqu'à nb lits dans la chambre, dans la limite de sa capacité.
+     *
+     * @return le nombre de lits effectivement réservés
+     */
+    public int reserverPlaces(long idChambre, int capacite, int nb, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        Compteur compteur = compteur(idChambre, dateDebutAU, dateFinAU);
+        compteur.enCours.incrementAndGet();
+        int occupees;
+        int reservees;
+        try {
+            do {
+                occupees = compteur.occupees.get();
+                reservees = Math.min(nb, capacite - occupees);
+                if (reservees <= 0) {
+                    return 0;
+                }
+            } while (!compteur.occupees.compareAndSet(occupees, occupees + reservees));
+        } finally {
+            terminer(compteur);
+        }
+        return reservees;
+    }
+
+    /**
+     * Ajoute un lit occupé sans vérifier la capacité (affectation manuelle d'une réservation).
+     */
+    public void ajouterPlace(long idChambre, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        Compteur compteur = compteur(idChambre, dateDebutAU, dateFinAU);
+        compteur.enCours.incrementAndGet();
+        compteur.occupees.incrementAndGet();
+        terminer(compteur);
+    }
+
+    public void libererPlace(long idChambre, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        libererPlaces(idChambre, 1, dateDebutAU, dateFinAU);
+    }
+
+    public void libererPlaces(long idChambre, int nb, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        Compteur compteur = compteur(idChambre, dateDebutAU, dateFinAU);
+        compteur.enCours.incrementAndGet();
+        compteur.occupees.updateAndGet(n -> Math.max(n - nb, 0));
+        terminer(compteur);
+    }
+
+    public int occupation(long idChambre, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        return compteur(idChambre, dateDebutAU, dateFinAU).occupees.get();
+    }
+
+    // Fin de la modification: à la fin de la transaction en cours (commit ou rollback), sinon tout de suite
+    private void terminer(Compteur compteur) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    compteur.modifie = sequence.incrementAndGet();
+                    compteur.enCours.decrementAndGet();
+                }
+            });
+        } else {
+            compteur.modifie = sequence.incrementAndGet();
+            compteur.enCours.decrementAndGet();
+        }
+    }
+
+    /**
+     * Compare les compteurs en mémoire avec la base et corrige ceux qui ont dérivé.
+     * Un compteur modifié par une transaction en cours ou terminée après le début de la lecture
+     * n'est pas corrigé: il sera vérifié au prochain passage.
+     *
+     * @return le nombre de chambres corrigées
+     */
+    public synchronized int reconcilier(LocalDate dateDebutAU, LocalDate dateFinAU) {
+        int annee = dateDebutAU.getYear();
+        // Les années précédentes ne sont plus réservables
+        occupations.keySet().removeIf(a -> a < annee);
+
+        Map<Long, Compteur> compteurs = occupations.computeIfAbsent(annee, a -> new ConcurrentHashMap<>());
+        // Les transactions terminées avant ce point sont visibles par la lecture qui suit
+        long lecture = sequence.get();
+        Map<Long, Integer> enBase = new HashMap<>();
+        for (Object[] ligne : chambreRepository.countReservationsParChambre(dateDebutAU, dateFinAU)) {
+            enBase.put(((Number) ligne[0]).longValue(), ((Number) ligne[1]).intValue());
+        }
+
+        int corrigees = 0;
+        for (Map.Entry<Long, Integer> e : enBase.entrySet()) {
+            if (compteurs.putIfAbsent(e.getKey(), new Compteur(e.getValue())) != null
+                    && corriger(e.getKey(), compteurs.get(e.getKey()), e.getValue(), lecture)) {
+                corrigees++;
+            }
+        }
+        // Chambres sans aucune réservation en base
+        for (Map.Entry<Long, Compteur> e : compteurs.entrySet()) {
+            if (!enBase.containsKey(e.getKey()) && corriger(e.getKey(), e.getValue(), 0, lecture)) {
+                corrigees++;
+            }
+        }
+        return corrigees;
+    }
+
+    private boolean corriger(long idChambre, Compteur compteur, int enBase, long lecture) {
+        int occupees = compteur.occupees.get();
+        if (occupees == enBase || compteur.enCours.get() != 0 || compteur.modifie > lecture) {
+            return false;
+        }
+        // Échoue si une réservation a modifié le compteur entre-temps
+        if (!compteur.occupees.compareAndSet(occupees, enBase)) {
+            return false;
+        }
+        log.warn("Occupation de la chambre " + idChambre + " corrigée: " + occupees + " -> " + enBase);
+        return true;
+    }
+
+    private Compteur compteur(long idChambre, LocalDate dateDebutAU, LocalDate dateFinAU) {
+        Map<Long, Compteur> compteurs = occupations.get(dateDebutAU.getYear());
+        if (compteurs == null) {
+            // Premier accès à cette année: chargement depuis la base
+            synchronized (this) {
+                if (!occupations.containsKey(dateDebutAU.getYear())) {
+                    reconcilier(dateDebutAU, dateFinAU);
+                }
+            }
+            compteurs = occupations.get(dateDebutAU.getYear());
+        }
+        return compteurs.computeIfAbsent(idChambre, id -> new Compteur(0));
+    }
+}
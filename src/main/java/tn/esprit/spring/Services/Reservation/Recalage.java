@@ -0,0 +1,86 @@
+package tn.esprit.spring.Services.Reservation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Recalage d'un agrégat tenu en mémoire sur une lecture de la base, règle commune à
+ * {@link IndexReservationsJours}, IndexChambresLibres et DisponibiliteLits.
+ * <p>
+ * Chaque variation reçoit un numéro croissant quand elle est appliquée, après le commit de sa
+ * transaction. Le numéro courant est relevé avant la lecture de la base ({@link #debutLecture})
+ * et juste après ({@link #finLecture}). Au recalage:
+ * <ul>
+ *     <li>une clé non modifiée depuis le début de la lecture prend la valeur lue;</li>
+ *     <li>une clé modifiée depuis garde sa valeur en mémoire, qui a reçu toutes ses variations
+ *     (la lecture a pu voir ou non les dernières): l'écart éventuel est corrigé au recalage suivant;</li>
+ *     <li>une clé sans valeur en mémoire (premier chargement) prend la valeur lue plus les variations
+ *     numérotées après la fin de la lecture: celles reçues pendant la lecture sont supposées vues.</li>
+ * </ul>
+ * Hormis {@link #numero()} et {@link #finLecture()}, les méthodes sont appelées sous le verrou de l'agrégat.
+ */
+public class Recalage<K> {
+    private final AtomicLong sequence = new AtomicLong();
+    // Numéro de la dernière variation de chaque clé
+    private final Map<K, Long> modifiees = new HashMap<>();
+    // Variations reçues pendant une lecture (null hors lecture)
+    private List<Variation<K>> journal;
+
+    private record Variation<K>(K cle, long numero, int delta) {
+    }
+
+    public long numero() {
+        return sequence.get();
+    }
+
+    /**
+     * @return le numéro attribué à la variation
+     */
+    public long modifier(K cle, int delta) {
+        long numero = sequence.incrementAndGet();
+        modifiees.put(cle, numero);
+        if (journal != null) {
+            journal.add(new Variation<>(cle, numero, delta));
+        }
+        return numero;
+    }
+
+    public boolean modifieeDepuis(K cle, long numero) {
+        Long derniere = modifiees.get(cle);
+        return derniere != null && derniere > numero;
+    }
+
+    /**
+     * Ouvre le journal des variations et relève le numéro courant, avant la requête.
+     */
+    public long debutLecture() {
+        journal = new ArrayList<>();
+        return sequence.get();
+    }
+
+    // Juste après la requête, sans attendre le verrou de l'agrégat
+    public long finLecture() {
+        return sequence.get();
+    }
+
+    // Clés modifiées depuis le début de la lecture: elles gardent leur valeur en mémoire
+    public Set<K> modifieesDepuis(long debut) {
+        return journal.stream().filter(v -> v.numero() > debut).map(Variation::cle).collect(Collectors.toSet());
+    }
+
+    // Somme des variations par clé reçues après la fin de la lecture (clés sans valeur en mémoire)
+    public Map<K, Integer> variationsApres(long fin) {
+        Map<K, Integer> variations = new HashMap<>();
+        journal.stream().filter(v -> v.numero() > fin).forEach(v -> variations.merge(v.cle(), v.delta(), Integer::sum));
+        return variations;
+    }
+
+    public void terminerLecture() {
+        journal = null;
+    }
+}
@@ -0,0 +1,11 @@
+package tn.esprit.spring.Services.Reservation;
+
+/**
+ * Réservation valide d'un étudiant modifiée, publié par ReservationService et appliqué après le
+ * commit par {@link CacheReservationActive}.
+ *
+ * @param idReservation nouvelle réservation de l'étudiant, ou null si sa réservation a été annulée
+ *                      ou invalidée (une réservation plus ancienne peut rester valide: relue en base)
+ */
+public record ReservationActiveEvent(long cin, String idReservation) {
+}
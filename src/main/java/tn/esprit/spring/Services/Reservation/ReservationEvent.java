@@ -0,0 +1,39 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+
+// Événement publié par ReservationService (ApplicationEventPublisher) sur une chambre de l'année en cours
+@Getter
+@AllArgsConstructor
+public class ReservationEvent {
+
+    public enum Type {
+        // Réservation enregistrée
+        AJOUT,
+        // Un lit a été libéré (annulation ou désaffectation)
+        ANNULATION,
+        // Réservation refusée: chambre remplie
+        REFUS
+    }
+
+    final Type type;
+    final long idChambre;
+    final long numeroChambre;
+    // null si le bloc de la chambre n'est affecté à aucun foyer
+    final Long idFoyer;
+    final TypeChambre typeChambre;
+    // null si l'étudiant n'est pas connu (désaffectation d'une réservation sans étudiant)
+    final Long cin;
+    // Année de début de l'année universitaire
+    final int annee;
+
+    public static ReservationEvent of(Type type, Chambre chambre, Long cin, int annee) {
+        Long idFoyer = chambre.getBloc() == null || chambre.getBloc().getFoyer() == null
+                ? null : chambre.getBloc().getFoyer().getIdFoyer();
+        return new ReservationEvent(type, chambre.getIdChambre(), chambre.getNumeroChambre(), idFoyer,
+                chambre.getTypeC(), cin, annee);
+    }
+}
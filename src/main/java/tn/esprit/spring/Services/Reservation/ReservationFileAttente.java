@@ -0,0 +1,205 @@
+package tn.esprit.spring.Services.Reservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.ResultatReservation;
+import tn.esprit.spring.DTO.StatutTicket;
+import tn.esprit.spring.DTO.TicketReservation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réservations asynchrones (reservation.async.enabled=true).
+ * <p>
+ * Une demande est acceptée dans une file bornée et reçoit un ticket immédiatement.
+ * Chaque worker a sa propre file: une chambre est toujours traitée par le même worker,
+ * donc deux workers ne se disputent jamais la ligne d'occupation d'une chambre.
+ * Un worker vide sa file par lots et enregistre chaque lot en une transaction
+ * ({@link IReservationService#ajouterReservations}).
+ */
+@Component
+@ConditionalOnProperty(prefix = "reservation.async", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReservationFileAttente {
+    final IReservationService reservationService;
+    final ReservationProperties.Async properties;
+    final List<BlockingQueue<DemandeEnAttente>> files = new ArrayList<>();
+    final Map<String, TicketReservation> tickets = new ConcurrentHashMap<>();
+    final ExecutorService workers;
+
+    final Timer attente;
+    final Timer traitement;
+    final DistributionSummary tailleLots;
+    final Counter refusees;
+
+    public ReservationFileAttente(IReservationService reservationService,
+                                  ReservationProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.reservationService = reservationService;
+        this.properties = properties.getAsync();
+        int nbWorkers = this.properties.getWorkers();
+        int capaciteParWorker = Math.max(1, this.properties.getCapacite() / nbWorkers);
+        for (int i = 0; i < nbWorkers; i++) {
+            files.add(new ArrayBlockingQueue<>(capaciteParWorker));
+        }
+
+        Gauge.builder("reservation.async.queue.depth", files, f -> f.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Demandes de réservation en attente de traitement")
+                .register(meterRegistry);
+        attente = Timer.builder("reservation.async.queue.wait")
+                .description("Temps passé par une demande dans la file")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        traitement = Timer.builder("reservation.async.batch.duration")
+                .description("Durée d'enregistrement d'un lot")
+                .register(meterRegistry);
+        tailleLots = DistributionSummary.builder("reservation.async.batch.size")
+                .register(meterRegistry);
+        refusees = Counter.builder("reservation.async.rejected")
+                .description("Demandes refusées car la file était pleine")
+                .register(meterRegistry);
+
+        AtomicInteger numero = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(nbWorkers, r -> {
+            Thread t = new Thread(r, "reservation-worker-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        files.forEach(file -> workers.submit(() -> traiter(file)));
+    }
+
+    /**
+     * @return le ticket de la demande, ou null si la file est pleine
+     */
+    public TicketReservation soumettre(Long numChambre, long cin) {
+        TicketReservation ticket = TicketReservation.builder()
+                .idTicket(UUID.randomUUID().toString())
+                .numChambre(numChambre)
+                .cin(cin)
+                .statut(StatutTicket.EN_ATTENTE)
+                .dateSoumission(Instant.now())
+                .build();
+        tickets.put(ticket.getIdTicket(), ticket);
+        DemandeEnAttente demande = new DemandeEnAttente(ticket.getIdTicket(),
+                new DemandeReservation(numChambre, cin), System.nanoTime());
+        if (!fileDe(numChambre).offer(demande)) {
+            tickets.remove(ticket.getIdTicket());
+            refusees.increment();
+            return null;
+        }
+        return ticket;
+    }
+
+    public TicketReservation ticket(String idTicket) {
+        return tickets.get(idTicket);
+    }
+
+    public int enAttente() {
+        return files.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgerTickets() {
+        Instant limite = Instant.now().minus(properties.getRetentionTickets());
+        tickets.values().removeIf(t -> t.getDateTraitement() != null && t.getDateTraitement().isBefore(limite));
+    }
+
+    @PreDestroy
+    public void arreter() {
+        workers.shutdownNow();
+        int restantes = enAttente();
+        if (restantes > 0) {
+            log.warn(restantes + " demande(s) de réservation non traitée(s) à l'arrêt");
+        }
+    }
+
+    private BlockingQueue<DemandeEnAttente> fileDe(Long numChambre) {
+        int hash = numChambre == null ? 0 : Long.hashCode(numChambre);
+        return files.get(Math.floorMod(hash, files.size()));
+    }
+
+    private void traiter(BlockingQueue<DemandeEnAttente> file) {
+        List<DemandeEnAttente> lot = new ArrayList<>(properties.getTailleLot());
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                lot.add(file.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            file.drainTo(lot, properties.getTailleLot() - 1);
+            try {
+                traiterLot(lot);
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue lors du traitement d'un lot de réservations", e);
+            }
+            lot.clear();
+        }
+    }
+
+    private void traiterLot(List<DemandeEnAttente> lot) {
+        long debut = System.nanoTime();
+        lot.forEach(d -> attente.record(debut - d.getSoumiseA(), TimeUnit.NANOSECONDS));
+        tailleLots.record(lot.size());
+
+        List<ResultatReservation> resultats;
+        try {
+            resultats = reservationService.ajouterReservations(lot.stream().map(DemandeEnAttente::getDemande).toList());
+        } catch (RuntimeException e) {
+            // Le lot a été annulé: on retente chaque demande seule pour isoler celle en erreur
+            log.warn("Échec du lot de " + lot.size() + " réservation(s), traitement unitaire: " + e.getMessage());
+            resultats = new ArrayList<>();
+            for (DemandeEnAttente d : lot) {
+                try {
+                    resultats.add(reservationService.ajouterReservations(List.of(d.getDemande())).get(0));
+                } catch (RuntimeException ex) {
+                    log.error("Échec de la réservation de la chambre " + d.getDemande().getNumChambre()
+                            + " pour l'étudiant " + d.getDemande().getCin(), ex);
+                    resultats.add(null);
+                }
+            }
+        }
+
+        Instant fin = Instant.now();
+        for (int i = 0; i < lot.size(); i++) {
+            ResultatReservation resultat = resultats.get(i);
+            tickets.computeIfPresent(lot.get(i).getIdTicket(), (id, t) -> t.toBuilder()
+                    .statut(resultat == null ? StatutTicket.ECHEC : StatutTicket.TRAITE)
+                    .resultat(resultat)
+                    .dateTraitement(fin)
+                    .build());
+        }
+        traitement.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class DemandeEnAttente {
+        String idTicket;
+        DemandeReservation demande;
+        long soumiseA;
+    }
+}
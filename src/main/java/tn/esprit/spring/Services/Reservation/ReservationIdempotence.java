@@ -0,0 +1,163 @@
+package tn.esprit.spring.Services.Reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.CleIdempotence;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Repositories.CleIdempotenceRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Création de réservation avec en-tête Idempotency-Key.
+ * <p>
+ * La première demande d'une clé est exécutée; les suivantes (y compris celles qui arrivent
+ * pendant le traitement) reçoivent la même réponse sans nouvelle lecture des chambres ni des
+ * étudiants. Les clés sont gardées en mémoire, en nombre borné et pendant une durée limitée;
+ * une demande en échec n'est pas mémorisée et peut être rejouée.
+ */
+@Component
+@Slf4j
+public class ReservationIdempotence {
+    final IReservationService reservationService;
+    final ReservationRepository reservationRepository;
+    final CleIdempotenceRepository cleRepository;
+    final ReservationProperties.Idempotence properties;
+
+    // Ordre d'insertion = ordre d'expiration (même durée de vie pour toutes les clés)
+    final LinkedHashMap<String, Entree> entrees;
+
+    public ReservationIdempotence(IReservationService reservationService,
+                                  ReservationRepository reservationRepository,
+                                  CleIdempotenceRepository cleRepository,
+                                  ReservationProperties properties) {
+        this.reservationService = reservationService;
+        this.reservationRepository = reservationRepository;
+        this.cleRepository = cleRepository;
+        this.properties = properties.getIdempotence();
+        this.entrees = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entree> plusAncienne) {
+                return size() > ReservationIdempotence.this.properties.getCapacite();
+            }
+        };
+    }
+
+    public Reservation ajouterReservationEtAssignerAChambreEtAEtudiant(String cle, Long numChambre, long cin) {
+        String empreinte = numChambre + ":" + cin;
+        CompletableFuture<Reservation> reponse = new CompletableFuture<>();
+        Entree existante;
+        synchronized (entrees) {
+            long maintenant = System.nanoTime();
+            purger(maintenant);
+            existante = entrees.get(cle);
+            if (existante != null && existante.expireA - maintenant <= 0) {
+                existante = null;
+            }
+            if (existante == null) {
+                // Réinsertion en fin de liste pour garder l'ordre d'expiration
+                entrees.remove(cle);
+                entrees.put(cle, new Entree(empreinte, reponse, maintenant + properties.getTtl().toNanos()));
+            }
+        }
+        if (existante != null) {
+            verifierEmpreinte(cle, existante.empreinte, empreinte);
+            try {
+                return existante.reponse.join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        }
+
+        try {
+            Reservation reservation = properties.isPersistante()
+                    ? executerAvecCleEnBase(cle, empreinte, numChambre, cin)
+                    : reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
+            reponse.complete(reservation);
+            return reservation;
+        } catch (RuntimeException e) {
+            synchronized (entrees) {
+                entrees.remove(cle);
+            }
+            reponse.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Nettoyage des clés expirées partagées entre instances
+    @Scheduled(fixedDelay = 3600000)
+    public void purgerClesEnBase() {
+        if (properties.isPersistante()) {
+            int supprimees = cleRepository.supprimerExpirees(LocalDateTime.now().minus(properties.getTtl()));
+            if (supprimees > 0) {
+                log.info(supprimees + " clé(s) d'idempotence expirée(s) supprimée(s)");
+            }
+        }
+    }
+
+    // La ligne est insérée avant le traitement: si elle existe déjà, une autre instance a la clé
+    private Reservation executerAvecCleEnBase(String cle, String empreinte, Long numChambre, long cin) {
+        try {
+            cleRepository.saveAndFlush(CleIdempotence.builder()
+                    .cle(cle)
+                    .empreinte(empreinte)
+                    .dateCreation(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            CleIdempotence existante = cleRepository.findById(cle).orElseThrow(() -> e);
+            verifierEmpreinte(cle, existante.getEmpreinte(), empreinte);
+            if (!existante.isTerminee()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Demande " + cle + " en cours de traitement");
+            }
+            return existante.getIdReservation() == null ? null
+                    : reservationRepository.findByIdReservation(existante.getIdReservation()).orElse(null);
+        }
+
+        Reservation reservation;
+        try {
+            reservation = reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
+        } catch (RuntimeException e) {
+            cleRepository.deleteById(cle);
+            throw e;
+        }
+        cleRepository.terminer(cle, reservation == null ? null : reservation.getIdReservation());
+        return reservation;
+    }
+
+    private void verifierEmpreinte(String cle, String attendue, String recue) {
+        if (!attendue.equals(recue)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La clé " + cle + " a déjà été utilisée pour une autre demande");
+        }
+    }
+
+    private void purger(long maintenant) {
+        Iterator<Entree> it = entrees.values().iterator();
+        while (it.hasNext()) {
+            Entree entree = it.next();
+            if (entree.expireA - maintenant > 0) {
+                return;
+            }
+            it.remove();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entree {
+        String empreinte;
+        CompletableFuture<Reservation> reponse;
+        long expireA;
+    }
+}
@@ -0,0 +1,10 @@
+package tn.esprit.spring.Services.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * Réservations créées (nombre positif) ou supprimées (négatif) à une date anneeUniversitaire,
+ * publié par ReservationService et appliqué après le commit par {@link IndexReservationsJours}.
+ */
+public record ReservationJourEvent(LocalDate jour, int nombre) {
+}
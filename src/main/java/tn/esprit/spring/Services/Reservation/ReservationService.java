@@ -1,20 +1,48 @@
 package tn.esprit.spring.Services.Reservation;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.Config.ReservationProperties;
 import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
 import tn.esprit.spring.DAO.Entities.Foyer;
 import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
 import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
 import tn.esprit.spring.DAO.Repositories.FoyerRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationPartitionRepository;
 import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.MaReservation;
+import tn.esprit.spring.DTO.Periode;
+import tn.esprit.spring.DTO.ResultatReservation;
+import tn.esprit.spring.DTO.StatutReservation;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
@@ -23,10 +51,27 @@ public class ReservationService implements IReservationService {
     ReservationRepository repo;
     ChambreRepository chambreRepository;
     EtudiantRepository etudiantRepository;
+    OccupationChambreRegistry occupationRegistry;
+    OccupationChambreLedger occupationLedger;
+    ReservationBatchRepository reservationBatchRepository;
+    ReservationPartitionRepository partitionRepository;
+    // Événements de réservation relayés après le commit (mails, métriques, caches): voir OutboxRelay
+    EvenementOutboxRepository outboxRepository;
+    PlatformTransactionManager transactionManager;
+    ReservationProperties properties;
+    MeterRegistry meterRegistry;
+    ApplicationEventPublisher publisher;
+    AcademicCalendar calendrier;
+    IndexReservationsJours indexJours;
+    // Réservation valide de chaque étudiant, mise à jour après le commit (ReservationActiveEvent)
+    CacheReservationActive cacheActive;
 
     @Override
     public Reservation addOrUpdate(Reservation r) {
-        return repo.save(r);
+        Reservation enregistree = repo.save(r);
+        // Étudiants et validité modifiables librement: le cache est relu en base
+        cacheActive.vider();
+        return enregistree;
     }
 
     @Override
@@ -36,76 +81,62 @@ public class ReservationService implements IReservationService {
 
     @Override
     public Reservation findById(String id) {
-        return repo.findById(id).get();
+        return repo.findByIdReservation(id).get();
     }
 
     @Override
     public void deleteById(String id) {
-        repo.deleteById(id);
+        repo.deleteByIdReservation(id);
+        cacheActive.vider();
     }
 
     @Override
     public void delete(Reservation r) {
         repo.delete(r);
-    }
-
-    public LocalDate getDateDebutAU() {
-        LocalDate dateDebutAU;
-        int year = LocalDate.now().getYear() % 100;
-        if (LocalDate.now().getMonthValue() <= 7) {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + (year - 1)), 9, 15);
-        } else {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + year), 9, 15);
-        }
-        return dateDebutAU;
-    }
-
-    public LocalDate getDateFinAU() {
-        LocalDate dateFinAU;
-        int year = LocalDate.now().getYear() % 100;
-        if (LocalDate.now().getMonthValue() <= 7) {
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + year), 6, 30);
-        } else {
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
-        }
-        return dateFinAU;
+        cacheActive.vider();
     }
 
     @Override
+    @Transactional
     public Reservation ajouterReservationEtAssignerAChambreEtAEtudiant
             (Long numChambre, long cin) {
         // Récupération de la chambre et de l'étudiant
         Chambre chambre = chambreRepository.findByNumeroChambre(numChambre);
         Etudiant etudiant = etudiantRepository.findByCin(cin);
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        LocalDate dateDebutAU = anneeEnCours.debut();
+        LocalDate dateFinAU = anneeEnCours.fin();
 
-        // Compter le nombre de réservations existantes
-        int nombreReservations = chambreRepository.
-                countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween
-                        (chambre.getIdChambre(), getDateDebutAU(), getDateFinAU());
-
-        // Vérification de la capacité de la chambre
-        boolean ajout = false;
-        int capaciteMaximale = switch (chambre.getTypeC()) {
-            case SIMPLE -> 1;
-            case DOUBLE -> 2;
-            case TRIPLE -> 3;
-        };
-
-        if (nombreReservations < capaciteMaximale) {
-            ajout = true;
-        } else {
+        // Vérification de la capacité de la chambre sur le compteur en mémoire:
+        // une chambre remplie est refusée sans recompter les réservations en base
+        if (!occupationRegistry.reserverPlace(chambre.getIdChambre(),
+                chambre.getTypeC().getCapacite(), dateDebutAU, dateFinAU)) {
             log.info("Chambre " + chambre.getTypeC() + " remplie !");
+            publisher.publishEvent(ReservationEvent.of(ReservationEvent.Type.REFUS, chambre, cin, anneeEnCours.cle()));
+            // Retourner null ou lever une exception plutôt que de retourner une nouvelle réservation vide
+            return null; // Ou vous pouvez lever une exception pour indiquer que l'ajout a échoué
         }
 
-        if (ajout) {
+        try {
+            // Prise du lit en base: UPDATE conditionnel sur la ligne d'occupation de la chambre,
+            // qui empêche deux réservations concurrentes de dépasser la capacité
+            if (!occupationLedger.occuperPlace(chambre.getIdChambre(), chambre.getTypeC(), dateDebutAU, dateFinAU)) {
+                // Le compteur en mémoire était en retard sur la base
+                occupationRegistry.libererPlace(chambre.getIdChambre(), dateDebutAU, dateFinAU);
+                log.info("Chambre " + chambre.getTypeC() + " remplie !");
+                publisher.publishEvent(ReservationEvent.of(ReservationEvent.Type.REFUS, chambre, cin, anneeEnCours.cle()));
+                return null;
+            }
+
             // Création de la réservation
-            String idReservation = "" + getDateDebutAU().getYear() + "/" + getDateFinAU().getYear() + "-" + chambre.getBloc().getNomBloc() + "-"
-                    + chambre.getNumeroChambre() + "-" + etudiant.getCin();
+            String idReservation = codeReservation(dateDebutAU, dateFinAU, chambre, etudiant.getCin());
 
+            LocalDate aujourdhui = calendrier.aujourdhui();
             Reservation reservation = Reservation.builder()
                     .estValide(true)
-                    .anneeUniversitaire(LocalDate.now())
+                    .anneeUniversitaire(aujourdhui)
                     .idReservation(idReservation)
+                    .chambre(chambre)
                     .build();
 
             // Affectation de l'étudiant à la réservation
@@ -114,79 +145,328 @@ public class ReservationService implements IReservationService {
             }
             reservation.getEtudiants().add(etudiant);
 
-            // Sauvegarde de la réservation
+            // Sauvegarde de la réservation (un seul INSERT: la chambre est sa clé étrangère)
             reservation = repo.save(reservation);
+            outboxRepository.save(EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_CREEE,
+                    idReservation, cin, chambre.getIdChambre(), anneeEnCours.cle()));
 
-            // Affectation de la réservation à la chambre
-            chambre.getReservations().add(reservation);
-            chambreRepository.save(chambre);
-
+            publisher.publishEvent(ReservationEvent.of(ReservationEvent.Type.AJOUT, chambre, cin, anneeEnCours.cle()));
+            publisher.publishEvent(new ReservationJourEvent(aujourdhui, 1));
+            publisher.publishEvent(new ReservationActiveEvent(cin, idReservation));
             return reservation;
+        } catch (RuntimeException e) {
+            // La réservation n'a pas été enregistrée: on rend le lit
+            occupationRegistry.libererPlace(chambre.getIdChambre(), dateDebutAU, dateFinAU);
+            throw e;
         }
-
-        // Retourner null ou lever une exception plutôt que de retourner une nouvelle réservation vide
-        return null; // Ou vous pouvez lever une exception pour indiquer que l'ajout a échoué
     }
 
+    @Override
+    @Transactional
+    public List<ResultatReservation> ajouterReservations(List<DemandeReservation> demandes) {
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        LocalDate dateDebutAU = anneeEnCours.debut();
+        LocalDate dateFinAU = anneeEnCours.fin();
+        LocalDate aujourdhui = calendrier.aujourdhui();
+
+        // Récupération des chambres et des étudiants en deux requêtes (IN) pour tout le lot
+        Map<Long, Chambre> chambres = chambreRepository.findByNumeroChambreIn(demandes.stream()
+                        .map(DemandeReservation::getNumChambre).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Chambre::getNumeroChambre, c -> c));
+        Map<Long, Etudiant> etudiants = etudiantRepository.findByCinIn(demandes.stream()
+                        .map(DemandeReservation::getCin).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Etudiant::getCin, e -> e, (e1, e2) -> e1));
+
+        // Résultats dans l'ordre des demandes, demandes valides regroupées par chambre
+        List<ResultatReservation> resultats = new ArrayList<>();
+        Map<String, ResultatReservation> candidates = new LinkedHashMap<>();
+        for (DemandeReservation demande : demandes) {
+            ResultatReservation resultat = ResultatReservation.builder()
+                    .numChambre(demande.getNumChambre())
+                    .cin(demande.getCin())
+                    .build();
+            resultats.add(resultat);
+            Chambre chambre = chambres.get(demande.getNumChambre());
+            if (chambre == null) {
+                resultat.setStatut(StatutReservation.CHAMBRE_INTROUVABLE);
+            } else if (!etudiants.containsKey(demande.getCin())) {
+                resultat.setStatut(StatutReservation.ETUDIANT_INTROUVABLE);
+            } else {
+                String idReservation = codeReservation(dateDebutAU, dateFinAU, chambre, demande.getCin());
+                if (candidates.putIfAbsent(idReservation, resultat) != null) {
+                    // Doublon dans le lot
+                    resultat.setStatut(StatutReservation.DEJA_RESERVEE);
+                } else {
+                    resultat.setIdReservation(idReservation);
+                }
+            }
+        }
+        // Réservations déjà en base (une seule requête)
+        for (Reservation existante : repo.findByIdReservationIn(candidates.keySet())) {
+            ResultatReservation resultat = candidates.remove(existante.getIdReservation());
+            resultat.setStatut(StatutReservation.DEJA_RESERVEE);
+            resultat.setIdReservation(null);
+        }
+
+        // Chambres parcourues par identifiant croissant: deux lots verrouillent leurs lignes d'occupation
+        // dans le même ordre et ne peuvent pas s'interbloquer (les résultats restent dans l'ordre des demandes)
+        Map<Chambre, List<ResultatReservation>> parChambre = new TreeMap<>(Comparator.comparingLong(Chambre::getIdChambre));
+        candidates.values().forEach(resultat -> parChambre
+                .computeIfAbsent(chambres.get(resultat.getNumChambre()), c -> new ArrayList<>())
+                .add(resultat));
+
+        // Capacité vérifiée une fois par chambre: compteur en mémoire puis ligne d'occupation en base
+        Map<Long, List<Reservation>> acceptees = new LinkedHashMap<>();
+        Map<Long, Integer> placesPrises = new HashMap<>();
+        try {
+            parChambre.forEach((chambre, liste) -> {
+                int reservees = occupationRegistry.reserverPlaces(chambre.getIdChambre(),
+                        chambre.getTypeC().getCapacite(), liste.size(), dateDebutAU, dateFinAU);
+                placesPrises.put(chambre.getIdChambre(), reservees);
+                int prises = reservees == 0 ? 0 : occupationLedger.occuperPlaces(chambre.getIdChambre(),
+                        chambre.getTypeC(), reservees, dateDebutAU, dateFinAU);
+                if (prises < reservees) {
+                    // Le compteur en mémoire était en retard sur la base
+                    occupationRegistry.libererPlaces(chambre.getIdChambre(), reservees - prises, dateDebutAU, dateFinAU);
+                    placesPrises.put(chambre.getIdChambre(), prises);
+                }
+                for (int i = 0; i < liste.size(); i++) {
+                    ResultatReservation resultat = liste.get(i);
+                    if (i >= prises) {
+                        resultat.setStatut(StatutReservation.CHAMBRE_REMPLIE);
+                        resultat.setIdReservation(null);
+                        continue;
+                    }
+                    Reservation reservation = Reservation.builder()
+                            .estValide(true)
+                            .anneeUniversitaire(aujourdhui)
+                            .idReservation(resultat.getIdReservation())
+                            .etudiants(new ArrayList<>(List.of(etudiants.get(resultat.getCin()))))
+                            .build();
+                    acceptees.computeIfAbsent(chambre.getIdChambre(), id -> new ArrayList<>()).add(reservation);
+                    resultat.setStatut(StatutReservation.ACCEPTEE);
+                }
+                if (prises < liste.size()) {
+                    log.info("Chambre " + chambre.getNumeroChambre() + " remplie: "
+                            + (liste.size() - prises) + " réservation(s) refusée(s)");
+                }
+            });
+
+            // Écriture en lot (JDBC batch) dans la transaction
+            reservationBatchRepository.insererReservations(acceptees);
+            List<EvenementOutbox> evenements = new ArrayList<>();
+            acceptees.forEach((idChambre, reservations) -> reservations.forEach(reservation -> evenements.add(
+                    EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_CREEE, reservation.getIdReservation(),
+                            reservation.getEtudiants().get(0).getCin(), idChambre, anneeEnCours.cle()))));
+            outboxRepository.saveAll(evenements);
+            int nombre = acceptees.values().stream().mapToInt(List::size).sum();
+            if (nombre > 0) {
+                publisher.publishEvent(new ReservationJourEvent(aujourdhui, nombre));
+            }
+            acceptees.values().forEach(reservations -> reservations.forEach(reservation -> publisher.publishEvent(
+                    new ReservationActiveEvent(reservation.getEtudiants().get(0).getCin(), reservation.getIdReservation()))));
+            parChambre.forEach((chambre, liste) -> liste.forEach(resultat -> publisher.publishEvent(ReservationEvent.of(
+                    resultat.getStatut() == StatutReservation.ACCEPTEE ? ReservationEvent.Type.AJOUT : ReservationEvent.Type.REFUS,
+                    chambre, resultat.getCin(), anneeEnCours.cle()))));
+        } catch (RuntimeException e) {
+            // Le lot n'a pas été enregistré: on rend les lits pris en mémoire
+            placesPrises.forEach((idChambre, nb) ->
+                    occupationRegistry.libererPlaces(idChambre, nb, dateDebutAU, dateFinAU));
+            throw e;
+        }
+        return resultats;
+    }
 
     @Override
     public long getReservationParAnneeUniversitaire(LocalDate debutAnnee, LocalDate finAnnee) {
-        return repo.countByAnneeUniversitaireBetween(debutAnnee, finAnnee);
+        // Sommes préfixes en mémoire: pas de comptage en base sur la période
+        return indexJours.compter(debutAnnee, finAnnee);
+    }
+
+    @Override
+    public List<Long> getReservationParPeriodes(List<Periode> periodes) {
+        return indexJours.compter(periodes);
     }
 
     @Override
+    @Transactional
     public String annulerReservation(long cinEtudiant) {
-        Reservation r = repo.findByEtudiantsCinAndEstValide(cinEtudiant,
-                true);
-        Chambre c = chambreRepository.findByReservationsIdReservation
-                (r.getIdReservation());
-        c.getReservations().remove(r);
-        chambreRepository.save(c);
-        repo.delete(r);
-        return "La réservation " + r.getIdReservation()
+        // Pas de raccourci par le cache: une entrée négative périmée ferait refuser une annulation légitime.
+        // Requêtes ciblées: lecture de la réservation (avec sa chambre) puis DELETE de ses lignes
+        // étudiants et de la réservation; ni la chambre ni sa liste de réservations ne sont chargées
+        List<Object[]> lignes = repo.findReservationValideAAnnuler(cinEtudiant, PageRequest.of(0, 1));
+        if (lignes.isEmpty()) {
+            return "Aucune réservation valide pour l'étudiant " + cinEtudiant;
+        }
+        Object[] ligne = lignes.get(0);
+        long id = (Long) ligne[0];
+        String idReservation = (String) ligne[1];
+        LocalDate anneeUniversitaire = (LocalDate) ligne[2];
+        repo.supprimerReservation(id);
+        // Une réservation plus ancienne peut rester valide: l'entrée est relue en base
+        publisher.publishEvent(new ReservationActiveEvent(cinEtudiant, null));
+        if (anneeUniversitaire != null) {
+            publisher.publishEvent(new ReservationJourEvent(anneeUniversitaire, -1));
+        }
+        // Réservation sans date: même année que celle stockée par l'entité (0)
+        int anneeAcademique = anneeUniversitaire == null ? 0 : Reservation.anneeAcademique(anneeUniversitaire);
+        outboxRepository.save(EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_ANNULEE, idReservation,
+                cinEtudiant, (Long) ligne[3], anneeAcademique));
+        if (ligne[3] != null) {
+            libererPlaceAnneeEnCours(anneeUniversitaire, new ReservationEvent(ReservationEvent.Type.ANNULATION,
+                    (Long) ligne[3], (Long) ligne[4], (Long) ligne[6], (TypeChambre) ligne[5],
+                    cinEtudiant, calendrier.anneeEnCours().cle()));
+        }
+        return "La réservation " + idReservation
                 + " est annulée avec succés";
     }
 
     @Override
+    public MaReservation getMaReservation(long cin) {
+        String idReservation = cacheActive.reservationActive(cin);
+        return MaReservation.builder()
+                .cin(cin)
+                .active(idReservation != null)
+                .idReservation(idReservation)
+                .build();
+    }
+
+    @Override
+    @Transactional
     public void affectReservationAChambre(String idRes, long idChambre) {
-        Reservation r = repo.findById(idRes).get();
+        Reservation r = repo.findByIdReservation(idRes).get();
         Chambre c = chambreRepository.findById(idChambre).get();
-        // Parent: Chambre , Child: Reservation
-        // On affecte le child au parent
-        c.getReservations().add(r);
-        chambreRepository.save(c);
+        Chambre ancienne = r.getChambre();
+        if (ancienne != null && ancienne.getIdChambre() == c.getIdChambre()) {
+            return;
+        }
+        // La réservation porte la clé étrangère de la chambre: l'affecter la retire de l'ancienne
+        r.setChambre(c);
+        repo.save(r);
+        if (ancienne != null) {
+            libererPlaceAnneeEnCours(r, ancienne);
+        }
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        if (anneeEnCours.contient(r.getAnneeUniversitaire())) {
+            occupationLedger.ajouterPlace(c.getIdChambre(), c.getTypeC(), anneeEnCours.debut(), anneeEnCours.fin());
+            occupationRegistry.ajouterPlace(c.getIdChambre(), anneeEnCours.debut(), anneeEnCours.fin());
+            Long cin = r.getEtudiants() == null || r.getEtudiants().isEmpty() ? null : r.getEtudiants().get(0).getCin();
+            publisher.publishEvent(ReservationEvent.of(ReservationEvent.Type.AJOUT, c, cin, anneeEnCours.cle()));
+        }
     }
 
     @Override
+    @Transactional
     public void deaffectReservationAChambre(String idRes, long idChambre) {
-        Reservation r = repo.findById(idRes).get();
+        Reservation r = repo.findByIdReservation(idRes).get();
         Chambre c = chambreRepository.findById(idChambre).get();
-        // Parent: Chambre , Child: Reservation
-        // On affecte le child au parent
-        c.getReservations().remove(r);
-        chambreRepository.save(c);
-    }
-
-    @Override
-    public void annulerReservations() {
-        // Début "récuperer l'année universitaire actuelle"
-        LocalDate dateDebutAU;
-        LocalDate dateFinAU;
-        int numReservation;
-        int year = LocalDate.now().getYear() % 100;
-        if (LocalDate.now().getMonthValue() <= 7) {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + (year - 1)), 9, 15);
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + year), 6, 30);
-        } else {
-            dateDebutAU = LocalDate.of(Integer.parseInt("20" + year), 9, 15);
-            dateFinAU = LocalDate.of(Integer.parseInt("20" + (year + 1)), 6, 30);
-        }
-        // Fin "récuperer l'année universitaire actuelle"
-        for (Reservation reservation : repo.findByEstValideAndAnneeUniversitaireBetween
-                (true, dateDebutAU, dateFinAU)) {
-            reservation.setEstValide(false);
-            repo.save(reservation);
-            log.info("La reservation " + reservation.getIdReservation() + " est annulée automatiquement");
+        boolean retiree = r.getChambre() != null && r.getChambre().getIdChambre() == c.getIdChambre();
+        if (retiree) {
+            r.setChambre(null);
+            repo.save(r);
+            libererPlaceAnneeEnCours(r, c);
+        }
+    }
+
+    @Override
+    public long annulerReservations() {
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        LocalDate dateDebutAU = anneeEnCours.debut();
+        LocalDate dateFinAU = anneeEnCours.fin();
+        // Invalidation par lots (UPDATE ... WHERE id IN), chaque lot dans sa propre transaction
+        // pour ne pas garder les verrous sur toute l'année, avec ses événements outbox
+        Pageable lot = PageRequest.of(0, properties.getTailleLotAnnulation());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long annulees = 0;
+        List<Long> ids;
+        while (!(ids = repo.findIdsReservationsValides(dateDebutAU, dateFinAU, lot)).isEmpty()) {
+            List<Long> lotIds = ids;
+            annulees += transaction.execute(status -> {
+                List<Object[]> lignes = repo.findPourEvenements(lotIds);
+                List<EvenementOutbox> evenements = lignes.stream()
+                        .map(ligne -> EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_INVALIDEE,
+                                (String) ligne[0], (Long) ligne[1], (Long) ligne[2], anneeEnCours.cle()))
+                        .toList();
+                int invalidees = repo.invaliderReservations(lotIds);
+                outboxRepository.saveAll(evenements);
+                // Entrées du cache retirées après le commit du lot
+                lignes.stream().filter(ligne -> ligne[1] != null).forEach(ligne ->
+                        publisher.publishEvent(new ReservationActiveEvent((Long) ligne[1], null)));
+                return invalidees;
+            });
+        }
+        meterRegistry.counter("reservation.annulation.annuelle").increment(annulees);
+        log.info(annulees + " réservation(s) de l'année " + anneeEnCours
+                + " annulée(s) automatiquement");
+        return annulees;
+    }
+
+    @Override
+    public int reconcilierOccupations() {
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        int corrigees = occupationRegistry.reconcilier(anneeEnCours.debut(), anneeEnCours.fin());
+        if (corrigees > 0) {
+            log.warn(corrigees + " compteur(s) d'occupation corrigé(s) par rapport à la base");
+        }
+        return corrigees;
+    }
+
+    @Override
+    public boolean creerPartition(int anneeAcademique) {
+        boolean creee = partitionRepository.creerPartition(anneeAcademique);
+        if (creee) {
+            log.info("Partition p" + anneeAcademique + " créée pour les réservations");
+        }
+        return creee;
+    }
+
+    // Sans @Transactional: les CREATE/ALTER TABLE du détachement valident la transaction en cours.
+    // Le détachement n'est pas atomique mais peut être relancé après une interruption.
+    @Override
+    public int detacherAnnee(int anneeAcademique) {
+        // Seules les années closes sont détachées: l'année en cours et les suivantes restent vivantes
+        int anneeEnCours = calendrier.anneeEnCours().cle();
+        if (anneeAcademique >= anneeEnCours) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "L'année " + anneeAcademique + " n'est pas close (année en cours: " + anneeEnCours + ")");
+        }
+        int detachees = partitionRepository.detacherAnnee(anneeAcademique);
+        log.info(detachees + " réservation(s) de l'année " + anneeAcademique + " détachée(s) vers t_reservation_"
+                + anneeAcademique);
+        return detachees;
+    }
+
+    private String codeReservation(LocalDate dateDebutAU, LocalDate dateFinAU, Chambre chambre, long cin) {
+        return codeReservation(dateDebutAU, dateFinAU, chambre.getBloc().getNomBloc(), chambre.getNumeroChambre(), cin);
+    }
+
+    // Identifiant d'une réservation: "annéeDébut/annéeFin-bloc-numéroChambre-cin"
+    public static String codeReservation(LocalDate dateDebutAU, LocalDate dateFinAU, String nomBloc,
+                                         long numeroChambre, long cin) {
+        return "" + dateDebutAU.getYear() + "/" + dateFinAU.getYear() + "-" + nomBloc + "-"
+                + numeroChambre + "-" + cin;
+    }
+
+    // Même bornes que la requête de comptage: seules les réservations de l'AU en cours occupent un lit
+    private boolean estDansAnneeEnCours(Reservation r) {
+        return calendrier.anneeEnCours().contient(r.getAnneeUniversitaire());
+    }
+
+    private void libererPlaceAnneeEnCours(Reservation r, Chambre c) {
+        if (estDansAnneeEnCours(r)) {
+            Long cin = r.getEtudiants() == null || r.getEtudiants().isEmpty() ? null : r.getEtudiants().get(0).getCin();
+            libererPlaceAnneeEnCours(r.getAnneeUniversitaire(),
+                    ReservationEvent.of(ReservationEvent.Type.ANNULATION, c, cin, calendrier.anneeEnCours().cle()));
+        }
+    }
+
+    private void libererPlaceAnneeEnCours(LocalDate anneeUniversitaire, ReservationEvent annulation) {
+        AnneeUniversitaire anneeEnCours = calendrier.anneeEnCours();
+        if (anneeEnCours.contient(anneeUniversitaire)) {
+            occupationLedger.libererPlace(annulation.getIdChambre(), anneeEnCours.debut());
+            occupationRegistry.libererPlace(annulation.getIdChambre(), anneeEnCours.debut(), anneeEnCours.fin());
+            // Promotion du premier inscrit sur la liste d'attente (après le commit)
+            publisher.publishEvent(annulation);
         }
     }
 
@@ -0,0 +1,29 @@
+-- Migration MySQL: la chambre d'une réservation devient une clé étrangère de T_RESERVATION
+--
+-- Avant: table de jointure t_chambre_reservations (chambre_id_chambre, reservations_id).
+-- Après: colonne t_reservation.chambre_id (fk_reservation_chambre), indexée avec l'année
+-- universitaire (idx_reservation_chambre_annee); la table de jointure est supprimée.
+--
+-- À exécuter après reservation-cle-numerique.sql, application arrêtée et après une sauvegarde,
+-- AVANT de déployer la version qui contient la nouvelle entité.
+-- Les ALTER TABLE MySQL ne sont pas transactionnels.
+
+-- 1. Report de la chambre sur chaque réservation
+ALTER TABLE t_reservation ADD COLUMN chambre_id BIGINT NULL;
+UPDATE t_reservation r
+    JOIN t_chambre_reservations cr ON cr.reservations_id = r.id
+SET r.chambre_id = cr.chambre_id_chambre;
+
+-- 2. Clé étrangère et index de comptage (noms repris par le mapping: pas de doublon au ddl-auto=update)
+ALTER TABLE t_reservation
+    ADD CONSTRAINT fk_reservation_chambre FOREIGN KEY (chambre_id) REFERENCES t_chambre (id_chambre),
+    ADD INDEX idx_reservation_chambre_annee (chambre_id, annee_universitaire);
+
+-- 3. Contrôle avant suppression: doit renvoyer 0
+SELECT COUNT(*) AS reservations_non_reportees
+FROM t_chambre_reservations cr
+    JOIN t_reservation r ON r.id = cr.reservations_id
+WHERE r.chambre_id IS NULL OR r.chambre_id <> cr.chambre_id_chambre;
+
+-- 4. Suppression de la table de jointure
+DROP TABLE t_chambre_reservations;
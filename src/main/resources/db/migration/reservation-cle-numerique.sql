@@ -0,0 +1,81 @@
+-- Migration MySQL: clé primaire numérique pour T_RESERVATION
+--
+-- Avant: id_reservation (code lisible, VARCHAR) est la clé primaire et est recopié dans
+-- t_reservation_etudiants et t_chambre_reservations.
+-- Après: id (BIGINT, séquence reservation_seq) est la clé primaire référencée par les tables
+-- de jointure; id_reservation reste unique (uk_reservation_code).
+--
+-- À exécuter une fois, application arrêtée et après une sauvegarde, AVANT de déployer la version
+-- qui contient la nouvelle entité (ddl-auto=update ne sait pas changer une clé primaire).
+-- Les ALTER TABLE MySQL ne sont pas transactionnels.
+
+-- 1. Nouvelle clé, numérotée dans l'ordre chronologique
+ALTER TABLE t_reservation ADD COLUMN id BIGINT NULL;
+SET @n := 0;
+UPDATE t_reservation SET id = (@n := @n + 1) ORDER BY annee_universitaire, id_reservation;
+
+-- 2. Report de la nouvelle clé dans les tables de jointure
+ALTER TABLE t_reservation_etudiants ADD COLUMN reservations_id BIGINT NULL;
+UPDATE t_reservation_etudiants je
+    JOIN t_reservation r ON r.id_reservation = je.reservations_id_reservation
+SET je.reservations_id = r.id;
+
+ALTER TABLE t_chambre_reservations ADD COLUMN reservations_id BIGINT NULL;
+UPDATE t_chambre_reservations cr
+    JOIN t_reservation r ON r.id_reservation = cr.reservations_id_reservation
+SET cr.reservations_id = r.id;
+
+-- 3. Suppression des clés étrangères sur l'ancienne clé (noms générés par Hibernate)
+DROP PROCEDURE IF EXISTS supprimer_cles_etrangeres;
+DELIMITER //
+CREATE PROCEDURE supprimer_cles_etrangeres(IN nom_table VARCHAR(64), IN nom_colonne VARCHAR(64))
+BEGIN
+    DECLARE fin INT DEFAULT 0;
+    DECLARE nom VARCHAR(64);
+    DECLARE curseur CURSOR FOR
+        SELECT constraint_name FROM information_schema.key_column_usage
+        WHERE table_schema = DATABASE() AND table_name = nom_table
+          AND column_name = nom_colonne AND referenced_table_name IS NOT NULL;
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET fin = 1;
+    OPEN curseur;
+    boucle: LOOP
+        FETCH curseur INTO nom;
+        IF fin THEN
+            LEAVE boucle;
+        END IF;
+        SET @ddl = CONCAT('ALTER TABLE ', nom_table, ' DROP FOREIGN KEY ', nom);
+        PREPARE instruction FROM @ddl;
+        EXECUTE instruction;
+        DEALLOCATE PREPARE instruction;
+    END LOOP;
+    CLOSE curseur;
+END //
+DELIMITER ;
+CALL supprimer_cles_etrangeres('t_reservation_etudiants', 'reservations_id_reservation');
+CALL supprimer_cles_etrangeres('t_chambre_reservations', 'reservations_id_reservation');
+DROP PROCEDURE supprimer_cles_etrangeres;
+
+-- 4. Changement de clé primaire, le code reste unique
+ALTER TABLE t_reservation
+    DROP PRIMARY KEY,
+    MODIFY id BIGINT NOT NULL,
+    MODIFY id_reservation VARCHAR(255) NOT NULL,
+    ADD PRIMARY KEY (id),
+    ADD CONSTRAINT uk_reservation_code UNIQUE (id_reservation);
+
+-- 5. Tables de jointure sur la nouvelle clé
+ALTER TABLE t_reservation_etudiants
+    DROP COLUMN reservations_id_reservation,
+    MODIFY reservations_id BIGINT NOT NULL,
+    ADD CONSTRAINT fk_reservation_etudiants_reservation FOREIGN KEY (reservations_id) REFERENCES t_reservation (id);
+
+ALTER TABLE t_chambre_reservations
+    DROP COLUMN reservations_id_reservation,
+    MODIFY reservations_id BIGINT NOT NULL,
+    ADD CONSTRAINT uk_chambre_reservations_reservation UNIQUE (reservations_id),
+    ADD CONSTRAINT fk_chambre_reservations_reservation FOREIGN KEY (reservations_id) REFERENCES t_reservation (id);
+
+-- 6. Séquence (émulée par une table sous MySQL). Hibernate réserve les identifiants par blocs
+-- de 50 et utilise next_val comme borne haute du premier bloc: next_val = max(id) + 50.
+CREATE TABLE reservation_seq (next_val BIGINT);
+INSERT INTO reservation_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM t_reservation;
@@ -0,0 +1,81 @@
+-- Migration MySQL: T_RESERVATION partitionnée par année académique
+--
+-- Avant: toutes les années dans une seule table, filtrées par annee_universitaire.
+-- Après: colonne annee_academique (2023 pour 2023/2024, calculée par l'entité) et
+-- PARTITION BY RANGE (annee_academique): une partition par année plus pmax. Les requêtes
+-- par période filtrent aussi annee_academique et ne lisent que la partition de l'année
+-- (à vérifier avec EXPLAIN, colonne partitions).
+--
+-- MySQL refuse les clés étrangères sur une table partitionnée et vers elle: elles sont
+-- supprimées (le mapping les déclare NO_CONSTRAINT). Toute clé unique doit contenir la clé de
+-- partitionnement: la clé primaire devient (id, annee_academique), le code reste unique par année.
+--
+-- À exécuter après reservation-chambre-cle-etrangere.sql, application arrêtée et après une
+-- sauvegarde. Le partitionnement recopie la table: prévoir l'espace disque et la durée.
+-- Ajouter une partition par rentrée (POST /reservation/partitions/{annee}), sinon l'année tombe
+-- dans pmax; détacher les années closes avec DELETE /reservation/partitions/{annee}.
+
+-- 1. Clé de partitionnement
+ALTER TABLE t_reservation ADD COLUMN annee_academique INT NULL;
+UPDATE t_reservation
+SET annee_academique = IF(MONTH(annee_universitaire) >= 8, YEAR(annee_universitaire), YEAR(annee_universitaire) - 1)
+WHERE annee_universitaire IS NOT NULL;
+UPDATE t_reservation SET annee_academique = 0 WHERE annee_universitaire IS NULL;
+ALTER TABLE t_reservation MODIFY annee_academique INT NOT NULL;
+
+-- 2. Suppression des clés étrangères sur et vers t_reservation
+DROP PROCEDURE IF EXISTS supprimer_cles_etrangeres;
+DELIMITER //
+CREATE PROCEDURE supprimer_cles_etrangeres(IN nom_table VARCHAR(64), IN nom_colonne VARCHAR(64))
+BEGIN
+    DECLARE fin INT DEFAULT 0;
+    DECLARE nom VARCHAR(64);
+    DECLARE curseur CURSOR FOR
+        SELECT constraint_name FROM information_schema.key_column_usage
+        WHERE table_schema = DATABASE() AND table_name = nom_table
+          AND column_name = nom_colonne AND referenced_table_name IS NOT NULL;
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET fin = 1;
+    OPEN curseur;
+    boucle: LOOP
+        FETCH curseur INTO nom;
+        IF fin THEN
+            LEAVE boucle;
+        END IF;
+        SET @ddl = CONCAT('ALTER TABLE ', nom_table, ' DROP FOREIGN KEY ', nom);
+        PREPARE instruction FROM @ddl;
+        EXECUTE instruction;
+        DEALLOCATE PREPARE instruction;
+    END LOOP;
+    CLOSE curseur;
+END //
+DELIMITER ;
+CALL supprimer_cles_etrangeres('t_reservation', 'chambre_id');
+CALL supprimer_cles_etrangeres('t_reservation_etudiants', 'reservations_id');
+DROP PROCEDURE supprimer_cles_etrangeres;
+
+-- 3. Clés contenant annee_academique
+ALTER TABLE t_reservation
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, annee_academique),
+    DROP INDEX uk_reservation_code,
+    ADD CONSTRAINT uk_reservation_code UNIQUE (id_reservation, annee_academique),
+    ADD INDEX idx_reservation_annee_academique (annee_academique, est_valide);
+
+-- 4. Partitions: adapter la liste aux années présentes
+--    (SELECT DISTINCT annee_academique FROM t_reservation)
+ALTER TABLE t_reservation PARTITION BY RANGE (annee_academique) (
+    PARTITION p0 VALUES LESS THAN (2020),
+    PARTITION p2020 VALUES LESS THAN (2021),
+    PARTITION p2021 VALUES LESS THAN (2022),
+    PARTITION p2022 VALUES LESS THAN (2023),
+    PARTITION p2023 VALUES LESS THAN (2024),
+    PARTITION p2024 VALUES LESS THAN (2025),
+    PARTITION p2025 VALUES LESS THAN (2026),
+    PARTITION p2026 VALUES LESS THAN (2027),
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- 5. Contrôle: une réservation de l'année en cours ne lit qu'une partition
+EXPLAIN SELECT COUNT(*) FROM t_reservation
+WHERE annee_academique BETWEEN 2025 AND 2025
+  AND annee_universitaire BETWEEN '2025-09-15' AND '2026-06-30';
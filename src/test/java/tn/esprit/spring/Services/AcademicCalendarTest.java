@@ -0,0 +1,88 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcademicCalendarTest {
+
+    // Horloge avancée à la main par les tests
+    static final class HorlogeReglable extends Clock {
+        Instant instant;
+
+        HorlogeReglable(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    @Test
+    void testFenetresDeLAnneeEnCours() {
+        AcademicCalendar calendrier = new AcademicCalendar(
+                Clock.fixed(Instant.parse("2025-10-01T10:00:00Z"), ZoneOffset.UTC));
+
+        AnneeUniversitaire enCours = calendrier.anneeEnCours();
+        assertEquals(2025, enCours.cle());
+        assertEquals(LocalDate.of(2025, 9, 15), enCours.debut());
+        assertEquals(LocalDate.of(2026, 6, 30), enCours.fin());
+        assertEquals("2025/2026", enCours.toString());
+        assertEquals(2024, calendrier.anneePrecedente().cle());
+        assertEquals(2026, calendrier.anneeSuivante().cle());
+        assertSame(enCours, calendrier.annee(2025));
+        assertSame(calendrier.anneePrecedente(), calendrier.annee(LocalDate.of(2025, 3, 1)));
+        assertEquals(AnneeUniversitaire.of(2019), calendrier.annee(2019));
+        assertEquals(LocalDate.of(2025, 10, 1), calendrier.aujourdhui());
+    }
+
+    @Test
+    void testBornesIncluses() {
+        AnneeUniversitaire annee = AnneeUniversitaire.of(2025);
+
+        assertTrue(annee.contient(LocalDate.of(2025, 9, 15)));
+        assertTrue(annee.contient(LocalDate.of(2026, 6, 30)));
+        assertFalse(annee.contient(LocalDate.of(2025, 9, 14)));
+        assertFalse(annee.contient(LocalDate.of(2026, 7, 1)));
+        assertFalse(annee.contient(null));
+    }
+
+    @Test
+    void testBasculeLePremierAout() {
+        HorlogeReglable horloge = new HorlogeReglable(Instant.parse("2026-07-31T23:59:59Z"));
+        AcademicCalendar calendrier = new AcademicCalendar(horloge);
+        AnneeUniversitaire avant = calendrier.anneeEnCours();
+        assertEquals(2025, avant.cle());
+        assertSame(avant, calendrier.anneeEnCours());
+
+        horloge.instant = Instant.parse("2026-08-01T00:00:00Z");
+
+        assertEquals(2026, calendrier.anneeEnCours().cle());
+        assertEquals(2025, calendrier.anneePrecedente().cle());
+        assertEquals(AcademicCalendar.cle(calendrier.aujourdhui()), calendrier.anneeEnCours().cle());
+
+        // Horloge recalée en arrière: les fenêtres suivent
+        horloge.instant = Instant.parse("2026-07-15T00:00:00Z");
+        assertEquals(2025, calendrier.anneeEnCours().cle());
+    }
+}
@@ -0,0 +1,89 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.Services.Allocation.AllocationEngine;
+import tn.esprit.spring.Services.Allocation.ChambreLibre;
+import tn.esprit.spring.Services.Allocation.ResultatAllocation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AllocationEngineTest {
+
+    private final AllocationEngine engine = new AllocationEngine();
+
+    private static Candidature candidat(long cin, int priorite) {
+        return Candidature.builder().cin(cin).priorite(priorite).build();
+    }
+
+    @Test
+    void testPrioriteServieEnPremier() {
+        ResultatAllocation resultat = engine.allouer(
+                List.of(candidat(1L, 0), candidat(2L, 5), candidat(3L, 1)),
+                List.of(new ChambreLibre(10L, null, 2)));
+
+        assertEquals(2, resultat.getAffectations().size());
+        assertEquals(10L, resultat.getAffectations().get(2L));
+        assertEquals(10L, resultat.getAffectations().get(3L));
+        assertEquals(List.of(1L), resultat.getNonAffectes());
+    }
+
+    @Test
+    void testGroupeLogeEnsembleDansLaPlusPetiteChambre() {
+        ResultatAllocation resultat = engine.allouer(List.of(
+                        Candidature.builder().cin(1L).groupe("g").build(),
+                        Candidature.builder().cin(2L).groupe("g").build(),
+                        candidat(3L, 0)),
+                List.of(new ChambreLibre(10L, null, 3),
+                        new ChambreLibre(11L, null, 2),
+                        new ChambreLibre(12L, null, 1)));
+
+        assertEquals(11L, resultat.getAffectations().get(1L));
+        assertEquals(11L, resultat.getAffectations().get(2L));
+        // Best fit: le candidat seul prend la chambre simple et laisse la triple libre
+        assertEquals(12L, resultat.getAffectations().get(3L));
+        assertEquals(0, resultat.getGroupesSepares());
+    }
+
+    @Test
+    void testGroupeSepareFauteDeChambreAssezGrande() {
+        ResultatAllocation resultat = engine.allouer(List.of(
+                        Candidature.builder().cin(1L).groupe("g").build(),
+                        Candidature.builder().cin(2L).groupe("g").build()),
+                List.of(new ChambreLibre(10L, null, 1), new ChambreLibre(11L, null, 1)));
+
+        assertEquals(2, resultat.getAffectations().size());
+        assertNotEquals(resultat.getAffectations().get(1L), resultat.getAffectations().get(2L));
+        assertEquals(1, resultat.getGroupesSepares());
+    }
+
+    @Test
+    void testFoyerSouhaitePuisAutreFoyer() {
+        ResultatAllocation resultat = engine.allouer(List.of(
+                        Candidature.builder().cin(1L).priorite(2).idFoyer(2L).build(),
+                        Candidature.builder().cin(2L).priorite(1).idFoyer(2L).build()),
+                List.of(new ChambreLibre(10L, 1L, 1), new ChambreLibre(20L, 2L, 1)));
+
+        assertEquals(20L, resultat.getAffectations().get(1L));
+        assertEquals(10L, resultat.getAffectations().get(2L));
+    }
+
+    @Test
+    void testCapaciteJamaisDepassee() {
+        ResultatAllocation resultat = engine.allouer(List.of(
+                        Candidature.builder().cin(1L).groupe("g").build(),
+                        Candidature.builder().cin(2L).groupe("g").build(),
+                        Candidature.builder().cin(3L).groupe("g").build(),
+                        Candidature.builder().cin(4L).groupe("g").build(),
+                        candidat(5L, 0),
+                        candidat(5L, 9)),
+                List.of(new ChambreLibre(10L, null, 3), new ChambreLibre(11L, null, 1)));
+
+        // 4 lits pour 5 étudiants distincts (le doublon de CIN est ignoré)
+        assertEquals(4, resultat.getAffectations().size());
+        assertEquals(1, resultat.getNonAffectes().size());
+        assertEquals(3, resultat.getAffectations().values().stream().filter(id -> id == 10L).count());
+    }
+}
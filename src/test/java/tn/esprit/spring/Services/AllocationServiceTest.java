@@ -0,0 +1,198 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.DTO.RapportAllocation;
+import tn.esprit.spring.Services.Allocation.AllocationService;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
+import tn.esprit.spring.Services.Reservation.CacheReservationActive;
+import tn.esprit.spring.Services.Reservation.IndexReservationsJours;
+import tn.esprit.spring.Services.Reservation.OccupationChambreRegistry;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AllocationServiceTest {
+
+    private static final LocalDate DEBUT_AU = LocalDate.of(2025, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2026, 6, 30);
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    @Mock
+    private EtudiantRepository etudiantRepository;
+
+    @Mock
+    private OccupationChambreRepository occupationRepository;
+
+    @Mock
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Mock
+    private EvenementOutboxRepository outboxRepository;
+
+    @Mock
+    private AcademicCalendar calendrier;
+
+    @Mock
+    private OccupationChambreRegistry occupationRegistry;
+
+    @Mock
+    private DisponibiliteLits disponibiliteLits;
+
+    @Mock
+    private IndexReservationsJours indexJours;
+
+    @Mock
+    private CacheReservationActive cacheActive;
+
+    @Mock
+    private IndexChambresLibres indexChambresLibres;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AllocationService allocationService;
+
+    private final List<Candidature> candidatures = List.of(
+            Candidature.builder().cin(111L).priorite(1).build(),
+            Candidature.builder().cin(222L).priorite(2).build(),
+            Candidature.builder().cin(333L).build(),
+            Candidature.builder().cin(444L).build());
+
+    private static List<Object[]> lignes(Object[]... lignes) {
+        return new ArrayList<>(List.of(lignes));
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(calendrier.anneeEnCours()).thenReturn(AnneeUniversitaire.of(2025));
+        when(calendrier.aujourdhui()).thenReturn(LocalDate.of(2025, 10, 1));
+        when(etudiantRepository.findIdsByCinIn(anyCollection()))
+                .thenReturn(lignes(new Object[]{111L, 1L}, new Object[]{222L, 2L}, new Object[]{333L, 3L}));
+        when(etudiantRepository.findCinsAvecReservation(DEBUT_AU, FIN_AU)).thenReturn(List.of(333L));
+        // Chambre 10 (DOUBLE) déjà occupée par une réservation, chambre 20 (SIMPLE) libre
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU))
+                .thenReturn(lignes(new Object[]{10L, 1L}));
+        when(chambreRepository.findChambresPourAllocation()).thenReturn(lignes(
+                new Object[]{10L, 101L, TypeChambre.DOUBLE, "A", 1L},
+                new Object[]{20L, 201L, TypeChambre.SIMPLE, "B", null}));
+        when(reservationBatchRepository.ajouterOccupations(anyMap(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void testAllouerEtEnregistrerEnLot() {
+        RapportAllocation rapport = allocationService.allouer(candidatures, false);
+
+        assertEquals(2, rapport.getAffectes());
+        assertEquals(1, rapport.getDejaReserves());
+        assertEquals(List.of(444L), rapport.getEtudiantsInconnus());
+        assertTrue(rapport.getNonAffectes().isEmpty());
+        verify(reservationBatchRepository).insererReservations(argThat((Map<Long, List<Reservation>> m) -> {
+            // Un lit libre dans chacune des deux chambres
+            List<String> ids = m.values().stream().flatMap(List::stream).map(Reservation::getIdReservation).toList();
+            return m.get(10L).size() == 1 && m.get(20L).size() == 1
+                    && ids.stream().anyMatch(id -> id.endsWith("-111")) && ids.stream().anyMatch(id -> id.endsWith("-222"))
+                    && m.get(10L).get(0).getIdReservation().startsWith("2025/2026-A-101-");
+        }));
+        verify(reservationBatchRepository).ajouterOccupations(Map.of(10L, 1, 20L, 1), 2025);
+        verify(outboxRepository).saveAll(argThat((List<EvenementOutbox> l) -> l.size() == 2
+                && l.stream().allMatch(e -> e.getType() == EvenementOutbox.Type.RESERVATION_CREEE && e.getAnnee() == 2025)
+                && l.stream().anyMatch(e -> e.getCin() == 111L && e.getIdChambre() != null)
+                && l.stream().anyMatch(e -> e.getCin() == 222L)));
+        verify(occupationRegistry).reconcilier(DEBUT_AU, FIN_AU);
+        verify(indexJours).charger();
+        verify(cacheActive).vider();
+        verify(indexChambresLibres).reconstruire();
+    }
+
+    @Test
+    void testAllocationAvantLaRentreeNeReattribuePasLesLits() {
+        // Fin août: l'année 2025/2026 a commencé au calendrier, sa fenêtre de comptage ouvre le 15 septembre
+        AllocationService service = new AllocationService(chambreRepository, etudiantRepository, occupationRepository,
+                reservationBatchRepository, outboxRepository,
+                new AcademicCalendar(Clock.fixed(Instant.parse("2025-08-25T10:00:00Z"), ZoneOffset.UTC)),
+                occupationRegistry, disponibiliteLits, indexJours, cacheActive, indexChambresLibres, transactionManager);
+        // Réservations enregistrées, relues par les requêtes de comptage sur [debut, fin]
+        Map<Long, List<Reservation>> enBase = new HashMap<>();
+        doAnswer(invocation -> {
+            Map<Long, List<Reservation>> parChambre = invocation.getArgument(0);
+            parChambre.forEach((idChambre, liste) -> enBase.computeIfAbsent(idChambre, id -> new ArrayList<>()).addAll(liste));
+            return null;
+        }).when(reservationBatchRepository).insererReservations(anyMap());
+        when(etudiantRepository.findCinsAvecReservation(DEBUT_AU, FIN_AU)).thenAnswer(invocation -> enBase.values().stream()
+                .flatMap(List::stream)
+                .filter(r -> AnneeUniversitaire.of(2025).contient(r.getAnneeUniversitaire()))
+                .map(r -> r.getEtudiants().get(0).getCin())
+                .toList());
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU)).thenAnswer(invocation -> {
+            Map<Long, Long> occupees = new HashMap<>(Map.of(10L, 1L));
+            enBase.forEach((idChambre, liste) -> occupees.merge(idChambre,
+                    liste.stream().filter(r -> AnneeUniversitaire.of(2025).contient(r.getAnneeUniversitaire())).count(),
+                    Long::sum));
+            List<Object[]> lignes = new ArrayList<>();
+            occupees.forEach((idChambre, nombre) -> lignes.add(new Object[]{idChambre, nombre}));
+            return lignes;
+        });
+
+        assertEquals(2, service.allouer(candidatures, false).getAffectes());
+        assertTrue(enBase.values().stream().flatMap(List::stream)
+                .allMatch(r -> DEBUT_AU.equals(r.getAnneeUniversitaire())));
+
+        // Relancée, l'allocation voit les lits pris et les étudiants déjà affectés
+        RapportAllocation rapport = service.allouer(candidatures, false);
+        assertEquals(0, rapport.getAffectes());
+        assertEquals(2, rapport.getDejaReserves());
+        verify(reservationBatchRepository, times(1)).insererReservations(anyMap());
+    }
+
+    @Test
+    void testSimulationSansEcriture() {
+        RapportAllocation rapport = allocationService.allouer(candidatures, true);
+
+        assertTrue(rapport.isSimulation());
+        assertEquals(2, rapport.getAffectes());
+        verifyNoInteractions(reservationBatchRepository);
+        verifyNoInteractions(outboxRepository);
+        verify(occupationRegistry, never()).reconcilier(any(), any());
+    }
+
+    @Test
+    void testChambreRempliePendantLAllocationAnnuleLEcriture() {
+        when(reservationBatchRepository.ajouterOccupations(anyMap(), anyInt())).thenReturn(List.of(10L));
+        when(occupationRepository.existsByIdChambreAndAnnee(10L, 2025)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> allocationService.allouer(candidatures, false));
+        verify(transactionManager).rollback(any());
+        verify(outboxRepository, never()).saveAll(any());
+        verify(occupationRegistry, never()).reconcilier(any(), any());
+    }
+}
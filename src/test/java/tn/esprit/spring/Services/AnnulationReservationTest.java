@@ -0,0 +1,143 @@
+package tn.esprit.spring.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import tn.esprit.spring.Config.ClockConfig;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.Bloc;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Entities.OccupationChambre;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationPartitionRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Reservation.CacheReservationActive;
+import tn.esprit.spring.Services.Reservation.IndexReservationsJours;
+import tn.esprit.spring.Services.Reservation.OccupationChambreLedger;
+import tn.esprit.spring.Services.Reservation.OccupationChambreRegistry;
+import tn.esprit.spring.Services.Reservation.ReservationService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Nombre de requêtes SQL de l'annulation d'une réservation (statistiques Hibernate)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ReservationService.class, OccupationChambreRegistry.class, OccupationChambreLedger.class,
+        ReservationBatchRepository.class, ReservationPartitionRepository.class, ReservationProperties.class,
+        SimpleMeterRegistry.class, AcademicCalendar.class, ClockConfig.class, IndexReservationsJours.class,
+        CacheReservationActive.class})
+class AnnulationReservationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private OccupationChambreRegistry occupationRegistry;
+
+    @Autowired
+    private AcademicCalendar calendrier;
+
+    @Autowired
+    private CacheReservationActive cacheActive;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OccupationChambreRepository occupationRepository;
+
+    @Autowired
+    private EvenementOutboxRepository outboxRepository;
+
+    private Chambre chambre;
+    private AnneeUniversitaire anneeEnCours;
+    private Statistics statistiques;
+
+    @BeforeEach
+    void setUp() {
+        anneeEnCours = calendrier.anneeEnCours();
+        LocalDate debut = anneeEnCours.debut();
+        Bloc bloc = Bloc.builder().nomBloc("Bloc A").capaciteBloc(50L).build();
+        entityManager.persist(bloc);
+        chambre = Chambre.builder().numeroChambre(101L).typeC(TypeChambre.DOUBLE).bloc(bloc).build();
+        entityManager.persist(chambre);
+        Etudiant etudiant = Etudiant.builder().nomEt("Doe").prenomEt("John").cin(111L).build();
+        entityManager.persist(etudiant);
+        // Autre réservation de la chambre: elle ne doit pas être chargée
+        Etudiant voisin = Etudiant.builder().nomEt("Doe").prenomEt("Jane").cin(222L).build();
+        entityManager.persist(voisin);
+        for (Etudiant e : List.of(etudiant, voisin)) {
+            entityManager.persist(Reservation.builder()
+                    .idReservation("RES-" + e.getCin())
+                    .anneeUniversitaire(debut.plusDays(1))
+                    .estValide(true)
+                    .chambre(chambre)
+                    .etudiants(new ArrayList<>(List.of(e)))
+                    .build());
+        }
+        entityManager.persist(OccupationChambre.builder()
+                .idChambre(chambre.getIdChambre()).annee(anneeEnCours.cle()).occupees(2).capacite(2).build());
+        entityManager.flush();
+        entityManager.clear();
+        // Compteur en mémoire déjà chargé pour l'année
+        occupationRegistry.occupation(chambre.getIdChambre(), debut, anneeEnCours.fin());
+        // Réservation de l'étudiant déjà en cache (consultée par "ma réservation")
+        assertThat(cacheActive.reservationActive(111L)).isEqualTo("RES-111");
+
+        statistiques = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+    }
+
+    @Test
+    @DisplayName("Should cancel with targeted statements, without loading the chambre or its reservations")
+    void annulerReservation() {
+        String resultat = reservationService.annulerReservation(111L);
+        entityManager.flush();
+
+        assertThat(resultat).contains("RES-111");
+        // SELECT de la réservation, DELETE de ses lignes étudiants, DELETE de la réservation, UPDATE de l'occupation,
+        // INSERT de l'événement outbox (et appel de la séquence, une fois par 50 événements)
+        assertThat(statistiques.getPrepareStatementCount()).isEqualTo(6);
+        assertThat(statistiques.getEntityLoadCount()).isZero();
+        assertThat(statistiques.getCollectionLoadCount()).isZero();
+
+        entityManager.clear();
+        assertThat(reservationRepository.findByIdReservation("RES-111")).isEmpty();
+        assertThat(reservationRepository.findByIdReservation("RES-222")).isPresent();
+        assertThat(reservationRepository.findByEtudiantsCinAndEstValide(111L, true)).isNull();
+        assertThat(occupationRepository.findByIdChambreAndAnnee(chambre.getIdChambre(),
+                anneeEnCours.cle()).getOccupees()).isEqualTo(1);
+        assertThat(occupationRegistry.occupation(chambre.getIdChambre(), anneeEnCours.debut(),
+                anneeEnCours.fin())).isEqualTo(1);
+        assertThat(outboxRepository.findAll()).singleElement()
+                .matches(e -> e.getType() == EvenementOutbox.Type.RESERVATION_ANNULEE && "RES-111".equals(e.getIdReservation()));
+    }
+}
@@ -0,0 +1,117 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+import tn.esprit.spring.Services.Archive.ArchiveColonnes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveColonnesTest {
+
+    @TempDir
+    Path repertoire;
+
+    private static ReservationArchivee reservation(long id, String code, LocalDate date, boolean valide,
+                                                   List<Long> cins, Long numero, TypeChambre type, String bloc) {
+        return ReservationArchivee.builder().id(id).idReservation(code).anneeUniversitaire(date).estValide(valide)
+                .cins(cins).numeroChambre(numero).typeC(type).nomBloc(bloc).build();
+    }
+
+    private List<ReservationArchivee> reservations() {
+        return List.of(
+                reservation(100, "2022/2023-Bloc A-101-111", LocalDate.of(2022, 9, 15), true,
+                        List.of(111L), 101L, TypeChambre.DOUBLE, "Bloc A"),
+                reservation(103, "2022/2023-Bloc A-101-222", LocalDate.of(2022, 9, 15), false,
+                        List.of(222L, 333L), 101L, TypeChambre.DOUBLE, "Bloc A"),
+                reservation(150, "2022/2023-Bâtiment É-7-444", LocalDate.of(2023, 7, 31), true,
+                        List.of(444L), 7L, TypeChambre.SIMPLE, "Bâtiment É"),
+                // Réservation sans chambre ni date
+                reservation(151, "ancienne", null, true, List.of(), null, null, null));
+    }
+
+    @Test
+    void testEcrireEtRelire() throws IOException {
+        Path fichier = repertoire.resolve("reservations-2022.col");
+        ArchiveColonnes.ecrire(fichier, 2022, reservations());
+
+        ArchiveColonnes archive = ArchiveColonnes.ouvrir(fichier);
+
+        assertEquals(2022, archive.getAnneeAcademique());
+        assertEquals(4, archive.taille());
+        List<ReservationArchivee> relues = archive.lire();
+        for (int i = 0; i < relues.size(); i++) {
+            ReservationArchivee attendue = reservations().get(i);
+            ReservationArchivee relue = relues.get(i);
+            assertEquals(attendue.getId(), relue.getId());
+            assertEquals(attendue.getIdReservation(), relue.getIdReservation());
+            assertEquals(attendue.getAnneeUniversitaire(), relue.getAnneeUniversitaire());
+            assertEquals(attendue.isEstValide(), relue.isEstValide());
+            assertEquals(attendue.getCins(), relue.getCins());
+            assertEquals(attendue.getNumeroChambre(), relue.getNumeroChambre());
+            assertEquals(attendue.getTypeC(), relue.getTypeC());
+            assertEquals(attendue.getNomBloc(), relue.getNomBloc());
+        }
+        assertFalse(Files.exists(repertoire.resolve("reservations-2022.col.tmp")));
+    }
+
+    @Test
+    void testStatistiques() throws IOException {
+        Path fichier = repertoire.resolve("reservations-2022.col");
+        ArchiveColonnes.ecrire(fichier, 2022, reservations());
+
+        StatistiquesArchive statistiques = ArchiveColonnes.ouvrir(fichier).statistiques();
+
+        assertEquals(4, statistiques.getReservations());
+        assertEquals(3, statistiques.getValides());
+        assertEquals(Map.of("Bloc A", 2L, "Bâtiment É", 1L, "", 1L), statistiques.getParBloc());
+        assertEquals(Map.of(TypeChambre.DOUBLE, 2L, TypeChambre.SIMPLE, 1L), statistiques.getParTypeChambre());
+    }
+
+    @Test
+    void testRechercherParCin() throws IOException {
+        Path fichier = repertoire.resolve("reservations-2022.col");
+        ArchiveColonnes.ecrire(fichier, 2022, reservations());
+        ArchiveColonnes archive = ArchiveColonnes.ouvrir(fichier);
+
+        List<ReservationArchivee> trouvees = archive.rechercherParCin(333L);
+
+        assertEquals(1, trouvees.size());
+        assertEquals("2022/2023-Bloc A-101-222", trouvees.get(0).getIdReservation());
+        assertTrue(archive.rechercherParCin(999L).isEmpty());
+    }
+
+    @Test
+    void testEncodageCompact() throws IOException {
+        // 10 000 réservations d'un même bloc: codes à préfixe commun, dates et identifiants proches
+        List<ReservationArchivee> reservations = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            reservations.add(reservation(1000 + i, "2022/2023-Bloc A-" + (100 + i / 2) + "-" + (10_000_000 + i),
+                    LocalDate.of(2022, 9, 15).plusDays(i / 500), i % 10 != 0, List.of(10_000_000L + i),
+                    100L + i / 2, TypeChambre.DOUBLE, "Bloc A"));
+        }
+        Path fichier = repertoire.resolve("reservations-2022.col");
+        ArchiveColonnes.ecrire(fichier, 2022, reservations);
+
+        assertTrue(Files.size(fichier) < 20 * reservations.size(), "taille: " + Files.size(fichier));
+        assertEquals(9_000, ArchiveColonnes.ouvrir(fichier).statistiques().getValides());
+    }
+
+    @Test
+    void testFichierInvalide() throws IOException {
+        Path fichier = repertoire.resolve("reservations-2022.col");
+        Files.writeString(fichier, "pas une archive");
+
+        assertThrows(IOException.class, () -> ArchiveColonnes.ouvrir(fichier));
+    }
+}
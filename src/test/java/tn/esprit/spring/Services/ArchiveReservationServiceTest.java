@@ -0,0 +1,156 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.Bloc;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+import tn.esprit.spring.Services.Archive.ArchiveReservationService;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Archivage d'une année close: export en colonnes, suppression en base, consultation du fichier
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ArchiveReservationServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path repertoire;
+
+    private ArchiveReservationService archiveService;
+    private int anneeEnCours;
+
+    @BeforeEach
+    void setUp() {
+        ReservationProperties properties = new ReservationProperties();
+        properties.getArchive().setRepertoire(repertoire.toString());
+        archiveService = new ArchiveReservationService(reservationRepository, properties,
+                new AcademicCalendar(Clock.fixed(Instant.parse("2025-10-01T10:00:00Z"), ZoneOffset.UTC)));
+        anneeEnCours = 2025;
+
+        Bloc bloc = Bloc.builder().nomBloc("Bloc A").capaciteBloc(50L).build();
+        entityManager.persist(bloc);
+        Chambre chambre = Chambre.builder().numeroChambre(101L).typeC(TypeChambre.DOUBLE).bloc(bloc).build();
+        entityManager.persist(chambre);
+        for (long cin : List.of(111L, 222L)) {
+            Etudiant etudiant = Etudiant.builder().nomEt("Doe").prenomEt("E" + cin).cin(cin).build();
+            entityManager.persist(etudiant);
+            // Une réservation il y a trois ans, une dans l'année en cours
+            for (int annee : List.of(anneeEnCours - 3, anneeEnCours)) {
+                entityManager.persist(Reservation.builder()
+                        .idReservation(annee + "-" + cin)
+                        .anneeUniversitaire(LocalDate.of(annee, 9, 15))
+                        .estValide(cin == 111L)
+                        .chambre(chambre)
+                        .etudiants(new ArrayList<>(List.of(etudiant)))
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testArchiverAnnee() {
+        int ancienne = anneeEnCours - 3;
+
+        assertEquals(2, archiveService.archiverAnnee(ancienne));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(ancienne), archiveService.anneesArchivees());
+        assertTrue(reservationRepository.findPourArchive(ancienne).isEmpty());
+        assertEquals(2, reservationRepository.findPourArchive(anneeEnCours).size());
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from t_reservation_etudiants", Integer.class));
+
+        StatistiquesArchive statistiques = archiveService.statistiques(ancienne);
+        assertEquals(2, statistiques.getReservations());
+        assertEquals(1, statistiques.getValides());
+        assertEquals(Map.of("Bloc A", 2L), statistiques.getParBloc());
+
+        List<ReservationArchivee> trouvees = archiveService.rechercherParCin(ancienne, 222L);
+        assertEquals(1, trouvees.size());
+        assertEquals(ancienne + "-222", trouvees.get(0).getIdReservation());
+        assertEquals(List.of(222L), trouvees.get(0).getCins());
+        assertEquals(101L, trouvees.get(0).getNumeroChambre());
+        assertEquals(TypeChambre.DOUBLE, trouvees.get(0).getTypeC());
+    }
+
+    @Test
+    void testArchiverAnneesCloses() {
+        assertEquals(2, archiveService.archiverAnneesCloses());
+        assertEquals(0, archiveService.archiverAnneesCloses());
+    }
+
+    @Test
+    void testArchiverAnneesClosesIgnoreLesReservationsSansDate() {
+        Etudiant etudiant = Etudiant.builder().nomEt("Doe").prenomEt("Sans date").cin(333L).build();
+        entityManager.persist(etudiant);
+        entityManager.persist(Reservation.builder()
+                .idReservation("sans-date-333")
+                .estValide(true)
+                .etudiants(new ArrayList<>(List.of(etudiant)))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(2, archiveService.archiverAnneesCloses());
+        assertEquals(List.of(anneeEnCours - 3), archiveService.anneesArchivees());
+        assertTrue(reservationRepository.findByIdReservation("sans-date-333").isPresent());
+    }
+
+    @Test
+    void testArchiverAnneeSansDateRefusee() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> archiveService.archiverAnnee(0));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertTrue(archiveService.anneesArchivees().isEmpty());
+    }
+
+    @Test
+    void testArchiverAnneeEnCoursRefusee() {
+        assertThrows(ResponseStatusException.class, () -> archiveService.archiverAnnee(anneeEnCours));
+        assertEquals(2, reservationRepository.findPourArchive(anneeEnCours).size());
+    }
+
+    @Test
+    void testAnneeNonArchivee() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> archiveService.statistiques(anneeEnCours - 10));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+}
@@ -6,10 +6,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import tn.esprit.spring.DAO.Entities.Bloc;
+import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Repositories.BlocRepository;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
 import tn.esprit.spring.DAO.Repositories.FoyerRepository;
 import tn.esprit.spring.Services.Bloc.BlocService;
+import tn.esprit.spring.Services.Chambre.MatriceChambres;
 
 import java.util.Arrays;
 import java.util.List;
@@ -29,6 +31,9 @@ public class BlocServiceTest {
     @Mock
     private FoyerRepository foyerRepository;
 
+    @Mock
+    private MatriceChambres matrice;
+
     @InjectMocks
     private BlocService blocService;
 
@@ -117,5 +122,24 @@ public class BlocServiceTest {
 
         verify(chambreRepository, times(1)).deleteAll(anyList());
         verify(blocRepository, times(1)).delete(bloc);
+        verify(matrice, times(1)).invalider();
+    }
+
+    @Test
+    void testAffecterChambresABloc() {
+        Bloc bloc = new Bloc();
+        bloc.setNomBloc("BlocA");
+        Chambre chambre = new Chambre();
+        chambre.setNumeroChambre(101L);
+        when(blocRepository.findByNomBloc("BlocA")).thenReturn(bloc);
+        when(chambreRepository.findByNumeroChambre(101L)).thenReturn(chambre);
+
+        Bloc result = blocService.affecterChambresABloc(List.of(101L), "BlocA");
+
+        assertEquals(bloc, result);
+        assertEquals(bloc, chambre.getBloc());
+        verify(chambreRepository, times(1)).save(chambre);
+        // La matrice bloc x type est relue après le changement de bloc
+        verify(matrice, times(1)).invalider();
     }
 } 
\ No newline at end of file
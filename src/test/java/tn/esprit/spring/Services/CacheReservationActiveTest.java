@@ -0,0 +1,116 @@
+package tn.esprit.spring.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.Services.Reservation.CacheReservationActive;
+import tn.esprit.spring.Services.Reservation.ReservationActiveEvent;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheReservationActiveTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private final ReservationProperties properties = new ReservationProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CacheReservationActive cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties.getCacheActive().setCapacite(2);
+        cache = new CacheReservationActive(reservationRepository, properties, meterRegistry);
+        when(reservationRepository.findIdsReservationValide(eq(111L), any(Pageable.class))).thenReturn(List.of("RES-111"));
+        when(reservationRepository.findIdsReservationValide(eq(222L), any(Pageable.class))).thenReturn(List.of());
+        when(reservationRepository.findIdsReservationValide(eq(333L), any(Pageable.class))).thenReturn(List.of("RES-333"));
+    }
+
+    private double compteur(String resultat) {
+        return meterRegistry.get("cache.gets").tag("cache", "reservation.active").tag("result", resultat).counter().count();
+    }
+
+    @Test
+    void testLectureEnBaseUneSeuleFois() {
+        assertEquals("RES-111", cache.reservationActive(111L));
+        assertEquals("RES-111", cache.reservationActive(111L));
+        // Étudiant sans réservation: gardé aussi
+        assertNull(cache.reservationActive(222L));
+        assertNull(cache.reservationActive(222L));
+
+        verify(reservationRepository, times(1)).findIdsReservationValide(eq(111L), any(Pageable.class));
+        verify(reservationRepository, times(1)).findIdsReservationValide(eq(222L), any(Pageable.class));
+        assertEquals(2.0, compteur("hit"));
+        assertEquals(2.0, compteur("miss"));
+        assertEquals(0.5, meterRegistry.get("reservation.cache.active.taux").gauge().value());
+    }
+
+    @Test
+    void testMiseAJourApresCreationEtAnnulation() {
+        assertNull(cache.reservationActive(222L));
+
+        cache.reservationModifiee(new ReservationActiveEvent(222L, "RES-222"));
+        assertEquals("RES-222", cache.reservationActive(222L));
+
+        // Annulation: l'entrée est relue en base
+        cache.reservationModifiee(new ReservationActiveEvent(222L, null));
+        assertNull(cache.reservationActive(222L));
+        verify(reservationRepository, times(2)).findIdsReservationValide(eq(222L), any(Pageable.class));
+    }
+
+    @Test
+    void testCapaciteEvinceLeMoinsRecemmentConsulte() {
+        cache.reservationActive(111L);
+        cache.reservationActive(222L);
+        cache.reservationActive(111L);
+        cache.reservationActive(333L);
+
+        assertEquals(2.0, meterRegistry.get("cache.size").tag("cache", "reservation.active").gauge().value());
+        assertEquals(1.0, meterRegistry.get("cache.evictions").tag("cache", "reservation.active").counter().count());
+        cache.reservationActive(111L);
+        cache.reservationActive(222L);
+        verify(reservationRepository, times(1)).findIdsReservationValide(eq(111L), any(Pageable.class));
+        verify(reservationRepository, times(2)).findIdsReservationValide(eq(222L), any(Pageable.class));
+    }
+
+    @Test
+    void testEntreeExpiree() {
+        properties.getCacheActive().setTtl(Duration.ZERO);
+
+        cache.reservationActive(111L);
+        cache.reservationActive(111L);
+
+        verify(reservationRepository, times(2)).findIdsReservationValide(eq(111L), any(Pageable.class));
+    }
+
+    @Test
+    void testLectureConcurrenteDUneModificationNonGardee() {
+        // La réservation est annulée pendant la lecture en base: la valeur lue n'est pas gardée
+        when(reservationRepository.findIdsReservationValide(eq(111L), any(Pageable.class))).thenAnswer(invocation -> {
+            cache.reservationModifiee(new ReservationActiveEvent(111L, null));
+            return List.of("RES-111");
+        }).thenReturn(List.of());
+
+        assertEquals("RES-111", cache.reservationActive(111L));
+        assertNull(cache.reservationActive(111L));
+    }
+
+    @Test
+    void testVider() {
+        cache.reservationActive(111L);
+        cache.vider();
+        cache.reservationActive(111L);
+
+        verify(reservationRepository, times(2)).findIdsReservationValide(eq(111L), any(Pageable.class));
+    }
+}
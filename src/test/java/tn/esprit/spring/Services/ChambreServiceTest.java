@@ -10,11 +10,21 @@ import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
 import tn.esprit.spring.DAO.Repositories.BlocRepository;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DTO.ChambreNonReservee;
+import tn.esprit.spring.DTO.PlacesLibresChambre;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
 import tn.esprit.spring.Services.Chambre.ChambreService;
+import tn.esprit.spring.Services.Chambre.MatriceChambres;
+import tn.esprit.spring.Services.Chambre.RepartitionChambres;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,12 +37,22 @@ public class ChambreServiceTest {
     @Mock
     private BlocRepository blocRepository;
 
+    @Mock
+    private AcademicCalendar calendrier;
+
+    @Mock
+    private MatriceChambres matrice;
+
+    @Mock
+    private RepartitionChambres repartition;
+
     @InjectMocks
     private ChambreService chambreService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(calendrier.anneeEnCours()).thenReturn(AnneeUniversitaire.of(2025));
     }
 
     @Test
@@ -49,6 +69,7 @@ public class ChambreServiceTest {
         assertEquals(101L, result.getNumeroChambre());
         assertEquals(TypeChambre.SIMPLE, result.getTypeC());
         verify(chambreRepository, times(1)).save(chambre);
+        verify(matrice, times(1)).invalider();
     }
 
     @Test
@@ -139,32 +160,43 @@ public class ChambreServiceTest {
 
     @Test
     void testNbChambreParTypeEtBloc() {
-        TypeChambre type = TypeChambre.SIMPLE;
-        long idBloc = 1L;
-
-        Bloc bloc = new Bloc();
-        bloc.setIdBloc(idBloc);
+        when(matrice.nombre(1L, TypeChambre.SIMPLE)).thenReturn(2L);
 
-        Chambre chambre1 = new Chambre();
-        chambre1.setTypeC(TypeChambre.SIMPLE);
-        chambre1.setBloc(bloc);
-
-        Chambre chambre2 = new Chambre();
-        chambre2.setTypeC(TypeChambre.DOUBLE);
-        chambre2.setBloc(bloc);
-
-        Chambre chambre3 = new Chambre();
-        chambre3.setTypeC(TypeChambre.SIMPLE);
-        chambre3.setBloc(bloc);
+        long result = chambreService.nbChambreParTypeEtBloc(TypeChambre.SIMPLE, 1L);
 
-        List<Chambre> allChambres = Arrays.asList(chambre1, chambre2, chambre3);
+        assertEquals(2, result);
+        // Servi par la matrice en mémoire, sans charger les chambres
+        verify(chambreRepository, never()).findAll();
+    }
 
-        when(chambreRepository.findAll()).thenReturn(allChambres);
+    @Test
+    void testNbChambresParBlocEtType() {
+        Map<Long, Map<TypeChambre, Long>> parBloc = Map.of(1L, Map.of(TypeChambre.SIMPLE, 2L));
+        when(matrice.matrice()).thenReturn(parBloc);
 
-        long result = chambreService.nbChambreParTypeEtBloc(type, idBloc);
+        assertEquals(parBloc, chambreService.nbChambresParBlocEtType());
+    }
 
-        assertEquals(2, result);
-        verify(chambreRepository, times(1)).findAll();
+    @Test
+    void testPlacesLibresParChambre() {
+        AnneeUniversitaire annee = AnneeUniversitaire.of(2025);
+        when(chambreRepository.streamReservationsParChambre(1L, null, annee.debut(), annee.fin())).thenReturn(Stream.of(
+                new Object[]{1L, 101L, TypeChambre.DOUBLE, 2L, "Bloc A", 1L, "Foyer A", 1L},
+                new Object[]{2L, 102L, TypeChambre.SIMPLE, 2L, "Bloc A", 1L, "Foyer A", 1L},
+                // Plus de réservations que de lits: aucune place libre
+                new Object[]{3L, 103L, TypeChambre.SIMPLE, 2L, "Bloc A", 1L, "Foyer A", 2L}));
+        List<PlacesLibresChambre> lignes = new ArrayList<>();
+
+        long result = chambreService.placesLibresParChambre(1L, null, lignes::add);
+
+        assertEquals(3, result);
+        assertEquals(List.of(1, 0, 0), lignes.stream().map(PlacesLibresChambre::getPlacesLibres).toList());
+        assertEquals("Foyer A", lignes.get(0).getNomFoyer());
+        assertEquals(1, lignes.get(0).getReservations());
+        // Une seule requête, sans comptage par chambre
+        verify(chambreRepository, never()).findAll();
+        verify(chambreRepository, never()).countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(
+                anyLong(), anyBoolean(), any(), any());
     }
 
     @Test
@@ -259,19 +291,41 @@ public class ChambreServiceTest {
         verify(chambreRepository, times(1)).getChambresParNomBlocSQL(nomBloc);
     }
 
+    @Test
+    void testGetChambresNonReserveParNomFoyerEtTypeChambre() {
+        when(chambreRepository.findChambresNonReservees(eq("FoyerA"), eq(TypeChambre.DOUBLE),
+                eq(LocalDate.of(2025, 9, 15)), eq(LocalDate.of(2026, 6, 30)),
+                argThat(p -> p.getPageNumber() == 1 && p.getPageSize() == 20)))
+                .thenReturn(List.of(new Object[]{1L, 101L, "BlocA", 1L}, new Object[]{2L, 102L, "BlocA", 0L}));
+
+        List<ChambreNonReservee> result = chambreService.getChambresNonReserveParNomFoyerEtTypeChambre(
+                "FoyerA", TypeChambre.DOUBLE, 1, 20);
+
+        assertEquals(2, result.size());
+        assertEquals(101L, result.get(0).getNumeroChambre());
+        assertEquals(1, result.get(0).getPlacesLibres());
+        assertEquals(2, result.get(1).getPlacesLibres());
+        assertEquals(TypeChambre.DOUBLE, result.get(1).getTypeC());
+        verify(chambreRepository, never()).findAll();
+    }
+
     @Test
     void testPourcentageChambreParTypeChambre() {
-        when(chambreRepository.count()).thenReturn(100L);
-        when(chambreRepository.countChambreByTypeC(TypeChambre.SIMPLE)).thenReturn(40L);
-        when(chambreRepository.countChambreByTypeC(TypeChambre.DOUBLE)).thenReturn(35L);
-        when(chambreRepository.countChambreByTypeC(TypeChambre.TRIPLE)).thenReturn(25L);
+        when(repartition.repartition()).thenReturn(new RepartitionChambres.Repartition(
+                Map.of(TypeChambre.SIMPLE, 40L, TypeChambre.DOUBLE, 35L, TypeChambre.TRIPLE, 25L), 100, Map.of()));
 
-        // This method logs the results, so we just verify the repository calls
+        // Journalise la dernière répartition lue, sans requête
         chambreService.pourcentageChambreParTypeChambre();
 
-        verify(chambreRepository, times(1)).count();
-        verify(chambreRepository, times(1)).countChambreByTypeC(TypeChambre.SIMPLE);
-        verify(chambreRepository, times(1)).countChambreByTypeC(TypeChambre.DOUBLE);
-        verify(chambreRepository, times(1)).countChambreByTypeC(TypeChambre.TRIPLE);
+        verify(repartition, times(1)).repartition();
+        verify(chambreRepository, never()).count();
+        verify(chambreRepository, never()).countChambreByTypeC(any());
+    }
+
+    @Test
+    void testPourcentageChambreParTypeChambreSansChambre() {
+        when(repartition.repartition()).thenReturn(new RepartitionChambres.Repartition(Map.of(), 0, Map.of()));
+
+        assertDoesNotThrow(() -> chambreService.pourcentageChambreParTypeChambre());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package tn.esprit.spring.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ChangementLitsLibres;
+import tn.esprit.spring.DTO.LitsLibres;
+import tn.esprit.spring.Services.Chambre.DisponibiliteFlux;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DisponibiliteFluxTest {
+
+    private final AtomicReference<LitsLibres> photo = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationProperties properties;
+    private DisponibiliteLits disponibilite;
+    private DisponibiliteFlux flux;
+
+    // Client de test: messages reçus, envoi éventuellement bloqué ou en échec
+    static class ClientTest extends SseEmitter {
+        final BlockingQueue<ChangementLitsLibres> recus = new LinkedBlockingQueue<>();
+        volatile CountDownLatch bloque;
+        volatile boolean deconnecte;
+
+        @Override
+        public void send(SseEventBuilder evenement) throws IOException {
+            if (deconnecte) {
+                throw new IOException("Connexion fermée");
+            }
+            if (bloque != null) {
+                try {
+                    bloque.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            evenement.build().stream()
+                    .filter(d -> d.getData() instanceof ChangementLitsLibres)
+                    .forEach(d -> recus.add((ChangementLitsLibres) d.getData()));
+        }
+
+        ChangementLitsLibres suivant() throws InterruptedException {
+            return recus.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        disponibilite = mock(DisponibiliteLits.class);
+        when(disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE)).thenAnswer(invocation -> photo.get());
+        litsLibres(4);
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ReservationProperties();
+        // Diffusion déclenchée par le test
+        properties.getFlux().setIntervalle(Duration.ofHours(1));
+        properties.getFlux().setCapaciteClient(2);
+        properties.getFlux().setMaxAbonnes(3);
+        flux = new DisponibiliteFlux(disponibilite, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        flux.arreter();
+    }
+
+    private void litsLibres(int n) {
+        photo.set(LitsLibres.builder().annee(2025).nomFoyer("Foyer A").typeC(TypeChambre.DOUBLE)
+                .litsLibres(n).parBloc(Map.of("Bloc A", n)).version(version.incrementAndGet()).build());
+    }
+
+    @Test
+    void testValeurCouranteALAbonnement() throws InterruptedException {
+        ClientTest client = new ClientTest();
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, client);
+
+        ChangementLitsLibres premier = client.suivant();
+        assertEquals(4, premier.getLitsLibres());
+        assertEquals(0, premier.getVariation());
+        assertEquals(1, flux.nombreAbonnes());
+    }
+
+    @Test
+    void testRafaleRegroupee() throws InterruptedException {
+        ClientTest client1 = new ClientTest();
+        ClientTest client2 = new ClientTest();
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, client1);
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, client2);
+        client1.suivant();
+        client2.suivant();
+
+        // Trois réservations pendant la même période: un seul message
+        litsLibres(3);
+        litsLibres(2);
+        litsLibres(1);
+        flux.diffuser();
+        // Rien de nouveau: aucun message
+        flux.diffuser();
+
+        for (ClientTest client : new ClientTest[]{client1, client2}) {
+            ChangementLitsLibres changement = client.suivant();
+            assertEquals(1, changement.getLitsLibres());
+            assertEquals(-3, changement.getVariation());
+            assertNull(client.recus.poll(100, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void testClientLentDeconnecte() throws InterruptedException {
+        ClientTest lent = new ClientTest();
+        lent.bloque = new CountDownLatch(1);
+        ClientTest rapide = new ClientTest();
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, lent);
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, rapide);
+        rapide.suivant();
+
+        // Le client lent reste bloqué sur son premier message: sa file (2) déborde au troisième changement
+        for (int n = 3; n >= 1; n--) {
+            litsLibres(n);
+            flux.diffuser();
+            assertEquals(n, rapide.suivant().getLitsLibres());
+        }
+        lent.bloque.countDown();
+
+        assertEquals(1, flux.nombreAbonnes());
+        assertEquals(1.0, meterRegistry.get("chambre.disponibilite.deconnexions").counter().count());
+    }
+
+    @Test
+    void testEnvoiBloqueNeMonopolisePasLesEnvoyeurs() throws InterruptedException {
+        flux.arreter();
+        properties.getFlux().setEnvoyeurs(1);
+        properties.getFlux().setDelaiEnvoi(Duration.ofMillis(100));
+        flux = new DisponibiliteFlux(disponibilite, properties, meterRegistry);
+        // Client qui ne lit plus: son premier envoi bloque l'unique envoyeur
+        ClientTest bloque = new ClientTest();
+        bloque.bloque = new CountDownLatch(1);
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, bloque);
+        ClientTest rapide = new ClientTest();
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, rapide);
+
+        Thread.sleep(200);
+        flux.diffuser();
+
+        // Envoi bloqué abandonné: le client est déconnecté et l'autre client est servi
+        ChangementLitsLibres premier = rapide.recus.poll(1, TimeUnit.SECONDS);
+        assertNotNull(premier);
+        assertEquals(4, premier.getLitsLibres());
+        assertEquals(1, flux.nombreAbonnes());
+        assertEquals(1.0, meterRegistry.get("chambre.disponibilite.deconnexions").counter().count());
+        bloque.bloque.countDown();
+    }
+
+    @Test
+    void testClientDeconnecteRetire() throws InterruptedException {
+        ClientTest client = new ClientTest();
+        flux.abonner("Foyer A", TypeChambre.DOUBLE, client);
+        client.suivant();
+        client.deconnecte = true;
+
+        litsLibres(3);
+        flux.diffuser();
+
+        for (int i = 0; i < 50 && flux.nombreAbonnes() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, flux.nombreAbonnes());
+    }
+
+    @Test
+    void testNombreMaximalDAbonnes() {
+        for (int i = 0; i < 3; i++) {
+            flux.abonner("Foyer A", TypeChambre.DOUBLE, new ClientTest());
+        }
+
+        assertThrows(ResponseStatusException.class, () -> flux.abonner("Foyer A", TypeChambre.DOUBLE, new ClientTest()));
+        assertEquals(3, flux.nombreAbonnes());
+    }
+}
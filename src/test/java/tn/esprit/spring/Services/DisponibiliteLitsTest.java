@@ -0,0 +1,201 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DTO.LitsLibres;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
+import tn.esprit.spring.Services.Reservation.ReservationEvent;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DisponibiliteLitsTest {
+
+    private static final LocalDate DEBUT = LocalDate.of(2025, 9, 15);
+    private static final LocalDate FIN = LocalDate.of(2026, 6, 30);
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    @Mock
+    private AcademicCalendar calendrier;
+
+    @InjectMocks
+    private DisponibiliteLits disponibilite;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(calendrier.anneeEnCours()).thenReturn(AnneeUniversitaire.of(2025));
+        // Foyer A: deux chambres doubles (blocs A et B) et une simple
+        when(chambreRepository.findChambresPourDisponibilite()).thenReturn(List.of(
+                new Object[]{1L, TypeChambre.DOUBLE, "Bloc A", "Foyer A"},
+                new Object[]{2L, TypeChambre.DOUBLE, "Bloc B", "Foyer A"},
+                new Object[]{3L, TypeChambre.SIMPLE, "Bloc A", "Foyer A"}));
+        occupations(new Object[]{1L, 1L});
+    }
+
+    private void occupations(Object[]... lignes) {
+        when(chambreRepository.countReservationsParChambre(DEBUT, FIN)).thenReturn(new ArrayList<>(List.of(lignes)));
+    }
+
+    private static ReservationEvent event(ReservationEvent.Type type, long idChambre, int annee) {
+        return new ReservationEvent(type, idChambre, 100L + idChambre, 1L, TypeChambre.DOUBLE, 111L, annee);
+    }
+
+    @Test
+    void testChargementAuPremierAcces() {
+        LitsLibres doubles = disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+
+        assertEquals(2025, doubles.getAnnee());
+        assertEquals(3, doubles.getLitsLibres());
+        assertEquals(Map.of("Bloc A", 1, "Bloc B", 2), doubles.getParBloc());
+        assertEquals(1, disponibilite.litsLibres("Foyer A", TypeChambre.SIMPLE).getLitsLibres());
+        assertEquals(0, disponibilite.litsLibres("Foyer B", TypeChambre.DOUBLE).getLitsLibres());
+        // Lectures suivantes sans requête
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        verify(chambreRepository, times(1)).findChambresPourDisponibilite();
+    }
+
+    @Test
+    void testMiseAJourParEvenements() {
+        LitsLibres avant = disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+
+        disponibilite.reservationModifiee(event(ReservationEvent.Type.AJOUT, 2L, 2025));
+        LitsLibres apresAjout = disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        assertEquals(2, apresAjout.getLitsLibres());
+        assertEquals(Map.of("Bloc A", 1, "Bloc B", 1), apresAjout.getParBloc());
+        assertTrue(apresAjout.getVersion() > avant.getVersion());
+
+        disponibilite.reservationModifiee(event(ReservationEvent.Type.ANNULATION, 1L, 2025));
+        assertEquals(3, disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE).getLitsLibres());
+
+        // Autre année, chambre inconnue: ignorés
+        disponibilite.reservationModifiee(event(ReservationEvent.Type.AJOUT, 2L, 2024));
+        disponibilite.reservationModifiee(event(ReservationEvent.Type.AJOUT, 99L, 2025));
+        assertEquals(3, disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE).getLitsLibres());
+        verify(chambreRepository, times(1)).findChambresPourDisponibilite();
+    }
+
+    @Test
+    void testPasEnDessousDeZero() {
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        // Affectation manuelle au-delà de la capacité
+        for (int i = 0; i < 3; i++) {
+            disponibilite.reservationModifiee(event(ReservationEvent.Type.AJOUT, 1L, 2025));
+        }
+
+        assertEquals(Map.of("Bloc A", 0, "Bloc B", 2), disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE).getParBloc());
+    }
+
+    @Test
+    void testReconcilierCorrigeLesDerives() {
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        occupations(new Object[]{1L, 2L}, new Object[]{2L, 1L});
+
+        assertEquals(2, disponibilite.reconcilier());
+        assertEquals(1, disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE).getLitsLibres());
+        assertEquals(0, disponibilite.reconcilier());
+    }
+
+    @Test
+    void testReconcilierGardeLesModificationsConcurrentes() {
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        // Réservation validée pendant la lecture de la base, qui ne la voit pas encore
+        when(chambreRepository.countReservationsParChambre(DEBUT, FIN)).thenAnswer(invocation -> {
+            disponibilite.reservationModifiee(event(ReservationEvent.Type.AJOUT, 2L, 2025));
+            return new ArrayList<>(List.<Object[]>of(new Object[]{1L, 1L}));
+        });
+
+        assertEquals(0, disponibilite.reconcilier());
+        assertEquals(2, disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE).getLitsLibres());
+    }
+
+    @Test
+    void testPremierChargementRejoueLesVariationsApresLaLecture() throws Exception {
+        Thread reconciliation = Thread.currentThread();
+        AtomicReference<Throwable> erreur = new AtomicReference<>();
+        CountDownLatch verrouPris = new CountDownLatch(1);
+        // Réservation validée après la lecture de la base (qui ne la voit pas), avant le recalage sous verrou
+        when(chambreRepository.findChambresPourDisponibilite()).thenAnswer(invocation -> {
+            Thread evenement = new Thread(() -> {
+                synchronized (disponibilite) {
+                    verrouPris.countDown();
+                    try {
+                        while (reconciliation.getState() != Thread.State.BLOCKED) {
+                            Thread.sleep(1);
+                        }
+                        disponibilite.reservationModifiee(event(ReservationEvent.Type.AJOUT, 2L, 2025));
+                    } catch (Throwable e) {
+                        erreur.set(e);
+                    }
+                }
+            });
+            evenement.start();
+            verrouPris.await();
+            return List.of(
+                    new Object[]{1L, TypeChambre.DOUBLE, "Bloc A", "Foyer A"},
+                    new Object[]{2L, TypeChambre.DOUBLE, "Bloc B", "Foyer A"},
+                    new Object[]{3L, TypeChambre.SIMPLE, "Bloc A", "Foyer A"});
+        });
+
+        disponibilite.reconcilier();
+
+        assertNull(erreur.get());
+        LitsLibres doubles = disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        assertEquals(2, doubles.getLitsLibres());
+        assertEquals(Map.of("Bloc A", 1, "Bloc B", 1), doubles.getParBloc());
+    }
+
+    @Test
+    void testNouvelleChambrePriseEnCompteALaReconciliation() {
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        when(chambreRepository.findChambresPourDisponibilite()).thenReturn(List.of(
+                new Object[]{1L, TypeChambre.DOUBLE, "Bloc A", "Foyer A"},
+                new Object[]{2L, TypeChambre.DOUBLE, "Bloc B", "Foyer A"},
+                new Object[]{3L, TypeChambre.SIMPLE, "Bloc A", "Foyer A"},
+                new Object[]{4L, TypeChambre.TRIPLE, "Bloc C", "Foyer A"}));
+
+        disponibilite.reconcilier();
+
+        assertEquals(3, disponibilite.litsLibres("Foyer A", TypeChambre.TRIPLE).getLitsLibres());
+    }
+
+    @Test
+    void testChambresSuivies() {
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+
+        assertTrue(disponibilite.suit(3L, 2025));
+        // Chambre créée après le chargement
+        assertFalse(disponibilite.suit(4L, 2025));
+        assertTrue(disponibilite.suit(4L, 2024));
+    }
+
+    @Test
+    void testRentreeRechargeLAnnee() {
+        disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+        AnneeUniversitaire suivante = AnneeUniversitaire.of(2026);
+        when(calendrier.anneeEnCours()).thenReturn(suivante);
+        when(chambreRepository.countReservationsParChambre(suivante.debut(), suivante.fin())).thenReturn(new ArrayList<>());
+
+        LitsLibres doubles = disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE);
+
+        assertEquals(2026, doubles.getAnnee());
+        assertEquals(4, doubles.getLitsLibres());
+        verify(chambreRepository, times(2)).findChambresPourDisponibilite();
+    }
+}
@@ -0,0 +1,99 @@
+package tn.esprit.spring.Services;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.Services.Mail.EnvoiMails;
+import tn.esprit.spring.Services.Mail.Mail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Envoi réel vers un serveur SMTP en mémoire (GreenMail)
+class EnvoiMailsTest {
+
+    private final GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+    private final ReservationProperties properties = new ReservationProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JavaMailSenderImpl mailSender;
+    private EnvoiMails envoiMails;
+
+    @BeforeEach
+    void setUp() {
+        smtp.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getSmtp().getPort());
+        properties.getMail().setTailleLot(10);
+        properties.getMail().setConcurrence(3);
+        properties.getMail().setMaxTentatives(2);
+        properties.getMail().setDelaiEssai(Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        envoiMails.arreter();
+        smtp.stop();
+    }
+
+    private static List<Mail> mails(int nombre) {
+        List<Mail> mails = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            mails.add(new Mail("etudiant" + i + "@esprit.tn", "Réservation RES-" + i, "Bonjour " + i));
+        }
+        return mails;
+    }
+
+    @Test
+    void testEnvoiParLots() throws Exception {
+        envoiMails = new EnvoiMails(mailSender, properties, meterRegistry);
+
+        List<Mail> nonEnvoyes = envoiMails.envoyer(mails(45));
+
+        assertTrue(nonEnvoyes.isEmpty());
+        assertTrue(smtp.waitForIncomingEmail(5000, 45));
+        MimeMessage[] recus = smtp.getReceivedMessages();
+        assertEquals(45, recus.length);
+        assertEquals("foyer@esprit.tn", recus[0].getFrom()[0].toString());
+        assertEquals(45.0, meterRegistry.get("reservation.mail.envoyes").counter().count());
+        // Un lot (une connexion SMTP) par tranche de 10 mails
+        assertEquals(5, meterRegistry.get("reservation.mail.lot").timer().count());
+    }
+
+    @Test
+    void testServeurIndisponible() {
+        smtp.stop();
+        envoiMails = new EnvoiMails(mailSender, properties, meterRegistry);
+
+        List<Mail> mails = mails(15);
+        List<Mail> nonEnvoyes = envoiMails.envoyer(mails);
+
+        // Rendus à l'appelant après deux tentatives par lot
+        assertEquals(15, nonEnvoyes.size());
+        assertTrue(nonEnvoyes.containsAll(mails));
+        assertEquals(4, meterRegistry.get("reservation.mail.lot").timer().count());
+        assertEquals(15.0, meterRegistry.get("reservation.mail.echecs").counter().count());
+    }
+
+    @Test
+    void testDebitMaximal() {
+        properties.getMail().setDebit(100);
+        envoiMails = new EnvoiMails(mailSender, properties, meterRegistry);
+
+        long debut = System.nanoTime();
+        assertTrue(envoiMails.envoyer(mails(30)).isEmpty());
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        // 30 mails à 100 mails/s: le troisième lot de 10 attend au moins 200 ms
+        assertTrue(dureeMs >= 190, "durée: " + dureeMs + " ms");
+    }
+}
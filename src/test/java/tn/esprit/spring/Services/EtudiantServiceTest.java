@@ -161,13 +161,13 @@ public class EtudiantServiceTest {
         etudiant.setPrenomEt(prenomE);
         etudiant.setReservations(new ArrayList<>());
 
-        when(reservationRepository.findById(idR)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(idR)).thenReturn(Optional.of(reservation));
         when(etudiantRepository.getByNomEtAndPrenomEt(nomE, prenomE)).thenReturn(etudiant);
         when(etudiantRepository.save(any(Etudiant.class))).thenReturn(etudiant);
 
         etudiantService.affecterReservationAEtudiant(idR, nomE, prenomE);
 
-        verify(reservationRepository, times(1)).findById(idR);
+        verify(reservationRepository, times(1)).findByIdReservation(idR);
         verify(etudiantRepository, times(1)).getByNomEtAndPrenomEt(nomE, prenomE);
         verify(etudiantRepository, times(1)).save(etudiant);
         assertTrue(etudiant.getReservations().contains(reservation));
@@ -189,13 +189,13 @@ public class EtudiantServiceTest {
         etudiant.setReservations(new ArrayList<>());
         etudiant.getReservations().add(reservation);
 
-        when(reservationRepository.findById(idR)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(idR)).thenReturn(Optional.of(reservation));
         when(etudiantRepository.getByNomEtAndPrenomEt(nomE, prenomE)).thenReturn(etudiant);
         when(etudiantRepository.save(any(Etudiant.class))).thenReturn(etudiant);
 
         etudiantService.desaffecterReservationAEtudiant(idR, nomE, prenomE);
 
-        verify(reservationRepository, times(1)).findById(idR);
+        verify(reservationRepository, times(1)).findByIdReservation(idR);
         verify(etudiantRepository, times(1)).getByNomEtAndPrenomEt(nomE, prenomE);
         verify(etudiantRepository, times(1)).save(etudiant);
         assertFalse(etudiant.getReservations().contains(reservation));
@@ -217,14 +217,14 @@ public class EtudiantServiceTest {
         // Initialize with null to test the scenario
         etudiant.setReservations(null);
 
-        when(reservationRepository.findById(idR)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(idR)).thenReturn(Optional.of(reservation));
         when(etudiantRepository.getByNomEtAndPrenomEt(nomE, prenomE)).thenReturn(etudiant);
         when(etudiantRepository.save(any(Etudiant.class))).thenReturn(etudiant);
 
         // This should handle the null case gracefully
         etudiantService.affecterReservationAEtudiant(idR, nomE, prenomE);
 
-        verify(reservationRepository, times(1)).findById(idR);
+        verify(reservationRepository, times(1)).findByIdReservation(idR);
         verify(etudiantRepository, times(1)).getByNomEtAndPrenomEt(nomE, prenomE);
         verify(etudiantRepository, times(1)).save(etudiant);
     }
@@ -245,14 +245,14 @@ public class EtudiantServiceTest {
         // Initialize with null to test the scenario
         etudiant.setReservations(null);
 
-        when(reservationRepository.findById(idR)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(idR)).thenReturn(Optional.of(reservation));
         when(etudiantRepository.getByNomEtAndPrenomEt(nomE, prenomE)).thenReturn(etudiant);
         when(etudiantRepository.save(any(Etudiant.class))).thenReturn(etudiant);
 
         // This should handle the null case gracefully
         etudiantService.desaffecterReservationAEtudiant(idR, nomE, prenomE);
 
-        verify(reservationRepository, times(1)).findById(idR);
+        verify(reservationRepository, times(1)).findByIdReservation(idR);
         verify(etudiantRepository, times(1)).getByNomEtAndPrenomEt(nomE, prenomE);
         verify(etudiantRepository, times(1)).save(etudiant);
     }
@@ -0,0 +1,163 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
+import tn.esprit.spring.Services.Reservation.ReservationEvent;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IndexChambresLibresTest {
+
+    private static final AnneeUniversitaire AU_2025 = AnneeUniversitaire.of(2025);
+    private static final AnneeUniversitaire AU_2024 = AnneeUniversitaire.of(2024);
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    @Mock
+    private AcademicCalendar calendrier;
+
+    private IndexChambresLibres index;
+
+    // idChambre -> lits occupés en base pour 2025/2026
+    private final Map<Long, Long> occupations = new HashMap<>(Map.of(1L, 1L, 3L, 1L, 4L, 2L));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(calendrier.anneeEnCours()).thenReturn(AU_2025);
+        when(calendrier.annee(2025)).thenReturn(AU_2025);
+        when(calendrier.annee(2024)).thenReturn(AU_2024);
+        // Foyer 1: blocs 10 (101 et 103 doubles, 102 simple) et 20 (201 double); foyer 2: bloc 30 (301 double)
+        when(chambreRepository.findChambresPourIndex()).thenReturn(List.of(
+                new Object[]{1L, 101L, TypeChambre.DOUBLE, 10L, 1L},
+                new Object[]{3L, 102L, TypeChambre.SIMPLE, 10L, 1L},
+                new Object[]{4L, 103L, TypeChambre.DOUBLE, 10L, 1L},
+                new Object[]{2L, 201L, TypeChambre.DOUBLE, 20L, 1L},
+                new Object[]{5L, 301L, TypeChambre.DOUBLE, 30L, 2L}));
+        when(chambreRepository.countReservationsParChambre(anyLong(), anyLong(), eq(AU_2025.debut()), eq(AU_2025.fin())))
+                .thenAnswer(invocation -> tranche(invocation.getArgument(0), invocation.getArgument(1)));
+        when(chambreRepository.countReservationsParChambre(anyLong(), anyLong(), eq(AU_2024.debut()), eq(AU_2024.fin())))
+                .thenReturn(new ArrayList<>());
+        ReservationProperties properties = new ReservationProperties();
+        properties.getIndexChambres().setParallelisme(2);
+        index = new IndexChambresLibres(chambreRepository, calendrier, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.arreter();
+    }
+
+    private List<Object[]> tranche(long idMin, long idMax) {
+        List<Object[]> lignes = new ArrayList<>();
+        occupations.forEach((idChambre, nombre) -> {
+            if (idChambre >= idMin && idChambre <= idMax) {
+                lignes.add(new Object[]{idChambre, nombre});
+            }
+        });
+        return lignes;
+    }
+
+    private static ReservationEvent event(ReservationEvent.Type type, long idChambre, int annee) {
+        return new ReservationEvent(type, idChambre, 100L + idChambre, 1L, TypeChambre.DOUBLE, 111L, annee);
+    }
+
+    @Test
+    void testReconstructionParTranchesEtIntersectionAvecLeBloc() {
+        assertEquals(5, index.reconstruire());
+
+        assertEquals(List.of(101L, 201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+        assertEquals(List.of(101L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, 10L));
+        assertEquals(List.of(), index.chambresLibres(1L, TypeChambre.SIMPLE, 2025, null));
+        assertEquals(List.of(301L), index.chambresLibres(2L, TypeChambre.DOUBLE, 2025, null));
+        assertEquals(List.of(), index.chambresLibres(2L, TypeChambre.DOUBLE, 2025, 10L));
+        assertEquals(List.of(), index.chambresLibres(9L, TypeChambre.TRIPLE, 2025, null));
+        // Identifiants 1 à 5 en deux tranches lues en parallèle
+        verify(chambreRepository).countReservationsParChambre(1L, 3L, AU_2025.debut(), AU_2025.fin());
+        verify(chambreRepository).countReservationsParChambre(4L, 5L, AU_2025.debut(), AU_2025.fin());
+    }
+
+    @Test
+    void testMiseAJourParLesReservations() {
+        index.reconstruire();
+
+        index.reservationModifiee(event(ReservationEvent.Type.AJOUT, 1L, 2025));
+        assertEquals(List.of(201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+
+        index.reservationModifiee(event(ReservationEvent.Type.ANNULATION, 4L, 2025));
+        assertEquals(List.of(103L, 201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+
+        // Chambre inconnue (créée depuis la reconstruction): ignorée
+        index.reservationModifiee(event(ReservationEvent.Type.AJOUT, 99L, 2025));
+        assertEquals(List.of(103L, 201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+    }
+
+    @Test
+    void testAutreAnneeChargeeALaDemande() {
+        index.reconstruire();
+
+        assertEquals(List.of(101L, 103L, 201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2024, null));
+        assertEquals(List.of(102L), index.chambresLibres(1L, TypeChambre.SIMPLE, 2024, 10L));
+        index.chambresLibres(1L, TypeChambre.DOUBLE, 2024, null);
+        verify(chambreRepository, times(2)).countReservationsParChambre(anyLong(), anyLong(),
+                eq(AU_2024.debut()), eq(AU_2024.fin()));
+    }
+
+    @Test
+    void testReservationPendantLaReconstructionGardeLaValeurEnMemoire() {
+        index.reconstruire();
+        // Réservation validée pendant la lecture de sa tranche, vue par la lecture: 201 a encore un lit libre
+        when(chambreRepository.countReservationsParChambre(eq(1L), eq(3L), eq(AU_2025.debut()), eq(AU_2025.fin())))
+                .thenAnswer(invocation -> {
+                    index.reservationModifiee(event(ReservationEvent.Type.AJOUT, 2L, 2025));
+                    occupations.put(2L, 1L);
+                    return tranche(1L, 3L);
+                });
+        // Dérive sur 101, non modifiée pendant la lecture: recalée sur la base
+        occupations.put(1L, 2L);
+
+        index.reconstruire();
+
+        assertEquals(List.of(201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+    }
+
+    @Test
+    void testPremiereReconstructionNeComptePasDeuxFois() {
+        // Réservation validée pendant la lecture et vue par elle, sans index en mémoire
+        when(chambreRepository.countReservationsParChambre(eq(1L), eq(3L), eq(AU_2025.debut()), eq(AU_2025.fin())))
+                .thenAnswer(invocation -> {
+                    index.reservationModifiee(event(ReservationEvent.Type.AJOUT, 2L, 2025));
+                    occupations.put(2L, 1L);
+                    return tranche(1L, 3L);
+                });
+
+        index.reconstruire();
+
+        assertEquals(List.of(101L, 201L), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+    }
+
+    @Test
+    void testPremierAccesSansReconstruction() {
+        // Année en cours demandée avant la reconstruction du démarrage: aucune chambre indexée
+        assertEquals(List.of(), index.chambresLibres(1L, TypeChambre.DOUBLE, 2025, null));
+        verify(chambreRepository, never()).countReservationsParChambre(anyLong(), anyLong(),
+                any(LocalDate.class), any(LocalDate.class));
+    }
+}
@@ -0,0 +1,140 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.DTO.Periode;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Reservation.IndexReservationsJours;
+import tn.esprit.spring.Services.Reservation.ReservationJourEvent;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IndexReservationsJoursTest {
+
+    private static final LocalDate AUJOURDHUI = LocalDate.of(2025, 10, 1);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Spy
+    private AcademicCalendar calendrier = new AcademicCalendar(
+            Clock.fixed(Instant.parse("2025-10-01T10:00:00Z"), ZoneOffset.UTC));
+
+    @InjectMocks
+    private IndexReservationsJours index;
+
+    // Réservations par jour attendues (comptage naïf)
+    private final TreeMap<LocalDate, Long> parJour = new TreeMap<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Random aleatoire = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            parJour.merge(LocalDate.of(2021, 8, 1).plusDays(aleatoire.nextInt(1600)), 1L, Long::sum);
+        }
+        List<Object[]> lignes = new ArrayList<>();
+        parJour.forEach((jour, nombre) -> lignes.add(new Object[]{jour, nombre}));
+        when(reservationRepository.countParJour()).thenReturn(lignes);
+    }
+
+    private long attendu(LocalDate debut, LocalDate fin) {
+        return debut.isAfter(fin) ? 0 : parJour.subMap(debut, true, fin, true).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Test
+    void testComptagesParPeriode() {
+        assertEquals(attendu(LocalDate.of(2023, 9, 15), LocalDate.of(2024, 6, 30)),
+                index.compter(LocalDate.of(2023, 9, 15), LocalDate.of(2024, 6, 30)));
+        // Chaque semaine de chaque année, en un appel
+        List<Periode> semaines = new ArrayList<>();
+        for (LocalDate debut = LocalDate.of(2021, 1, 4); debut.isBefore(LocalDate.of(2026, 1, 1)); debut = debut.plusWeeks(1)) {
+            semaines.add(new Periode(debut, debut.plusDays(6)));
+        }
+        List<Long> nombres = index.compter(semaines);
+        for (int i = 0; i < semaines.size(); i++) {
+            assertEquals(attendu(semaines.get(i).getDebut(), semaines.get(i).getFin()), nombres.get(i));
+        }
+        // Bornes incluses, périodes vides ou hors de l'index
+        LocalDate jour = parJour.firstKey();
+        assertEquals(parJour.get(jour), index.compter(jour, jour));
+        assertEquals(0, index.compter(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 1)));
+        assertEquals(0, index.compter(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31)));
+        assertEquals(parJour.values().stream().mapToLong(Long::longValue).sum(),
+                index.compter(LocalDate.of(1990, 1, 1), LocalDate.of(2100, 1, 1)));
+        // Une seule requête: chargement au premier accès
+        verify(reservationRepository, times(1)).countParJour();
+    }
+
+    @Test
+    void testMisesAJour() {
+        index.charger();
+        long avant = index.compter(AUJOURDHUI, AUJOURDHUI);
+
+        index.reservationsModifiees(new ReservationJourEvent(AUJOURDHUI, 3));
+        index.reservationsModifiees(new ReservationJourEvent(AUJOURDHUI, -1));
+        // Dates hors de la plage chargée: l'index s'agrandit
+        index.ajouter(LocalDate.of(2012, 5, 5), 4);
+        index.ajouter(LocalDate.of(2040, 5, 5), 2);
+
+        assertEquals(avant + 2, index.compter(AUJOURDHUI, AUJOURDHUI));
+        assertEquals(4, index.compter(LocalDate.of(2012, 1, 1), LocalDate.of(2012, 12, 31)));
+        assertEquals(2, index.compter(LocalDate.of(2040, 5, 5), LocalDate.of(2040, 5, 5)));
+        assertEquals(attendu(LocalDate.of(2021, 1, 1), LocalDate.of(2025, 9, 30)),
+                index.compter(LocalDate.of(2021, 1, 1), LocalDate.of(2025, 9, 30)));
+    }
+
+    @Test
+    void testVariationAvantChargementLueEnBase() {
+        // Pas encore chargé: la réservation sera lue par le chargement
+        index.ajouter(AUJOURDHUI, 1);
+
+        assertEquals(attendu(AUJOURDHUI, AUJOURDHUI), index.compter(AUJOURDHUI, AUJOURDHUI));
+    }
+
+    @Test
+    void testRechargementGardeLesJoursModifiesPendantLaLecture() {
+        index.charger();
+        long avant = index.compter(AUJOURDHUI, AUJOURDHUI);
+        LocalDate hier = AUJOURDHUI.minusDays(1);
+        // Réservation validée pendant la lecture, que la lecture a vue: pas de double comptage
+        when(reservationRepository.countParJour()).thenAnswer(invocation -> {
+            index.ajouter(AUJOURDHUI, 1);
+            return List.<Object[]>of(new Object[]{AUJOURDHUI, avant + 1}, new Object[]{hier, 7L});
+        });
+
+        index.charger();
+
+        assertEquals(avant + 1, index.compter(AUJOURDHUI, AUJOURDHUI));
+        // Jour non modifié pendant la lecture: recalé sur la base
+        assertEquals(7, index.compter(hier, hier));
+        assertEquals(avant + 8, index.compter(LocalDate.of(2000, 1, 1), LocalDate.of(2100, 1, 1)));
+    }
+
+    @Test
+    void testPremierChargementIgnoreLesVariationsPendantLaLecture() {
+        when(reservationRepository.countParJour()).thenAnswer(invocation -> {
+            index.ajouter(AUJOURDHUI, 1);
+            return List.<Object[]>of(new Object[]{AUJOURDHUI, 5L});
+        });
+
+        index.charger();
+
+        assertEquals(5, index.compter(AUJOURDHUI, AUJOURDHUI));
+    }
+}
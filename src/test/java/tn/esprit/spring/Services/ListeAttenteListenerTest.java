@@ -0,0 +1,119 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.esprit.spring.DAO.Entities.InscriptionAttente;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.Services.Reservation.CacheReservationActive;
+import tn.esprit.spring.Services.Reservation.IReservationService;
+import tn.esprit.spring.Services.Reservation.ListeAttente;
+import tn.esprit.spring.Services.Reservation.ListeAttenteListener;
+import tn.esprit.spring.Services.Reservation.ReservationEvent;
+
+import static org.mockito.Mockito.*;
+
+public class ListeAttenteListenerTest {
+
+    @Mock
+    private ListeAttente listeAttente;
+
+    @Mock
+    private IReservationService reservationService;
+
+    @Mock
+    private CacheReservationActive cacheActive;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ListeAttenteListener listener;
+
+    private final InscriptionAttente premier = InscriptionAttente.builder().idInscription(1L).cin(111L)
+            .idFoyer(1L).typeC(TypeChambre.DOUBLE).annee(2025).build();
+    private final InscriptionAttente second = InscriptionAttente.builder().idInscription(2L).cin(222L)
+            .idFoyer(1L).typeC(TypeChambre.DOUBLE).annee(2025).build();
+
+    private static ReservationEvent evenement(ReservationEvent.Type type, Long cin) {
+        return new ReservationEvent(type, 10L, 101L, 1L, TypeChambre.DOUBLE, cin, 2025);
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testRefusInscritSurLaListe() {
+        listener.reservationRefusee(evenement(ReservationEvent.Type.REFUS, 111L));
+
+        verify(listeAttente).inscrire(111L, 1L, TypeChambre.DOUBLE, 2025);
+    }
+
+    @Test
+    void testPlaceLibereePromeutLePremierInscrit() {
+        when(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025)).thenReturn(premier);
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L))
+                .thenReturn(Reservation.builder().idReservation("R").build());
+
+        listener.placeLiberee(evenement(ReservationEvent.Type.ANNULATION, 999L));
+
+        verify(listeAttente).terminer(premier);
+        verify(reservationService, times(1)).ajouterReservationEtAssignerAChambreEtAEtudiant(anyLong(), anyLong());
+    }
+
+    @Test
+    void testLitReprisEntreTempsGardeLInscription() {
+        when(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025)).thenReturn(premier);
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L)).thenReturn(null);
+
+        listener.placeLiberee(evenement(ReservationEvent.Type.ANNULATION, 999L));
+
+        verify(listeAttente).remettre(premier);
+        verify(listeAttente, never()).terminer(any());
+    }
+
+    @Test
+    void testInscriptionSansObjetPasseAuSuivant() {
+        when(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025)).thenReturn(premier, second);
+        when(cacheActive.reservationActive(111L)).thenReturn("2025/2026-A-101-111");
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 222L))
+                .thenReturn(Reservation.builder().idReservation("R").build());
+
+        listener.placeLiberee(evenement(ReservationEvent.Type.ANNULATION, 999L));
+
+        verify(listeAttente).terminer(premier);
+        verify(listeAttente).terminer(second);
+        verify(reservationService, never()).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L);
+    }
+
+    @Test
+    void testEchecDePromotionRetireLInscrit() {
+        when(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025)).thenReturn(premier, (InscriptionAttente) null);
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L))
+                .thenThrow(new IllegalStateException("étudiant introuvable"));
+
+        listener.placeLiberee(evenement(ReservationEvent.Type.ANNULATION, 999L));
+
+        verify(listeAttente).terminer(premier);
+    }
+
+    @Test
+    void testDeuxAnnulationsPromeuventDeuxInscrits() {
+        // Chaque annulation réclame son inscrit: le premier n'est pas réservé deux fois
+        when(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025)).thenReturn(premier, second);
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(eq(101L), anyLong()))
+                .thenReturn(Reservation.builder().idReservation("R").build());
+
+        listener.placeLiberee(evenement(ReservationEvent.Type.ANNULATION, 998L));
+        listener.placeLiberee(evenement(ReservationEvent.Type.ANNULATION, 999L));
+
+        verify(reservationService, times(1)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L);
+        verify(reservationService, times(1)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 222L);
+    }
+}
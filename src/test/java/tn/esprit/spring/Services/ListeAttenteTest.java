@@ -0,0 +1,112 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.DAO.Entities.InscriptionAttente;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.InscriptionAttenteRepository;
+import tn.esprit.spring.Services.Reservation.ListeAttente;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ListeAttenteTest {
+
+    @Mock
+    private InscriptionAttenteRepository inscriptionRepository;
+
+    @InjectMocks
+    private ListeAttente listeAttente;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(inscriptionRepository.save(any(InscriptionAttente.class))).thenAnswer(i -> {
+            InscriptionAttente inscription = i.getArgument(0);
+            inscription.setIdInscription(ids.incrementAndGet());
+            return inscription;
+        });
+    }
+
+    @Test
+    void testPremierInscritPremierServi() {
+        listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2025);
+        listeAttente.inscrire(222L, 1L, TypeChambre.DOUBLE, 2025);
+        listeAttente.inscrire(333L, 1L, TypeChambre.SIMPLE, 2025);
+
+        InscriptionAttente premier = listeAttente.prochain(1L, TypeChambre.DOUBLE, 2025);
+        assertEquals(111L, premier.getCin());
+        listeAttente.retirer(premier);
+
+        assertEquals(222L, listeAttente.prochain(1L, TypeChambre.DOUBLE, 2025).getCin());
+        assertEquals(333L, listeAttente.prochain(1L, TypeChambre.SIMPLE, 2025).getCin());
+        assertNull(listeAttente.prochain(2L, TypeChambre.DOUBLE, 2025));
+        verify(inscriptionRepository).deleteById(premier.getIdInscription());
+    }
+
+    @Test
+    void testReclamerRetireLePremierInscrit() {
+        listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2025);
+        listeAttente.inscrire(222L, 1L, TypeChambre.DOUBLE, 2025);
+
+        InscriptionAttente premier = listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025);
+        assertEquals(111L, premier.getCin());
+        assertEquals(222L, listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025).getCin());
+        assertNull(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025));
+
+        // Promotion refusée: le premier reprend sa place
+        listeAttente.remettre(premier);
+        assertEquals(111L, listeAttente.prochain(1L, TypeChambre.DOUBLE, 2025).getCin());
+        verify(inscriptionRepository, never()).deleteById(anyLong());
+
+        listeAttente.terminer(listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025));
+        verify(inscriptionRepository).deleteById(premier.getIdInscription());
+    }
+
+    @Test
+    void testRemettreGardeLInscriptionLaPlusAncienne() {
+        listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2025);
+        InscriptionAttente premier = listeAttente.reclamer(1L, TypeChambre.DOUBLE, 2025);
+        // Réinscription pendant la promotion
+        listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2025);
+
+        listeAttente.remettre(premier);
+
+        assertEquals(1, listeAttente.taille(1L, TypeChambre.DOUBLE, 2025));
+        assertSame(premier, listeAttente.prochain(1L, TypeChambre.DOUBLE, 2025));
+        verify(inscriptionRepository).deleteById(2L);
+    }
+
+    @Test
+    void testInscriptionUniqueParListe() {
+        assertTrue(listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2025));
+        assertFalse(listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2025));
+        assertTrue(listeAttente.inscrire(111L, 1L, TypeChambre.DOUBLE, 2026));
+
+        assertEquals(1, listeAttente.taille(1L, TypeChambre.DOUBLE, 2025));
+        verify(inscriptionRepository, times(2)).save(any(InscriptionAttente.class));
+    }
+
+    @Test
+    void testListeRechargeeDepuisLaBase() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        when(inscriptionRepository.findByIdFoyerAndTypeCAndAnnee(null, TypeChambre.TRIPLE, 2025)).thenReturn(List.of(
+                InscriptionAttente.builder().idInscription(8L).cin(222L).typeC(TypeChambre.TRIPLE).annee(2025)
+                        .dateInscription(maintenant).build(),
+                InscriptionAttente.builder().idInscription(5L).cin(111L).typeC(TypeChambre.TRIPLE).annee(2025)
+                        .dateInscription(maintenant.minusMinutes(1)).build()));
+
+        assertEquals(111L, listeAttente.prochain(null, TypeChambre.TRIPLE, 2025).getCin());
+        assertEquals(2, listeAttente.taille(null, TypeChambre.TRIPLE, 2025));
+        verify(inscriptionRepository, times(1)).findByIdFoyerAndTypeCAndAnnee(null, TypeChambre.TRIPLE, 2025);
+    }
+}
@@ -0,0 +1,81 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.Services.Mail.EnvoiMails;
+import tn.esprit.spring.Services.Mail.Mail;
+import tn.esprit.spring.Services.Outbox.MailOutboxHandler;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MailOutboxHandlerTest {
+
+    @Mock
+    private EnvoiMails envoiMails;
+
+    @Mock
+    private EtudiantRepository etudiantRepository;
+
+    private MailOutboxHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        handler = new MailOutboxHandler(envoiMails, etudiantRepository);
+        when(etudiantRepository.findByCinIn(anyCollection())).thenReturn(List.of(
+                Etudiant.builder().cin(111L).prenomEt("Jean").nomEt("Dupont").email("jean@esprit.tn").build(),
+                Etudiant.builder().cin(222L).prenomEt("Sans").nomEt("Adresse").build(),
+                Etudiant.builder().cin(333L).prenomEt("Amel").nomEt("Ben Ali").email("amel@esprit.tn").build()));
+    }
+
+    private static EvenementOutbox evenement(EvenementOutbox.Type type, String idReservation, Long cin) {
+        return EvenementOutbox.of(type, idReservation, cin, 1L, 2025);
+    }
+
+    @Test
+    void testUnMailParEtudiantAvecAdresse() {
+        when(envoiMails.envoyer(anyList())).thenReturn(List.of());
+        EvenementOutbox creee = evenement(EvenementOutbox.Type.RESERVATION_CREEE, "RES-1", 111L);
+
+        Map<EvenementOutbox, RuntimeException> echecs = handler.traiterLot(List.of(
+                creee,
+                evenement(EvenementOutbox.Type.RESERVATION_CREEE, "RES-2", 222L),
+                evenement(EvenementOutbox.Type.RESERVATION_INVALIDEE, "RES-3", 333L),
+                evenement(EvenementOutbox.Type.RESERVATION_ANNULEE, "RES-4", null)));
+
+        assertTrue(echecs.isEmpty());
+        verify(etudiantRepository, times(1)).findByCinIn(anyCollection());
+        verify(envoiMails).envoyer(argThat((List<Mail> mails) -> mails.size() == 2
+                && mails.get(0).destinataire().equals("jean@esprit.tn")
+                && mails.get(0).sujet().contains("RES-1")
+                && mails.get(0).corps().contains("Bonjour Jean Dupont")
+                && mails.get(0).corps().contains("2025/2026")
+                && mails.get(1).destinataire().equals("amel@esprit.tn")
+                && mails.get(1).corps().contains("n'est plus valide")));
+    }
+
+    @Test
+    void testMailRefuseLaisseLEvenementEnEchec() {
+        EvenementOutbox jean = evenement(EvenementOutbox.Type.RESERVATION_CREEE, "RES-1", 111L);
+        EvenementOutbox amel = evenement(EvenementOutbox.Type.RESERVATION_ANNULEE, "RES-3", 333L);
+        when(envoiMails.envoyer(anyList())).thenAnswer(invocation -> {
+            List<Mail> mails = invocation.getArgument(0);
+            return mails.stream().filter(m -> m.destinataire().startsWith("amel")).toList();
+        });
+
+        Map<EvenementOutbox, RuntimeException> echecs = handler.traiterLot(List.of(jean, amel));
+
+        assertEquals(1, echecs.size());
+        assertTrue(echecs.containsKey(amel));
+        assertThrows(IllegalStateException.class, () -> handler.traiter(amel));
+    }
+}
@@ -0,0 +1,74 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Chambre.MatriceChambres;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MatriceChambresTest {
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    private MatriceChambres matrice;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        matrice = new MatriceChambres(chambreRepository);
+        when(chambreRepository.countChambresParBlocEtType()).thenReturn(List.of(
+                new Object[]{1L, TypeChambre.SIMPLE, 3L},
+                new Object[]{1L, TypeChambre.TRIPLE, 1L},
+                new Object[]{2L, TypeChambre.DOUBLE, 2L}));
+    }
+
+    @Test
+    void testMatriceComplete() {
+        Map<Long, Map<TypeChambre, Long>> parBloc = matrice.matrice();
+
+        assertEquals(Map.of(TypeChambre.SIMPLE, 3L, TypeChambre.DOUBLE, 0L, TypeChambre.TRIPLE, 1L), parBloc.get(1L));
+        assertEquals(Map.of(TypeChambre.SIMPLE, 0L, TypeChambre.DOUBLE, 2L, TypeChambre.TRIPLE, 0L), parBloc.get(2L));
+        assertEquals(3L, matrice.nombre(1L, TypeChambre.SIMPLE));
+        assertEquals(0L, matrice.nombre(2L, TypeChambre.TRIPLE));
+        // Bloc sans chambre
+        assertEquals(0L, matrice.nombre(9L, TypeChambre.SIMPLE));
+    }
+
+    @Test
+    void testUneSeuleRequeteJusquaInvalidation() {
+        matrice.matrice();
+        matrice.nombre(1L, TypeChambre.SIMPLE);
+        matrice.nombre(2L, TypeChambre.DOUBLE);
+        verify(chambreRepository, times(1)).countChambresParBlocEtType();
+
+        when(chambreRepository.countChambresParBlocEtType()).thenReturn(List.<Object[]>of(new Object[]{1L, TypeChambre.SIMPLE, 4L}));
+        matrice.invalider();
+
+        assertEquals(4L, matrice.nombre(1L, TypeChambre.SIMPLE));
+        assertNull(matrice.matrice().get(2L));
+        verify(chambreRepository, times(2)).countChambresParBlocEtType();
+    }
+
+    @Test
+    void testLectureConcurrenteDUneInvalidationNonGardee() {
+        // Une chambre est enregistrée (et la matrice invalidée) pendant la lecture en base
+        when(chambreRepository.countChambresParBlocEtType()).thenAnswer(invocation -> {
+            matrice.invalider();
+            return List.<Object[]>of(new Object[]{1L, TypeChambre.SIMPLE, 3L});
+        }).thenReturn(List.<Object[]>of(new Object[]{1L, TypeChambre.SIMPLE, 4L}));
+
+        assertEquals(3L, matrice.nombre(1L, TypeChambre.SIMPLE));
+        assertEquals(4L, matrice.nombre(1L, TypeChambre.SIMPLE));
+        assertEquals(4L, matrice.nombre(1L, TypeChambre.SIMPLE));
+        verify(chambreRepository, times(2)).countChambresParBlocEtType();
+    }
+}
@@ -0,0 +1,31 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.Services.Mail.Mail;
+import tn.esprit.spring.Services.Mail.ModeleMail;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModeleMailTest {
+
+    @Test
+    void testRendu() {
+        ModeleMail modele = ModeleMail.compiler("Réservation {id}\nBonjour {prenom},\n{id} pour {annee}/{suivante}.\n");
+
+        Mail mail = modele.rendre("jean@esprit.tn", Map.of("id", "RES-1", "prenom", "Jean", "annee", 2025, "suivante", 2026));
+
+        assertEquals("jean@esprit.tn", mail.destinataire());
+        assertEquals("Réservation RES-1", mail.sujet());
+        assertEquals("Bonjour Jean,\nRES-1 pour 2025/2026.\n", mail.corps());
+        // Variable sans valeur: rendue vide
+        assertEquals("Bonjour ,\n pour /.\n", modele.rendre("x@esprit.tn", Map.of()).corps());
+    }
+
+    @Test
+    void testModeleInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> ModeleMail.compiler("Sujet sans corps"));
+        assertThrows(IllegalArgumentException.class, () -> ModeleMail.compiler("Sujet\nBonjour {prenom"));
+    }
+}
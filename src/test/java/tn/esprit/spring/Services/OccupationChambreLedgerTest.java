@@ -0,0 +1,104 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+import tn.esprit.spring.Services.Reservation.OccupationChambreLedger;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OccupationChambreLedgerTest {
+
+    private static final LocalDate DEBUT_AU = LocalDate.of(2025, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2026, 6, 30);
+
+    @Mock
+    private OccupationChambreRepository occupationRepository;
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    @InjectMocks
+    private OccupationChambreLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testOccuperPlaceLigneExistante() {
+        when(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).thenReturn(true);
+        when(occupationRepository.occuperPlaces(1L, 2025, 1)).thenReturn(1);
+
+        assertTrue(ledger.occuperPlace(1L, TypeChambre.DOUBLE, DEBUT_AU, FIN_AU));
+        verify(occupationRepository, never()).creerSiAbsente(anyLong(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testOccuperPlaceChambreRemplie() {
+        when(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).thenReturn(true);
+        when(occupationRepository.occuperPlaces(1L, 2025, 1)).thenReturn(0);
+
+        assertFalse(ledger.occuperPlace(1L, TypeChambre.DOUBLE, DEBUT_AU, FIN_AU));
+        verify(occupationRepository, never()).creerSiAbsente(anyLong(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testOccuperPlaceCreeLaLigneAvantLaMiseAJour() {
+        when(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).thenReturn(false);
+        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(1L, DEBUT_AU, FIN_AU))
+                .thenReturn(1);
+        when(occupationRepository.occuperPlaces(1L, 2025, 1)).thenReturn(1);
+
+        assertTrue(ledger.occuperPlace(1L, TypeChambre.TRIPLE, DEBUT_AU, FIN_AU));
+        // Pas d'UPDATE sur une ligne absente: l'upsert passe avant
+        InOrder ordre = inOrder(occupationRepository);
+        ordre.verify(occupationRepository).creerSiAbsente(1L, 2025, 1, 3);
+        ordre.verify(occupationRepository).occuperPlaces(1L, 2025, 1);
+    }
+
+    @Test
+    void testOccuperPlaceLigneCreeeEnParallele() {
+        // La ligne a été créée par une autre réservation entre la lecture et l'upsert:
+        // l'upsert est sans effet et l'UPDATE conditionnel décide
+        when(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).thenReturn(false);
+        when(occupationRepository.creerSiAbsente(1L, 2025, 0, 1)).thenReturn(0);
+        when(occupationRepository.occuperPlaces(1L, 2025, 1)).thenReturn(0);
+
+        assertFalse(ledger.occuperPlace(1L, TypeChambre.SIMPLE, DEBUT_AU, FIN_AU));
+        verify(occupationRepository, times(1)).occuperPlaces(1L, 2025, 1);
+    }
+
+    @Test
+    void testAjouterPlaceCreeLaLigne() {
+        when(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).thenReturn(false);
+        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(1L, DEBUT_AU, FIN_AU))
+                .thenReturn(2);
+
+        ledger.ajouterPlace(1L, TypeChambre.DOUBLE, DEBUT_AU, FIN_AU);
+        InOrder ordre = inOrder(occupationRepository);
+        ordre.verify(occupationRepository).creerSiAbsente(1L, 2025, 2, 2);
+        ordre.verify(occupationRepository).ajouterPlace(1L, 2025);
+    }
+
+    @Test
+    void testOccuperPlacesPrendCeQuiReste() {
+        // Trois lits demandés dans une DOUBLE qui n'en a plus qu'un
+        when(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).thenReturn(true);
+        when(occupationRepository.occuperPlaces(1L, 2025, 2)).thenReturn(0);
+        when(occupationRepository.occuperPlaces(1L, 2025, 1)).thenReturn(1);
+
+        assertEquals(1, ledger.occuperPlaces(1L, TypeChambre.DOUBLE, 3, DEBUT_AU, FIN_AU));
+        verify(occupationRepository, never()).occuperPlaces(1L, 2025, 3);
+    }
+}
@@ -0,0 +1,168 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Reservation.OccupationChambreRegistry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OccupationChambreRegistryTest {
+
+    private static final LocalDate DEBUT_AU = LocalDate.of(2025, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2026, 6, 30);
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    @InjectMocks
+    private OccupationChambreRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static List<Object[]> lignes(Object[]... lignes) {
+        List<Object[]> result = new ArrayList<>();
+        Collections.addAll(result, lignes);
+        return result;
+    }
+
+    @Test
+    void testReserverPlaceRespecteLaCapacite() {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU))
+                .thenReturn(lignes(new Object[]{1L, 1L}));
+
+        assertTrue(registry.reserverPlace(1L, 2, DEBUT_AU, FIN_AU));
+        assertFalse(registry.reserverPlace(1L, 2, DEBUT_AU, FIN_AU));
+        assertEquals(2, registry.occupation(1L, DEBUT_AU, FIN_AU));
+        // Chargement unique pour l'année
+        verify(chambreRepository, times(1)).countReservationsParChambre(DEBUT_AU, FIN_AU);
+    }
+
+    @Test
+    void testReserverPlacesDansLaLimiteDeLaCapacite() {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU))
+                .thenReturn(lignes(new Object[]{1L, 1L}));
+
+        assertEquals(2, registry.reserverPlaces(1L, 3, 5, DEBUT_AU, FIN_AU));
+        assertEquals(0, registry.reserverPlaces(1L, 3, 1, DEBUT_AU, FIN_AU));
+
+        registry.libererPlaces(1L, 2, DEBUT_AU, FIN_AU);
+        assertEquals(1, registry.occupation(1L, DEBUT_AU, FIN_AU));
+    }
+
+    @Test
+    void testLibererPlace() {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU)).thenReturn(lignes());
+
+        assertTrue(registry.reserverPlace(2L, 1, DEBUT_AU, FIN_AU));
+        registry.libererPlace(2L, DEBUT_AU, FIN_AU);
+        registry.libererPlace(2L, DEBUT_AU, FIN_AU);
+
+        assertEquals(0, registry.occupation(2L, DEBUT_AU, FIN_AU));
+        assertTrue(registry.reserverPlace(2L, 1, DEBUT_AU, FIN_AU));
+    }
+
+    @Test
+    void testReserverPlaceConcurrent() throws InterruptedException {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU)).thenReturn(lignes());
+        int threads = 16;
+        AtomicInteger acceptees = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                depart.await();
+                if (registry.reserverPlace(3L, 3, DEBUT_AU, FIN_AU)) {
+                    acceptees.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        depart.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(3, acceptees.get());
+        assertEquals(3, registry.occupation(3L, DEBUT_AU, FIN_AU));
+    }
+
+    @Test
+    void testReconcilierCorrigeLesDerives() {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU))
+                .thenReturn(lignes(new Object[]{1L, 1L}))
+                .thenReturn(lignes(new Object[]{4L, 2L}));
+
+        registry.reserverPlace(1L, 3, DEBUT_AU, FIN_AU);
+        assertEquals(2, registry.occupation(1L, DEBUT_AU, FIN_AU));
+
+        int corrigees = registry.reconcilier(DEBUT_AU, FIN_AU);
+
+        assertEquals(1, corrigees);
+        assertEquals(0, registry.occupation(1L, DEBUT_AU, FIN_AU));
+        assertEquals(2, registry.occupation(4L, DEBUT_AU, FIN_AU));
+    }
+
+    @Test
+    void testReconcilierNeRetirePasUneReservationNonValidee() {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU)).thenReturn(lignes());
+        registry.occupation(1L, DEBUT_AU, FIN_AU);
+
+        // Réservation en cours: le lit est pris en mémoire, la transaction n'est pas encore validée
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(registry.reserverPlace(1L, 1, DEBUT_AU, FIN_AU));
+
+            assertEquals(0, registry.reconcilier(DEBUT_AU, FIN_AU));
+            assertEquals(1, registry.occupation(1L, DEBUT_AU, FIN_AU));
+            // Le lit n'est pas proposé à une autre réservation
+            assertFalse(registry.reserverPlace(1L, 1, DEBUT_AU, FIN_AU));
+
+            // Commit: la réservation est en base
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU)).thenReturn(lignes(new Object[]{1L, 1L}));
+
+        assertEquals(0, registry.reconcilier(DEBUT_AU, FIN_AU));
+        assertEquals(1, registry.occupation(1L, DEBUT_AU, FIN_AU));
+    }
+
+    @Test
+    void testReconcilierIgnoreUnCompteurModifiePendantLaLecture() {
+        when(chambreRepository.countReservationsParChambre(DEBUT_AU, FIN_AU))
+                .thenReturn(lignes())
+                .thenAnswer(invocation -> {
+                    // Réservation validée après le début de la lecture: absente du résultat
+                    registry.ajouterPlace(1L, DEBUT_AU, FIN_AU);
+                    return lignes();
+                })
+                .thenReturn(lignes(new Object[]{1L, 1L}));
+        registry.occupation(1L, DEBUT_AU, FIN_AU);
+
+        assertEquals(0, registry.reconcilier(DEBUT_AU, FIN_AU));
+        assertEquals(1, registry.occupation(1L, DEBUT_AU, FIN_AU));
+        assertEquals(0, registry.reconcilier(DEBUT_AU, FIN_AU));
+        assertEquals(1, registry.occupation(1L, DEBUT_AU, FIN_AU));
+    }
+}
@@ -0,0 +1,135 @@
+package tn.esprit.spring.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+import tn.esprit.spring.Services.Outbox.OutboxHandler;
+import tn.esprit.spring.Services.Outbox.OutboxRelay;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Le relais n'a pas de transaction englobante: chaque requête voit l'état validé, comme en production
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    @Autowired
+    private EvenementOutboxRepository outboxRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReservationProperties properties = new ReservationProperties();
+    private final List<String> recus = new ArrayList<>();
+    // Réservations dont le traitement échoue
+    private final Set<String> enEchec = ConcurrentHashMap.newKeySet();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        // Pas de passe planifiée pendant le test: les passes sont lancées à la main
+        properties.getOutbox().setIntervalle(Duration.ofHours(1));
+        properties.getOutbox().setTailleLot(2);
+        properties.getOutbox().setMaxTentatives(2);
+        properties.getOutbox().setDelaiEssai(Duration.ofHours(1));
+        OutboxHandler handler = evenement -> {
+            if (enEchec.contains(evenement.getIdReservation())) {
+                throw new IllegalStateException("SMTP indisponible");
+            }
+            recus.add(evenement.getIdReservation());
+        };
+        relay = new OutboxRelay(outboxRepository, List.of(handler), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.arreter();
+        outboxRepository.deleteAll();
+    }
+
+    private void ecrire(String... idsReservation) {
+        for (String idReservation : idsReservation) {
+            outboxRepository.save(EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_CREEE, idReservation, 111L, 1L, 2025));
+        }
+    }
+
+    @Test
+    @DisplayName("Should dispatch every pending event in write order, batch after batch, then mark it processed")
+    void relayer() {
+        ecrire("RES-1", "RES-2", "RES-3", "RES-4", "RES-5");
+
+        assertThat(relay.relayer()).isEqualTo(5);
+
+        assertThat(recus).containsExactly("RES-1", "RES-2", "RES-3", "RES-4", "RES-5");
+        assertThat(outboxRepository.countByDateTraitementIsNull()).isZero();
+        assertThat(outboxRepository.findAll()).allMatch(e -> e.getDateTraitement() != null);
+        assertThat(relay.relayer()).isZero();
+        assertThat(recus).hasSize(5);
+        assertThat(meterRegistry.get("reservation.outbox.traites").counter().count()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("reservation.outbox.retard").timer().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("reservation.outbox.en_attente").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry a failed event later and give up after the maximum number of attempts")
+    void echecs() {
+        ecrire("RES-1", "RES-2", "RES-3");
+        enEchec.add("RES-2");
+
+        // L'événement en échec est reporté: il n'est pas relu dans la même passe
+        assertThat(relay.relayer()).isEqualTo(3);
+        assertThat(recus).containsExactly("RES-1", "RES-3");
+        assertThat(outboxRepository.findATraiter(LocalDateTime.now(), PageRequest.of(0, 10))).isEmpty();
+        EvenementOutbox echec = outboxRepository.findATraiter(LocalDateTime.now().plusHours(2),
+                PageRequest.of(0, 10)).get(0);
+        assertThat(echec.getIdReservation()).isEqualTo("RES-2");
+        assertThat(echec.getTentatives()).isEqualTo(1);
+        assertThat(echec.getDerniereErreur()).contains("SMTP indisponible");
+        assertThat(echec.getProchainEssai()).isAfter(LocalDateTime.now().plusMinutes(50));
+        assertThat(meterRegistry.get("reservation.outbox.en_attente").gauge().value()).isEqualTo(1.0);
+
+        // Délai écoulé, deuxième échec: abandonné, gardé en base avec son erreur
+        echec.setProchainEssai(LocalDateTime.now());
+        outboxRepository.save(echec);
+        relay.relayer();
+        assertThat(outboxRepository.countByDateTraitementIsNull()).isZero();
+        assertThat(meterRegistry.get("reservation.outbox.abandonnes").counter().count()).isEqualTo(1.0);
+        assertThat(outboxRepository.findById(echec.getId()).get().getTentatives()).isEqualTo(2);
+        assertThat(recus).containsExactly("RES-1", "RES-3");
+    }
+
+    @Test
+    @DisplayName("Should redeliver an event the relay could not mark as processed")
+    void livraisonAuMoinsUneFois() {
+        ecrire("RES-1");
+        // Traité mais non marqué (arrêt de l'instance avant la mise à jour): la passe suivante le rejoue
+        relay.relayer();
+        outboxRepository.findAll().forEach(e -> {
+            e.setDateTraitement(null);
+            outboxRepository.save(e);
+        });
+
+        relay.relayer();
+
+        assertThat(recus).containsExactly("RES-1", "RES-1");
+    }
+}
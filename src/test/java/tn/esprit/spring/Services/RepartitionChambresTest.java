@@ -0,0 +1,88 @@
+package tn.esprit.spring.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Chambre.RepartitionChambres;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RepartitionChambresTest {
+
+    @Mock
+    private ChambreRepository chambreRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RepartitionChambres repartition;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        repartition = new RepartitionChambres(chambreRepository, meterRegistry);
+    }
+
+    private double jauge(String nom, String... tags) {
+        return meterRegistry.get(nom).tags(tags).gauge().value();
+    }
+
+    @Test
+    void testSansChambre() {
+        when(chambreRepository.countChambresParFoyerEtType()).thenReturn(List.of());
+
+        RepartitionChambres.Repartition r = repartition.rafraichir();
+
+        assertEquals(0, r.total());
+        // Pas de division par zéro
+        assertEquals(0.0, r.pourcentage(TypeChambre.SIMPLE));
+        assertEquals(0.0, jauge("chambre.repartition.pourcentage", "type", "DOUBLE"));
+        assertEquals(0.0, jauge("chambre.repartition.chambres", "type", "TRIPLE"));
+    }
+
+    @Test
+    void testJaugesDepuisUneRequete() {
+        when(chambreRepository.countChambresParFoyerEtType()).thenReturn(List.of(
+                new Object[]{"Foyer A", TypeChambre.SIMPLE, 30L},
+                new Object[]{"Foyer A", TypeChambre.DOUBLE, 20L},
+                new Object[]{"Foyer B", TypeChambre.SIMPLE, 10L},
+                // Chambres sans foyer: comptées dans le total et par type seulement
+                new Object[]{null, TypeChambre.TRIPLE, 40L}));
+
+        RepartitionChambres.Repartition r = repartition.rafraichir();
+
+        assertEquals(100, r.total());
+        assertEquals(Map.of(TypeChambre.SIMPLE, 30L, TypeChambre.DOUBLE, 20L), r.parFoyer().get("Foyer A"));
+        assertEquals(40.0, jauge("chambre.repartition.chambres", "type", "SIMPLE"));
+        assertEquals(40.0, jauge("chambre.repartition.pourcentage", "type", "TRIPLE"));
+        assertEquals(20.0, jauge("chambre.repartition.pourcentage", "type", "DOUBLE"));
+        assertEquals(30.0, jauge("chambre.repartition.foyer", "foyer", "Foyer A", "type", "SIMPLE"));
+        assertEquals(10.0, jauge("chambre.repartition.foyer", "foyer", "Foyer B", "type", "SIMPLE"));
+
+        // Les jauges lisent la photo: aucune requête entre deux rafraîchissements
+        jauge("chambre.repartition.chambres", "type", "SIMPLE");
+        verify(chambreRepository, times(1)).countChambresParFoyerEtType();
+    }
+
+    @Test
+    void testFoyerDisparuRetire() {
+        when(chambreRepository.countChambresParFoyerEtType()).thenReturn(List.<Object[]>of(
+                new Object[]{"Foyer A", TypeChambre.SIMPLE, 3L},
+                new Object[]{"Foyer B", TypeChambre.DOUBLE, 2L}));
+        repartition.rafraichir();
+        when(chambreRepository.countChambresParFoyerEtType()).thenReturn(List.<Object[]>of(
+                new Object[]{"Foyer A", TypeChambre.SIMPLE, 4L}));
+
+        repartition.rafraichir();
+
+        assertEquals(4.0, jauge("chambre.repartition.foyer", "foyer", "Foyer A", "type", "SIMPLE"));
+        assertNull(meterRegistry.find("chambre.repartition.foyer").tags("foyer", "Foyer B").gauge());
+        assertEquals(100.0, jauge("chambre.repartition.pourcentage", "type", "SIMPLE"));
+    }
+}
@@ -0,0 +1,159 @@
+package tn.esprit.spring.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.ResultatReservation;
+import tn.esprit.spring.DTO.StatutReservation;
+import tn.esprit.spring.DTO.StatutTicket;
+import tn.esprit.spring.DTO.TicketReservation;
+import tn.esprit.spring.Services.Reservation.IReservationService;
+import tn.esprit.spring.Services.Reservation.ReservationFileAttente;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class ReservationFileAttenteTest {
+
+    @Mock
+    private IReservationService reservationService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReservationProperties properties = new ReservationProperties();
+    private ReservationFileAttente fileAttente;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties.getAsync().setWorkers(2);
+        properties.getAsync().setCapacite(4);
+        properties.getAsync().setTailleLot(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (fileAttente != null) {
+            fileAttente.arreter();
+        }
+    }
+
+    private static List<ResultatReservation> acceptees(List<DemandeReservation> demandes) {
+        List<ResultatReservation> resultats = new ArrayList<>();
+        for (DemandeReservation d : demandes) {
+            resultats.add(ResultatReservation.builder().numChambre(d.getNumChambre()).cin(d.getCin())
+                    .statut(StatutReservation.ACCEPTEE).idReservation("R-" + d.getCin()).build());
+        }
+        return resultats;
+    }
+
+    private TicketReservation attendre(String idTicket) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            TicketReservation ticket = fileAttente.ticket(idTicket);
+            if (ticket.getStatut() != StatutTicket.EN_ATTENTE) {
+                return ticket;
+            }
+            Thread.sleep(10);
+        }
+        fail("Ticket " + idTicket + " non traité");
+        return null;
+    }
+
+    @Test
+    void testDemandeTraiteeEtTicketMisAJour() throws InterruptedException {
+        when(reservationService.ajouterReservations(any())).thenAnswer(i -> acceptees(i.getArgument(0)));
+        fileAttente = new ReservationFileAttente(reservationService, properties, meterRegistry);
+
+        TicketReservation ticket = fileAttente.soumettre(101L, 111L);
+        assertEquals(StatutTicket.EN_ATTENTE, ticket.getStatut());
+
+        TicketReservation traite = attendre(ticket.getIdTicket());
+        assertEquals(StatutTicket.TRAITE, traite.getStatut());
+        assertEquals(StatutReservation.ACCEPTEE, traite.getResultat().getStatut());
+        assertNotNull(traite.getDateTraitement());
+        assertEquals(1, meterRegistry.get("reservation.async.queue.wait").timer().count());
+    }
+
+    @Test
+    void testDemandesRegroupeesEnLotParWorker() throws InterruptedException {
+        // Le premier lot bloque le worker de la chambre 101 pendant que les demandes suivantes s'accumulent
+        CountDownLatch bloque = new CountDownLatch(1);
+        when(reservationService.ajouterReservations(any())).thenAnswer(i -> {
+            bloque.await(5, TimeUnit.SECONDS);
+            return acceptees(i.getArgument(0));
+        });
+        fileAttente = new ReservationFileAttente(reservationService, properties, meterRegistry);
+
+        TicketReservation premier = fileAttente.soumettre(101L, 1L);
+        while (fileAttente.enAttente() > 0) {
+            Thread.sleep(5);
+        }
+        TicketReservation second = fileAttente.soumettre(101L, 2L);
+        TicketReservation troisieme = fileAttente.soumettre(101L, 3L);
+        bloque.countDown();
+
+        attendre(premier.getIdTicket());
+        assertEquals(StatutTicket.TRAITE, attendre(second.getIdTicket()).getStatut());
+        assertEquals(StatutTicket.TRAITE, attendre(troisieme.getIdTicket()).getStatut());
+        verify(reservationService).ajouterReservations(argThat(l -> l.size() == 2));
+    }
+
+    @Test
+    void testFilePleineRefuseLaDemande() {
+        CountDownLatch bloque = new CountDownLatch(1);
+        when(reservationService.ajouterReservations(any())).thenAnswer(i -> {
+            bloque.await(5, TimeUnit.SECONDS);
+            return acceptees(i.getArgument(0));
+        });
+        properties.getAsync().setWorkers(1);
+        properties.getAsync().setCapacite(1);
+        fileAttente = new ReservationFileAttente(reservationService, properties, meterRegistry);
+
+        // Une demande en cours de traitement, une en file: la troisième est refusée
+        boolean refusee = false;
+        for (int i = 0; i < 3 && !refusee; i++) {
+            refusee = fileAttente.soumettre(101L, i) == null;
+        }
+        bloque.countDown();
+
+        assertTrue(refusee);
+        assertEquals(1.0, meterRegistry.get("reservation.async.rejected").counter().count());
+    }
+
+    @Test
+    void testEchecDuLotTraiteLesDemandesUneParUne() throws InterruptedException {
+        CountDownLatch bloque = new CountDownLatch(1);
+        when(reservationService.ajouterReservations(any())).thenAnswer(i -> {
+            List<DemandeReservation> demandes = i.getArgument(0);
+            bloque.await(5, TimeUnit.SECONDS);
+            if (demandes.stream().anyMatch(d -> d.getCin() == 2L)) {
+                throw new RuntimeException("DB error");
+            }
+            return acceptees(demandes);
+        });
+        fileAttente = new ReservationFileAttente(reservationService, properties, meterRegistry);
+
+        TicketReservation bloquant = fileAttente.soumettre(101L, 1L);
+        while (fileAttente.enAttente() > 0) {
+            Thread.sleep(5);
+        }
+        TicketReservation enErreur = fileAttente.soumettre(101L, 2L);
+        TicketReservation valide = fileAttente.soumettre(101L, 3L);
+        bloque.countDown();
+
+        assertEquals(StatutTicket.TRAITE, attendre(bloquant.getIdTicket()).getStatut());
+        assertEquals(StatutTicket.ECHEC, attendre(enErreur.getIdTicket()).getStatut());
+        assertEquals(StatutTicket.TRAITE, attendre(valide.getIdTicket()).getStatut());
+    }
+}
@@ -0,0 +1,170 @@
+package tn.esprit.spring.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.CleIdempotence;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Repositories.CleIdempotenceRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.Services.Reservation.IReservationService;
+import tn.esprit.spring.Services.Reservation.ReservationIdempotence;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReservationIdempotenceTest {
+
+    @Mock
+    private IReservationService reservationService;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private CleIdempotenceRepository cleRepository;
+
+    private final ReservationProperties properties = new ReservationProperties();
+
+    private ReservationIdempotence idempotence;
+
+    private final Reservation reservation = Reservation.builder().idReservation("2025/2026-A-101-111").build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotence = new ReservationIdempotence(reservationService, reservationRepository, cleRepository, properties);
+    }
+
+    @Test
+    void testDemandeRejoueeRenvoieLaReponseDOrigine() {
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L)).thenReturn(reservation);
+
+        Reservation premiere = idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L);
+        Reservation rejouee = idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L);
+
+        assertSame(premiere, rejouee);
+        verify(reservationService, times(1)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L);
+        verifyNoInteractions(cleRepository);
+    }
+
+    @Test
+    void testChambreRemplieEstAussiMemorisee() {
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L)).thenReturn(null);
+
+        assertNull(idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        assertNull(idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        verify(reservationService, times(1)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L);
+    }
+
+    @Test
+    void testCleReutiliseePourUneAutreDemande() {
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L)).thenReturn(reservation);
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 102L, 111L));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+    }
+
+    @Test
+    void testEchecNonMemorise() {
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L))
+                .thenThrow(new RuntimeException("timeout"))
+                .thenReturn(reservation);
+
+        assertThrows(RuntimeException.class,
+                () -> idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        assertSame(reservation, idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+    }
+
+    @Test
+    void testDemandesSimultaneesExecuteesUneSeuleFois() throws Exception {
+        CountDownLatch enCours = new CountDownLatch(1);
+        CountDownLatch termine = new CountDownLatch(1);
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L)).thenAnswer(i -> {
+            enCours.countDown();
+            termine.await(5, TimeUnit.SECONDS);
+            return reservation;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Reservation> premiere = executor.submit(
+                () -> idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        assertTrue(enCours.await(5, TimeUnit.SECONDS));
+        Future<Reservation> seconde = executor.submit(
+                () -> idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        termine.countDown();
+
+        assertSame(premiere.get(5, TimeUnit.SECONDS), seconde.get(5, TimeUnit.SECONDS));
+        verify(reservationService, times(1)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L);
+        executor.shutdown();
+    }
+
+    @Test
+    void testClesEvinceesParCapaciteEtExpiration() {
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(anyLong(), anyLong())).thenReturn(reservation);
+        properties.getIdempotence().setCapacite(2);
+
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("c1", 101L, 1L);
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("c2", 101L, 2L);
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("c3", 101L, 3L);
+        // c1 évincée: la demande est exécutée à nouveau
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("c1", 101L, 1L);
+        verify(reservationService, times(2)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 1L);
+
+        properties.getIdempotence().setTtl(Duration.ZERO);
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("c4", 101L, 4L);
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("c4", 101L, 4L);
+        verify(reservationService, times(2)).ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 4L);
+    }
+
+    @Test
+    void testCleEnBaseTraiteeParUneAutreInstance() {
+        properties.getIdempotence().setPersistante(true);
+        when(cleRepository.saveAndFlush(any(CleIdempotence.class)))
+                .thenThrow(new DataIntegrityViolationException("pk"));
+        when(cleRepository.findById("cle")).thenReturn(Optional.of(CleIdempotence.builder()
+                .cle("cle").empreinte("101:111").idReservation(reservation.getIdReservation()).terminee(true).build()));
+        when(reservationRepository.findByIdReservation(reservation.getIdReservation())).thenReturn(Optional.of(reservation));
+
+        assertSame(reservation, idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void testCleEnBaseEnCoursDeTraitement() {
+        properties.getIdempotence().setPersistante(true);
+        when(cleRepository.saveAndFlush(any(CleIdempotence.class)))
+                .thenThrow(new DataIntegrityViolationException("pk"));
+        when(cleRepository.findById("cle")).thenReturn(Optional.of(CleIdempotence.builder()
+                .cle("cle").empreinte("101:111").terminee(false).build()));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+
+    @Test
+    void testCleEnBaseEnregistreeApresTraitement() {
+        properties.getIdempotence().setPersistante(true);
+        when(reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(101L, 111L)).thenReturn(reservation);
+
+        idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle", 101L, 111L);
+
+        verify(cleRepository).saveAndFlush(argThat(c -> !c.isTerminee() && c.getEmpreinte().equals("101:111")));
+        verify(cleRepository).terminer("cle", reservation.getIdReservation());
+    }
+}
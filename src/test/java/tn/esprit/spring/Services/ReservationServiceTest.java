@@ -1,24 +1,52 @@
 package tn.esprit.spring.Services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.Config.ReservationProperties;
 import tn.esprit.spring.DAO.Entities.Bloc;
 import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
 import tn.esprit.spring.DAO.Entities.Reservation;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
 import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationPartitionRepository;
 import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.MaReservation;
+import tn.esprit.spring.DTO.ResultatReservation;
+import tn.esprit.spring.DTO.StatutReservation;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Reservation.CacheReservationActive;
+import tn.esprit.spring.Services.Reservation.IndexReservationsJours;
+import tn.esprit.spring.Services.Reservation.OccupationChambreLedger;
+import tn.esprit.spring.Services.Reservation.OccupationChambreRegistry;
+import tn.esprit.spring.Services.Reservation.ReservationActiveEvent;
+import tn.esprit.spring.Services.Reservation.ReservationEvent;
+import tn.esprit.spring.Services.Reservation.ReservationJourEvent;
 import tn.esprit.spring.Services.Reservation.ReservationService;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +54,10 @@ import static org.mockito.Mockito.*;
 
 public class ReservationServiceTest {
 
+    // Horloge fixée en octobre 2025: année universitaire 2025/2026
+    private static final LocalDate DEBUT_AU = LocalDate.of(2025, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2026, 6, 30);
+
     @Mock
     private ReservationRepository reservationRepository;
 
@@ -35,6 +67,43 @@ public class ReservationServiceTest {
     @Mock
     private EtudiantRepository etudiantRepository;
 
+    @Mock
+    private OccupationChambreRegistry occupationRegistry;
+
+    @Mock
+    private OccupationChambreLedger occupationLedger;
+
+    @Mock
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Mock
+    private ReservationPartitionRepository partitionRepository;
+
+    @Mock
+    private EvenementOutboxRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @Spy
+    private ReservationProperties properties = new ReservationProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private IndexReservationsJours indexJours;
+
+    @Mock
+    private CacheReservationActive cacheActive;
+
+    @Spy
+    private AcademicCalendar calendrier = new AcademicCalendar(
+            Clock.fixed(Instant.parse("2025-10-01T10:00:00Z"), ZoneOffset.UTC));
+
     @InjectMocks
     private ReservationService reservationService;
 
@@ -58,6 +127,7 @@ public class ReservationServiceTest {
         assertEquals("RES001", result.getIdReservation());
         assertTrue(result.isEstValide());
         verify(reservationRepository, times(1)).save(reservation);
+        verify(cacheActive).vider();
     }
 
     @Test
@@ -89,24 +159,24 @@ public class ReservationServiceTest {
         reservation.setEstValide(true);
         reservation.setAnneeUniversitaire(LocalDate.now());
 
-        when(reservationRepository.findById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(reservationId)).thenReturn(Optional.of(reservation));
 
         Reservation result = reservationService.findById(reservationId);
 
         assertNotNull(result);
         assertEquals(reservationId, result.getIdReservation());
         assertTrue(result.isEstValide());
-        verify(reservationRepository, times(1)).findById(reservationId);
+        verify(reservationRepository, times(1)).findByIdReservation(reservationId);
     }
 
     @Test
     void testDeleteById() {
         String reservationId = "RES001";
-        doNothing().when(reservationRepository).deleteById(reservationId);
+        doNothing().when(reservationRepository).deleteByIdReservation(reservationId);
 
         reservationService.deleteById(reservationId);
 
-        verify(reservationRepository, times(1)).deleteById(reservationId);
+        verify(reservationRepository, times(1)).deleteByIdReservation(reservationId);
     }
 
     @Test
@@ -122,22 +192,6 @@ public class ReservationServiceTest {
         verify(reservationRepository, times(1)).delete(reservation);
     }
 
-    @Test
-    void testGetDateDebutAU() {
-        LocalDate result = reservationService.getDateDebutAU();
-        assertNotNull(result);
-        // The method should return a date in September
-        assertEquals(9, result.getMonthValue());
-    }
-
-    @Test
-    void testGetDateFinAU() {
-        LocalDate result = reservationService.getDateFinAU();
-        assertNotNull(result);
-        // The method should return a date in June
-        assertEquals(6, result.getMonthValue());
-    }
-
     @Test
     void testAjouterReservationEtAssignerAChambreEtAEtudiant_Success() {
         Long numChambre = 101L;
@@ -161,18 +215,26 @@ public class ReservationServiceTest {
 
         when(chambreRepository.findByNumeroChambre(numChambre)).thenReturn(chambre);
         when(etudiantRepository.findByCin(cin)).thenReturn(etudiant);
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(0);
+        when(occupationRegistry.reserverPlace(
+                anyLong(), anyInt(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(occupationLedger.occuperPlace(
+                anyLong(), any(TypeChambre.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
         when(reservationRepository.save(any(Reservation.class))).thenReturn(new Reservation());
-        when(chambreRepository.save(any(Chambre.class))).thenReturn(chambre);
 
         Reservation result = reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
 
         assertNotNull(result);
         verify(chambreRepository, times(1)).findByNumeroChambre(numChambre);
         verify(etudiantRepository, times(1)).findByCin(cin);
-        verify(reservationRepository, times(1)).save(any(Reservation.class));
-        verify(chambreRepository, times(1)).save(any(Chambre.class));
+        // Un seul INSERT: la chambre est la clé étrangère de la réservation
+        verify(reservationRepository, times(1)).save(argThat(r -> r.getChambre() == chambre));
+        verify(chambreRepository, never()).save(any(Chambre.class));
+        verify(chambreRepository, never()).countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(outboxRepository).save(argThat(e -> e.getType() == EvenementOutbox.Type.RESERVATION_CREEE
+                && e.getCin() == cin && e.getIdChambre() == 1L && e.getDateTraitement() == null));
+        verify(publisher).publishEvent(new ReservationJourEvent(LocalDate.of(2025, 10, 1), 1));
+        verify(publisher).publishEvent(new ReservationActiveEvent(cin, "2025/2026-BlocA-101-" + cin));
     }
 
     @Test
@@ -195,8 +257,8 @@ public class ReservationServiceTest {
 
         when(chambreRepository.findByNumeroChambre(numChambre)).thenReturn(chambre);
         when(etudiantRepository.findByCin(cin)).thenReturn(etudiant);
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(1);
+        when(occupationRegistry.reserverPlace(
+                anyLong(), anyInt(), any(LocalDate.class), any(LocalDate.class))).thenReturn(false);
 
         Reservation result = reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
 
@@ -204,49 +266,204 @@ public class ReservationServiceTest {
         verify(chambreRepository, times(1)).findByNumeroChambre(numChambre);
         verify(etudiantRepository, times(1)).findByCin(cin);
         verify(reservationRepository, never()).save(any(Reservation.class));
+        verify(occupationRegistry, never()).libererPlace(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(occupationLedger, never()).occuperPlace(
+                anyLong(), any(TypeChambre.class), any(LocalDate.class), any(LocalDate.class));
+        verify(publisher).publishEvent(argThat((ReservationEvent e) ->
+                e.getType() == ReservationEvent.Type.REFUS && e.getCin() == cin && e.getTypeChambre() == TypeChambre.SIMPLE));
+    }
+
+    @Test
+    void testAjouterReservationEtAssignerAChambreEtAEtudiant_ChambreRemplieEnBase() {
+        Long numChambre = 101L;
+        long cin = 12345678L;
+
+        Chambre chambre = new Chambre();
+        chambre.setIdChambre(1L);
+        chambre.setNumeroChambre(numChambre);
+        chambre.setTypeC(TypeChambre.DOUBLE);
+
+        when(chambreRepository.findByNumeroChambre(numChambre)).thenReturn(chambre);
+        when(etudiantRepository.findByCin(cin)).thenReturn(new Etudiant());
+        when(occupationRegistry.reserverPlace(
+                anyLong(), anyInt(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(occupationLedger.occuperPlace(
+                anyLong(), any(TypeChambre.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(false);
+
+        Reservation result = reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin);
+
+        assertNull(result);
+        verify(occupationRegistry, times(1)).libererPlace(eq(1L), any(LocalDate.class), any(LocalDate.class));
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void testAjouterReservationEtAssignerAChambreEtAEtudiant_EchecSauvegardeLibereLaPlace() {
+        Long numChambre = 101L;
+        long cin = 12345678L;
+
+        Bloc bloc = new Bloc();
+        bloc.setNomBloc("BlocA");
+
+        Chambre chambre = new Chambre();
+        chambre.setIdChambre(1L);
+        chambre.setNumeroChambre(numChambre);
+        chambre.setTypeC(TypeChambre.DOUBLE);
+        chambre.setBloc(bloc);
+
+        Etudiant etudiant = new Etudiant();
+        etudiant.setCin(cin);
+
+        when(chambreRepository.findByNumeroChambre(numChambre)).thenReturn(chambre);
+        when(etudiantRepository.findByCin(cin)).thenReturn(etudiant);
+        when(occupationRegistry.reserverPlace(
+                anyLong(), anyInt(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(occupationLedger.occuperPlace(
+                anyLong(), any(TypeChambre.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(reservationRepository.save(any(Reservation.class))).thenThrow(new IllegalStateException("db"));
+
+        assertThrows(IllegalStateException.class,
+                () -> reservationService.ajouterReservationEtAssignerAChambreEtAEtudiant(numChambre, cin));
+
+        verify(occupationRegistry, times(1)).libererPlace(eq(1L), any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
     void testGetReservationParAnneeUniversitaire() {
         LocalDate debutAnnee = LocalDate.of(2023, 9, 15);
         LocalDate finAnnee = LocalDate.of(2024, 6, 30);
-        int expectedCount = 10;
 
-        when(reservationRepository.countByAnneeUniversitaireBetween(debutAnnee, finAnnee)).thenReturn(expectedCount);
+        when(indexJours.compter(debutAnnee, finAnnee)).thenReturn(10L);
 
         long result = reservationService.getReservationParAnneeUniversitaire(debutAnnee, finAnnee);
 
-        assertEquals(expectedCount, result);
-        verify(reservationRepository, times(1)).countByAnneeUniversitaireBetween(debutAnnee, finAnnee);
+        assertEquals(10L, result);
+        verifyNoInteractions(reservationRepository);
     }
 
     @Test
     void testAnnulerReservation() {
         long cinEtudiant = 12345678L;
-        String reservationId = "RES001";
+        LocalDate annee = DEBUT_AU.plusDays(1);
 
-        Reservation reservation = new Reservation();
-        reservation.setIdReservation(reservationId);
-        reservation.setEstValide(true);
+        when(cacheActive.reservationActive(cinEtudiant)).thenReturn("RES001");
+        when(reservationRepository.findReservationValideAAnnuler(eq(cinEtudiant), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, "RES001", annee, 1L, 101L, TypeChambre.SIMPLE, 3L}));
 
-        Chambre chambre = new Chambre();
-        chambre.setIdChambre(1L);
-        chambre.setReservations(new ArrayList<>());
-        chambre.getReservations().add(reservation);
+        String result = reservationService.annulerReservation(cinEtudiant);
 
-        when(reservationRepository.findByEtudiantsCinAndEstValide(cinEtudiant, true)).thenReturn(reservation);
-        when(chambreRepository.findByReservationsIdReservation(reservationId)).thenReturn(chambre);
-        when(chambreRepository.save(any(Chambre.class))).thenReturn(chambre);
-        doNothing().when(reservationRepository).delete(reservation);
+        assertNotNull(result);
+        assertTrue(result.contains("RES001"));
+        assertTrue(result.contains("annulée avec succés"));
+        verify(reservationRepository, times(1)).supprimerReservation(7L);
+        verify(reservationRepository, never()).delete(any(Reservation.class));
+        verifyNoInteractions(chambreRepository);
+        verify(occupationRegistry, times(1)).libererPlace(eq(1L), any(LocalDate.class), any(LocalDate.class));
+        verify(occupationLedger, times(1)).libererPlace(eq(1L), any(LocalDate.class));
+        verify(publisher).publishEvent(argThat((Object o) -> o instanceof ReservationEvent e
+                && e.getType() == ReservationEvent.Type.ANNULATION && e.getIdChambre() == 1L
+                        && e.getIdFoyer() == 3L && e.getCin() == cinEtudiant));
+        verify(outboxRepository).save(argThat(e -> e.getType() == EvenementOutbox.Type.RESERVATION_ANNULEE
+                && "RES001".equals(e.getIdReservation()) && e.getCin() == cinEtudiant
+                && e.getAnnee() == 2025));
+        verify(publisher).publishEvent(new ReservationJourEvent(annee, -1));
+        verify(publisher).publishEvent(new ReservationActiveEvent(cinEtudiant, null));
+    }
+
+    @Test
+    void testAnnulerReservationSansDate() {
+        long cinEtudiant = 111L;
+        when(cacheActive.reservationActive(cinEtudiant)).thenReturn("RES001");
+        when(reservationRepository.findReservationValideAAnnuler(eq(cinEtudiant), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, "RES001", null, 1L, 101L, TypeChambre.SIMPLE, 3L}));
 
         String result = reservationService.annulerReservation(cinEtudiant);
 
-        assertNotNull(result);
         assertTrue(result.contains("annulée avec succés"));
-        verify(reservationRepository, times(1)).findByEtudiantsCinAndEstValide(cinEtudiant, true);
-        verify(chambreRepository, times(1)).findByReservationsIdReservation(reservationId);
-        verify(chambreRepository, times(1)).save(chambre);
-        verify(reservationRepository, times(1)).delete(reservation);
+        verify(reservationRepository, times(1)).supprimerReservation(7L);
+        verify(outboxRepository).save(argThat(e -> e.getType() == EvenementOutbox.Type.RESERVATION_ANNULEE
+                && "RES001".equals(e.getIdReservation()) && e.getAnnee() == 0));
+        // Hors de l'année en cours: aucun lit à libérer
+        verifyNoInteractions(occupationLedger, occupationRegistry);
+        verify(publisher, never()).publishEvent(any(ReservationJourEvent.class));
+    }
+
+    @Test
+    void testAnnulerReservationSansReservationValide() {
+        when(reservationRepository.findReservationValideAAnnuler(eq(1L), any(Pageable.class))).thenReturn(List.of());
+
+        String result = reservationService.annulerReservation(1L);
+
+        assertTrue(result.contains("Aucune réservation valide"));
+        verify(reservationRepository, never()).supprimerReservation(anyLong());
+        verifyNoInteractions(occupationLedger, publisher, cacheActive);
+    }
+
+    @Test
+    void testAnnulerReservationIgnoreLeCacheNegatif() {
+        // Entrée négative périmée (réservation créée hors ReservationService): la base fait foi
+        when(cacheActive.reservationActive(111L)).thenReturn(null);
+        when(reservationRepository.findReservationValideAAnnuler(eq(111L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, "RES001", LocalDate.of(2025, 10, 1), 1L, 101L, TypeChambre.SIMPLE, 3L}));
+
+        String result = reservationService.annulerReservation(111L);
+
+        assertTrue(result.contains("annulée avec succés"));
+        verify(reservationRepository, times(1)).supprimerReservation(7L);
+    }
+
+    @Test
+    void testAnnulerReservationCachePerime() {
+        // Réservation supprimée hors ReservationService (archivage) avant l'expiration de l'entrée
+        when(cacheActive.reservationActive(1L)).thenReturn("RES001");
+        when(reservationRepository.findReservationValideAAnnuler(eq(1L), any(Pageable.class))).thenReturn(List.of());
+
+        String result = reservationService.annulerReservation(1L);
+
+        assertTrue(result.contains("Aucune réservation valide"));
+        verify(reservationRepository, never()).supprimerReservation(anyLong());
+        verifyNoInteractions(occupationLedger, publisher);
+    }
+
+    @Test
+    void testGetMaReservation() {
+        when(cacheActive.reservationActive(111L)).thenReturn("RES001");
+
+        MaReservation active = reservationService.getMaReservation(111L);
+        MaReservation aucune = reservationService.getMaReservation(222L);
+
+        assertTrue(active.isActive());
+        assertEquals("RES001", active.getIdReservation());
+        assertFalse(aucune.isActive());
+        assertNull(aucune.getIdReservation());
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void testDetacherAnneeClose() {
+        int anneeEnCours = 2025;
+        when(partitionRepository.detacherAnnee(anneeEnCours - 2)).thenReturn(40);
+
+        assertEquals(40, reservationService.detacherAnnee(anneeEnCours - 2));
+    }
+
+    @Test
+    void testDetacherAnneeEnCoursRefusee() {
+        int anneeEnCours = 2025;
+
+        assertThrows(ResponseStatusException.class, () -> reservationService.detacherAnnee(anneeEnCours));
+        assertThrows(ResponseStatusException.class, () -> reservationService.detacherAnnee(anneeEnCours + 1));
+        verifyNoInteractions(partitionRepository);
+    }
+
+    @Test
+    void testReconcilierOccupations() {
+        when(occupationRegistry.reconcilier(any(LocalDate.class), any(LocalDate.class))).thenReturn(2);
+
+        int result = reservationService.reconcilierOccupations();
+
+        assertEquals(2, result);
+        verify(occupationRegistry, times(1)).reconcilier(DEBUT_AU, FIN_AU);
     }
 
     @Test
@@ -259,18 +476,42 @@ public class ReservationServiceTest {
 
         Chambre chambre = new Chambre();
         chambre.setIdChambre(idChambre);
-        chambre.setReservations(new ArrayList<>());
 
-        when(reservationRepository.findById(idRes)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(idRes)).thenReturn(Optional.of(reservation));
         when(chambreRepository.findById(idChambre)).thenReturn(Optional.of(chambre));
-        when(chambreRepository.save(any(Chambre.class))).thenReturn(chambre);
 
         reservationService.affectReservationAChambre(idRes, idChambre);
 
-        verify(reservationRepository, times(1)).findById(idRes);
+        verify(reservationRepository, times(1)).findByIdReservation(idRes);
         verify(chambreRepository, times(1)).findById(idChambre);
-        verify(chambreRepository, times(1)).save(chambre);
-        assertTrue(chambre.getReservations().contains(reservation));
+        verify(reservationRepository, times(1)).save(reservation);
+        verify(chambreRepository, never()).save(any(Chambre.class));
+        assertSame(chambre, reservation.getChambre());
+    }
+
+    @Test
+    void testAffectReservationAUneAutreChambreLibereLAncienne() {
+        Reservation reservation = new Reservation();
+        reservation.setIdReservation("RES001");
+        reservation.setAnneeUniversitaire(DEBUT_AU.plusDays(1));
+        Chambre ancienne = new Chambre();
+        ancienne.setIdChambre(1L);
+        ancienne.setTypeC(TypeChambre.SIMPLE);
+        reservation.setChambre(ancienne);
+        Chambre nouvelle = new Chambre();
+        nouvelle.setIdChambre(2L);
+        nouvelle.setTypeC(TypeChambre.DOUBLE);
+
+        when(reservationRepository.findByIdReservation("RES001")).thenReturn(Optional.of(reservation));
+        when(chambreRepository.findById(2L)).thenReturn(Optional.of(nouvelle));
+
+        reservationService.affectReservationAChambre("RES001", 2L);
+
+        assertSame(nouvelle, reservation.getChambre());
+        verify(occupationLedger).libererPlace(eq(1L), any(LocalDate.class));
+        verify(occupationRegistry).libererPlace(eq(1L), any(LocalDate.class), any(LocalDate.class));
+        verify(occupationLedger).ajouterPlace(eq(2L), eq(TypeChambre.DOUBLE), any(LocalDate.class), any(LocalDate.class));
+        verify(occupationRegistry).ajouterPlace(eq(2L), any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
@@ -283,44 +524,44 @@ public class ReservationServiceTest {
 
         Chambre chambre = new Chambre();
         chambre.setIdChambre(idChambre);
-        chambre.setReservations(new ArrayList<>());
-        chambre.getReservations().add(reservation);
+        reservation.setChambre(chambre);
 
-        when(reservationRepository.findById(idRes)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdReservation(idRes)).thenReturn(Optional.of(reservation));
         when(chambreRepository.findById(idChambre)).thenReturn(Optional.of(chambre));
-        when(chambreRepository.save(any(Chambre.class))).thenReturn(chambre);
 
         reservationService.deaffectReservationAChambre(idRes, idChambre);
 
-        verify(reservationRepository, times(1)).findById(idRes);
+        verify(reservationRepository, times(1)).findByIdReservation(idRes);
         verify(chambreRepository, times(1)).findById(idChambre);
-        verify(chambreRepository, times(1)).save(chambre);
-        assertFalse(chambre.getReservations().contains(reservation));
+        verify(reservationRepository, times(1)).save(reservation);
+        verify(chambreRepository, never()).save(any(Chambre.class));
+        assertNull(reservation.getChambre());
     }
 
     @Test
     void testAnnulerReservations() {
-        Reservation reservation1 = new Reservation();
-        reservation1.setIdReservation("RES001");
-        reservation1.setEstValide(true);
-
-        Reservation reservation2 = new Reservation();
-        reservation2.setIdReservation("RES002");
-        reservation2.setEstValide(true);
-
-        List<Reservation> reservations = Arrays.asList(reservation1, reservation2);
-
-        when(reservationRepository.findByEstValideAndAnneeUniversitaireBetween(
-                any(Boolean.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(reservations);
-        when(reservationRepository.save(any(Reservation.class))).thenReturn(reservation1, reservation2);
-
-        reservationService.annulerReservations();
-
-        verify(reservationRepository, times(1)).findByEstValideAndAnneeUniversitaireBetween(
-                any(Boolean.class), any(LocalDate.class), any(LocalDate.class));
-        verify(reservationRepository, times(2)).save(any(Reservation.class));
-        assertFalse(reservation1.isEstValide());
-        assertFalse(reservation2.isEstValide());
+        properties.setTailleLotAnnulation(2);
+        when(reservationRepository.findIdsReservationsValides(any(LocalDate.class), any(LocalDate.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L), List.of());
+        when(reservationRepository.invaliderReservations(anyCollection())).thenReturn(2, 1);
+        when(reservationRepository.findPourEvenements(List.of(1L, 2L))).thenReturn(List.of(
+                new Object[]{"RES001", 111L, 1L}, new Object[]{"RES002", 222L, null}));
+
+        long annulees = reservationService.annulerReservations();
+
+        assertEquals(3, annulees);
+        verify(reservationRepository).invaliderReservations(List.of(1L, 2L));
+        verify(reservationRepository).invaliderReservations(List.of(3L));
+        verify(reservationRepository, times(3)).findIdsReservationsValides(
+                any(LocalDate.class), any(LocalDate.class), argThat(p -> p.getPageSize() == 2 && p.getPageNumber() == 0));
+        verify(reservationRepository, never()).save(any(Reservation.class));
+        assertEquals(3.0, meterRegistry.get("reservation.annulation.annuelle").counter().count());
+        // Un événement par réservation invalidée, écrit dans la transaction de son lot
+        verify(outboxRepository).saveAll(argThat((List<EvenementOutbox> l) -> l.size() == 2
+                && l.stream().allMatch(e -> e.getType() == EvenementOutbox.Type.RESERVATION_INVALIDEE)));
+        verify(transactionManager, times(2)).commit(any());
+        verify(publisher).publishEvent(new ReservationActiveEvent(111L, null));
+        verify(publisher).publishEvent(new ReservationActiveEvent(222L, null));
     }
 
     @Test
@@ -344,8 +585,10 @@ public class ReservationServiceTest {
 
         when(chambreRepository.findByNumeroChambre(numChambre)).thenReturn(chambre);
         when(etudiantRepository.findByCin(cin)).thenReturn(etudiant);
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(1);
+        when(occupationRegistry.reserverPlace(
+                anyLong(), anyInt(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(occupationLedger.occuperPlace(
+                anyLong(), any(TypeChambre.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
         when(reservationRepository.save(any(Reservation.class))).thenReturn(new Reservation());
         when(chambreRepository.save(any(Chambre.class))).thenReturn(chambre);
 
@@ -355,6 +598,7 @@ public class ReservationServiceTest {
         verify(chambreRepository, times(1)).findByNumeroChambre(numChambre);
         verify(etudiantRepository, times(1)).findByCin(cin);
         verify(reservationRepository, times(1)).save(any(Reservation.class));
+        verify(occupationRegistry).reserverPlace(eq(1L), eq(2), any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
@@ -378,8 +622,10 @@ public class ReservationServiceTest {
 
         when(chambreRepository.findByNumeroChambre(numChambre)).thenReturn(chambre);
         when(etudiantRepository.findByCin(cin)).thenReturn(etudiant);
-        when(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
-                anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(2);
+        when(occupationRegistry.reserverPlace(
+                anyLong(), anyInt(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(occupationLedger.occuperPlace(
+                anyLong(), any(TypeChambre.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
         when(reservationRepository.save(any(Reservation.class))).thenReturn(new Reservation());
         when(chambreRepository.save(any(Chambre.class))).thenReturn(chambre);
 
@@ -389,5 +635,160 @@ public class ReservationServiceTest {
         verify(chambreRepository, times(1)).findByNumeroChambre(numChambre);
         verify(etudiantRepository, times(1)).findByCin(cin);
         verify(reservationRepository, times(1)).save(any(Reservation.class));
+        verify(occupationRegistry).reserverPlace(eq(1L), eq(3), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    void testAjouterReservationsEnLot() {
+        Bloc bloc = new Bloc();
+        bloc.setNomBloc("BlocA");
+        Chambre chambre = new Chambre();
+        chambre.setIdChambre(1L);
+        chambre.setNumeroChambre(101L);
+        chambre.setTypeC(TypeChambre.DOUBLE);
+        chambre.setBloc(bloc);
+
+        Etudiant e1 = new Etudiant();
+        e1.setIdEtudiant(1L);
+        e1.setCin(111L);
+        Etudiant e2 = new Etudiant();
+        e2.setIdEtudiant(2L);
+        e2.setCin(222L);
+        Etudiant e3 = new Etudiant();
+        e3.setIdEtudiant(3L);
+        e3.setCin(333L);
+
+        when(chambreRepository.findByNumeroChambreIn(anyCollection())).thenReturn(List.of(chambre));
+        when(etudiantRepository.findByCinIn(anyCollection())).thenReturn(List.of(e1, e2, e3));
+        when(reservationRepository.findByIdReservationIn(anyCollection())).thenReturn(List.of());
+        // Trois demandes valides sur une DOUBLE: le compteur en mémoire en accorde deux, la base une seule
+        when(occupationRegistry.reserverPlaces(eq(1L), eq(2), eq(3), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(2);
+        when(occupationLedger.occuperPlaces(eq(1L), eq(TypeChambre.DOUBLE), eq(2), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(1);
+
+        List<ResultatReservation> resultats = reservationService.ajouterReservations(List.of(
+                new DemandeReservation(101L, 111L),
+                new DemandeReservation(999L, 111L),
+                new DemandeReservation(101L, 444L),
+                new DemandeReservation(101L, 222L),
+                new DemandeReservation(101L, 111L),
+                new DemandeReservation(101L, 333L)));
+
+        assertEquals(6, resultats.size());
+        assertEquals(StatutReservation.ACCEPTEE, resultats.get(0).getStatut());
+        assertNotNull(resultats.get(0).getIdReservation());
+        assertEquals(StatutReservation.CHAMBRE_INTROUVABLE, resultats.get(1).getStatut());
+        assertEquals(StatutReservation.ETUDIANT_INTROUVABLE, resultats.get(2).getStatut());
+        assertEquals(StatutReservation.CHAMBRE_REMPLIE, resultats.get(3).getStatut());
+        assertNull(resultats.get(3).getIdReservation());
+        assertEquals(StatutReservation.DEJA_RESERVEE, resultats.get(4).getStatut());
+        assertEquals(StatutReservation.CHAMBRE_REMPLIE, resultats.get(5).getStatut());
+
+        verify(occupationRegistry).libererPlaces(eq(1L), eq(1), any(LocalDate.class), any(LocalDate.class));
+        verify(reservationBatchRepository).insererReservations(argThat((Map<Long, List<Reservation>> m) ->
+                m.size() == 1 && m.get(1L).size() == 1
+                        && m.get(1L).get(0).getEtudiants().get(0) == e1));
+        verify(outboxRepository).saveAll(argThat((List<EvenementOutbox> l) -> l.size() == 1
+                && l.get(0).getCin() == 111L && l.get(0).getType() == EvenementOutbox.Type.RESERVATION_CREEE));
+        verify(publisher).publishEvent(new ReservationJourEvent(LocalDate.of(2025, 10, 1), 1));
+        verify(publisher).publishEvent(new ReservationActiveEvent(111L, resultats.get(0).getIdReservation()));
+        verify(chambreRepository, never()).findByNumeroChambre(anyLong());
+    }
+
+    @Test
+    void testAjouterReservationsEchecEcritureLibereLesPlaces() {
+        Bloc bloc = new Bloc();
+        bloc.setNomBloc("BlocA");
+        Chambre chambre = new Chambre();
+        chambre.setIdChambre(1L);
+        chambre.setNumeroChambre(101L);
+        chambre.setTypeC(TypeChambre.TRIPLE);
+        chambre.setBloc(bloc);
+        Etudiant etudiant = new Etudiant();
+        etudiant.setCin(111L);
+
+        when(chambreRepository.findByNumeroChambreIn(anyCollection())).thenReturn(List.of(chambre));
+        when(etudiantRepository.findByCinIn(anyCollection())).thenReturn(List.of(etudiant));
+        when(reservationRepository.findByIdReservationIn(anyCollection())).thenReturn(List.of());
+        when(occupationRegistry.reserverPlaces(eq(1L), eq(3), eq(1), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(1);
+        when(occupationLedger.occuperPlaces(eq(1L), eq(TypeChambre.TRIPLE), eq(1), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(1);
+        doThrow(new RuntimeException("DB down")).when(reservationBatchRepository).insererReservations(anyMap());
+
+        assertThrows(RuntimeException.class,
+                () -> reservationService.ajouterReservations(List.of(new DemandeReservation(101L, 111L))));
+        verify(occupationRegistry).libererPlaces(eq(1L), eq(1), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    void testAjouterReservationsVerrouilleLesChambresParIdentifiant() {
+        Bloc bloc = new Bloc();
+        bloc.setNomBloc("BlocA");
+        Chambre chambre1 = new Chambre();
+        chambre1.setIdChambre(1L);
+        chambre1.setNumeroChambre(101L);
+        chambre1.setTypeC(TypeChambre.SIMPLE);
+        chambre1.setBloc(bloc);
+        Chambre chambre2 = new Chambre();
+        chambre2.setIdChambre(2L);
+        chambre2.setNumeroChambre(102L);
+        chambre2.setTypeC(TypeChambre.SIMPLE);
+        chambre2.setBloc(bloc);
+        Etudiant e1 = new Etudiant();
+        e1.setCin(111L);
+        Etudiant e2 = new Etudiant();
+        e2.setCin(222L);
+
+        when(chambreRepository.findByNumeroChambreIn(anyCollection())).thenReturn(List.of(chambre2, chambre1));
+        when(etudiantRepository.findByCinIn(anyCollection())).thenReturn(List.of(e1, e2));
+        when(reservationRepository.findByIdReservationIn(anyCollection())).thenReturn(List.of());
+        when(occupationRegistry.reserverPlaces(anyLong(), eq(1), eq(1), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(1);
+        when(occupationLedger.occuperPlaces(anyLong(), eq(TypeChambre.SIMPLE), eq(1), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(1);
+
+        // Demandes dans l'ordre inverse des identifiants de chambre
+        List<ResultatReservation> resultats = reservationService.ajouterReservations(List.of(
+                new DemandeReservation(102L, 222L),
+                new DemandeReservation(101L, 111L)));
+
+        InOrder ordre = inOrder(occupationLedger);
+        ordre.verify(occupationLedger).occuperPlaces(eq(1L), eq(TypeChambre.SIMPLE), eq(1), any(LocalDate.class), any(LocalDate.class));
+        ordre.verify(occupationLedger).occuperPlaces(eq(2L), eq(TypeChambre.SIMPLE), eq(1), any(LocalDate.class), any(LocalDate.class));
+        assertEquals(102L, resultats.get(0).getNumChambre());
+        assertEquals(StatutReservation.ACCEPTEE, resultats.get(0).getStatut());
+        assertEquals(101L, resultats.get(1).getNumChambre());
+        assertEquals(StatutReservation.ACCEPTEE, resultats.get(1).getStatut());
+    }
+
+    @Test
+    void testAjouterReservationsDejaEnBase() {
+        Bloc bloc = new Bloc();
+        bloc.setNomBloc("BlocA");
+        Chambre chambre = new Chambre();
+        chambre.setIdChambre(1L);
+        chambre.setNumeroChambre(101L);
+        chambre.setTypeC(TypeChambre.SIMPLE);
+        chambre.setBloc(bloc);
+        Etudiant etudiant = new Etudiant();
+        etudiant.setCin(111L);
+
+        when(chambreRepository.findByNumeroChambreIn(anyCollection())).thenReturn(List.of(chambre));
+        when(etudiantRepository.findByCinIn(anyCollection())).thenReturn(List.of(etudiant));
+        when(reservationRepository.findByIdReservationIn(anyCollection())).thenAnswer(invocation -> {
+            List<Reservation> existantes = new ArrayList<>();
+            for (String id : (Iterable<String>) invocation.getArgument(0)) {
+                existantes.add(Reservation.builder().idReservation(id).build());
+            }
+            return existantes;
+        });
+
+        List<ResultatReservation> resultats = reservationService.ajouterReservations(
+                List.of(new DemandeReservation(101L, 111L)));
+
+        assertEquals(StatutReservation.DEJA_RESERVEE, resultats.get(0).getStatut());
+        verify(occupationRegistry, never()).reserverPlaces(anyLong(), anyInt(), anyInt(), any(), any());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package tn.esprit.spring.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.Services.Allocation.AllocationEngine;
+import tn.esprit.spring.Services.Allocation.ChambreLibre;
+import tn.esprit.spring.Services.Allocation.ResultatAllocation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Allocation annuelle: 100 000 candidats pour 30 000 chambres réparties sur 20 foyers.
+// Lancement: mvn test -Pbenchmark
+@Tag("benchmark")
+@Slf4j
+class AllocationEngineBenchmark {
+
+    private static final int CANDIDATS = 100_000;
+    private static final int CHAMBRES = 30_000;
+    private static final int FOYERS = 20;
+
+    @Test
+    void allocationAnnuelle() {
+        Random random = new Random(42);
+        List<ChambreLibre> chambres = new ArrayList<>(CHAMBRES);
+        Map<Long, Integer> capacites = new HashMap<>();
+        for (long id = 1; id <= CHAMBRES; id++) {
+            int libres = 1 + random.nextInt(3);
+            chambres.add(new ChambreLibre(id, id % FOYERS, libres));
+            capacites.put(id, libres);
+        }
+        List<Candidature> candidatures = new ArrayList<>(CANDIDATS);
+        for (long cin = 1; cin <= CANDIDATS; cin++) {
+            candidatures.add(Candidature.builder()
+                    .cin(cin)
+                    .priorite(random.nextInt(10))
+                    // un candidat sur cinq dans un groupe de 2 à 4 étudiants
+                    .groupe(random.nextInt(5) == 0 ? "g" + cin / (2 + random.nextInt(3)) : null)
+                    .idFoyer(random.nextBoolean() ? (long) random.nextInt(FOYERS) : null)
+                    .build());
+        }
+
+        AllocationEngine engine = new AllocationEngine();
+        engine.allouer(candidatures, chambres);
+
+        long debut = System.nanoTime();
+        ResultatAllocation resultat = engine.allouer(candidatures, chambres);
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        log.info("Allocation de " + CANDIDATS + " candidats sur " + CHAMBRES + " chambres: " + dureeMs + " ms, "
+                + resultat.getAffectations().size() + " affectés, " + resultat.getGroupesSepares() + " groupes séparés");
+
+        int lits = capacites.values().stream().mapToInt(Integer::intValue).sum();
+        assertThat(resultat.getAffectations().size() + resultat.getNonAffectes().size()).isEqualTo(CANDIDATS);
+        assertThat(resultat.getAffectations().size()).isEqualTo(Math.min(lits, CANDIDATS));
+        Map<Long, Integer> occupees = new HashMap<>();
+        resultat.getAffectations().values().forEach(id -> occupees.merge(id, 1, Integer::sum));
+        occupees.forEach((id, nb) -> assertThat(nb).isLessThanOrEqualTo(capacites.get(id)));
+        assertThat(dureeMs).isLessThan(5_000);
+    }
+}
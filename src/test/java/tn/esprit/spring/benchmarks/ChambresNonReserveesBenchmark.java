@@ -0,0 +1,144 @@
+package tn.esprit.spring.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.Config.ClockConfig;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DTO.ChambreNonReservee;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.ChambreService;
+import tn.esprit.spring.Services.Chambre.MatriceChambres;
+import tn.esprit.spring.Services.Chambre.RepartitionChambres;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chambres non réservées d'un foyer et d'un type: parcours de toutes les chambres avec chargement
+// paresseux de leurs réservations (ancienne version), comparé à la requête groupée paginée.
+// Lancement: mvn test -Pbenchmark -Dtest=ChambresNonReserveesBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+@Tag("benchmark")
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+@Import({ChambreService.class, MatriceChambres.class, AcademicCalendar.class, ClockConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChambresNonReserveesBenchmark {
+
+    private static final int BLOCS = 100;
+
+    // Jauges Prometheus: pas de MeterRegistry dans ce contexte
+    @MockBean
+    private RepartitionChambres repartitionChambres;
+
+    @Autowired
+    private ChambreService chambreService;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private AcademicCalendar calendrier;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbc.update("delete from t_reservation");
+        jdbc.update("delete from t_chambre");
+        jdbc.update("delete from t_bloc");
+        jdbc.update("delete from t_foyer");
+    }
+
+    @ParameterizedTest(name = "{0} chambres")
+    @ValueSource(ints = {10_000, 100_000})
+    void chambresNonReservees(int nombreChambres) {
+        AnneeUniversitaire annee = calendrier.anneeEnCours();
+        remplir(nombreChambres, annee);
+
+        long debut = System.nanoTime();
+        List<Long> attendu = new TransactionTemplate(transactionManager).execute(status -> ancienParcours(annee));
+        double ancienneDuree = (System.nanoTime() - debut) / 1e6;
+
+        // Toute la liste en une page (ce que retournait l'ancienne version), puis la première page de 100
+        debut = System.nanoTime();
+        List<Long> obtenu = chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("Foyer A", TypeChambre.DOUBLE,
+                0, nombreChambres).stream().map(ChambreNonReservee::getNumeroChambre).toList();
+        double nouvelleDuree = (System.nanoTime() - debut) / 1e6;
+        debut = System.nanoTime();
+        assertThat(chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("Foyer A", TypeChambre.DOUBLE, 0, 100))
+                .hasSize(100);
+        double premierePage = (System.nanoTime() - debut) / 1e6;
+
+        log.info(String.format("%d chambres, %d non réservées: %.0f ms (findAll + réservations par chambre), "
+                        + "%.0f ms (requête groupée), %.0f ms (première page de 100)",
+                nombreChambres, obtenu.size(), ancienneDuree, nouvelleDuree, premierePage));
+        assertThat(obtenu).containsExactlyInAnyOrderElementsOf(attendu);
+        assertThat(nouvelleDuree).isLessThan(ancienneDuree);
+    }
+
+    // Ancienne version: toutes les chambres, puis les réservations de chaque chambre du foyer et du type
+    private List<Long> ancienParcours(AnneeUniversitaire annee) {
+        List<Long> numeros = new ArrayList<>();
+        for (Chambre c : chambreRepository.findAll()) {
+            if (c.getTypeC() == TypeChambre.DOUBLE && c.getBloc().getFoyer().getNomFoyer().equals("Foyer A")) {
+                long reservations = c.getReservations().stream().filter(r -> annee.contient(r.getAnneeUniversitaire())).count();
+                if (reservations < TypeChambre.DOUBLE.getCapacite()) {
+                    numeros.add(c.getNumeroChambre());
+                }
+            }
+        }
+        return numeros;
+    }
+
+    // Deux foyers, BLOCS blocs; chambres SIMPLE/DOUBLE/TRIPLE occupées à 0, 1 ou 2 lits pour l'année
+    private void remplir(int nombreChambres, AnneeUniversitaire annee) {
+        jdbc.update("insert into t_foyer (id_foyer, nom_foyer, capacite_foyer) values (1, 'Foyer A', 0), (2, 'Foyer B', 0)");
+        List<Object[]> blocs = new ArrayList<>();
+        for (int b = 1; b <= BLOCS; b++) {
+            blocs.add(new Object[]{b, "Bloc " + b, 0, b % 2 + 1});
+        }
+        jdbc.batchUpdate("insert into t_bloc (id_bloc, nom_bloc, capacite_bloc, foyer_id_foyer) values (?, ?, ?, ?)", blocs);
+        TypeChambre[] types = TypeChambre.values();
+        List<Object[]> chambres = new ArrayList<>();
+        List<Object[]> reservations = new ArrayList<>();
+        long idReservation = 0;
+        for (int i = 1; i <= nombreChambres; i++) {
+            chambres.add(new Object[]{i, i, types[i % types.length].name(), i % BLOCS + 1});
+            for (int r = 0; r < i % 3; r++) {
+                LocalDate jour = annee.debut().plusDays(r);
+                reservations.add(new Object[]{++idReservation, "R-" + idReservation, jour, Reservation.anneeAcademique(jour), true, i});
+            }
+        }
+        jdbc.batchUpdate("insert into t_chambre (id_chambre, numero_chambre, typec, bloc_id_bloc) values (?, ?, ?, ?)", chambres);
+        jdbc.batchUpdate("insert into t_reservation (id, id_reservation, annee_universitaire, annee_academique, est_valide, chambre_id) "
+                + "values (?, ?, ?, ?, ?, ?)", reservations);
+    }
+}
@@ -0,0 +1,80 @@
+package tn.esprit.spring.benchmarks;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.Services.Mail.EnvoiMails;
+import tn.esprit.spring.Services.Mail.Mail;
+import tn.esprit.spring.Services.Mail.ModeleMail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Débit d'envoi des mails de fin d'année vers un serveur SMTP en mémoire (GreenMail):
+// une connexion par mail et un seul thread, comparé aux lots sur connexions partagées.
+// Lancement: mvn test -Pbenchmark -Dtest=EnvoiMailsBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+@Tag("benchmark")
+@Slf4j
+class EnvoiMailsBenchmark {
+
+    private static final int MAILS = 2_000;
+
+    private final GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() {
+        smtp.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getSmtp().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        smtp.stop();
+    }
+
+    @Test
+    void debitEnvoi() throws Exception {
+        ModeleMail modele = ModeleMail.compiler("Fin de votre réservation {idReservation}\n"
+                + "Bonjour {prenom} {nom},\n\nVotre réservation {idReservation} n'est plus valide.\n");
+        List<Mail> mails = new ArrayList<>(MAILS);
+        for (int i = 0; i < MAILS; i++) {
+            mails.add(modele.rendre("etudiant" + i + "@esprit.tn", Map.of("idReservation", "2025/2026-A-" + i,
+                    "prenom", "Prenom" + i, "nom", "Nom" + i)));
+        }
+
+        double unParUn = mesurer(mails, 1, 1);
+        double parLots = mesurer(mails, 50, 4);
+
+        log.info(String.format("Envoi de %d mails: %.0f mails/s (une connexion par mail), %.0f mails/s (lots de 50, 4 connexions)",
+                MAILS, unParUn, parLots));
+        assertThat(smtp.waitForIncomingEmail(30_000, 2 * MAILS)).isTrue();
+        assertThat(parLots).isGreaterThan(unParUn);
+    }
+
+    private double mesurer(List<Mail> mails, int tailleLot, int concurrence) {
+        ReservationProperties properties = new ReservationProperties();
+        properties.getMail().setTailleLot(tailleLot);
+        properties.getMail().setConcurrence(concurrence);
+        EnvoiMails envoiMails = new EnvoiMails(mailSender, properties, new SimpleMeterRegistry());
+        try {
+            long debut = System.nanoTime();
+            assertThat(envoiMails.envoyer(mails)).isEmpty();
+            return mails.size() / ((System.nanoTime() - debut) / 1e9);
+        } finally {
+            envoiMails.arreter();
+        }
+    }
+}
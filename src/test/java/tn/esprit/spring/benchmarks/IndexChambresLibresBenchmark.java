@@ -0,0 +1,133 @@
+package tn.esprit.spring.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.Config.ClockConfig;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reconstruction de l'index des chambres libres pour 500 000 chambres et 1 000 000 de réservations de
+// l'année en cours, selon le nombre de tranches comptées en parallèle.
+// Lancement: mvn test -Pbenchmark -Dtest=IndexChambresLibresBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+@Tag("benchmark")
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+@Import({AcademicCalendar.class, ClockConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexChambresLibresBenchmark {
+
+    private static final int CHAMBRES = 500_000;
+    private static final int RESERVATIONS_PAR_CHAMBRE = 2;
+    private static final int FOYERS = 50;
+    private static final int BLOCS = 1000;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private AcademicCalendar calendrier;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void remplir() {
+        AnneeUniversitaire annee = calendrier.anneeEnCours();
+        List<Object[]> lignes = new ArrayList<>();
+        for (int f = 1; f <= FOYERS; f++) {
+            lignes.add(new Object[]{f, "Foyer " + f, 0});
+        }
+        jdbc.batchUpdate("insert into t_foyer (id_foyer, nom_foyer, capacite_foyer) values (?, ?, ?)", lignes);
+        lignes.clear();
+        for (int b = 1; b <= BLOCS; b++) {
+            lignes.add(new Object[]{b, "Bloc " + b, 0, b % FOYERS + 1});
+        }
+        jdbc.batchUpdate("insert into t_bloc (id_bloc, nom_bloc, capacite_bloc, foyer_id_foyer) values (?, ?, ?, ?)", lignes);
+        TypeChambre[] types = TypeChambre.values();
+        List<Object[]> chambres = new ArrayList<>();
+        List<Object[]> reservations = new ArrayList<>();
+        long idReservation = 0;
+        for (int i = 1; i <= CHAMBRES; i++) {
+            chambres.add(new Object[]{i, i, types[i % types.length].name(), i % BLOCS + 1});
+            for (int r = 0; r < RESERVATIONS_PAR_CHAMBRE; r++) {
+                LocalDate jour = annee.debut().plusDays(r);
+                reservations.add(new Object[]{++idReservation, "R-" + idReservation, jour, Reservation.anneeAcademique(jour), true, i});
+            }
+            if (chambres.size() == 10_000) {
+                ecrire(chambres, reservations);
+            }
+        }
+        ecrire(chambres, reservations);
+    }
+
+    private void ecrire(List<Object[]> chambres, List<Object[]> reservations) {
+        jdbc.batchUpdate("insert into t_chambre (id_chambre, numero_chambre, typec, bloc_id_bloc) values (?, ?, ?, ?)", chambres);
+        jdbc.batchUpdate("insert into t_reservation (id, id_reservation, annee_universitaire, annee_academique, est_valide, chambre_id) "
+                + "values (?, ?, ?, ?, ?, ?)", reservations);
+        chambres.clear();
+        reservations.clear();
+    }
+
+    @AfterAll
+    void vider() {
+        jdbc.update("delete from t_reservation");
+        jdbc.update("delete from t_chambre");
+        jdbc.update("delete from t_bloc");
+        jdbc.update("delete from t_foyer");
+    }
+
+    @ParameterizedTest(name = "{0} tranche(s) en parallèle")
+    @ValueSource(ints = {1, 4, 8})
+    void reconstruction(int parallelisme) {
+        ReservationProperties properties = new ReservationProperties();
+        properties.getIndexChambres().setParallelisme(parallelisme);
+        IndexChambresLibres index = new IndexChambresLibres(chambreRepository, calendrier, properties);
+        try {
+            long debut = System.nanoTime();
+            assertThat(index.reconstruire()).isEqualTo(CHAMBRES);
+            double duree = (System.nanoTime() - debut) / 1e6;
+
+            debut = System.nanoTime();
+            List<Long> libres = index.chambresLibres(1L, TypeChambre.TRIPLE, calendrier.anneeEnCours().cle(), 50L);
+            double requete = (System.nanoTime() - debut) / 1e3;
+
+            log.info(String.format("%d tranche(s): %d chambres et %d réservations indexées en %.0f ms; "
+                            + "chambres TRIPLE libres d'un foyer dans un bloc en %.0f µs",
+                    parallelisme, CHAMBRES, CHAMBRES * RESERVATIONS_PAR_CHAMBRE, duree, requete));
+            // Deux réservations par chambre: seules les TRIPLE ont encore un lit libre
+            assertThat(libres).isNotEmpty();
+            assertThat(index.chambresLibres(1L, TypeChambre.DOUBLE, calendrier.anneeEnCours().cle(), null)).isEmpty();
+        } finally {
+            index.arreter();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package tn.esprit.spring.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.Config.ReservationProperties;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+import tn.esprit.spring.Services.Reservation.OccupationChambreLedger;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Débit des réservations concurrentes sur le même ensemble de chambres.
+// Lancement: mvn test -Pbenchmark
+@Tag("benchmark")
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"spring.jpa.show-sql=false", "spring.datasource.hikari.maximum-pool-size=32"})
+@Import({OccupationChambreLedger.class, ReservationProperties.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OccupationChambreContentionBenchmark {
+
+    private static final LocalDate DEBUT_AU = LocalDate.of(2025, 9, 15);
+    private static final LocalDate FIN_AU = LocalDate.of(2026, 6, 30);
+    private static final int CHAMBRES = 256;
+    private static final int TENTATIVES = 8000;
+
+    @Autowired
+    private OccupationChambreLedger ledger;
+
+    @Autowired
+    private OccupationChambreRepository occupationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest(name = "{0} réservations concurrentes")
+    @ValueSource(ints = {8, 32, 128})
+    void reservationsConcurrentes(int threads) throws InterruptedException {
+        occupationRepository.deleteAllInBatch();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        AtomicInteger ticket = new AtomicInteger();
+        AtomicInteger acceptees = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                depart.await();
+                int i;
+                while ((i = ticket.getAndIncrement()) < TENTATIVES) {
+                    long idChambre = i % CHAMBRES;
+                    Boolean ok = transaction.execute(status ->
+                            ledger.occuperPlace(idChambre, TypeChambre.DOUBLE, DEBUT_AU, FIN_AU));
+                    if (Boolean.TRUE.equals(ok)) {
+                        acceptees.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        long debut = System.nanoTime();
+        depart.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double secondes = (System.nanoTime() - debut) / 1e9;
+
+        log.info(String.format("%d threads: %d tentatives en %.2f s, %.0f réservations/s",
+                threads, TENTATIVES, secondes, TENTATIVES / secondes));
+
+        // Aucune surréservation: chaque chambre DOUBLE a exactement deux lits occupés
+        assertThat(acceptees.get()).isEqualTo(CHAMBRES * TypeChambre.DOUBLE.getCapacite());
+        assertThat(occupationRepository.findAll())
+                .hasSize(CHAMBRES)
+                .allMatch(o -> o.getOccupees() == TypeChambre.DOUBLE.getCapacite());
+    }
+}
@@ -0,0 +1,126 @@
+package tn.esprit.spring.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.Config.ClockConfig;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.ChambreService;
+import tn.esprit.spring.Services.Chambre.MatriceChambres;
+import tn.esprit.spring.Services.Chambre.RepartitionChambres;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Places libres de 20 000 chambres pour l'année en cours: une requête de comptage par chambre
+// (ancienne version), comparé à la requête groupée lue au fil de l'eau.
+// Lancement: mvn test -Pbenchmark -Dtest=PlacesLibresBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+@Tag("benchmark")
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+@Import({ChambreService.class, MatriceChambres.class, AcademicCalendar.class, ClockConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlacesLibresBenchmark {
+
+    private static final int CHAMBRES = 20_000;
+    private static final int BLOCS = 100;
+
+    // Jauges Prometheus: pas de MeterRegistry dans ce contexte
+    @MockBean
+    private RepartitionChambres repartitionChambres;
+
+    @Autowired
+    private ChambreService chambreService;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private AcademicCalendar calendrier;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterEach
+    void tearDown() {
+        jdbc.update("delete from t_reservation");
+        jdbc.update("delete from t_chambre");
+        jdbc.update("delete from t_bloc");
+        jdbc.update("delete from t_foyer");
+    }
+
+    @Test
+    void placesLibres() {
+        AnneeUniversitaire annee = calendrier.anneeEnCours();
+        remplir(annee);
+
+        // Ancienne version: toutes les chambres, puis un comptage par chambre
+        long debut = System.nanoTime();
+        Map<Long, Long> attendu = new HashMap<>();
+        for (Chambre c : chambreRepository.findAll()) {
+            long reservations = chambreRepository.countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(
+                    c.getIdChambre(), true, annee.debut(), annee.fin());
+            attendu.put(c.getNumeroChambre(), Math.max(c.getTypeC().getCapacite() - reservations, 0));
+        }
+        double ancienneDuree = (System.nanoTime() - debut) / 1e6;
+
+        debut = System.nanoTime();
+        Map<Long, Long> obtenu = new HashMap<>();
+        long lignes = chambreService.placesLibresParChambre(null, null,
+                c -> obtenu.put(c.getNumeroChambre(), (long) c.getPlacesLibres()));
+        double nouvelleDuree = (System.nanoTime() - debut) / 1e6;
+
+        log.info(String.format("%d chambres: %.0f ms (une requête par chambre), %.0f ms (requête groupée)",
+                lignes, ancienneDuree, nouvelleDuree));
+        assertThat(obtenu).isEqualTo(attendu);
+        assertThat(nouvelleDuree).isLessThan(ancienneDuree);
+    }
+
+    // Deux foyers, BLOCS blocs; chambres SIMPLE/DOUBLE/TRIPLE occupées à 0, 1 ou 2 lits pour l'année
+    private void remplir(AnneeUniversitaire annee) {
+        jdbc.update("insert into t_foyer (id_foyer, nom_foyer, capacite_foyer) values (1, 'Foyer A', 0), (2, 'Foyer B', 0)");
+        List<Object[]> blocs = new ArrayList<>();
+        for (int b = 1; b <= BLOCS; b++) {
+            blocs.add(new Object[]{b, "Bloc " + b, 0, b % 2 + 1});
+        }
+        jdbc.batchUpdate("insert into t_bloc (id_bloc, nom_bloc, capacite_bloc, foyer_id_foyer) values (?, ?, ?, ?)", blocs);
+        TypeChambre[] types = TypeChambre.values();
+        List<Object[]> chambres = new ArrayList<>();
+        List<Object[]> reservations = new ArrayList<>();
+        long idReservation = 0;
+        for (int i = 1; i <= CHAMBRES; i++) {
+            chambres.add(new Object[]{i, i, types[i % types.length].name(), i % BLOCS + 1});
+            for (int r = 0; r < i % 3; r++) {
+                LocalDate jour = annee.debut().plusDays(r);
+                reservations.add(new Object[]{++idReservation, "R-" + idReservation, jour, Reservation.anneeAcademique(jour), true, i});
+            }
+        }
+        jdbc.batchUpdate("insert into t_chambre (id_chambre, numero_chambre, typec, bloc_id_bloc) values (?, ?, ?, ?)", chambres);
+        jdbc.batchUpdate("insert into t_reservation (id, id_reservation, annee_universitaire, annee_academique, est_valide, chambre_id) "
+                + "values (?, ?, ?, ?, ?, ?)", reservations);
+    }
+}
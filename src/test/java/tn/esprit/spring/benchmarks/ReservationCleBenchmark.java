@@ -0,0 +1,136 @@
+package tn.esprit.spring.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.DAO.Entities.Bloc;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.BlocRepository;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.Services.Reservation.ReservationService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Taille des tables de réservation et latence du comptage des réservations d'une chambre.
+// Lancement: mvn test -Pbenchmark -Dtest=ReservationCleBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+@Tag("benchmark")
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+// Base fichier: disk_space_used() ne mesure rien sur une base en mémoire
+@TestPropertySource(properties = {"spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:file:./target/benchmark-reservation-cle;DB_CLOSE_ON_EXIT=FALSE"})
+@Import(ReservationBatchRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationCleBenchmark {
+
+    private static final int CHAMBRES = 10_000;
+    private static final int ANNEES = 4;
+    private static final int PREMIERE_ANNEE = 2022;
+    private static final int TOURS = 10;
+
+    @Autowired
+    private BlocRepository blocRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void tailleEtLatenceDuComptage() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Chambre> chambres = new ArrayList<>();
+        List<Etudiant> etudiants = new ArrayList<>();
+        transaction.executeWithoutResult(status -> {
+            Bloc bloc = blocRepository.save(Bloc.builder().nomBloc("B").capaciteBloc(2L * CHAMBRES).build());
+            for (int i = 0; i < CHAMBRES; i++) {
+                chambres.add(Chambre.builder().numeroChambre(100_000L + i).typeC(TypeChambre.DOUBLE).bloc(bloc).build());
+            }
+            chambreRepository.saveAll(chambres);
+            for (int i = 0; i < 2 * CHAMBRES; i++) {
+                etudiants.add(Etudiant.builder().nomEt("E").prenomEt("E").cin(10_000_000L + i).build());
+            }
+            etudiantRepository.saveAll(etudiants);
+        });
+
+        // Deux étudiants par chambre et par année
+        for (int a = 0; a < ANNEES; a++) {
+            LocalDate debut = LocalDate.of(PREMIERE_ANNEE + a, 9, 15);
+            LocalDate fin = LocalDate.of(PREMIERE_ANNEE + a + 1, 6, 30);
+            Map<Long, List<Reservation>> lot = new HashMap<>();
+            for (int i = 0; i < CHAMBRES; i++) {
+                Chambre chambre = chambres.get(i);
+                List<Reservation> reservations = new ArrayList<>();
+                for (Etudiant etudiant : List.of(etudiants.get(2 * i), etudiants.get(2 * i + 1))) {
+                    reservations.add(Reservation.builder()
+                            .idReservation(ReservationService.codeReservation(debut, fin, "B",
+                                    chambre.getNumeroChambre(), etudiant.getCin()))
+                            .anneeUniversitaire(debut)
+                            .estValide(true)
+                            .etudiants(new ArrayList<>(List.of(etudiant)))
+                            .build());
+                }
+                lot.put(chambre.getIdChambre(), reservations);
+            }
+            transaction.executeWithoutResult(status -> reservationBatchRepository.insererReservations(lot));
+        }
+
+        jdbcTemplate.execute("checkpoint sync");
+        for (String table : List.of("T_RESERVATION", "T_RESERVATION_ETUDIANTS")) {
+            Long octets = jdbcTemplate.queryForObject("call disk_space_used('" + table + "')", Long.class);
+            log.info(String.format("%s: %,d octets (%.1f octets/réservation)",
+                    table, octets, (double) octets / (CHAMBRES * 2 * ANNEES)));
+        }
+
+        LocalDate debut = LocalDate.of(PREMIERE_ANNEE + ANNEES - 1, 9, 15);
+        LocalDate fin = LocalDate.of(PREMIERE_ANNEE + ANNEES, 6, 30);
+        double meilleur = Double.MAX_VALUE;
+        for (int tour = 0; tour <= TOURS; tour++) {
+            long depart = System.nanoTime();
+            for (Chambre chambre : chambres) {
+                assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                        chambre.getIdChambre(), debut, fin)).isEqualTo(2);
+            }
+            double micros = (System.nanoTime() - depart) / 1e3 / CHAMBRES;
+            // Le premier tour sert de chauffe
+            if (tour > 0) {
+                meilleur = Math.min(meilleur, micros);
+            }
+        }
+        log.info(String.format("Comptage des réservations d'une chambre: %.1f µs (meilleur de %d tours)", meilleur, TOURS));
+    }
+}
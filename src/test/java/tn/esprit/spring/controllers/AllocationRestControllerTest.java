@@ -0,0 +1,53 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.DTO.Candidature;
+import tn.esprit.spring.DTO.RapportAllocation;
+import tn.esprit.spring.RestControllers.AllocationRestController;
+import tn.esprit.spring.Services.Allocation.IAllocationService;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = AllocationRestController.class)
+class AllocationRestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private IAllocationService allocationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("POST /allocation/allouer should return the allocation report")
+    void allouer() throws Exception {
+        Mockito.when(allocationService.allouer(any(), eq(true))).thenReturn(RapportAllocation.builder()
+                .simulation(true).candidatures(2).affectes(1).nonAffectes(List.of(222L)).build());
+
+        mockMvc.perform(post("/allocation/allouer")
+                        .param("simulation", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                Candidature.builder().cin(111L).priorite(1).build(),
+                                Candidature.builder().cin(222L).build()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectes").value(1))
+                .andExpect(jsonPath("$.nonAffectes[0]").value(222));
+    }
+}
@@ -8,11 +8,25 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tn.esprit.spring.DAO.Entities.Chambre;
 import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.ChambreNonReservee;
+import tn.esprit.spring.DTO.LitsLibres;
+import tn.esprit.spring.DTO.PlacesLibresChambre;
+import tn.esprit.spring.Services.Calendrier.AcademicCalendar;
+import tn.esprit.spring.Services.Calendrier.AnneeUniversitaire;
+import tn.esprit.spring.Services.Chambre.DisponibiliteFlux;
+import tn.esprit.spring.Services.Chambre.DisponibiliteLits;
 import tn.esprit.spring.Services.Chambre.IChambreService;
+import tn.esprit.spring.Services.Chambre.IndexChambresLibres;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -27,6 +41,18 @@ public class ChambreRestControllerTest {
     @MockBean
     private IChambreService chambreService;
 
+    @MockBean
+    private DisponibiliteLits disponibilite;
+
+    @MockBean
+    private DisponibiliteFlux flux;
+
+    @MockBean
+    private IndexChambresLibres indexChambresLibres;
+
+    @MockBean
+    private AcademicCalendar calendrier;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -102,13 +128,91 @@ public class ChambreRestControllerTest {
                 .andExpect(content().string("5"));
     }
 
+    @Test
+    void testNbChambresParBlocEtType() throws Exception {
+        when(chambreService.nbChambresParBlocEtType())
+                .thenReturn(Map.of(1L, Map.of(TypeChambre.SIMPLE, 5L, TypeChambre.DOUBLE, 0L)));
+        mockMvc.perform(get("/chambre/nbChambresParBlocEtType"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1.SIMPLE").value(5))
+                .andExpect(jsonPath("$.1.DOUBLE").value(0));
+    }
+
+    @Test
+    void testPlacesLibres() throws Exception {
+        when(chambreService.placesLibresParChambre(eq(1L), isNull(), any())).thenAnswer(invocation -> {
+            Consumer<PlacesLibresChambre> ligne = invocation.getArgument(2);
+            ligne.accept(PlacesLibresChambre.builder().idChambre(1L).numeroChambre(101L).typeC(TypeChambre.DOUBLE)
+                    .nomFoyer("Foyer A").placesLibres(1).build());
+            ligne.accept(PlacesLibresChambre.builder().idChambre(2L).numeroChambre(102L).typeC(TypeChambre.SIMPLE)
+                    .nomFoyer("Foyer A").placesLibres(0).build());
+            return 2L;
+        });
+
+        MvcResult resultat = mockMvc.perform(get("/chambre/placesLibres").param("idFoyer", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lignes = mockMvc.perform(asyncDispatch(resultat))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lignes.length);
+        assertEquals(101L, objectMapper.readTree(lignes[0]).get("numeroChambre").asLong());
+        assertEquals(0, objectMapper.readTree(lignes[1]).get("placesLibres").asInt());
+    }
+
     @Test
     void testGetChambresNonReserveParNomFoyerEtTypeChambre() throws Exception {
-        when(chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("FoyerA", TypeChambre.SIMPLE)).thenReturn(Collections.singletonList(chambre));
+        when(chambreService.getChambresNonReserveParNomFoyerEtTypeChambre("FoyerA", TypeChambre.SIMPLE, 0, 100))
+                .thenReturn(Collections.singletonList(ChambreNonReservee.builder().idChambre(1L).numeroChambre(101L)
+                        .typeC(TypeChambre.SIMPLE).nomBloc("BlocA").placesLibres(1).build()));
         mockMvc.perform(get("/chambre/getChambresNonReserveParNomFoyerEtTypeChambre")
                 .param("nomFoyer", "FoyerA")
                 .param("type", "SIMPLE"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].idChambre").value(1L));
+                .andExpect(jsonPath("$[0].idChambre").value(1L))
+                .andExpect(jsonPath("$[0].placesLibres").value(1));
+    }
+
+    @Test
+    void testChambresLibres() throws Exception {
+        when(calendrier.anneeEnCours()).thenReturn(AnneeUniversitaire.of(2025));
+        when(indexChambresLibres.chambresLibres(1L, TypeChambre.DOUBLE, 2025, 10L)).thenReturn(List.of(101L, 103L));
+        mockMvc.perform(get("/chambre/chambresLibres")
+                .param("idFoyer", "1")
+                .param("type", "DOUBLE")
+                .param("idBloc", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(101))
+                .andExpect(jsonPath("$[1]").value(103));
+    }
+
+    @Test
+    void testLitsLibres() throws Exception {
+        when(disponibilite.litsLibres("Foyer A", TypeChambre.DOUBLE)).thenReturn(LitsLibres.builder()
+                .annee(2025).nomFoyer("Foyer A").typeC(TypeChambre.DOUBLE).litsLibres(3)
+                .parBloc(Map.of("Bloc A", 3)).version(7L).build());
+
+        mockMvc.perform(get("/chambre/litsLibres").param("nomFoyer", "Foyer A").param("type", "DOUBLE"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(jsonPath("$.litsLibres").value(3))
+                .andExpect(jsonPath("$.version").value(7));
+
+        // Version inchangée: pas de contenu
+        mockMvc.perform(get("/chambre/litsLibres").param("nomFoyer", "Foyer A").param("type", "DOUBLE")
+                        .header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testFluxLitsLibres() throws Exception {
+        when(flux.abonner("Foyer A", TypeChambre.DOUBLE)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/chambre/litsLibres/flux").param("nomFoyer", "Foyer A").param("type", "DOUBLE")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(flux).abonner("Foyer A", TypeChambre.DOUBLE);
     }
-} 
\ No newline at end of file
+}
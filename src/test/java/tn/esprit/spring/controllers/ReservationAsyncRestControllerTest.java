@@ -0,0 +1,66 @@
+package tn.esprit.spring.controllers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.DTO.StatutTicket;
+import tn.esprit.spring.DTO.TicketReservation;
+import tn.esprit.spring.RestControllers.ReservationAsyncRestController;
+import tn.esprit.spring.Services.Reservation.ReservationFileAttente;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ReservationAsyncRestController.class, properties = "reservation.async.enabled=true")
+class ReservationAsyncRestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReservationFileAttente fileAttente;
+
+    @Test
+    @DisplayName("POST /reservation/async/... should return 202 with a ticket")
+    void soumettre() throws Exception {
+        Mockito.when(fileAttente.soumettre(101L, 111L)).thenReturn(TicketReservation.builder()
+                .idTicket("t1").numChambre(101L).cin(111L).statut(StatutTicket.EN_ATTENTE).build());
+
+        mockMvc.perform(post("/reservation/async/ajouterReservationEtAssignerAChambreEtAEtudiant")
+                        .param("numChambre", "101")
+                        .param("cin", "111"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.idTicket").value("t1"))
+                .andExpect(jsonPath("$.statut").value("EN_ATTENTE"));
+    }
+
+    @Test
+    @DisplayName("POST /reservation/async/... should return 429 when the queue is full")
+    void soumettreFilePleine() throws Exception {
+        Mockito.when(fileAttente.soumettre(101L, 111L)).thenReturn(null);
+
+        mockMvc.perform(post("/reservation/async/ajouterReservationEtAssignerAChambreEtAEtudiant")
+                        .param("numChambre", "101")
+                        .param("cin", "111"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("GET /reservation/async/ticket/{id} should return the ticket or 404")
+    void ticket() throws Exception {
+        Mockito.when(fileAttente.ticket("t1")).thenReturn(TicketReservation.builder()
+                .idTicket("t1").statut(StatutTicket.TRAITE).build());
+
+        mockMvc.perform(get("/reservation/async/ticket/t1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statut").value("TRAITE"));
+        mockMvc.perform(get("/reservation/async/ticket/inconnu"))
+                .andExpect(status().isNotFound());
+    }
+}
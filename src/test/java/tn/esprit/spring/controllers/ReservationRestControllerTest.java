@@ -11,12 +11,23 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DTO.DemandeReservation;
+import tn.esprit.spring.DTO.MaReservation;
+import tn.esprit.spring.DTO.Periode;
+import tn.esprit.spring.DTO.ReservationArchivee;
+import tn.esprit.spring.DTO.ResultatReservation;
+import tn.esprit.spring.DTO.StatistiquesArchive;
+import tn.esprit.spring.DTO.StatutReservation;
 import tn.esprit.spring.RestControllers.ReservationRestController;
+import tn.esprit.spring.Services.Archive.IArchiveReservationService;
 import tn.esprit.spring.Services.Reservation.IReservationService;
+import tn.esprit.spring.Services.Reservation.ReservationIdempotence;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
@@ -33,6 +44,12 @@ class ReservationRestControllerTest {
     @MockBean
     private IReservationService reservationService;
 
+    @MockBean
+    private ReservationIdempotence idempotence;
+
+    @MockBean
+    private IArchiveReservationService archiveService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -126,6 +143,23 @@ class ReservationRestControllerTest {
                 .andExpect(jsonPath("$.idReservation").value("1"));
     }
 
+    @Test
+    @DisplayName("POST /reservation/ajouterReservationEtAssignerAChambreEtAEtudiant should honor Idempotency-Key")
+    void ajouterReservationEtAssignerAChambreEtAEtudiantIdempotent() throws Exception {
+        Reservation reservation = Reservation.builder().idReservation("1").build();
+
+        Mockito.when(idempotence.ajouterReservationEtAssignerAChambreEtAEtudiant("cle-1", 1L, 123L))
+                .thenReturn(reservation);
+
+        mockMvc.perform(post("/reservation/ajouterReservationEtAssignerAChambreEtAEtudiant")
+                        .header("Idempotency-Key", "cle-1")
+                        .param("numChambre", "1")
+                        .param("cin", "123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.idReservation").value("1"));
+        Mockito.verifyNoInteractions(reservationService);
+    }
+
     @Test
     @DisplayName("GET /reservation/getReservationParAnneeUniversitaire should return count")
     void getReservationParAnneeUniversitaire() throws Exception {
@@ -139,6 +173,34 @@ class ReservationRestControllerTest {
                 .andExpect(content().string("5"));
     }
 
+    @Test
+    @DisplayName("POST /reservation/getReservationParPeriodes should return one count per period")
+    void getReservationParPeriodes() throws Exception {
+        List<Periode> periodes = List.of(
+                new Periode(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 7)),
+                new Periode(LocalDate.of(2025, 9, 8), LocalDate.of(2025, 9, 14)));
+        Mockito.when(reservationService.getReservationParPeriodes(any())).thenReturn(List.of(12L, 3L));
+
+        mockMvc.perform(post("/reservation/getReservationParPeriodes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(periodes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(12))
+                .andExpect(jsonPath("$[1]").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /reservation/maReservation should return the student's valid reservation")
+    void maReservation() throws Exception {
+        Mockito.when(reservationService.getMaReservation(123L)).thenReturn(MaReservation.builder()
+                .cin(123L).active(true).idReservation("2025/2026-A-101-123").build());
+
+        mockMvc.perform(get("/reservation/maReservation").param("cin", "123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.active").value(true))
+                .andExpect(jsonPath("$.idReservation").value("2025/2026-A-101-123"));
+    }
+
     @Test
     @DisplayName("DELETE /reservation/annulerReservation should cancel reservation by cinEtudiant")
     void cancelReservation() throws Exception {
@@ -149,4 +211,75 @@ class ReservationRestControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Annulée"));
     }
+
+    @Test
+    @DisplayName("POST /reservation/ajouterReservations should return one result per request")
+    void ajouterReservations() throws Exception {
+        List<DemandeReservation> demandes = List.of(
+                new DemandeReservation(101L, 111L),
+                new DemandeReservation(102L, 222L));
+        List<ResultatReservation> resultats = List.of(
+                ResultatReservation.builder().numChambre(101L).cin(111L)
+                        .statut(StatutReservation.ACCEPTEE).idReservation("2025/2026-A-101-111").build(),
+                ResultatReservation.builder().numChambre(102L).cin(222L)
+                        .statut(StatutReservation.CHAMBRE_REMPLIE).build());
+
+        Mockito.when(reservationService.ajouterReservations(any())).thenReturn(resultats);
+
+        mockMvc.perform(post("/reservation/ajouterReservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(demandes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].statut").value("ACCEPTEE"))
+                .andExpect(jsonPath("$[0].idReservation").value("2025/2026-A-101-111"))
+                .andExpect(jsonPath("$[1].statut").value("CHAMBRE_REMPLIE"));
+    }
+
+    @Test
+    @DisplayName("DELETE /reservation/partitions/{annee} should detach a closed academic year")
+    void detacherAnnee() throws Exception {
+        Mockito.when(reservationService.detacherAnnee(2022)).thenReturn(120);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/reservation/partitions/2022"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("120"));
+    }
+
+    @Test
+    @DisplayName("POST /reservation/partitions/{annee} should create the partition of an academic year")
+    void creerPartition() throws Exception {
+        Mockito.when(reservationService.creerPartition(2026)).thenReturn(true);
+
+        mockMvc.perform(post("/reservation/partitions/2026"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+    }
+
+    @Test
+    @DisplayName("GET /reservation/archives/{annee}/statistiques should aggregate an archived year")
+    void statistiquesArchive() throws Exception {
+        Mockito.when(archiveService.statistiques(2022)).thenReturn(StatistiquesArchive.builder()
+                .anneeAcademique(2022).reservations(3).valides(2)
+                .parBloc(Map.of("Bloc A", 3L)).parTypeChambre(Map.of(TypeChambre.DOUBLE, 3L)).build());
+
+        mockMvc.perform(get("/reservation/archives/2022/statistiques"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservations").value(3))
+                .andExpect(jsonPath("$.parBloc['Bloc A']").value(3))
+                .andExpect(jsonPath("$.parTypeChambre.DOUBLE").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /reservation/archives/{annee}/etudiants/{cin} should return the archived reservations of a student")
+    void rechercherArchive() throws Exception {
+        Mockito.when(archiveService.rechercherParCin(2022, 111L)).thenReturn(List.of(ReservationArchivee.builder()
+                .id(1L).idReservation("2022/2023-Bloc A-101-111").anneeUniversitaire(LocalDate.of(2022, 9, 15))
+                .estValide(true).cins(List.of(111L)).numeroChambre(101L).typeC(TypeChambre.DOUBLE).nomBloc("Bloc A")
+                .build()));
+
+        mockMvc.perform(get("/reservation/archives/2022/etudiants/111"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].idReservation").value("2022/2023-Bloc A-101-111"))
+                .andExpect(jsonPath("$[0].nomBloc").value("Bloc A"));
+    }
 }
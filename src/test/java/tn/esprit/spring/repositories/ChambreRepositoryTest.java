@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import tn.esprit.spring.DAO.Entities.Bloc;
 import tn.esprit.spring.DAO.Entities.Chambre;
@@ -16,10 +17,13 @@ import tn.esprit.spring.DAO.Entities.TypeChambre;
 import tn.esprit.spring.DAO.Repositories.ChambreRepository;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -158,6 +162,41 @@ class ChambreRepositoryTest {
         assertThat(count).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Should count chambres per bloc and type in one grouped query")
+    void countChambresParBlocEtType() {
+        Bloc bloc2 = Bloc.builder().nomBloc("Bloc B").capaciteBloc(10L).build();
+        entityManager.persist(bloc2);
+        entityManager.persist(Chambre.builder().numeroChambre(201L).typeC(TypeChambre.SIMPLE).bloc(bloc2).build());
+        entityManager.persist(Chambre.builder().numeroChambre(202L).typeC(TypeChambre.SIMPLE).bloc(bloc2).build());
+        // Sans bloc: non comptée
+        entityManager.persist(Chambre.builder().numeroChambre(301L).typeC(TypeChambre.TRIPLE).build());
+        entityManager.flush();
+
+        assertThat(chambreRepository.countChambresParBlocEtType())
+                .extracting(ligne -> ligne[0], ligne -> ligne[1], ligne -> ligne[2])
+                .containsExactlyInAnyOrder(
+                        tuple(bloc1.getIdBloc(), TypeChambre.SIMPLE, 1L),
+                        tuple(bloc1.getIdBloc(), TypeChambre.DOUBLE, 1L),
+                        tuple(bloc2.getIdBloc(), TypeChambre.SIMPLE, 2L));
+    }
+
+    @Test
+    @DisplayName("Should count chambres per foyer and type in one grouped query")
+    void countChambresParFoyerEtType() {
+        entityManager.persist(Chambre.builder().numeroChambre(103L).typeC(TypeChambre.SIMPLE).bloc(bloc1).build());
+        // Sans bloc: foyer à null
+        entityManager.persist(Chambre.builder().numeroChambre(301L).typeC(TypeChambre.TRIPLE).build());
+        entityManager.flush();
+
+        assertThat(chambreRepository.countChambresParFoyerEtType())
+                .extracting(ligne -> ligne[0], ligne -> ligne[1], ligne -> ligne[2])
+                .containsExactlyInAnyOrder(
+                        tuple("Foyer Test", TypeChambre.SIMPLE, 2L),
+                        tuple("Foyer Test", TypeChambre.DOUBLE, 1L),
+                        tuple(null, TypeChambre.TRIPLE, 1L));
+    }
+
     @Test
     @DisplayName("Should find all chambres")
     void findAll() {
@@ -183,4 +222,165 @@ class ChambreRepositoryTest {
         // The result might be null if the relationship is not properly set up
         // This is expected in a test environment
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should count reservations per chambre in one grouped query")
+    void countReservationsParChambre() {
+        Reservation reservation2 = Reservation.builder()
+                .idReservation("RES002")
+                .anneeUniversitaire(LocalDate.of(2023, 10, 1))
+                .estValide(true)
+                .build();
+        entityManager.persist(reservation2);
+        reservation1.setChambre(chambre2);
+        reservation2.setChambre(chambre2);
+        entityManager.flush();
+
+        List<Object[]> lignes = chambreRepository.countReservationsParChambre(
+                LocalDate.of(2023, 9, 15), LocalDate.of(2024, 6, 30));
+
+        assertThat(lignes).hasSize(1);
+        assertThat(((Number) lignes.get(0)[0]).longValue()).isEqualTo(chambre2.getIdChambre());
+        assertThat(((Number) lignes.get(0)[1]).intValue()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count a chambre's reservations through the reservation foreign key")
+    void countReservationsParCleEtrangere() {
+        LocalDate debut = LocalDate.of(2023, 9, 1);
+        LocalDate fin = LocalDate.of(2024, 6, 30);
+        reservation1.setChambre(chambre2);
+        entityManager.persist(Reservation.builder()
+                .idReservation("RES002")
+                .anneeUniversitaire(LocalDate.of(2023, 10, 1))
+                .estValide(false)
+                .chambre(chambre2)
+                .build());
+        entityManager.persist(Reservation.builder()
+                .idReservation("RES003")
+                .anneeUniversitaire(LocalDate.of(2024, 10, 1))
+                .estValide(true)
+                .chambre(chambre2)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(chambreRepository.listerReservationPourUneChambre(chambre2.getIdChambre(), debut, fin)).isEqualTo(2);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                chambre2.getIdChambre(), debut, fin)).isEqualTo(2);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsEstValideAndReservationsAnneeUniversitaireBetween(
+                chambre2.getIdChambre(), true, debut, fin)).isEqualTo(1);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                chambre1.getIdChambre(), debut, fin)).isZero();
+        assertThat(chambreRepository.findByReservationsIdReservation("RES003").getIdChambre())
+                .isEqualTo(chambre2.getIdChambre());
+        assertThat(chambreRepository.findById(chambre2.getIdChambre()).get().getReservations()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should list chambres with bloc and foyer for the allocation")
+    void findChambresPourAllocation() {
+        List<Object[]> lignes = chambreRepository.findChambresPourAllocation();
+
+        assertThat(lignes).hasSize(2);
+        Object[] ligne = lignes.stream().filter(l -> l[0].equals(chambre2.getIdChambre())).findFirst().get();
+        assertThat(ligne[1]).isEqualTo(102L);
+        assertThat(ligne[2]).isEqualTo(TypeChambre.DOUBLE);
+        assertThat(ligne[3]).isEqualTo("Bloc A");
+        assertThat(ligne[4]).isEqualTo(foyer1.getIdFoyer());
+    }
+
+    @Test
+    @DisplayName("Should list the chambres of a foyer and type with free beds, in one grouped query with paging")
+    void findChambresNonReservees() {
+        LocalDate debut = LocalDate.of(2023, 9, 15);
+        LocalDate fin = LocalDate.of(2024, 6, 30);
+        Chambre pleine = Chambre.builder().numeroChambre(103L).typeC(TypeChambre.DOUBLE).bloc(bloc1).build();
+        Chambre vide = Chambre.builder().numeroChambre(104L).typeC(TypeChambre.DOUBLE).bloc(bloc1).build();
+        entityManager.persist(pleine);
+        entityManager.persist(vide);
+        // chambre2: une réservation de l'année, une de l'année précédente (non comptée)
+        reservation1.setAnneeUniversitaire(LocalDate.of(2023, 10, 1));
+        reservation1.setChambre(chambre2);
+        entityManager.persist(Reservation.builder().idReservation("RES002")
+                .anneeUniversitaire(LocalDate.of(2022, 10, 1)).estValide(true).chambre(chambre2).build());
+        for (int i = 0; i < 2; i++) {
+            entityManager.persist(Reservation.builder().idReservation("RES-P" + i)
+                    .anneeUniversitaire(debut.plusDays(i)).estValide(true).chambre(pleine).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Object[]> lignes = chambreRepository.findChambresNonReservees("Foyer Test", TypeChambre.DOUBLE,
+                debut, fin, PageRequest.of(0, 10));
+
+        assertThat(lignes).extracting(l -> l[1], l -> l[2], l -> ((Number) l[3]).longValue())
+                .containsExactly(tuple(102L, "Bloc A", 1L), tuple(104L, "Bloc A", 0L));
+        assertThat(chambreRepository.findChambresNonReservees("Foyer Test", TypeChambre.DOUBLE,
+                debut, fin, PageRequest.of(1, 1))).extracting(l -> l[0]).containsExactly(vide.getIdChambre());
+        assertThat(chambreRepository.findChambresNonReservees("Foyer Test", TypeChambre.TRIPLE,
+                debut, fin, PageRequest.of(0, 10))).isEmpty();
+        assertThat(chambreRepository.findChambresNonReservees("Autre foyer", TypeChambre.DOUBLE,
+                debut, fin, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should list indexed chambres by foyer and bloc, and count reservations for a range of chambre ids")
+    void findChambresPourIndexEtTranches() {
+        Chambre sansFoyer = Chambre.builder().numeroChambre(999L).typeC(TypeChambre.TRIPLE)
+                .bloc(entityManager.persist(Bloc.builder().nomBloc("Bloc Z").capaciteBloc(1L).build())).build();
+        entityManager.persist(sansFoyer);
+        reservation1.setChambre(chambre2);
+        entityManager.persist(Reservation.builder().idReservation("RES002")
+                .anneeUniversitaire(LocalDate.of(2023, 10, 1)).estValide(true).chambre(chambre1).build());
+        entityManager.flush();
+
+        assertThat(chambreRepository.findChambresPourIndex())
+                .extracting(l -> l[0], l -> l[1], l -> l[2], l -> l[3], l -> l[4])
+                .containsExactly(
+                        tuple(chambre1.getIdChambre(), 101L, TypeChambre.SIMPLE, bloc1.getIdBloc(), foyer1.getIdFoyer()),
+                        tuple(chambre2.getIdChambre(), 102L, TypeChambre.DOUBLE, bloc1.getIdBloc(), foyer1.getIdFoyer()));
+        LocalDate debut = LocalDate.of(2023, 8, 1);
+        LocalDate fin = LocalDate.of(2024, 7, 31);
+        assertThat(chambreRepository.countReservationsParChambre(chambre2.getIdChambre(), chambre2.getIdChambre(), debut, fin))
+                .extracting(l -> l[0], l -> ((Number) l[1]).longValue())
+                .containsExactly(tuple(chambre2.getIdChambre(), 1L));
+        assertThat(chambreRepository.countReservationsParChambre(chambre1.getIdChambre(), chambre2.getIdChambre(), debut, fin))
+                .hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should stream valid reservation counts per chambre, filtered by foyer and bloc")
+    void streamReservationsParChambre() {
+        Chambre sansBloc = Chambre.builder().numeroChambre(301L).typeC(TypeChambre.TRIPLE).build();
+        entityManager.persist(sansBloc);
+        reservation1.setAnneeUniversitaire(LocalDate.of(2023, 10, 1));
+        reservation1.setChambre(chambre2);
+        // Invalide, puis hors de l'année: non comptées
+        entityManager.persist(Reservation.builder().idReservation("RES002")
+                .anneeUniversitaire(LocalDate.of(2023, 11, 1)).estValide(false).chambre(chambre2).build());
+        entityManager.persist(Reservation.builder().idReservation("RES003")
+                .anneeUniversitaire(LocalDate.of(2022, 10, 1)).estValide(true).chambre(chambre1).build());
+        entityManager.flush();
+        entityManager.clear();
+        LocalDate debut = LocalDate.of(2023, 8, 1);
+        LocalDate fin = LocalDate.of(2024, 7, 31);
+
+        try (Stream<Object[]> lignes = chambreRepository.streamReservationsParChambre(null, null, debut, fin)) {
+            assertThat(lignes.toList())
+                    .extracting(l -> l[1], l -> l[2], l -> l[4], l -> l[6], l -> ((Number) l[7]).longValue())
+                    .containsExactly(
+                            tuple(101L, TypeChambre.SIMPLE, "Bloc A", "Foyer Test", 0L),
+                            tuple(102L, TypeChambre.DOUBLE, "Bloc A", "Foyer Test", 1L),
+                            tuple(301L, TypeChambre.TRIPLE, null, null, 0L));
+        }
+        try (Stream<Object[]> lignes = chambreRepository.streamReservationsParChambre(foyer1.getIdFoyer(),
+                bloc1.getIdBloc(), debut, fin)) {
+            assertThat(lignes.toList()).extracting(l -> l[1]).containsExactly(101L, 102L);
+        }
+        try (Stream<Object[]> lignes = chambreRepository.streamReservationsParChambre(foyer1.getIdFoyer() + 1,
+                null, debut, fin)) {
+            assertThat(lignes).isEmpty();
+        }
+    }
+}
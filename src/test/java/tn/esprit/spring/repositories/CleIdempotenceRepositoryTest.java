@@ -0,0 +1,69 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import tn.esprit.spring.DAO.Entities.CleIdempotence;
+import tn.esprit.spring.DAO.Repositories.CleIdempotenceRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class CleIdempotenceRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CleIdempotenceRepository cleRepository;
+
+    @Test
+    @DisplayName("Should delete keys created before the limit")
+    void supprimerExpirees() {
+        LocalDateTime maintenant = LocalDateTime.of(2025, 10, 1, 12, 0);
+        entityManager.persist(CleIdempotence.builder().cle("ancienne").empreinte("1:1")
+                .dateCreation(maintenant.minusDays(2)).build());
+        entityManager.persist(CleIdempotence.builder().cle("recente").empreinte("1:2")
+                .dateCreation(maintenant.minusHours(1)).build());
+        entityManager.flush();
+
+        assertThat(cleRepository.supprimerExpirees(maintenant.minusDays(1))).isEqualTo(1);
+        assertThat(cleRepository.existsById("ancienne")).isFalse();
+        assertThat(cleRepository.existsById("recente")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should mark a key as processed with its reservation")
+    void terminer() {
+        cleRepository.saveAndFlush(CleIdempotence.builder().cle("cle").empreinte("1:1")
+                .dateCreation(LocalDateTime.now()).build());
+        entityManager.clear();
+
+        assertThat(cleRepository.terminer("cle", "2025/2026-A-1-1")).isEqualTo(1);
+        CleIdempotence cle = cleRepository.findById("cle").get();
+        assertThat(cle.isTerminee()).isTrue();
+        assertThat(cle.getIdReservation()).isEqualTo("2025/2026-A-1-1");
+    }
+
+    @Test
+    @DisplayName("Should refuse a second row for the same key")
+    void cleUnique() {
+        cleRepository.saveAndFlush(CleIdempotence.builder().cle("cle").empreinte("1:1")
+                .dateCreation(LocalDateTime.now()).build());
+        entityManager.clear();
+
+        assertThatThrownBy(() -> cleRepository.saveAndFlush(CleIdempotence.builder().cle("cle").empreinte("1:1")
+                .dateCreation(LocalDateTime.now()).build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
@@ -9,9 +9,11 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.Reservation;
 import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -254,4 +256,33 @@ class EtudiantRepositoryTest {
         Optional<Etudiant> found = etudiantRepository.findById(etudiant1.getIdEtudiant());
         assertThat(found).isEmpty();
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return ids of etudiants by cin")
+    void findIdsByCinIn() {
+        List<Object[]> lignes = etudiantRepository.findIdsByCinIn(List.of(12345678L, 11223344L, 99L));
+        assertThat(lignes).hasSize(2);
+        assertThat(lignes).anySatisfy(l -> {
+            assertThat(l[0]).isEqualTo(12345678L);
+            assertThat(l[1]).isEqualTo(etudiant1.getIdEtudiant());
+        });
+    }
+
+    @Test
+    @DisplayName("Should return cins of etudiants having a reservation in the year")
+    void findCinsAvecReservation() {
+        Reservation reservation = Reservation.builder()
+                .idReservation("RES001")
+                .anneeUniversitaire(LocalDate.of(2023, 10, 1))
+                .estValide(true)
+                .etudiants(new ArrayList<>(List.of(etudiant2)))
+                .build();
+        entityManager.persistAndFlush(reservation);
+        entityManager.clear();
+
+        assertThat(etudiantRepository.findCinsAvecReservation(LocalDate.of(2023, 9, 15), LocalDate.of(2024, 6, 30)))
+                .containsExactly(87654321L);
+        assertThat(etudiantRepository.findCinsAvecReservation(LocalDate.of(2024, 9, 15), LocalDate.of(2025, 6, 30)))
+                .isEmpty();
+    }
+}
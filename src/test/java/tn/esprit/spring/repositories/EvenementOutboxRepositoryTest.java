@@ -0,0 +1,72 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import tn.esprit.spring.DAO.Entities.EvenementOutbox;
+import tn.esprit.spring.DAO.Repositories.EvenementOutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class EvenementOutboxRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EvenementOutboxRepository outboxRepository;
+
+    private EvenementOutbox evenement(String idReservation, LocalDateTime prochainEssai, LocalDateTime dateTraitement) {
+        EvenementOutbox evenement = EvenementOutbox.of(EvenementOutbox.Type.RESERVATION_CREEE, idReservation, 111L, 1L, 2025);
+        evenement.setProchainEssai(prochainEssai);
+        evenement.setDateTraitement(dateTraitement);
+        return entityManager.persist(evenement);
+    }
+
+    @Test
+    @DisplayName("Should return pending events that are due, in write order")
+    void findATraiter() {
+        LocalDateTime maintenant = LocalDateTime.of(2025, 10, 1, 12, 0);
+        evenement("RES-1", maintenant.minusMinutes(1), null);
+        evenement("RES-2", maintenant.minusMinutes(1), maintenant.minusSeconds(30));
+        evenement("RES-3", maintenant.plusMinutes(1), null);
+        evenement("RES-4", maintenant, null);
+        entityManager.flush();
+
+        assertThat(outboxRepository.findATraiter(maintenant, PageRequest.of(0, 10)))
+                .extracting(EvenementOutbox::getIdReservation).containsExactly("RES-1", "RES-4");
+        assertThat(outboxRepository.findATraiter(maintenant, PageRequest.of(0, 1)))
+                .extracting(EvenementOutbox::getIdReservation).containsExactly("RES-1");
+        assertThat(outboxRepository.countByDateTraitementIsNull()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should mark events as processed and purge them after the retention")
+    void marquerTraitesEtPurger() {
+        LocalDateTime maintenant = LocalDateTime.of(2025, 10, 1, 12, 0);
+        EvenementOutbox ancien = evenement("RES-1", maintenant, null);
+        EvenementOutbox recent = evenement("RES-2", maintenant, null);
+        evenement("RES-3", maintenant, null);
+        entityManager.flush();
+
+        assertThat(outboxRepository.marquerTraites(List.of(ancien.getId()), maintenant.minusDays(8))).isEqualTo(1);
+        assertThat(outboxRepository.marquerTraites(List.of(recent.getId()), maintenant)).isEqualTo(1);
+        assertThat(outboxRepository.supprimerTraitesAvant(maintenant.minusDays(7))).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(outboxRepository.findAll()).extracting(EvenementOutbox::getIdReservation)
+                .containsExactlyInAnyOrder("RES-2", "RES-3");
+        assertThat(outboxRepository.countByDateTraitementIsNull()).isEqualTo(1);
+    }
+}
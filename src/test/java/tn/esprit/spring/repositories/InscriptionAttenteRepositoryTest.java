@@ -0,0 +1,56 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import tn.esprit.spring.DAO.Entities.InscriptionAttente;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.InscriptionAttenteRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class InscriptionAttenteRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InscriptionAttenteRepository inscriptionRepository;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        entityManager.persist(InscriptionAttente.builder().cin(111L).idFoyer(1L).typeC(TypeChambre.DOUBLE)
+                .annee(2025).dateInscription(maintenant).build());
+        entityManager.persist(InscriptionAttente.builder().cin(222L).idFoyer(1L).typeC(TypeChambre.SIMPLE)
+                .annee(2025).dateInscription(maintenant).build());
+        entityManager.persist(InscriptionAttente.builder().cin(333L).idFoyer(null).typeC(TypeChambre.DOUBLE)
+                .annee(2025).dateInscription(maintenant).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should find the waitlist of a foyer, type and year")
+    void findByIdFoyerAndTypeCAndAnnee() {
+        assertThat(inscriptionRepository.findByIdFoyerAndTypeCAndAnnee(1L, TypeChambre.DOUBLE, 2025))
+                .extracting(InscriptionAttente::getCin).containsExactly(111L);
+        assertThat(inscriptionRepository.findByIdFoyerAndTypeCAndAnnee(1L, TypeChambre.DOUBLE, 2026)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find the waitlist of rooms without foyer")
+    void findSansFoyer() {
+        assertThat(inscriptionRepository.findByIdFoyerAndTypeCAndAnnee(null, TypeChambre.DOUBLE, 2025))
+                .extracting(InscriptionAttente::getCin).containsExactly(333L);
+    }
+}
@@ -0,0 +1,93 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import tn.esprit.spring.DAO.Entities.OccupationChambre;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class OccupationChambreRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OccupationChambreRepository occupationRepository;
+
+    private OccupationChambre occupation;
+
+    @BeforeEach
+    void setUp() {
+        occupation = OccupationChambre.builder()
+                .idChambre(1L)
+                .annee(2025)
+                .occupees(1)
+                .capacite(2)
+                .build();
+        entityManager.persistAndFlush(occupation);
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should take a bed while capacity is not reached")
+    void occuperPlaces() {
+        assertThat(occupationRepository.occuperPlaces(1L, 2025, 1)).isEqualTo(1);
+        assertThat(occupationRepository.occuperPlaces(1L, 2025, 1)).isZero();
+
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2025).getOccupees()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not take a bed for an unknown chambre or year")
+    void occuperPlaceLigneAbsente() {
+        assertThat(occupationRepository.occuperPlaces(1L, 2024, 1)).isZero();
+        assertThat(occupationRepository.existsByIdChambreAndAnnee(1L, 2024)).isFalse();
+        assertThat(occupationRepository.existsByIdChambreAndAnnee(1L, 2025)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should take several beds only if they all fit")
+    void occuperPlacesPlusieursLits() {
+        assertThat(occupationRepository.occuperPlaces(1L, 2025, 2)).isZero();
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2025).getOccupees()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should free a bed without going below zero")
+    void libererPlace() {
+        assertThat(occupationRepository.libererPlace(1L, 2025)).isEqualTo(1);
+        assertThat(occupationRepository.libererPlace(1L, 2025)).isZero();
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2025).getOccupees()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should add a bed without checking capacity")
+    void ajouterPlace() {
+        occupationRepository.ajouterPlace(1L, 2025);
+        occupationRepository.ajouterPlace(1L, 2025);
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2025).getOccupees()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should create a missing row and leave an existing one untouched")
+    void creerSiAbsente() {
+        occupationRepository.creerSiAbsente(1L, 2024, 1, 3);
+        occupationRepository.creerSiAbsente(1L, 2025, 0, 2);
+        entityManager.clear();
+
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2024).getOccupees()).isEqualTo(1);
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2024).getCapacite()).isEqualTo(3);
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2025).getOccupees()).isEqualTo(1);
+        assertThat(occupationRepository.count()).isEqualTo(2);
+    }
+}
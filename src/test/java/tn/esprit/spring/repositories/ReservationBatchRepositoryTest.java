@@ -0,0 +1,103 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import tn.esprit.spring.DAO.Entities.Bloc;
+import tn.esprit.spring.DAO.Entities.Chambre;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.OccupationChambre;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Entities.TypeChambre;
+import tn.esprit.spring.DAO.Repositories.ChambreRepository;
+import tn.esprit.spring.DAO.Repositories.OccupationChambreRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationBatchRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ReservationBatchRepository.class)
+class ReservationBatchRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private OccupationChambreRepository occupationRepository;
+
+    private Chambre chambre;
+    private Etudiant etudiant1;
+    private Etudiant etudiant2;
+
+    @BeforeEach
+    void setUp() {
+        Bloc bloc = Bloc.builder().nomBloc("Bloc A").capaciteBloc(50L).build();
+        entityManager.persistAndFlush(bloc);
+        chambre = Chambre.builder().numeroChambre(101L).typeC(TypeChambre.DOUBLE).bloc(bloc).build();
+        entityManager.persistAndFlush(chambre);
+        etudiant1 = Etudiant.builder().nomEt("Doe").prenomEt("John").cin(111L).build();
+        etudiant2 = Etudiant.builder().nomEt("Doe").prenomEt("Jane").cin(222L).build();
+        entityManager.persistAndFlush(etudiant1);
+        entityManager.persistAndFlush(etudiant2);
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should insert reservations, their students and their chambre in batch")
+    void insererReservations() {
+        LocalDate date = LocalDate.of(2025, 10, 1);
+        Reservation r1 = Reservation.builder().idReservation("2025/2026-Bloc A-101-111")
+                .anneeUniversitaire(date).estValide(true)
+                .etudiants(new ArrayList<>(List.of(etudiant1))).build();
+        Reservation r2 = Reservation.builder().idReservation("2025/2026-Bloc A-101-222")
+                .anneeUniversitaire(date).estValide(true)
+                .etudiants(new ArrayList<>(List.of(etudiant2))).build();
+
+        reservationBatchRepository.insererReservations(Map.of(chambre.getIdChambre(), List.of(r1, r2)));
+
+        assertThat(reservationRepository.count()).isEqualTo(2);
+        assertThat(chambreRepository.countReservationsByIdChambreAndReservationsAnneeUniversitaireBetween(
+                chambre.getIdChambre(), LocalDate.of(2025, 9, 15), LocalDate.of(2026, 6, 30))).isEqualTo(2);
+        assertThat(reservationRepository.findByEtudiantsCinAndEstValide(222L, true).getIdReservation())
+                .isEqualTo("2025/2026-Bloc A-101-222");
+        assertThat(chambreRepository.findByReservationsIdReservation("2025/2026-Bloc A-101-111").getNumeroChambre())
+                .isEqualTo(101L);
+    }
+
+    @Test
+    @DisplayName("Should add beds to existing occupancy rows without exceeding capacity")
+    void ajouterOccupations() {
+        entityManager.persistAndFlush(OccupationChambre.builder().idChambre(1L).annee(2025).occupees(1).capacite(3).build());
+        entityManager.persistAndFlush(OccupationChambre.builder().idChambre(2L).annee(2025).occupees(1).capacite(2).build());
+
+        List<Long> nonMisesAJour = reservationBatchRepository.ajouterOccupations(Map.of(1L, 2, 2L, 2, 3L, 1), 2025);
+
+        assertThat(nonMisesAJour).containsExactlyInAnyOrder(2L, 3L);
+        entityManager.clear();
+        assertThat(occupationRepository.findByIdChambreAndAnnee(1L, 2025).getOccupees()).isEqualTo(3);
+        assertThat(occupationRepository.findByIdChambreAndAnnee(2L, 2025).getOccupees()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,118 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.DAO.Entities.Etudiant;
+import tn.esprit.spring.DAO.Entities.Reservation;
+import tn.esprit.spring.DAO.Repositories.EtudiantRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationPartitionRepository;
+import tn.esprit.spring.DAO.Repositories.ReservationRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sous H2 (pas de partitionnement), le détachement recopie puis supprime les lignes de l'année.
+// Le CREATE TABLE valide la transaction en cours: pas de rollback automatique, nettoyage explicite.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ReservationPartitionRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationPartitionRepositoryTest {
+
+    @Autowired
+    private ReservationPartitionRepository partitionRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        Etudiant etudiant = etudiantRepository.save(Etudiant.builder().nomEt("Doe").prenomEt("John").cin(111L).build());
+        // 2022/2023 (dont le 31 juillet 2023), puis 2023/2024
+        for (LocalDate date : List.of(LocalDate.of(2022, 9, 15), LocalDate.of(2023, 7, 31), LocalDate.of(2023, 9, 15))) {
+            reservationRepository.save(Reservation.builder()
+                    .idReservation("RES-" + date)
+                    .anneeUniversitaire(date)
+                    .estValide(true)
+                    .etudiants(new ArrayList<>(List.of(etudiant)))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table if exists t_reservation_2022");
+        jdbcTemplate.execute("drop table if exists t_reservation_etudiants_2022");
+        reservationRepository.deleteAll();
+        etudiantRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should not report partitioning on H2")
+    void estPartitionnee() {
+        assertThat(partitionRepository.estPartitionnee()).isFalse();
+        assertThat(partitionRepository.creerPartition(2024)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should move a closed academic year out of the live tables")
+    void detacherAnnee() {
+        int detachees = partitionRepository.detacherAnnee(2022);
+
+        assertThat(detachees).isEqualTo(2);
+        assertThat(reservationRepository.findAll())
+                .extracting(Reservation::getIdReservation).containsExactly("RES-2023-09-15");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from t_reservation_etudiants", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("select id_reservation from t_reservation_2022 order by id", String.class))
+                .containsExactly("RES-2022-09-15", "RES-2023-07-31");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from t_reservation_etudiants_2022", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should do nothing when detaching the same year again")
+    void detacherAnneeRelance() {
+        partitionRepository.detacherAnnee(2022);
+
+        assertThat(partitionRepository.detacherAnnee(2022)).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from t_reservation_2022", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from t_reservation_etudiants_2022", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should finish a detachment interrupted after a partial copy")
+    void detacherAnneeReprise() {
+        // Interruption après la copie d'une des deux réservations, avant toute suppression
+        jdbcTemplate.execute("create table t_reservation_2022 as select * from t_reservation " +
+                "where id_reservation = 'RES-2022-09-15'");
+
+        assertThat(partitionRepository.detacherAnnee(2022)).isEqualTo(2);
+        assertThat(reservationRepository.findAll())
+                .extracting(Reservation::getIdReservation).containsExactly("RES-2023-09-15");
+        assertThat(jdbcTemplate.queryForList("select id_reservation from t_reservation_2022 order by id", String.class))
+                .containsExactly("RES-2022-09-15", "RES-2023-07-31");
+    }
+}
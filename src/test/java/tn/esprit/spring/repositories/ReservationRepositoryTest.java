@@ -7,16 +7,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import tn.esprit.spring.DAO.Entities.Etudiant;
 import tn.esprit.spring.DAO.Entities.Reservation;
 import tn.esprit.spring.DAO.Repositories.ReservationRepository;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -63,11 +70,39 @@ class ReservationRepositoryTest {
     @Test
     @DisplayName("Should find reservation by ID")
     void findById() {
-        Optional<Reservation> found = reservationRepository.findById("RES001");
+        Optional<Reservation> found = reservationRepository.findById(reservation1.getId());
         assertThat(found).isPresent();
         assertThat(found.get().getIdReservation()).isEqualTo("RES001");
     }
 
+    @Test
+    @DisplayName("Should find reservation by its readable code")
+    void findByIdReservation() {
+        assertThat(reservationRepository.findByIdReservation("RES002"))
+                .get().extracting(Reservation::getId).isEqualTo(reservation2.getId());
+        assertThat(reservationRepository.findByIdReservationIn(List.of("RES001", "RES999")))
+                .extracting(Reservation::getIdReservation).containsExactly("RES001");
+    }
+
+    @Test
+    @DisplayName("Should assign increasing surrogate keys from the sequence")
+    void idsDepuisLaSequence() {
+        assertThat(reservation1.getId()).isPositive();
+        assertThat(reservation2.getId()).isGreaterThan(reservation1.getId());
+    }
+
+    @Test
+    @DisplayName("Should reject a second reservation with the same code")
+    void codeUnique() {
+        Reservation doublon = Reservation.builder()
+                .idReservation("RES001")
+                .anneeUniversitaire(LocalDate.of(2023, 9, 1))
+                .estValide(true)
+                .build();
+        assertThatThrownBy(() -> reservationRepository.saveAndFlush(doublon))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
     @Test
     @DisplayName("Should save new reservation")
     void save() {
@@ -91,6 +126,49 @@ class ReservationRepositoryTest {
         assertThat(count).isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("Should count reservations per day, valid or not")
+    void countParJour() {
+        entityManager.persistAndFlush(Reservation.builder()
+                .idReservation("RES003")
+                .anneeUniversitaire(LocalDate.of(2024, 9, 1))
+                .estValide(true)
+                .build());
+
+        assertThat(reservationRepository.countParJour())
+                .extracting(ligne -> ligne[0], ligne -> ((Number) ligne[1]).longValue())
+                .containsExactlyInAnyOrder(tuple(LocalDate.of(2023, 9, 1), 1L), tuple(LocalDate.of(2024, 9, 1), 2L));
+    }
+
+    @Test
+    @DisplayName("Should store the academic year computed from the reservation date")
+    void anneeAcademique() {
+        Reservation juillet = Reservation.builder()
+                .idReservation("RES003")
+                .anneeUniversitaire(LocalDate.of(2024, 7, 31))
+                .estValide(true)
+                .build();
+        entityManager.persistAndFlush(juillet);
+
+        assertThat(reservation1.getAnneeAcademique()).isEqualTo(2023);
+        assertThat(reservation2.getAnneeAcademique()).isEqualTo(2024);
+        assertThat(juillet.getAnneeAcademique()).isEqualTo(2023);
+        // Bornes de l'année 2023/2024: le 31 juillet 2024 est compté, pas le 1er septembre 2024
+        assertThat(reservationRepository.countByAnneeUniversitaireBetween(
+                LocalDate.of(2023, 9, 1), LocalDate.of(2024, 8, 31))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should recompute the academic year when the date changes")
+    void anneeAcademiqueMiseAJour() {
+        reservation1.setAnneeUniversitaire(LocalDate.of(2025, 9, 1));
+        entityManager.persistAndFlush(reservation1);
+        entityManager.clear();
+
+        assertThat(reservationRepository.findByIdReservation("RES001"))
+                .get().extracting(Reservation::getAnneeAcademique).isEqualTo(2025);
+    }
+
     @Test
     @DisplayName("Should find reservation by etudiant cin and est valide")
     void findByEtudiantsCinAndEstValide() {
@@ -102,6 +180,28 @@ class ReservationRepositoryTest {
         // This is expected in a test environment
     }
 
+    @Test
+    @DisplayName("Should return the most recent valid reservation code of a student")
+    void findIdsReservationValide() {
+        reservation1.setEtudiants(new ArrayList<>(List.of(etudiant1)));
+        reservation2.setEtudiants(new ArrayList<>(List.of(etudiant1)));
+        entityManager.persist(Reservation.builder()
+                .idReservation("RES003")
+                .anneeUniversitaire(LocalDate.of(2025, 9, 20))
+                .estValide(true)
+                .etudiants(new ArrayList<>(List.of(etudiant1)))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // RES002 est plus récente que RES001 mais invalide
+        assertThat(reservationRepository.findIdsReservationValide(12345678L, PageRequest.of(0, 1)))
+                .containsExactly("RES003");
+        assertThat(reservationRepository.findIdsReservationValide(12345678L, PageRequest.of(0, 5)))
+                .containsExactly("RES003", "RES001");
+        assertThat(reservationRepository.findIdsReservationValide(99999999L, PageRequest.of(0, 1))).isEmpty();
+    }
+
     @Test
     @DisplayName("Should find reservations by est valide and annee universitaire between")
     void findByEstValideAndAnneeUniversitaireBetween() {
@@ -122,8 +222,8 @@ class ReservationRepositoryTest {
     @Test
     @DisplayName("Should delete reservation by id")
     void deleteById() {
-        reservationRepository.deleteById("RES001");
-        Optional<Reservation> found = reservationRepository.findById("RES001");
+        reservationRepository.deleteByIdReservation("RES001");
+        Optional<Reservation> found = reservationRepository.findByIdReservation("RES001");
         assertThat(found).isEmpty();
     }
 
@@ -150,4 +250,45 @@ class ReservationRepositoryTest {
         assertThat(invalidReservations).hasSize(1);
         assertThat(invalidReservations.get(0).isEstValide()).isFalse();
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Chunked invalidation should flip exactly the rows the per-row loop flipped")
+    void invaliderReservationsParLotsEquivalentALaBoucle() {
+        LocalDate debut = LocalDate.of(2023, 9, 15);
+        LocalDate fin = LocalDate.of(2024, 6, 30);
+        for (int i = 0; i < 7; i++) {
+            entityManager.persist(Reservation.builder()
+                    .idReservation("AU-" + i)
+                    .anneeUniversitaire(i == 6 ? fin : debut.plusMonths(i))
+                    .estValide(i != 3)
+                    .build());
+        }
+        entityManager.persist(Reservation.builder()
+                .idReservation("HORS-AU")
+                .anneeUniversitaire(fin.plusDays(1))
+                .estValide(true)
+                .build());
+        entityManager.flush();
+
+        // Ancien comportement: toutes les réservations valides de l'année passent à estValide=false
+        Map<String, Boolean> attendu = new HashMap<>();
+        reservationRepository.findAll().forEach(r -> attendu.put(r.getIdReservation(), r.isEstValide()));
+        reservationRepository.findByEstValideAndAnneeUniversitaireBetween(true, debut, fin)
+                .forEach(r -> attendu.put(r.getIdReservation(), false));
+        entityManager.clear();
+
+        long annulees = 0;
+        List<Long> ids;
+        while (!(ids = reservationRepository.findIdsReservationsValides(debut, fin, PageRequest.of(0, 2))).isEmpty()) {
+            assertThat(ids).hasSizeLessThanOrEqualTo(2);
+            annulees += reservationRepository.invaliderReservations(ids);
+        }
+
+        Map<String, Boolean> obtenu = new HashMap<>();
+        reservationRepository.findAll().forEach(r -> obtenu.put(r.getIdReservation(), r.isEstValide()));
+        assertThat(obtenu).isEqualTo(attendu);
+        // RES001 (2023-09-01) est avant le début de l'année; AU-3 était déjà invalide
+        assertThat(annulees).isEqualTo(6);
+        assertThat(obtenu.get("HORS-AU")).isTrue();
+    }
+}